@@ -1,12 +1,184 @@
 package site.clickbasketecom.ClickBasket.config;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
 import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Configuration for async operations.
+ * Each workload gets its own bounded executor so a backlog in one (e.g. a slow SMTP server)
+ * cannot starve the others. Pools are tuned under app.async.{name}.*
  */
 @Configuration
 @EnableAsync
-public class AsyncConfig {
+@RequiredArgsConstructor
+@Slf4j
+public class AsyncConfig implements AsyncConfigurer {
+
+    public static final String MAIL_EXECUTOR = "mailExecutor";
+    public static final String ANALYTICS_EXECUTOR = "analyticsExecutor";
+    public static final String MAINTENANCE_EXECUTOR = "maintenanceExecutor";
+    public static final String RECONCILIATION_EXECUTOR = "reconciliationExecutor";
+
+    private final Environment environment;
+
+    /**
+     * Outgoing email. Runs on the caller when full so no mail is lost.
+     */
+    @Bean(name = MAIL_EXECUTOR)
+    public ThreadPoolTaskExecutor mailExecutor() {
+        return buildExecutor("mail", 2, 4, 500, RejectionPolicy.CALLER_RUNS);
+    }
+
+    /**
+     * Fire-and-forget analytics work. Dropped when full.
+     */
+    @Bean(name = ANALYTICS_EXECUTOR)
+    public ThreadPoolTaskExecutor analyticsExecutor() {
+        return buildExecutor("analytics", 1, 2, 1000, RejectionPolicy.DROP);
+    }
+
+    /**
+     * Scheduled cleanup jobs, kept off the single scheduler thread.
+     */
+    @Bean(name = MAINTENANCE_EXECUTOR)
+    public ThreadPoolTaskExecutor maintenanceExecutor() {
+        return buildExecutor("maintenance", 1, 2, 50, RejectionPolicy.CALLER_RUNS);
+    }
+
+    /**
+     * Settlement reconciliation runs, one at a time. A second upload is refused rather than
+     * queued or run on the request thread.
+     */
+    @Bean(name = RECONCILIATION_EXECUTOR)
+    public ThreadPoolTaskExecutor reconciliationExecutor() {
+        return buildExecutor("reconciliation", 1, 1, 0, RejectionPolicy.ABORT);
+    }
+
+    /**
+     * Publish rejections of each executor. Queue depth, active threads and pool size are
+     * published by Boot's executor metrics, tagged with the same bean name.
+     */
+    @Bean
+    public MeterBinder asyncExecutorMetrics() {
+        Map<String, ThreadPoolTaskExecutor> executors = Map.of(
+                MAIL_EXECUTOR, mailExecutor(),
+                ANALYTICS_EXECUTOR, analyticsExecutor(),
+                MAINTENANCE_EXECUTOR, maintenanceExecutor(),
+                RECONCILIATION_EXECUTOR, reconciliationExecutor());
+
+        return registry -> executors.forEach((name, executor) -> {
+            Tags tags = Tags.of("name", name);
+            FunctionCounter.builder("executor.rejected", executor,
+                            e -> ((CountingRejectionHandler) e.getThreadPoolExecutor()
+                                    .getRejectedExecutionHandler()).getCount())
+                    .tags(tags).description("Tasks rejected because the queue was full").register(registry);
+        });
+    }
+
+    /**
+     * Unqualified @Async methods run on the maintenance pool.
+     */
+    @Override
+    public Executor getAsyncExecutor() {
+        return maintenanceExecutor();
+    }
+
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> log.error("Async task {} failed", method.getName(), ex);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Build a bounded executor that drains its queue on shutdown.
+     */
+    private ThreadPoolTaskExecutor buildExecutor(String name, int coreSize, int maxSize, int queueCapacity,
+                                                 RejectionPolicy defaultPolicy) {
+        String prefix = "app.async." + name + ".";
+        RejectionPolicy policy = RejectionPolicy.valueOf(environment.getProperty(
+                prefix + "rejection-policy", defaultPolicy.name()).trim().toUpperCase().replace('-', '_'));
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(environment.getProperty(prefix + "core-size", Integer.class, coreSize));
+        executor.setMaxPoolSize(environment.getProperty(prefix + "max-size", Integer.class, maxSize));
+        executor.setQueueCapacity(environment.getProperty(prefix + "queue-capacity", Integer.class, queueCapacity));
+        executor.setRejectedExecutionHandler(new CountingRejectionHandler(name, policy));
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(
+                environment.getProperty("app.async.await-termination-seconds", Integer.class, 30));
+
+        // Keep the bound in virtual-thread mode; only the threads themselves change
+        if (environment.getProperty("spring.threads.virtual.enabled", Boolean.class, false)) {
+            executor.setThreadFactory(new VirtualThreadTaskExecutor(name + "-").getVirtualThreadFactory());
+        }
+        return executor;
+    }
+
+    /**
+     * What to do with a task when the pool and its queue are full.
+     */
+    public enum RejectionPolicy {
+        CALLER_RUNS,
+        DROP,
+        /** Throw, so the caller can refuse the work. */
+        ABORT
+    }
+
+    /**
+     * Counts rejections before applying the pool's policy.
+     */
+    private static final class CountingRejectionHandler implements RejectedExecutionHandler {
+
+        private final String name;
+        private final RejectionPolicy policy;
+        private final AtomicLong count = new AtomicLong();
+
+        CountingRejectionHandler(String name, RejectionPolicy policy) {
+            this.name = name;
+            this.policy = policy;
+        }
+
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            count.incrementAndGet();
+            if (executor.isShutdown()) {
+                log.warn("Executor {} is shut down, task dropped", name);
+                return;
+            }
+            if (policy == RejectionPolicy.CALLER_RUNS) {
+                log.warn("Executor {} saturated, running task on caller thread", name);
+                task.run();
+            } else if (policy == RejectionPolicy.ABORT) {
+                throw new RejectedExecutionException("Executor " + name + " is busy");
+            } else {
+                log.warn("Executor {} saturated, task dropped", name);
+            }
+        }
+
+        long getCount() {
+            return count.get();
+        }
+    }
 }
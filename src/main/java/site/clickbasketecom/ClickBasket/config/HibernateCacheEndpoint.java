@@ -0,0 +1,102 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Actuator endpoint for the Hibernate second-level and query cache.
+ * GET /actuator/hibernatecache returns hit/miss/put statistics per region;
+ * DELETE /actuator/hibernatecache/{region} evicts a region after out-of-band database writes.
+ */
+@Component
+@Endpoint(id = "hibernatecache")
+@RequiredArgsConstructor
+@Slf4j
+public class HibernateCacheEndpoint {
+
+    private final EntityManagerFactory entityManagerFactory;
+
+    /**
+     * Cache statistics, overall and per region.
+     */
+    @ReadOperation
+    public CacheReport statistics() {
+        Statistics statistics = sessionFactory().getStatistics();
+
+        List<RegionStats> regions = new ArrayList<>();
+        Arrays.stream(statistics.getSecondLevelCacheRegionNames()).sorted().forEach(name -> {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(name);
+            if (region != null) {
+                regions.add(new RegionStats(name, region.getHitCount(), region.getMissCount(),
+                        region.getPutCount(), region.getElementCountInMemory()));
+            }
+        });
+
+        return new CacheReport(
+                statistics.isStatisticsEnabled(),
+                statistics.getSecondLevelCacheHitCount(),
+                statistics.getSecondLevelCacheMissCount(),
+                statistics.getSecondLevelCachePutCount(),
+                statistics.getQueryCacheHitCount(),
+                statistics.getQueryCacheMissCount(),
+                statistics.getQueryCachePutCount(),
+                regions);
+    }
+
+    /**
+     * Evict every entry of an entity or query region.
+     */
+    @DeleteOperation
+    public void evict(@Selector String region) {
+        sessionFactory().getCache().evictRegion(region);
+        log.info("Evicted cache region: {}", region);
+    }
+
+    private SessionFactory sessionFactory() {
+        return entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    /**
+     * Overall cache statistics.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class CacheReport {
+        private final boolean statisticsEnabled;
+        private final long secondLevelHits;
+        private final long secondLevelMisses;
+        private final long secondLevelPuts;
+        private final long queryHits;
+        private final long queryMisses;
+        private final long queryPuts;
+        private final List<RegionStats> regions;
+    }
+
+    /**
+     * Statistics of a single region.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class RegionStats {
+        private final String region;
+        private final long hits;
+        private final long misses;
+        private final long puts;
+        private final long elementsInMemory;
+    }
+}
@@ -0,0 +1,29 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+/**
+ * Configuration for service-layer metrics.
+ * Public methods of services annotated with @Timed(SERVICE_TIMER) are timed by the
+ * ServiceTimingAdvisor, through the proxy most services already have for their transactions.
+ * Timers are tagged only with class, method and exception (none on success), so the number of
+ * series is fixed by the code, not by traffic. Their latency histograms are configured under
+ * management.metrics.distribution.
+ */
+@Configuration
+public class MetricsConfig {
+
+    /** Name of the timer shared by all instrumented service methods. */
+    public static final String SERVICE_TIMER = "service.method";
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static ServiceTimingAdvisor serviceTimingAdvisor(ObjectProvider<MeterRegistry> meterRegistry) {
+        return new ServiceTimingAdvisor(meterRegistry::getObject);
+    }
+}
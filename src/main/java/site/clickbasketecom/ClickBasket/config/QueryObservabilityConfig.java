@@ -0,0 +1,48 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Role;
+
+import javax.sql.DataSource;
+
+/**
+ * Configuration for statement observability, in place of Hibernate's show-sql.
+ * Wraps the application DataSource (the routing one when a read replica is configured) in a
+ * datasource-proxy that reports every execution to QueryStatistics, and registers the filter
+ * that attributes statements to requests. Disabled with app.datasource.queries.enabled=false.
+ */
+@Configuration
+@ConditionalOnProperty(name = "app.datasource.queries.enabled", havingValue = "true", matchIfMissing = true)
+public class QueryObservabilityConfig {
+
+    private static final String DATA_SOURCE = "dataSource";
+
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static BeanPostProcessor queryStatisticsDataSourceProxy(ObjectProvider<QueryStatistics> queryStatistics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (DATA_SOURCE.equals(beanName) && bean instanceof DataSource dataSource
+                        && !(bean instanceof ProxyDataSource)) {
+                    return ProxyDataSourceBuilder.create(beanName, dataSource)
+                            .listener(queryStatistics.getObject())
+                            .build();
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public QueryStatisticsFilter queryStatisticsFilter(QueryStatistics queryStatistics) {
+        return new QueryStatisticsFilter(queryStatistics);
+    }
+}
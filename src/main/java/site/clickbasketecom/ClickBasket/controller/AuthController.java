@@ -71,4 +71,16 @@ public class AuthController {
         AuthResponse response = authService.refreshToken(refreshToken);
         return ResponseEntity.ok(response);
     }
+
+    @Operation(summary = "Logout and revoke refresh token")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "204", description = "Logged out successfully"),
+            @ApiResponse(responseCode = "401", description = "Invalid refresh token")
+    })
+    @PostMapping("/logout")
+    public ResponseEntity<Void> logout(@RequestHeader("Authorization") String authHeader) {
+        String refreshToken = authHeader.substring(7); // Remove "Bearer " prefix
+        authService.logout(refreshToken);
+        return ResponseEntity.noContent().build();
+    }
 }
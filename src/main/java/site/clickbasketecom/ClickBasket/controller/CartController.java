@@ -11,7 +11,10 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import site.clickbasketecom.ClickBasket.dto.cart.AddToCartRequest;
+import site.clickbasketecom.ClickBasket.dto.cart.ApplyCouponRequest;
+import site.clickbasketecom.ClickBasket.dto.cart.CartBatchRequest;
 import site.clickbasketecom.ClickBasket.dto.cart.CartResponse;
+import site.clickbasketecom.ClickBasket.dto.cart.MergeCartRequest;
 import site.clickbasketecom.ClickBasket.dto.cart.UpdateCartItemRequest;
 import site.clickbasketecom.ClickBasket.security.CustomUserDetails;
 import site.clickbasketecom.ClickBasket.service.CartService;
@@ -81,6 +84,70 @@ public class CartController {
         return ResponseEntity.ok(response);
     }
 
+    @Operation(summary = "Apply coupon to cart")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Coupon applied"),
+            @ApiResponse(responseCode = "400", description = "Invalid or expired coupon code")
+    })
+    @PostMapping("/coupon")
+    public ResponseEntity<CartResponse> applyCoupon(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody ApplyCouponRequest request) {
+        CartResponse response = cartService.applyCoupon(userDetails.getUserId(), request);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Remove coupon from cart")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Coupon removed")
+    })
+    @DeleteMapping("/coupon")
+    public ResponseEntity<CartResponse> removeCoupon(
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        CartResponse response = cartService.removeCoupon(userDetails.getUserId());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Reprice cart to current product prices",
+            description = "Accepts price and stock changes flagged on the cart")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cart repriced")
+    })
+    @PostMapping("/refresh")
+    public ResponseEntity<CartResponse> refreshCart(
+            @AuthenticationPrincipal CustomUserDetails userDetails) {
+        CartResponse response = cartService.refreshCart(userDetails.getUserId());
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Apply several cart operations at once",
+            description = "Operations run in order; if any fails, none are applied")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Cart updated"),
+            @ApiResponse(responseCode = "400", description = "Invalid operation or insufficient stock"),
+            @ApiResponse(responseCode = "404", description = "Product not found")
+    })
+    @PostMapping("/batch")
+    public ResponseEntity<CartResponse> applyBatch(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody CartBatchRequest request) {
+        CartResponse response = cartService.applyBatch(userDetails.getUserId(), request);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Merge a guest cart into the current user's cart",
+            description = "Quantities are added and capped at stock; unavailable products are skipped")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Guest cart merged")
+    })
+    @PostMapping("/merge")
+    public ResponseEntity<CartResponse> mergeGuestCart(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody MergeCartRequest request) {
+        CartResponse response = cartService.mergeGuestCart(userDetails.getUserId(), request.getItems());
+        return ResponseEntity.ok(response);
+    }
+
     @Operation(summary = "Clear cart")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Cart cleared successfully")
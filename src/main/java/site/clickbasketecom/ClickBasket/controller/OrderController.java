@@ -15,6 +15,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
+import site.clickbasketecom.ClickBasket.dto.order.BulkOrderStatusRequest;
+import site.clickbasketecom.ClickBasket.dto.order.BulkOrderStatusResponse;
 import site.clickbasketecom.ClickBasket.dto.order.OrderResponse;
 import site.clickbasketecom.ClickBasket.dto.order.PlaceOrderRequest;
 import site.clickbasketecom.ClickBasket.security.CustomUserDetails;
@@ -40,6 +42,7 @@ public class OrderController {
     @ApiResponses(value = {
             @ApiResponse(responseCode = "201", description = "Order placed successfully"),
             @ApiResponse(responseCode = "400", description = "Invalid input or cart empty"),
+            @ApiResponse(responseCode = "409", description = "Cart prices or availability changed"),
             @ApiResponse(responseCode = "422", description = "Insufficient stock")
     })
     @PostMapping
@@ -134,6 +137,7 @@ public class OrderController {
     @Operation(summary = "Update order status (Admin only)")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "Order status updated"),
+            @ApiResponse(responseCode = "400", description = "Transition not allowed from the current status"),
             @ApiResponse(responseCode = "404", description = "Order not found")
     })
     @PutMapping("/admin/{orderId}/status")
@@ -144,4 +148,18 @@ public class OrderController {
         OrderResponse response = orderService.updateOrderStatus(orderId, status);
         return ResponseEntity.ok(response);
     }
+
+    @Operation(summary = "Update the status of many orders (Admin only)",
+            description = "Orders not in an allowed source status for the target are skipped")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Order statuses updated"),
+            @ApiResponse(responseCode = "400", description = "Invalid target status")
+    })
+    @PutMapping("/admin/status")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<BulkOrderStatusResponse> bulkUpdateOrderStatus(
+            @Valid @RequestBody BulkOrderStatusRequest request) {
+        BulkOrderStatusResponse response = orderService.bulkUpdateOrderStatus(request);
+        return ResponseEntity.ok(response);
+    }
 }
@@ -9,13 +9,21 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.web.bind.annotation.*;
 import site.clickbasketecom.ClickBasket.dto.payment.ConfirmPaymentRequest;
 import site.clickbasketecom.ClickBasket.dto.payment.InitiatePaymentRequest;
+import site.clickbasketecom.ClickBasket.dto.payment.PaymentCallbackResponse;
 import site.clickbasketecom.ClickBasket.dto.payment.PaymentResponse;
+import site.clickbasketecom.ClickBasket.dto.payment.RefundRequest;
+import site.clickbasketecom.ClickBasket.dto.payment.RefundResponse;
 import site.clickbasketecom.ClickBasket.security.CustomUserDetails;
+import site.clickbasketecom.ClickBasket.service.PaymentCallbackQueue;
 import site.clickbasketecom.ClickBasket.service.PaymentService;
+import site.clickbasketecom.ClickBasket.service.RefundService;
+
+import java.util.List;
 
 /**
  * REST controller for payment operations.
@@ -28,6 +36,8 @@ import site.clickbasketecom.ClickBasket.service.PaymentService;
 public class PaymentController {
 
     private final PaymentService paymentService;
+    private final PaymentCallbackQueue paymentCallbackQueue;
+    private final RefundService refundService;
 
     @Operation(summary = "Initiate a payment for an order")
     @ApiResponses(value = {
@@ -43,17 +53,17 @@ public class PaymentController {
         return ResponseEntity.status(HttpStatus.CREATED).body(response);
     }
 
-    @Operation(summary = "Confirm payment result (gateway callback simulation)")
+    @Operation(summary = "Confirm payment result (gateway callback simulation)",
+            description = "The callback is journaled and acknowledged immediately, then applied asynchronously")
     @ApiResponses(value = {
-            @ApiResponse(responseCode = "200", description = "Payment confirmed"),
-            @ApiResponse(responseCode = "400", description = "Invalid payment status"),
-            @ApiResponse(responseCode = "404", description = "Payment not found")
+            @ApiResponse(responseCode = "202", description = "Callback accepted"),
+            @ApiResponse(responseCode = "400", description = "Invalid input")
     })
     @PostMapping("/confirm")
-    public ResponseEntity<PaymentResponse> confirmPayment(
+    public ResponseEntity<PaymentCallbackResponse> confirmPayment(
             @Valid @RequestBody ConfirmPaymentRequest request) {
-        PaymentResponse response = paymentService.confirmPayment(request);
-        return ResponseEntity.ok(response);
+        PaymentCallbackResponse response = paymentCallbackQueue.accept(request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
     }
 
     @Operation(summary = "Get payment by order ID")
@@ -81,6 +91,40 @@ public class PaymentController {
         return ResponseEntity.ok(response);
     }
 
+    // ========================
+    // Refunds (Admin only)
+    // ========================
+
+    @Operation(summary = "Refund a payment in full or in part (Admin only)",
+            description = "The refund is recorded and submitted to the gateway asynchronously; "
+                    + "omit the amount to refund everything not yet refunded")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Refund requested"),
+            @ApiResponse(responseCode = "400", description = "Payment not refundable or amount too large"),
+            @ApiResponse(responseCode = "403", description = "Access denied"),
+            @ApiResponse(responseCode = "404", description = "Payment not found")
+    })
+    @PostMapping("/{paymentId}/refunds")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<RefundResponse> requestRefund(
+            @PathVariable Long paymentId,
+            @Valid @RequestBody RefundRequest request) {
+        RefundResponse response = refundService.requestRefund(paymentId, request);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @Operation(summary = "Get the refunds of a payment (Admin only)")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Refunds retrieved successfully"),
+            @ApiResponse(responseCode = "403", description = "Access denied"),
+            @ApiResponse(responseCode = "404", description = "Payment not found")
+    })
+    @GetMapping("/{paymentId}/refunds")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<List<RefundResponse>> getRefunds(@PathVariable Long paymentId) {
+        return ResponseEntity.ok(refundService.getRefunds(paymentId));
+    }
+
     // ========================
     // Simulation Endpoints (for testing)
     // ========================
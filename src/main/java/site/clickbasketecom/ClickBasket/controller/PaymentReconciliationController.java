@@ -0,0 +1,82 @@
+package site.clickbasketecom.ClickBasket.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+import site.clickbasketecom.ClickBasket.dto.payment.ReconciliationRunResponse;
+import site.clickbasketecom.ClickBasket.dto.payment.SettlementMismatchResponse;
+import site.clickbasketecom.ClickBasket.entity.SettlementMismatch;
+import site.clickbasketecom.ClickBasket.service.PaymentReconciliationService;
+
+import java.time.LocalDateTime;
+
+/**
+ * REST controller for reconciling gateway settlement files (Admin only).
+ */
+@RestController
+@RequestMapping("/api/v1/payments/reconciliations")
+@RequiredArgsConstructor
+@Tag(name = "Payment Reconciliation", description = "Settlement file reconciliation (Admin only)")
+@SecurityRequirement(name = "bearerAuth")
+@PreAuthorize("hasRole('ADMIN')")
+public class PaymentReconciliationController {
+
+    private final PaymentReconciliationService reconciliationService;
+
+    @Operation(summary = "Upload a settlement file for reconciliation",
+            description = "CSV with transaction_id, amount and status columns. Reconciled in the background; "
+                    + "poll the returned run for the outcome")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "202", description = "Reconciliation started"),
+            @ApiResponse(responseCode = "400", description = "Empty file or invalid period"),
+            @ApiResponse(responseCode = "403", description = "Access denied"),
+            @ApiResponse(responseCode = "409", description = "Another reconciliation is running")
+    })
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<ReconciliationRunResponse> startReconciliation(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime periodStart,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime periodEnd) {
+        ReconciliationRunResponse response = reconciliationService.start(file, periodStart, periodEnd);
+        return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+    }
+
+    @Operation(summary = "Get a reconciliation run")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Run retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Run not found")
+    })
+    @GetMapping("/{runId}")
+    public ResponseEntity<ReconciliationRunResponse> getRun(@PathVariable Long runId) {
+        return ResponseEntity.ok(reconciliationService.getRun(runId));
+    }
+
+    @Operation(summary = "Get the mismatches of a reconciliation run")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Mismatches retrieved successfully"),
+            @ApiResponse(responseCode = "404", description = "Run not found")
+    })
+    @GetMapping("/{runId}/mismatches")
+    public ResponseEntity<Page<SettlementMismatchResponse>> getMismatches(
+            @PathVariable Long runId,
+            @RequestParam(required = false) String type,
+            @PageableDefault(size = 50) Pageable pageable) {
+        SettlementMismatch.MismatchType mismatchType = type != null
+                ? SettlementMismatch.MismatchType.valueOf(type.toUpperCase())
+                : null;
+        return ResponseEntity.ok(reconciliationService.getMismatches(runId, mismatchType, pageable));
+    }
+}
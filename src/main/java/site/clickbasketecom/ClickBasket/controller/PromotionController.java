@@ -0,0 +1,69 @@
+package site.clickbasketecom.ClickBasket.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+import site.clickbasketecom.ClickBasket.dto.promotion.CreatePromotionRequest;
+import site.clickbasketecom.ClickBasket.dto.promotion.PromotionResponse;
+import site.clickbasketecom.ClickBasket.service.PromotionService;
+
+/**
+ * REST controller for promotion and coupon management.
+ */
+@RestController
+@RequestMapping("/api/v1/promotions")
+@RequiredArgsConstructor
+@Tag(name = "Promotion Management", description = "Coupon and automatic promotion operations")
+@SecurityRequirement(name = "bearerAuth")
+public class PromotionController {
+
+    private final PromotionService promotionService;
+
+    @Operation(summary = "Create promotion", description = "Leave code empty for an automatic promotion")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "201", description = "Promotion created successfully"),
+            @ApiResponse(responseCode = "400", description = "Invalid input or code already exists")
+    })
+    @PostMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PromotionResponse> createPromotion(
+            @Valid @RequestBody CreatePromotionRequest request) {
+        PromotionResponse response = promotionService.createPromotion(request);
+        return ResponseEntity.status(HttpStatus.CREATED).body(response);
+    }
+
+    @Operation(summary = "Get all promotions")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Promotions retrieved successfully")
+    })
+    @GetMapping
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Page<PromotionResponse>> getPromotions(
+            @PageableDefault(size = 20) Pageable pageable) {
+        Page<PromotionResponse> promotions = promotionService.getPromotions(pageable);
+        return ResponseEntity.ok(promotions);
+    }
+
+    @Operation(summary = "Deactivate promotion")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Promotion deactivated"),
+            @ApiResponse(responseCode = "404", description = "Promotion not found")
+    })
+    @PatchMapping("/{promotionId}/deactivate")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<PromotionResponse> deactivatePromotion(@PathVariable Long promotionId) {
+        PromotionResponse response = promotionService.deactivatePromotion(promotionId);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -0,0 +1,66 @@
+package site.clickbasketecom.ClickBasket.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.security.SecurityRequirement;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.security.core.annotation.AuthenticationPrincipal;
+import org.springframework.web.bind.annotation.*;
+import site.clickbasketecom.ClickBasket.dto.order.BulkFulfillmentRequest;
+import site.clickbasketecom.ClickBasket.dto.order.BulkFulfillmentResponse;
+import site.clickbasketecom.ClickBasket.dto.order.VendorOrderQueueResponse;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+import site.clickbasketecom.ClickBasket.security.CustomUserDetails;
+import site.clickbasketecom.ClickBasket.service.VendorOrderService;
+
+/**
+ * REST controller for vendor order fulfillment.
+ */
+@RestController
+@RequestMapping("/api/v1/vendors/me/orders")
+@RequiredArgsConstructor
+@Tag(name = "Vendor Fulfillment", description = "Vendor order queues and fulfillment operations")
+@SecurityRequirement(name = "bearerAuth")
+public class VendorOrderController {
+
+    private final VendorOrderService vendorOrderService;
+
+    @Operation(summary = "Get my fulfillment queue",
+            description = "Vendor orders in a status, oldest first. Pass nextAfterId as afterId for the next page")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Queue retrieved successfully"),
+            @ApiResponse(responseCode = "403", description = "Vendor not approved")
+    })
+    @GetMapping
+    @PreAuthorize("hasRole('VENDOR')")
+    public ResponseEntity<VendorOrderQueueResponse> getQueue(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @RequestParam(defaultValue = "PENDING") OrderItem.FulfillmentStatus status,
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(defaultValue = "20") int size) {
+        VendorOrderQueueResponse response = vendorOrderService.getQueue(userDetails.getUserId(), status, afterId,
+                size);
+        return ResponseEntity.ok(response);
+    }
+
+    @Operation(summary = "Update the status of many vendor orders",
+            description = "Orders not yours or not in a valid source status are skipped")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "Statuses updated"),
+            @ApiResponse(responseCode = "400", description = "Invalid target status"),
+            @ApiResponse(responseCode = "403", description = "Vendor not approved")
+    })
+    @PatchMapping("/status")
+    @PreAuthorize("hasRole('VENDOR')")
+    public ResponseEntity<BulkFulfillmentResponse> updateStatus(
+            @AuthenticationPrincipal CustomUserDetails userDetails,
+            @Valid @RequestBody BulkFulfillmentRequest request) {
+        BulkFulfillmentResponse response = vendorOrderService.updateStatus(userDetails.getUserId(), request);
+        return ResponseEntity.ok(response);
+    }
+}
@@ -1,11 +1,16 @@
 package site.clickbasketecom.ClickBasket.dto.auth;
 
+import jakarta.validation.Valid;
 import jakarta.validation.constraints.Email;
 import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import site.clickbasketecom.ClickBasket.dto.cart.AddToCartRequest;
+
+import java.util.List;
 
 /**
  * DTO for user login request.
@@ -22,4 +27,8 @@ public class LoginRequest {
 
     @NotBlank(message = "Password is required")
     private String password;
+
+    /** Items added while signed out; merged into the user's cart on login. */
+    @Size(max = 100, message = "At most 100 guest cart items")
+    private List<@Valid AddToCartRequest> guestCart;
 }
@@ -0,0 +1,22 @@
+package site.clickbasketecom.ClickBasket.dto.cart;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for applying a coupon code to the cart.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ApplyCouponRequest {
+
+    @NotBlank(message = "Coupon code is required")
+    @Size(max = 50, message = "Coupon code must not exceed 50 characters")
+    private String code;
+}
@@ -30,4 +30,9 @@ public class CartItemResponse {
     private BigDecimal totalPrice;
     private Integer availableStock;
     private Boolean inStock;
+    /** Product price changed since the line was priced; currentPrice holds the new price. */
+    private Boolean priceChanged;
+    private BigDecimal currentPrice;
+    /** False when the product was withdrawn or stock no longer covers the quantity. */
+    private Boolean available;
 }
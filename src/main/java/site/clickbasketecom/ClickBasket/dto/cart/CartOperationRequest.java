@@ -0,0 +1,32 @@
+package site.clickbasketecom.ClickBasket.dto.cart;
+
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for a single operation in a batch cart update.
+ * Quantity is required for ADD and UPDATE and ignored for REMOVE.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CartOperationRequest {
+
+    @NotNull(message = "Operation type is required")
+    private OperationType type;
+
+    @NotNull(message = "Product ID is required")
+    private Long productId;
+
+    @Min(value = 1, message = "Quantity must be at least 1")
+    private Integer quantity;
+
+    public enum OperationType {
+        ADD, UPDATE, REMOVE
+    }
+}
@@ -26,6 +26,12 @@ public class CartResponse {
     private Integer uniqueItems;
     private BigDecimal subtotal;
     private String couponCode;
+    /** Why the coupon on the cart gives no discount, if it does not. */
+    private String couponMessage;
+    /** Automatic promotion applied on top of any coupon. */
+    private String promotionName;
     private BigDecimal discountAmount;
     private BigDecimal total;
+    /** True if any line was repriced or became unavailable; checkout is refused until reviewed. */
+    private Boolean hasChanges;
 }
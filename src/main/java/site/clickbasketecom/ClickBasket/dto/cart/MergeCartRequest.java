@@ -0,0 +1,25 @@
+package site.clickbasketecom.ClickBasket.dto.cart;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for merging a guest cart into the signed-in user's cart.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MergeCartRequest {
+
+    @NotNull(message = "Items are required")
+    @Size(max = 100, message = "At most 100 items per merge")
+    private List<@Valid AddToCartRequest> items;
+}
@@ -0,0 +1,39 @@
+package site.clickbasketecom.ClickBasket.dto.email;
+
+import lombok.Builder;
+import lombok.Value;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+
+import java.math.BigDecimal;
+
+/**
+ * An order line as shown in an email. Amounts are display strings, so templates only read
+ * properties and never convert or concatenate values per line.
+ */
+@Value
+@Builder
+public class EmailLineView {
+
+    String productName;
+    String productSku;
+    int quantity;
+    String unitPrice;
+    String totalPrice;
+
+    public static EmailLineView of(OrderItem item) {
+        return EmailLineView.builder()
+                .productName(item.getProductName())
+                .productSku(item.getProductSku())
+                .quantity(item.getQuantity())
+                .unitPrice(formatAmount(item.getUnitPrice()))
+                .totalPrice(formatAmount(item.getTotalPrice()))
+                .build();
+    }
+
+    /**
+     * Amount with the currency symbol, or null when there is no amount.
+     */
+    public static String formatAmount(BigDecimal amount) {
+        return amount == null ? null : "₹" + amount.toPlainString();
+    }
+}
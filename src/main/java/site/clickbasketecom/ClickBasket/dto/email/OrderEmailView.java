@@ -0,0 +1,28 @@
+package site.clickbasketecom.ClickBasket.dto.email;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Model of the customer order emails (confirmation and delivery).
+ * Amounts are display strings; optional charges are null when there is nothing to show.
+ */
+@Value
+@Builder
+public class OrderEmailView {
+
+    String customerName;
+    String orderNumber;
+    LocalDateTime orderDate;
+    LocalDateTime deliveryDate;
+    List<EmailLineView> items;
+    String subtotal;
+    String shippingCost;
+    String taxAmount;
+    String discountAmount;
+    String totalAmount;
+    String shippingAddress;
+}
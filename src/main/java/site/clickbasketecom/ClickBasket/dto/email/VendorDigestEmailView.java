@@ -0,0 +1,22 @@
+package site.clickbasketecom.ClickBasket.dto.email;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Model of the summary email a vendor on digests receives for the orders of one window.
+ * Orders are the sections rendered from vendor-order-digest-entry when each order was placed.
+ */
+@Value
+@Builder
+public class VendorDigestEmailView {
+
+    String storeName;
+    int orderCount;
+    LocalDateTime firstOrderAt;
+    LocalDateTime lastOrderAt;
+    List<String> orders;
+}
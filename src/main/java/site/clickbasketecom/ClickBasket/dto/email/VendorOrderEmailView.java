@@ -0,0 +1,23 @@
+package site.clickbasketecom.ClickBasket.dto.email;
+
+import lombok.Builder;
+import lombok.Value;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Model of the new order notification sent to a vendor, covering only that vendor's lines.
+ */
+@Value
+@Builder
+public class VendorOrderEmailView {
+
+    String storeName;
+    String orderNumber;
+    LocalDateTime orderDate;
+    List<EmailLineView> items;
+    String itemTotal;
+    String customerName;
+    String shippingAddress;
+}
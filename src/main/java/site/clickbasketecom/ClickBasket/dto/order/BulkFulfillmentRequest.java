@@ -0,0 +1,35 @@
+package site.clickbasketecom.ClickBasket.dto.order;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+
+import java.util.List;
+
+/**
+ * DTO for moving many vendor orders to a new fulfillment status at once.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFulfillmentRequest {
+
+    @NotEmpty(message = "At least one vendor order ID is required")
+    @Size(max = 1000, message = "At most 1000 vendor orders per request")
+    private List<@NotNull Long> vendorOrderIds;
+
+    @NotNull(message = "Target status is required")
+    private OrderItem.FulfillmentStatus status;
+
+    @Size(max = 100, message = "Tracking number must not exceed 100 characters")
+    private String trackingNumber;
+
+    @Size(max = 100, message = "Shipping carrier must not exceed 100 characters")
+    private String shippingCarrier;
+}
@@ -0,0 +1,23 @@
+package site.clickbasketecom.ClickBasket.dto.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of a bulk fulfillment update.
+ * Vendor orders that were not the caller's or not in a valid source status are skipped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkFulfillmentResponse {
+
+    private String status;
+    private Integer requested;
+    private Integer updated;
+    private Integer itemsUpdated;
+    private Integer ordersUpdated;
+}
@@ -0,0 +1,29 @@
+package site.clickbasketecom.ClickBasket.dto.order;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import site.clickbasketecom.ClickBasket.entity.Order;
+
+import java.util.List;
+
+/**
+ * DTO for moving many orders to a new status at once.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusRequest {
+
+    @NotEmpty(message = "At least one order ID is required")
+    @Size(max = 5000, message = "At most 5000 orders per request")
+    private List<@NotNull Long> orderIds;
+
+    @NotNull(message = "Target status is required")
+    private Order.OrderStatus status;
+}
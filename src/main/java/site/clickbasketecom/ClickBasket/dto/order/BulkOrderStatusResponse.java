@@ -0,0 +1,21 @@
+package site.clickbasketecom.ClickBasket.dto.order;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * DTO for the outcome of a bulk order status update.
+ * Orders not in an allowed source status are skipped.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkOrderStatusResponse {
+
+    private String status;
+    private Integer requested;
+    private Integer updated;
+}
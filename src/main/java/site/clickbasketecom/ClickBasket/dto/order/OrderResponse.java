@@ -59,6 +59,7 @@ public class OrderResponse {
     private String notes;
     private String trackingNumber;
     private String shippingCarrier;
+    private Boolean archived;
 
     // Timestamps
     private LocalDateTime createdAt;
@@ -0,0 +1,26 @@
+package site.clickbasketecom.ClickBasket.dto.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * DTO for one page of a vendor fulfillment queue.
+ * Pass nextAfterId as afterId to get the following page.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VendorOrderQueueResponse {
+
+    private String status;
+    private List<VendorOrderResponse> orders;
+    private Long nextAfterId;
+    private Boolean hasMore;
+}
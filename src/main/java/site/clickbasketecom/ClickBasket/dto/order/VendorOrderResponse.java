@@ -0,0 +1,44 @@
+package site.clickbasketecom.ClickBasket.dto.order;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * DTO for a vendor's part of an order.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class VendorOrderResponse {
+
+    private Long id;
+    private Long orderId;
+    private String orderNumber;
+    private String status;
+    private Integer itemCount;
+    private BigDecimal subtotal;
+    private List<OrderItemResponse> items;
+
+    // Shipping Address
+    private String shippingName;
+    private String shippingPhone;
+    private String shippingAddress;
+    private String shippingCity;
+    private String shippingState;
+    private String shippingZip;
+    private String shippingCountry;
+
+    private String trackingNumber;
+    private String shippingCarrier;
+    private LocalDateTime shippedAt;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,25 @@
+package site.clickbasketecom.ClickBasket.dto.payment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO acknowledging a journaled payment gateway callback.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaymentCallbackResponse {
+
+    private Long id;
+    private Long paymentId;
+    private String status;
+    private LocalDateTime receivedAt;
+}
@@ -0,0 +1,33 @@
+package site.clickbasketecom.ClickBasket.dto.payment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a settlement reconciliation run and its totals.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class ReconciliationRunResponse {
+
+    private Long id;
+    private String fileName;
+    private String status;
+    private LocalDateTime periodStart;
+    private LocalDateTime periodEnd;
+    private Long rowsRead;
+    private Long paymentsScanned;
+    private Long matched;
+    private Long mismatchCount;
+    private String errorMessage;
+    private LocalDateTime startedAt;
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,29 @@
+package site.clickbasketecom.ClickBasket.dto.payment;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for refunding a payment.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class RefundRequest {
+
+    // Optional; the whole outstanding amount when omitted
+    @DecimalMin(value = "0.01", message = "Refund amount must be positive")
+    @Digits(integer = 10, fraction = 2, message = "Refund amount has at most 2 decimal places")
+    private BigDecimal amount;
+
+    @Size(max = 500, message = "Reason must be at most 500 characters")
+    private String reason;
+}
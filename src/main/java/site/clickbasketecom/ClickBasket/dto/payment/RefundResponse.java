@@ -0,0 +1,31 @@
+package site.clickbasketecom.ClickBasket.dto.payment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for a payment refund.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class RefundResponse {
+
+    private Long id;
+    private Long paymentId;
+    private BigDecimal amount;
+    private String reason;
+    private String status;
+    private String gatewayRefundId;
+    private String lastError;
+    private LocalDateTime requestedAt;
+    private LocalDateTime processedAt;
+}
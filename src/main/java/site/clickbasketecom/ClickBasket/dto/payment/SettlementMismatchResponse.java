@@ -0,0 +1,30 @@
+package site.clickbasketecom.ClickBasket.dto.payment;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * DTO for one difference reported by a reconciliation run.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class SettlementMismatchResponse {
+
+    private Long id;
+    private String type;
+    private String transactionId;
+    private Long paymentId;
+    private BigDecimal settledAmount;
+    private BigDecimal paymentAmount;
+    private String settledStatus;
+    private String paymentStatus;
+    private String details;
+}
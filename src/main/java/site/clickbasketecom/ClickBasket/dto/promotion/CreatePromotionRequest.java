@@ -0,0 +1,58 @@
+package site.clickbasketecom.ClickBasket.dto.promotion;
+
+import jakarta.validation.constraints.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import site.clickbasketecom.ClickBasket.entity.Promotion;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for creating a promotion.
+ * Leave code empty for an automatic promotion.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CreatePromotionRequest {
+
+    @NotBlank(message = "Promotion name is required")
+    @Size(max = 150, message = "Name must not exceed 150 characters")
+    private String name;
+
+    @Size(min = 3, max = 50, message = "Code must be between 3 and 50 characters")
+    @Pattern(regexp = "^[A-Za-z0-9_-]+$", message = "Code may only contain letters, digits, '-' and '_'")
+    private String code;
+
+    @NotNull(message = "Promotion type is required")
+    private Promotion.PromotionType type;
+
+    private Promotion.PromotionScope scope;
+
+    private Long scopeId;
+
+    @DecimalMin(value = "0.01", message = "Discount value must be at least 0.01")
+    @Digits(integer = 10, fraction = 2, message = "Invalid discount value format")
+    private BigDecimal discountValue;
+
+    @DecimalMin(value = "0.00", message = "Minimum spend cannot be negative")
+    @Digits(integer = 10, fraction = 2, message = "Invalid minimum spend format")
+    private BigDecimal minSpend;
+
+    @Min(value = 1, message = "Buy quantity must be at least 1")
+    private Integer buyQuantity;
+
+    @Min(value = 1, message = "Get quantity must be at least 1")
+    private Integer getQuantity;
+
+    @Min(value = 1, message = "Usage limit must be at least 1")
+    private Integer usageLimit;
+
+    private LocalDateTime startsAt;
+
+    private LocalDateTime endsAt;
+}
@@ -0,0 +1,38 @@
+package site.clickbasketecom.ClickBasket.dto.promotion;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * DTO for promotion response.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PromotionResponse {
+
+    private Long id;
+    private String name;
+    private String code;
+    private String type;
+    private String scope;
+    private Long scopeId;
+    private BigDecimal discountValue;
+    private BigDecimal minSpend;
+    private Integer buyQuantity;
+    private Integer getQuantity;
+    private Integer usageLimit;
+    private Integer usageCount;
+    private LocalDateTime startsAt;
+    private LocalDateTime endsAt;
+    private Boolean isActive;
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,136 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Closed order moved out of the live tables by the OrderArchiver.
+ * archived_orders is range-partitioned by month on created_at (see schema.sql), so its
+ * database key is (id, created_at); ids are the original order ids and stay unique.
+ * Rows are written only by the archiver's bulk insert and never updated.
+ */
+@Entity
+@Immutable
+@Table(name = "archived_orders", indexes = {
+        @Index(name = "idx_archived_order_number", columnList = "order_number"),
+        @Index(name = "idx_archived_order_user", columnList = "user_id, created_at")
+})
+@Getter
+@NoArgsConstructor
+public class ArchivedOrder {
+
+    @Id
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "order_number", nullable = false, length = 50)
+    private String orderNumber;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private Order.OrderStatus status;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(name = "shipping_cost", precision = 12, scale = 2)
+    private BigDecimal shippingCost;
+
+    @Column(name = "tax_amount", precision = 12, scale = 2)
+    private BigDecimal taxAmount;
+
+    @Column(name = "discount_amount", precision = 12, scale = 2)
+    private BigDecimal discountAmount;
+
+    @Column(name = "total_amount", nullable = false, precision = 12, scale = 2)
+    private BigDecimal totalAmount;
+
+    @Column(name = "coupon_code", length = 50)
+    private String couponCode;
+
+    // Shipping Address
+    @Column(name = "shipping_name", nullable = false, length = 200)
+    private String shippingName;
+
+    @Column(name = "shipping_phone", nullable = false, length = 20)
+    private String shippingPhone;
+
+    @Column(name = "shipping_address", nullable = false, length = 500)
+    private String shippingAddress;
+
+    @Column(name = "shipping_city", nullable = false, length = 100)
+    private String shippingCity;
+
+    @Column(name = "shipping_state", nullable = false, length = 100)
+    private String shippingState;
+
+    @Column(name = "shipping_zip", nullable = false, length = 20)
+    private String shippingZip;
+
+    @Column(name = "shipping_country", nullable = false, length = 100)
+    private String shippingCountry;
+
+    // Billing Address
+    @Column(name = "billing_name", length = 200)
+    private String billingName;
+
+    @Column(name = "billing_phone", length = 20)
+    private String billingPhone;
+
+    @Column(name = "billing_address", length = 500)
+    private String billingAddress;
+
+    @Column(name = "billing_city", length = 100)
+    private String billingCity;
+
+    @Column(name = "billing_state", length = 100)
+    private String billingState;
+
+    @Column(name = "billing_zip", length = 20)
+    private String billingZip;
+
+    @Column(name = "billing_country", length = 100)
+    private String billingCountry;
+
+    @Column(columnDefinition = "TEXT")
+    private String notes;
+
+    @Column(name = "tracking_number", length = 100)
+    private String trackingNumber;
+
+    @Column(name = "shipping_carrier", length = 100)
+    private String shippingCarrier;
+
+    // Snapshot of the payment, which is deleted with the live order
+    @Column(name = "payment_method", length = 50)
+    private String paymentMethod;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "payment_status", length = 30)
+    private Payment.PaymentStatus paymentStatus;
+
+    @Column(name = "transaction_id", length = 100)
+    private String transactionId;
+
+    @Column(name = "paid_at")
+    private LocalDateTime paidAt;
+
+    @Column(name = "refund_amount", precision = 12, scale = 2)
+    private BigDecimal refundAmount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    @Column(name = "archived_at", nullable = false)
+    private LocalDateTime archivedAt;
+}
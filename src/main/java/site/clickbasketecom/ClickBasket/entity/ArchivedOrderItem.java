@@ -0,0 +1,74 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Immutable;
+import site.clickbasketecom.ClickBasket.util.Money;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Item of an ArchivedOrder.
+ * archived_order_items is partitioned on the parent order's created_at, copied into
+ * order_created_at, so an order and its items always land in the same month.
+ */
+@Entity
+@Immutable
+@Table(name = "archived_order_items", indexes = {
+        @Index(name = "idx_archived_order_item_order", columnList = "order_id, order_created_at")
+})
+@Getter
+@NoArgsConstructor
+public class ArchivedOrderItem {
+
+    @Id
+    private Long id;
+
+    @Column(name = "order_id", nullable = false)
+    private Long orderId;
+
+    @Column(name = "order_created_at", nullable = false)
+    private LocalDateTime orderCreatedAt;
+
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "vendor_id", nullable = false)
+    private Long vendorId;
+
+    @Column(name = "product_name", nullable = false, length = 200)
+    private String productName;
+
+    @Column(name = "product_sku", length = 50)
+    private String productSku;
+
+    @Column(name = "product_image_url", length = 500)
+    private String productImageUrl;
+
+    @Column(nullable = false)
+    private Integer quantity;
+
+    @Column(name = "unit_price", nullable = false, precision = 12, scale = 2)
+    private BigDecimal unitPrice;
+
+    @Column(name = "discount_amount", precision = 12, scale = 2)
+    private BigDecimal discountAmount;
+
+    @Column(name = "tax_amount", precision = 12, scale = 2)
+    private BigDecimal taxAmount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "fulfillment_status", length = 30)
+    private OrderItem.FulfillmentStatus fulfillmentStatus;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    public BigDecimal getTotalPrice() {
+        return Money.toDecimal(Money.multiply(Money.toMinor(unitPrice), quantity)
+                - Money.toMinor(discountAmount)
+                + Money.toMinor(taxAmount));
+    }
+}
@@ -2,6 +2,7 @@ package site.clickbasketecom.ClickBasket.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import site.clickbasketecom.ClickBasket.util.Money;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -12,7 +13,8 @@ import java.util.List;
  */
 @Entity
 @Table(name = "carts", indexes = {
-        @Index(name = "idx_cart_user", columnList = "user_id")
+        @Index(name = "idx_cart_user", columnList = "user_id"),
+        @Index(name = "idx_cart_updated_at", columnList = "updated_at, id")
 })
 @Getter
 @Setter
@@ -36,14 +38,20 @@ public class Cart extends BaseEntity {
     @Builder.Default
     private BigDecimal discountAmount = BigDecimal.ZERO;
 
+    public long getSubtotalMinor() {
+        long subtotal = 0L;
+        for (CartItem item : items) {
+            subtotal = Math.addExact(subtotal, item.getTotalPriceMinor());
+        }
+        return subtotal;
+    }
+
     public BigDecimal getSubtotal() {
-        return items.stream()
-                .map(CartItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        return Money.toDecimal(getSubtotalMinor());
     }
 
     public BigDecimal getTotal() {
-        return getSubtotal().subtract(discountAmount != null ? discountAmount : BigDecimal.ZERO);
+        return Money.toDecimal(getSubtotalMinor() - Money.toMinor(discountAmount));
     }
 
     public int getTotalItems() {
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import site.clickbasketecom.ClickBasket.util.Money;
 
 import java.math.BigDecimal;
 
@@ -42,17 +43,43 @@ public class CartItem extends BaseEntity {
     @Column(name = "unit_price", nullable = false, precision = 12, scale = 2)
     private BigDecimal unitPrice;
 
+    /** Line total in minor units, converted on first use and reset when price or quantity change. */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private final Money.CachedAmount totalPriceMinor = new Money.CachedAmount();
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+        totalPriceMinor.reset();
+    }
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+        totalPriceMinor.reset();
+    }
+
+    public long getTotalPriceMinor() {
+        return totalPriceMinor.isSet()
+                ? totalPriceMinor.get()
+                : totalPriceMinor.set(Money.multiply(Money.toMinor(unitPrice), quantity));
+    }
+
     public BigDecimal getTotalPrice() {
-        return unitPrice.multiply(new BigDecimal(quantity));
+        return Money.toDecimal(getTotalPriceMinor());
     }
 
     public void incrementQuantity() {
-        this.quantity++;
+        setQuantity(quantity + 1);
     }
 
     public void decrementQuantity() {
         if (this.quantity > 1) {
-            this.quantity--;
+            setQuantity(quantity - 1);
         }
     }
+
+    @PostLoad
+    void resetTotals() {
+        totalPriceMinor.reset();
+    }
 }
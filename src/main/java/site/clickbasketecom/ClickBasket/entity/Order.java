@@ -3,6 +3,7 @@ package site.clickbasketecom.ClickBasket.entity;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import lombok.*;
+import site.clickbasketecom.ClickBasket.util.Money;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -119,6 +120,10 @@ public class Order extends BaseEntity {
     @Column(name = "shipping_carrier", length = 100)
     private String shippingCarrier;
 
+    @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
+    @Builder.Default
+    private List<VendorOrder> vendorOrders = new ArrayList<>();
+
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true, fetch = FetchType.LAZY)
     @Builder.Default
     private List<OrderItem> items = new ArrayList<>();
@@ -127,14 +132,15 @@ public class Order extends BaseEntity {
     private Payment payment;
 
     public void calculateTotals() {
-        this.subtotal = items.stream()
-                .map(OrderItem::getTotalPrice)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        this.totalAmount = subtotal
-                .add(shippingCost != null ? shippingCost : BigDecimal.ZERO)
-                .add(taxAmount != null ? taxAmount : BigDecimal.ZERO)
-                .subtract(discountAmount != null ? discountAmount : BigDecimal.ZERO);
+        long itemsTotal = 0L;
+        for (OrderItem item : items) {
+            itemsTotal = Math.addExact(itemsTotal, item.getTotalPriceMinor());
+        }
+
+        this.subtotal = Money.toDecimal(itemsTotal);
+        long charges = Math.addExact(Money.toMinor(shippingCost), Money.toMinor(taxAmount));
+        this.totalAmount = Money.toDecimal(Math.subtractExact(Math.addExact(itemsTotal, charges),
+                Money.toMinor(discountAmount)));
     }
 
     public enum OrderStatus {
@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
+import site.clickbasketecom.ClickBasket.util.Money;
 
 import java.math.BigDecimal;
 
@@ -14,7 +15,8 @@ import java.math.BigDecimal;
 @Table(name = "order_items", indexes = {
         @Index(name = "idx_order_item_order", columnList = "order_id"),
         @Index(name = "idx_order_item_product", columnList = "product_id"),
-        @Index(name = "idx_order_item_vendor", columnList = "vendor_id")
+        @Index(name = "idx_order_item_vendor", columnList = "vendor_id"),
+        @Index(name = "idx_order_item_vendor_order", columnList = "vendor_order_id")
 })
 @Getter
 @Setter
@@ -35,6 +37,10 @@ public class OrderItem extends BaseEntity {
     @JoinColumn(name = "vendor_id", nullable = false)
     private Vendor vendor;
 
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vendor_order_id")
+    private VendorOrder vendorOrder;
+
     // Snapshot of product details at time of order
     @Column(name = "product_name", nullable = false, length = 200)
     private String productName;
@@ -67,11 +73,47 @@ public class OrderItem extends BaseEntity {
     @Builder.Default
     private FulfillmentStatus fulfillmentStatus = FulfillmentStatus.PENDING;
 
+    /** Line total in minor units, converted on first use and reset when a priced column changes. */
+    @Transient
+    @Getter(AccessLevel.NONE)
+    private final Money.CachedAmount totalPriceMinor = new Money.CachedAmount();
+
+    public void setQuantity(Integer quantity) {
+        this.quantity = quantity;
+        totalPriceMinor.reset();
+    }
+
+    public void setUnitPrice(BigDecimal unitPrice) {
+        this.unitPrice = unitPrice;
+        totalPriceMinor.reset();
+    }
+
+    public void setDiscountAmount(BigDecimal discountAmount) {
+        this.discountAmount = discountAmount;
+        totalPriceMinor.reset();
+    }
+
+    public void setTaxAmount(BigDecimal taxAmount) {
+        this.taxAmount = taxAmount;
+        totalPriceMinor.reset();
+    }
+
+    public long getTotalPriceMinor() {
+        if (totalPriceMinor.isSet()) {
+            return totalPriceMinor.get();
+        }
+        long total = Math.subtractExact(Money.multiply(Money.toMinor(unitPrice), quantity),
+                Money.toMinor(discountAmount));
+        return totalPriceMinor.set(Math.addExact(total, Money.toMinor(taxAmount)));
+    }
+
     public BigDecimal getTotalPrice() {
-        BigDecimal baseTotal = unitPrice.multiply(new BigDecimal(quantity));
-        return baseTotal
-                .subtract(discountAmount != null ? discountAmount : BigDecimal.ZERO)
-                .add(taxAmount != null ? taxAmount : BigDecimal.ZERO);
+        return Money.toDecimal(getTotalPriceMinor());
+    }
+
+    @PostLoad
+    void resetTotals() {
+        totalPriceMinor.reset();
     }
 
     public enum FulfillmentStatus {
@@ -0,0 +1,96 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.CreationTimestamp;
+import org.hibernate.annotations.UpdateTimestamp;
+
+import java.time.LocalDateTime;
+
+/**
+ * A rendered email waiting in the outbox.
+ * Written in the transaction that causes it, so mail only goes out for committed changes,
+ * and sent later in batches by the EmailDispatcher. Uses a pooled sequence rather than
+ * BaseEntity's identity column so the notifications of a batch are inserted in JDBC batches.
+ * Vendor order notifications for vendors on digests are held here, as one section each, until
+ * the VendorDigestSweeper folds them into a single email.
+ */
+@Entity
+@Table(name = "email_outbox", indexes = {
+        @Index(name = "idx_email_outbox_status", columnList = "status, id"),
+        @Index(name = "idx_email_outbox_digest", columnList = "digest_vendor_id, status")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboundEmail {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "email_outbox_seq")
+    @SequenceGenerator(name = "email_outbox_seq", sequenceName = "email_outbox_seq", allocationSize = 50)
+    private Long id;
+
+    @Column(nullable = false, length = 320)
+    private String recipient;
+
+    /**
+     * Lower-cased domain of the recipient, used to limit concurrent sends per domain.
+     */
+    @Column(nullable = false)
+    private String domain;
+
+    @Column(nullable = false, length = 500)
+    private String subject;
+
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private EmailStatus status = EmailStatus.PENDING;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    /**
+     * Vendor whose digest a HELD section belongs to.
+     */
+    @Column(name = "digest_vendor_id")
+    private Long digestVendorId;
+
+    /**
+     * When to attempt sending; for a HELD section, when its digest window closes.
+     */
+    @Column(name = "next_attempt_at", nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "sent_at")
+    private LocalDateTime sentAt;
+
+    @CreationTimestamp
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private LocalDateTime createdAt;
+
+    @UpdateTimestamp
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+
+    public enum EmailStatus {
+        /** Waiting for its next attempt. */
+        PENDING,
+        /** Claimed by a dispatcher run. */
+        SENDING,
+        SENT,
+        /** Rejected by the server or out of attempts; kept for inspection. */
+        DEAD,
+        /** Section of a vendor digest whose window is still open; never sent on its own. */
+        HELD
+    }
+}
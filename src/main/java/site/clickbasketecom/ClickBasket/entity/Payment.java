@@ -14,8 +14,7 @@ import java.time.LocalDateTime;
 @Entity
 @Table(name = "payments", indexes = {
         @Index(name = "idx_payment_order", columnList = "order_id"),
-        @Index(name = "idx_payment_transaction", columnList = "transaction_id"),
-        @Index(name = "idx_payment_status", columnList = "status")
+        @Index(name = "idx_payment_status_created", columnList = "status, created_at")
 })
 @Getter
 @Setter
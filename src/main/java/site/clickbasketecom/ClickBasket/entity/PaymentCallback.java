@@ -0,0 +1,63 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Journal entry for a payment gateway callback.
+ * Callbacks are appended here and acknowledged before they are applied, so a burst
+ * of callbacks costs one insert each on the request path.
+ * payment_id is deliberately not a foreign key: the append never reads payments,
+ * and callbacks for unknown payments are rejected when applied.
+ */
+@Entity
+@Table(name = "payment_callbacks", indexes = {
+        @Index(name = "idx_payment_callback_status", columnList = "status, id"),
+        @Index(name = "idx_payment_callback_payment", columnList = "payment_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class PaymentCallback extends BaseEntity {
+
+    @Column(name = "payment_id", nullable = false)
+    private Long paymentId;
+
+    @Column(name = "transaction_id", length = 100)
+    private String transactionId;
+
+    @Column(nullable = false)
+    private Boolean success;
+
+    @Column(name = "failure_reason", length = 500)
+    private String failureReason;
+
+    @Column(name = "gateway_response", columnDefinition = "TEXT")
+    private String gatewayResponse;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private CallbackStatus status = CallbackStatus.RECEIVED;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum CallbackStatus {
+        RECEIVED,
+        APPLIED,
+        REJECTED,
+        FAILED
+    }
+}
@@ -0,0 +1,87 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Promotion entity: a discount rule applied automatically or through a coupon code.
+ * PERCENT and FIXED discount the eligible lines; BUY_X_GET_Y makes every (buy + get)th
+ * units of an eligible line free. Scope limits eligible lines to a category or vendor.
+ */
+@Entity
+@Table(name = "promotions", indexes = {
+        @Index(name = "idx_promotion_active", columnList = "is_active, ends_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Promotion extends BaseEntity {
+
+    @Column(nullable = false, length = 150)
+    private String name;
+
+    // Null for automatic promotions
+    @Column(unique = true, length = 50)
+    private String code;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private PromotionType type;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private PromotionScope scope = PromotionScope.CART;
+
+    // Category or vendor ID for scoped promotions
+    @Column(name = "scope_id")
+    private Long scopeId;
+
+    // Percentage for PERCENT, amount for FIXED, unused for BUY_X_GET_Y
+    @Column(name = "discount_value", precision = 12, scale = 2)
+    private BigDecimal discountValue;
+
+    @Column(name = "min_spend", precision = 12, scale = 2)
+    private BigDecimal minSpend;
+
+    @Column(name = "buy_quantity")
+    private Integer buyQuantity;
+
+    @Column(name = "get_quantity")
+    private Integer getQuantity;
+
+    // Null for unlimited
+    @Column(name = "usage_limit")
+    private Integer usageLimit;
+
+    @Column(name = "usage_count", nullable = false)
+    @Builder.Default
+    private Integer usageCount = 0;
+
+    @Column(name = "starts_at")
+    private LocalDateTime startsAt;
+
+    @Column(name = "ends_at")
+    private LocalDateTime endsAt;
+
+    @Column(name = "is_active", nullable = false)
+    @Builder.Default
+    private Boolean isActive = true;
+
+    public enum PromotionType {
+        PERCENT,
+        FIXED,
+        BUY_X_GET_Y
+    }
+
+    public enum PromotionScope {
+        CART,
+        CATEGORY,
+        VENDOR
+    }
+}
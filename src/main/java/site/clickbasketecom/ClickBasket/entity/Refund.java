@@ -0,0 +1,62 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * A full or partial refund of a payment.
+ * Refunds are recorded as REQUESTED and submitted to the gateway in batches by the RefundProcessor;
+ * the payment's refund totals only change once the gateway has completed them.
+ */
+@Entity
+@Table(name = "refunds", indexes = {
+        @Index(name = "idx_refund_status", columnList = "status, id"),
+        @Index(name = "idx_refund_payment", columnList = "payment_id")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class Refund extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "payment_id", nullable = false)
+    private Payment payment;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal amount;
+
+    @Column(length = 500)
+    private String reason;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private RefundStatus status = RefundStatus.REQUESTED;
+
+    /** Gateway reference of a completed refund. */
+    @Column(name = "gateway_refund_id", length = 100)
+    private String gatewayRefundId;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Integer attempts = 0;
+
+    @Column(name = "last_error", length = 500)
+    private String lastError;
+
+    @Column(name = "processed_at")
+    private LocalDateTime processedAt;
+
+    public enum RefundStatus {
+        REQUESTED,
+        /** Handed to the gateway; re-submitted under the same refund id if no result is recorded. */
+        SUBMITTED,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -0,0 +1,70 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/**
+ * A difference found by a settlement reconciliation run.
+ * Uses a pooled sequence rather than BaseEntity's identity column so the
+ * report rows of a large run are inserted in JDBC batches.
+ */
+@Entity
+@Table(name = "settlement_mismatches", indexes = {
+        @Index(name = "idx_settlement_mismatch_run", columnList = "run_id, type")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SettlementMismatch {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "settlement_mismatch_seq")
+    @SequenceGenerator(name = "settlement_mismatch_seq", sequenceName = "settlement_mismatches_seq", allocationSize = 50)
+    private Long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "run_id", nullable = false)
+    private SettlementRun run;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    private MismatchType type;
+
+    @Column(name = "transaction_id", length = 100)
+    private String transactionId;
+
+    @Column(name = "payment_id")
+    private Long paymentId;
+
+    @Column(name = "settled_amount", precision = 12, scale = 2)
+    private BigDecimal settledAmount;
+
+    @Column(name = "payment_amount", precision = 12, scale = 2)
+    private BigDecimal paymentAmount;
+
+    @Column(name = "settled_status", length = 30)
+    private String settledStatus;
+
+    @Column(name = "payment_status", length = 30)
+    private String paymentStatus;
+
+    @Column(length = 500)
+    private String details;
+
+    public enum MismatchType {
+        /** In the file, no payment with that transaction id. */
+        MISSING_PAYMENT,
+        /** Settled payment with no row in the file. */
+        MISSING_SETTLEMENT,
+        AMOUNT_MISMATCH,
+        STATUS_MISMATCH,
+        /** A transaction id repeated in the file. */
+        DUPLICATE_SETTLEMENT,
+        /** A row that could not be parsed. */
+        INVALID_ROW
+    }
+}
@@ -0,0 +1,62 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One reconciliation of a gateway settlement file against payments.
+ */
+@Entity
+@Table(name = "settlement_runs")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class SettlementRun extends BaseEntity {
+
+    @Column(name = "file_name", nullable = false, length = 255)
+    private String fileName;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    @Builder.Default
+    private RunStatus status = RunStatus.RUNNING;
+
+    /** Only payments paid in [periodStart, periodEnd) are expected in the file, when set. */
+    @Column(name = "period_start")
+    private LocalDateTime periodStart;
+
+    @Column(name = "period_end")
+    private LocalDateTime periodEnd;
+
+    @Column(name = "rows_read", nullable = false)
+    @Builder.Default
+    private Long rowsRead = 0L;
+
+    @Column(name = "payments_scanned", nullable = false)
+    @Builder.Default
+    private Long paymentsScanned = 0L;
+
+    @Column(nullable = false)
+    @Builder.Default
+    private Long matched = 0L;
+
+    @Column(name = "mismatch_count", nullable = false)
+    @Builder.Default
+    private Long mismatchCount = 0L;
+
+    @Column(name = "error_message", length = 500)
+    private String errorMessage;
+
+    @Column(name = "finished_at")
+    private LocalDateTime finishedAt;
+
+    public enum RunStatus {
+        RUNNING,
+        COMPLETED,
+        FAILED
+    }
+}
@@ -4,6 +4,9 @@ import jakarta.persistence.*;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.Size;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
@@ -13,6 +16,8 @@ import java.util.List;
  * Vendor entity representing sellers on the platform.
  */
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "vendors")
 @Table(name = "vendors", indexes = {
         @Index(name = "idx_vendor_store_name", columnList = "store_name"),
         @Index(name = "idx_vendor_status", columnList = "status")
@@ -75,6 +80,19 @@ public class Vendor extends BaseEntity {
     @Builder.Default
     private Integer totalReviews = 0;
 
+    /** The column default backfills vendors that existed before the column was added. */
+    @Enumerated(EnumType.STRING)
+    @Column(name = "notification_mode", nullable = false, length = 20)
+    @ColumnDefault("'PER_ORDER'")
+    @Builder.Default
+    private NotificationMode notificationMode = NotificationMode.PER_ORDER;
+
+    /**
+     * How long new-order notifications are collected into one digest; null uses the default window.
+     */
+    @Column(name = "digest_window_minutes")
+    private Integer digestWindowMinutes;
+
     @OneToMany(mappedBy = "vendor", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @Builder.Default
     private List<Product> products = new ArrayList<>();
@@ -85,4 +103,11 @@ public class Vendor extends BaseEntity {
         SUSPENDED,
         REJECTED
     }
+
+    public enum NotificationMode {
+        /** One email per order. */
+        PER_ORDER,
+        /** One summary email per digest window. */
+        DIGEST
+    }
 }
@@ -0,0 +1,60 @@
+package site.clickbasketecom.ClickBasket.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * VendorOrder entity: the part of an order one vendor fulfills.
+ * Created per vendor when the order is placed; vendors work through these in queues by status.
+ */
+@Entity
+@Table(name = "vendor_orders", indexes = {
+        @Index(name = "idx_vendor_order_order", columnList = "order_id"),
+        @Index(name = "idx_vendor_order_queue", columnList = "vendor_id, status, id")
+}, uniqueConstraints = {
+        @UniqueConstraint(name = "uk_vendor_order_order_vendor", columnNames = { "order_id", "vendor_id" })
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VendorOrder extends BaseEntity {
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "order_id", nullable = false)
+    private Order order;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "vendor_id", nullable = false)
+    private Vendor vendor;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 30)
+    @Builder.Default
+    private OrderItem.FulfillmentStatus status = OrderItem.FulfillmentStatus.PENDING;
+
+    @Column(nullable = false, precision = 12, scale = 2)
+    private BigDecimal subtotal;
+
+    @Column(name = "item_count", nullable = false)
+    private Integer itemCount;
+
+    @Column(name = "tracking_number", length = 100)
+    private String trackingNumber;
+
+    @Column(name = "shipping_carrier", length = 100)
+    private String shippingCarrier;
+
+    @Column(name = "shipped_at")
+    private LocalDateTime shippedAt;
+
+    @OneToMany(mappedBy = "vendorOrder", fetch = FetchType.LAZY)
+    @Builder.Default
+    private List<OrderItem> items = new ArrayList<>();
+}
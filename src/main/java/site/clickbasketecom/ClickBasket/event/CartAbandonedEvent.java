@@ -0,0 +1,23 @@
+package site.clickbasketecom.ClickBasket.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Published after an idle cart has been expired, for re-marketing listeners.
+ * Carries a summary only: the cart rows are already gone.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class CartAbandonedEvent {
+    private final Long cartId;
+    private final Long userId;
+    private final long itemCount;
+    private final BigDecimal value;
+    private final LocalDateTime lastActivityAt;
+}
@@ -0,0 +1,32 @@
+package site.clickbasketecom.ClickBasket.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.ToString;
+import site.clickbasketecom.ClickBasket.entity.Order;
+
+import java.util.List;
+
+/**
+ * Published once per status update, covering every order it moved, for notification listeners.
+ * A bulk update of thousands of orders produces a single event.
+ */
+@Getter
+@ToString
+@AllArgsConstructor
+public class OrderStatusChangedEvent {
+    private final Order.OrderStatus status;
+    private final List<Change> changes;
+
+    /**
+     * One order that moved, with the status it left.
+     */
+    @Getter
+    @ToString
+    @AllArgsConstructor
+    public static class Change {
+        private final Long orderId;
+        private final Long userId;
+        private final Order.OrderStatus previousStatus;
+    }
+}
@@ -0,0 +1,15 @@
+package site.clickbasketecom.ClickBasket.exception;
+
+/**
+ * Exception thrown when cart prices or availability changed since items were added.
+ */
+public class CartChangedException extends RuntimeException {
+
+    public CartChangedException(String message) {
+        super(message);
+    }
+
+    public CartChangedException() {
+        super("Some items in your cart have changed price or are no longer available. Please review your cart.");
+    }
+}
@@ -1,6 +1,8 @@
 package site.clickbasketecom.ClickBasket.exception;
 
+import io.micrometer.core.instrument.MeterRegistry;
 import jakarta.servlet.http.HttpServletRequest;
+import lombok.RequiredArgsConstructor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
@@ -16,10 +18,15 @@ import java.util.Map;
 
 /**
  * Global exception handler for REST API.
+ * Every handled error is counted in api.errors, tagged with the exception's simple class name
+ * and the response status.
  */
 @RestControllerAdvice
+@RequiredArgsConstructor
 public class GlobalExceptionHandler {
 
+        private final MeterRegistry meterRegistry;
+
         @ExceptionHandler(EmailAlreadyExistsException.class)
         public ResponseEntity<ErrorResponse> handleEmailAlreadyExists(
                         EmailAlreadyExistsException ex,
@@ -32,7 +39,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+                return respond(ex, HttpStatus.CONFLICT, error);
         }
 
         @ExceptionHandler(RoleNotFoundException.class)
@@ -47,7 +54,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+                return respond(ex, HttpStatus.INTERNAL_SERVER_ERROR, error);
         }
 
         @ExceptionHandler(UserNotFoundException.class)
@@ -62,7 +69,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                return respond(ex, HttpStatus.NOT_FOUND, error);
         }
 
         @ExceptionHandler(VendorNotFoundException.class)
@@ -77,7 +84,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                return respond(ex, HttpStatus.NOT_FOUND, error);
         }
 
         @ExceptionHandler(VendorNotApprovedException.class)
@@ -92,7 +99,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+                return respond(ex, HttpStatus.FORBIDDEN, error);
         }
 
         @ExceptionHandler(CategoryNotFoundException.class)
@@ -107,7 +114,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                return respond(ex, HttpStatus.NOT_FOUND, error);
         }
 
         @ExceptionHandler(IllegalArgumentException.class)
@@ -122,7 +129,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                return respond(ex, HttpStatus.BAD_REQUEST, error);
         }
 
         @ExceptionHandler(IllegalStateException.class)
@@ -137,7 +144,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                return respond(ex, HttpStatus.BAD_REQUEST, error);
         }
 
         @ExceptionHandler(ProductNotFoundException.class)
@@ -152,7 +159,52 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                return respond(ex, HttpStatus.NOT_FOUND, error);
+        }
+
+        @ExceptionHandler(CartChangedException.class)
+        public ResponseEntity<ErrorResponse> handleCartChanged(
+                        CartChangedException ex,
+                        HttpServletRequest request) {
+                ErrorResponse error = ErrorResponse.builder()
+                                .timestamp(LocalDateTime.now())
+                                .status(HttpStatus.CONFLICT.value())
+                                .error("Conflict")
+                                .message(ex.getMessage())
+                                .path(request.getRequestURI())
+                                .build();
+
+                return respond(ex, HttpStatus.CONFLICT, error);
+        }
+
+        @ExceptionHandler(ReconciliationInProgressException.class)
+        public ResponseEntity<ErrorResponse> handleReconciliationInProgress(
+                        ReconciliationInProgressException ex,
+                        HttpServletRequest request) {
+                ErrorResponse error = ErrorResponse.builder()
+                                .timestamp(LocalDateTime.now())
+                                .status(HttpStatus.CONFLICT.value())
+                                .error("Conflict")
+                                .message(ex.getMessage())
+                                .path(request.getRequestURI())
+                                .build();
+
+                return respond(ex, HttpStatus.CONFLICT, error);
+        }
+
+        @ExceptionHandler(PromotionNotFoundException.class)
+        public ResponseEntity<ErrorResponse> handlePromotionNotFound(
+                        PromotionNotFoundException ex,
+                        HttpServletRequest request) {
+                ErrorResponse error = ErrorResponse.builder()
+                                .timestamp(LocalDateTime.now())
+                                .status(HttpStatus.NOT_FOUND.value())
+                                .error("Not Found")
+                                .message(ex.getMessage())
+                                .path(request.getRequestURI())
+                                .build();
+
+                return respond(ex, HttpStatus.NOT_FOUND, error);
         }
 
         @ExceptionHandler(OrderNotFoundException.class)
@@ -167,7 +219,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                return respond(ex, HttpStatus.NOT_FOUND, error);
         }
 
         @ExceptionHandler(PaymentNotFoundException.class)
@@ -182,7 +234,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+                return respond(ex, HttpStatus.NOT_FOUND, error);
         }
 
         @ExceptionHandler(org.springframework.security.access.AccessDeniedException.class)
@@ -197,7 +249,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.FORBIDDEN).body(error);
+                return respond(ex, HttpStatus.FORBIDDEN, error);
         }
 
         @ExceptionHandler(BadCredentialsException.class)
@@ -212,7 +264,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+                return respond(ex, HttpStatus.UNAUTHORIZED, error);
         }
 
         @ExceptionHandler(AuthenticationException.class)
@@ -227,7 +279,7 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(error);
+                return respond(ex, HttpStatus.UNAUTHORIZED, error);
         }
 
         @ExceptionHandler(MethodArgumentNotValidException.class)
@@ -250,7 +302,7 @@ public class GlobalExceptionHandler {
                                 .validationErrors(validationErrors)
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+                return respond(ex, HttpStatus.BAD_REQUEST, error);
         }
 
         @ExceptionHandler(Exception.class)
@@ -265,6 +317,17 @@ public class GlobalExceptionHandler {
                                 .path(request.getRequestURI())
                                 .build();
 
-                return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(error);
+                return respond(ex, HttpStatus.INTERNAL_SERVER_ERROR, error);
+        }
+
+        /**
+         * Count the error and build its response.
+         */
+        private ResponseEntity<ErrorResponse> respond(Exception ex, HttpStatus status, ErrorResponse error) {
+                meterRegistry.counter("api.errors",
+                                "exception", ex.getClass().getSimpleName(),
+                                "status", String.valueOf(status.value()))
+                                .increment();
+                return ResponseEntity.status(status).body(error);
         }
 }
@@ -0,0 +1,15 @@
+package site.clickbasketecom.ClickBasket.exception;
+
+/**
+ * Exception thrown when a promotion is not found.
+ */
+public class PromotionNotFoundException extends RuntimeException {
+
+    public PromotionNotFoundException(String message) {
+        super(message);
+    }
+
+    public PromotionNotFoundException(Long promotionId) {
+        super("Promotion not found with ID: " + promotionId);
+    }
+}
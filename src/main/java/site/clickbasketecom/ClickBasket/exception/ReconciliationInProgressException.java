@@ -0,0 +1,11 @@
+package site.clickbasketecom.ClickBasket.exception;
+
+/**
+ * Exception thrown when a settlement reconciliation is started while another one is running.
+ */
+public class ReconciliationInProgressException extends RuntimeException {
+
+    public ReconciliationInProgressException() {
+        super("A settlement reconciliation is already running. Try again once it has finished.");
+    }
+}
@@ -0,0 +1,37 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.ArchivedOrderItem;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for ArchivedOrderItem entity.
+ */
+@Repository
+public interface ArchivedOrderItemRepository extends JpaRepository<ArchivedOrderItem, Long> {
+
+    /**
+     * Find the items of an archived order. The order's created_at selects the partition.
+     */
+    List<ArchivedOrderItem> findByOrderIdAndOrderCreatedAtOrderById(Long orderId, LocalDateTime orderCreatedAt);
+
+    /**
+     * Copy the items of the given live orders into the archive.
+     */
+    @Modifying
+    @Query("INSERT INTO ArchivedOrderItem (id, orderId, orderCreatedAt, productId, vendorId, productName, "
+            + "productSku, productImageUrl, quantity, unitPrice, discountAmount, taxAmount, fulfillmentStatus, "
+            + "createdAt) "
+            + "SELECT i.id, i.order.id, i.order.createdAt, i.product.id, i.vendor.id, i.productName, "
+            + "i.productSku, i.productImageUrl, i.quantity, i.unitPrice, i.discountAmount, i.taxAmount, "
+            + "i.fulfillmentStatus, i.createdAt "
+            + "FROM OrderItem i WHERE i.order.id IN :ids")
+    int copyFromOrders(@Param("ids") Collection<Long> ids);
+}
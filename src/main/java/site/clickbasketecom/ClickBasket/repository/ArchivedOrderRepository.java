@@ -0,0 +1,50 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.ArchivedOrder;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+
+/**
+ * Repository for ArchivedOrder entity.
+ */
+@Repository
+public interface ArchivedOrderRepository extends JpaRepository<ArchivedOrder, Long> {
+
+    /**
+     * Find an archived order by number within a created_at window, so only the
+     * partitions covering the window are searched.
+     */
+    Optional<ArchivedOrder> findByOrderNumberAndCreatedAtBetween(String orderNumber,
+            LocalDateTime from, LocalDateTime to);
+
+    /**
+     * Find an archived order by number, searching every partition.
+     */
+    Optional<ArchivedOrder> findByOrderNumber(String orderNumber);
+
+    /**
+     * Copy the given live orders, with a snapshot of their payment, into the archive.
+     */
+    @Modifying
+    @Query("INSERT INTO ArchivedOrder (id, userId, orderNumber, status, subtotal, shippingCost, taxAmount, "
+            + "discountAmount, totalAmount, couponCode, shippingName, shippingPhone, shippingAddress, "
+            + "shippingCity, shippingState, shippingZip, shippingCountry, billingName, billingPhone, "
+            + "billingAddress, billingCity, billingState, billingZip, billingCountry, notes, trackingNumber, "
+            + "shippingCarrier, paymentMethod, paymentStatus, transactionId, paidAt, refundAmount, "
+            + "createdAt, updatedAt, archivedAt) "
+            + "SELECT o.id, o.user.id, o.orderNumber, o.status, o.subtotal, o.shippingCost, o.taxAmount, "
+            + "o.discountAmount, o.totalAmount, o.couponCode, o.shippingName, o.shippingPhone, o.shippingAddress, "
+            + "o.shippingCity, o.shippingState, o.shippingZip, o.shippingCountry, o.billingName, o.billingPhone, "
+            + "o.billingAddress, o.billingCity, o.billingState, o.billingZip, o.billingCountry, o.notes, "
+            + "o.trackingNumber, o.shippingCarrier, p.paymentMethod, p.status, p.transactionId, p.paidAt, "
+            + "p.refundAmount, o.createdAt, o.updatedAt, :now "
+            + "FROM Order o LEFT JOIN o.payment p WHERE o.id IN :ids")
+    int copyFromOrders(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+}
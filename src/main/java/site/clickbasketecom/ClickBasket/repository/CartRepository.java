@@ -1,9 +1,19 @@
 package site.clickbasketecom.ClickBasket.repository;
 
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import site.clickbasketecom.ClickBasket.entity.Cart;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -21,4 +31,69 @@ public interface CartRepository extends JpaRepository<Cart, Long> {
      * Check if cart exists for user.
      */
     Boolean existsByUserId(Long userId);
+
+    /**
+     * Find cart by user ID together with its items, products and vendors.
+     */
+    @Query("SELECT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product p "
+            + "LEFT JOIN FETCH p.vendor WHERE c.user.id = :userId")
+    Optional<Cart> findByUserIdWithItems(@Param("userId") Long userId);
+
+    /**
+     * Find the carts of several users together with their items.
+     */
+    @Query("SELECT DISTINCT c FROM Cart c LEFT JOIN FETCH c.items i LEFT JOIN FETCH i.product "
+            + "WHERE c.user.id IN :userIds")
+    List<Cart> findAllByUserIdInWithItems(@Param("userIds") Collection<Long> userIds);
+
+    /**
+     * Summaries of carts idle since before the cutoff, in (updatedAt, id) keyset order
+     * starting after the given position. Backed by idx_cart_updated_at.
+     */
+    @Query("SELECT c.id AS id, c.user.id AS userId, c.updatedAt AS updatedAt, COUNT(i) AS itemCount, "
+            + "COALESCE(SUM(i.unitPrice * i.quantity), 0) AS value "
+            + "FROM Cart c LEFT JOIN c.items i "
+            + "WHERE c.updatedAt < :cutoff AND (c.updatedAt > :afterUpdatedAt "
+            + "OR (c.updatedAt = :afterUpdatedAt AND c.id > :afterId)) "
+            + "GROUP BY c.id, c.user.id, c.updatedAt ORDER BY c.updatedAt, c.id")
+    List<IdleCartView> findIdleAfter(@Param("cutoff") LocalDateTime cutoff,
+            @Param("afterUpdatedAt") LocalDateTime afterUpdatedAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Lock the given carts that are still idle. Carts touched since they were listed drop out.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM Cart c WHERE c.id IN :ids AND c.updatedAt < :cutoff")
+    List<Cart> lockIdle(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Delete the items of the given carts.
+     */
+    @Modifying
+    @Query("DELETE FROM CartItem i WHERE i.cart.id IN :ids")
+    int deleteItemsByCartIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delete the given carts.
+     */
+    @Modifying
+    @Query("DELETE FROM Cart c WHERE c.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Projection of an idle cart for the abandonment sweeper.
+     */
+    interface IdleCartView {
+        Long getId();
+
+        Long getUserId();
+
+        LocalDateTime getUpdatedAt();
+
+        Long getItemCount();
+
+        BigDecimal getValue();
+    }
 }
@@ -1,6 +1,9 @@
 package site.clickbasketecom.ClickBasket.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import site.clickbasketecom.ClickBasket.entity.Category;
 
@@ -9,6 +12,7 @@ import java.util.Optional;
 
 /**
  * Repository for Category entity.
+ * Name and active-tree lookups are served from the query cache.
  */
 @Repository
 public interface CategoryRepository extends JpaRepository<Category, Long> {
@@ -26,6 +30,10 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     /**
      * Find category by name.
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "category-queries")
+    })
     Optional<Category> findByName(String name);
 
     /**
@@ -41,11 +49,19 @@ public interface CategoryRepository extends JpaRepository<Category, Long> {
     /**
      * Find all active root categories.
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "category-queries")
+    })
     List<Category> findByParentIsNullAndIsActiveTrue();
 
     /**
      * Find all active subcategories of a parent.
      */
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "category-queries")
+    })
     List<Category> findByParentIdAndIsActiveTrue(Long parentId);
 
     /**
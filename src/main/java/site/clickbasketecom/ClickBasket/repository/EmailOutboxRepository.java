@@ -0,0 +1,102 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.OutboundEmail;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for OutboundEmail entity.
+ */
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<OutboundEmail, Long> {
+
+    /**
+     * Emails due for sending: PENDING ones whose next attempt has come, and SENDING ones
+     * claimed before staleBefore by a run that never finished. In id keyset order starting
+     * after the given id, backed by idx_email_outbox_status.
+     */
+    @Query("SELECT e.id FROM OutboundEmail e "
+            + "WHERE e.id > :afterId AND ((e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.PENDING "
+            + "AND e.nextAttemptAt <= :now) "
+            + "OR (e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.SENDING "
+            + "AND e.updatedAt < :staleBefore)) ORDER BY e.id")
+    List<Long> findDueAfter(@Param("afterId") Long afterId,
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            Pageable pageable);
+
+    /**
+     * Lock the given emails that are still due for sending.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboundEmail e "
+            + "WHERE e.id IN :ids AND ((e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.PENDING "
+            + "AND e.nextAttemptAt <= :now) "
+            + "OR (e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.SENDING "
+            + "AND e.updatedAt < :staleBefore))")
+    List<OutboundEmail> lockDue(@Param("ids") Collection<Long> ids,
+            @Param("now") LocalDateTime now,
+            @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Lock the given emails that are awaiting a send result.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboundEmail e WHERE e.id IN :ids "
+            + "AND e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.SENDING")
+    List<OutboundEmail> lockSending(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Mark the given emails as claimed by a dispatcher run.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE OutboundEmail e SET e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.SENDING, "
+            + "e.attempts = e.attempts + 1, e.updatedAt = :now WHERE e.id IN :ids")
+    int markSending(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Mark the given claimed emails as sent.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE OutboundEmail e SET e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.SENT, "
+            + "e.sentAt = :now, e.lastError = NULL, e.updatedAt = :now WHERE e.id IN :ids "
+            + "AND e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.SENDING")
+    int markSent(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Vendors after the given one holding digest sections whose window has closed, in vendor id order.
+     */
+    @Query("SELECT e.digestVendorId FROM OutboundEmail e "
+            + "WHERE e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.HELD "
+            + "AND e.digestVendorId > :afterVendorId "
+            + "GROUP BY e.digestVendorId HAVING MIN(e.nextAttemptAt) <= :now ORDER BY e.digestVendorId")
+    List<Long> findDueDigestVendorsAfter(@Param("afterVendorId") Long afterVendorId,
+            @Param("now") LocalDateTime now,
+            Pageable pageable);
+
+    /**
+     * Lock the oldest digest sections held for a vendor.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT e FROM OutboundEmail e WHERE e.digestVendorId = :vendorId "
+            + "AND e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.HELD ORDER BY e.id")
+    List<OutboundEmail> lockHeld(@Param("vendorId") Long vendorId, Pageable pageable);
+
+    /**
+     * Delete emails sent before the cutoff.
+     */
+    @Modifying
+    @Query("DELETE FROM OutboundEmail e WHERE e.status = site.clickbasketecom.ClickBasket.entity.OutboundEmail$EmailStatus.SENT "
+            + "AND e.sentAt < :cutoff")
+    int deleteSentBefore(@Param("cutoff") LocalDateTime cutoff);
+}
@@ -3,9 +3,14 @@ package site.clickbasketecom.ClickBasket.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import site.clickbasketecom.ClickBasket.entity.OrderItem;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -29,4 +34,40 @@ public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
      */
     Page<OrderItem> findByVendorIdAndFulfillmentStatus(Long vendorId, OrderItem.FulfillmentStatus status,
             Pageable pageable);
+
+    /**
+     * Find the items of several vendor orders with their vendor.
+     */
+    @Query("SELECT oi FROM OrderItem oi JOIN FETCH oi.vendor WHERE oi.vendorOrder.id IN :vendorOrderIds ORDER BY oi.id")
+    List<OrderItem> findByVendorOrderIdIn(@Param("vendorOrderIds") Collection<Long> vendorOrderIds);
+
+    /**
+     * Move the live items of the given vendor orders to a status.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE OrderItem oi SET oi.fulfillmentStatus = :status, oi.updatedAt = :now "
+            + "WHERE oi.vendorOrder.id IN :ids "
+            + "AND oi.fulfillmentStatus <> site.clickbasketecom.ClickBasket.entity.OrderItem$FulfillmentStatus.CANCELLED")
+    int updateStatusByVendorOrderIdIn(@Param("ids") Collection<Long> ids,
+            @Param("status") OrderItem.FulfillmentStatus status,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * IDs of the products on the given orders' items that are in one of the given statuses.
+     */
+    @Query("SELECT DISTINCT oi.product.id FROM OrderItem oi "
+            + "WHERE oi.order.id IN :orderIds AND oi.fulfillmentStatus IN :from")
+    List<Long> findProductIdsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+            @Param("from") Collection<OrderItem.FulfillmentStatus> from);
+
+    /**
+     * Move the given orders' items that are in one of the source statuses to a status.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE OrderItem oi SET oi.fulfillmentStatus = :status, oi.updatedAt = :now "
+            + "WHERE oi.order.id IN :orderIds AND oi.fulfillmentStatus IN :from")
+    int updateStatusByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+            @Param("status") OrderItem.FulfillmentStatus status,
+            @Param("from") Collection<OrderItem.FulfillmentStatus> from,
+            @Param("now") LocalDateTime now);
 }
@@ -1,11 +1,22 @@
 package site.clickbasketecom.ClickBasket.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+import site.clickbasketecom.ClickBasket.entity.Payment;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -38,4 +49,168 @@ public interface OrderRepository extends JpaRepository<Order, Long> {
      * Check if order number exists.
      */
     Boolean existsByOrderNumber(String orderNumber);
+
+    /**
+     * Orders behind the given vendor orders that are in one of the source statuses and whose
+     * vendor orders are all in one of the finished statuses.
+     */
+    @Query("SELECT o.id AS id, o.user.id AS userId, o.status AS status FROM Order o "
+            + "WHERE o.id IN (SELECT vo.order.id FROM VendorOrder vo WHERE vo.id IN :vendorOrderIds) "
+            + "AND o.status IN :from "
+            + "AND NOT EXISTS (SELECT 1 FROM VendorOrder other WHERE other.order.id = o.id AND other.status NOT IN :finished)")
+    List<OrderStatusView> findReadyToRollUp(@Param("vendorOrderIds") Collection<Long> vendorOrderIds,
+            @Param("from") Collection<Order.OrderStatus> from,
+            @Param("finished") Collection<OrderItem.FulfillmentStatus> finished);
+
+    /**
+     * Find orders with their user and items.
+     */
+    @Query("SELECT DISTINCT o FROM Order o JOIN FETCH o.user LEFT JOIN FETCH o.items WHERE o.id IN :ids")
+    List<Order> findAllByIdInWithUserAndItems(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Lock the given orders that are in one of the source statuses, returning their current status.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id AS id, o.user.id AS userId, o.status AS status FROM Order o "
+            + "WHERE o.id IN :ids AND o.status IN :from ORDER BY o.id")
+    List<OrderStatusView> lockForTransition(@Param("ids") Collection<Long> ids,
+            @Param("from") Collection<Order.OrderStatus> from);
+
+    /**
+     * Lock the orders behind the vendor's given vendor orders that are in one of the source statuses.
+     * Same lock order as lockForTransition: orders before their vendor orders, by ID.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id AS id, o.user.id AS userId, o.status AS status FROM Order o "
+            + "WHERE o.id IN (SELECT vo.order.id FROM VendorOrder vo WHERE vo.id IN :vendorOrderIds "
+            + "AND vo.vendor.id = :vendorId) "
+            + "AND o.status IN :from ORDER BY o.id")
+    List<OrderStatusView> lockForVendorOrders(@Param("vendorOrderIds") Collection<Long> vendorOrderIds,
+            @Param("vendorId") Long vendorId,
+            @Param("from") Collection<Order.OrderStatus> from);
+
+    /**
+     * Move the given orders that are in one of the source statuses to a status.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Order o SET o.status = :status, o.updatedAt = :now WHERE o.id IN :ids AND o.status IN :from")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+            @Param("status") Order.OrderStatus status,
+            @Param("from") Collection<Order.OrderStatus> from,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Owner and status of an order, without loading the order or its user.
+     */
+    @Query("SELECT o.id AS id, o.user.id AS userId, o.status AS status FROM Order o WHERE o.id = :id")
+    Optional<OrderStatusView> findStatusViewById(@Param("id") Long id);
+
+    /**
+     * Move a PENDING order of the given user to CONFIRMED as its payment starts.
+     * Ownership, status check, status change and row lock in one statement; 0 if any check fails.
+     */
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Order o SET o.status = site.clickbasketecom.ClickBasket.entity.Order$OrderStatus.CONFIRMED, "
+            + "o.updatedAt = :now WHERE o.id = :id AND o.user.id = :userId "
+            + "AND o.status = site.clickbasketecom.ClickBasket.entity.Order$OrderStatus.PENDING")
+    int confirmForPayment(@Param("id") Long id, @Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Order number and total of an order with its payment, if any, in one query.
+     */
+    @Query("SELECT o.orderNumber AS orderNumber, o.totalAmount AS totalAmount, p AS payment "
+            + "FROM Order o LEFT JOIN o.payment p WHERE o.id = :id")
+    Optional<PaymentTargetView> findPaymentTarget(@Param("id") Long id);
+
+    /**
+     * Closed orders created and last changed before the cutoff, in id keyset order
+     * starting after the given id.
+     */
+    @Query("SELECT o.id AS id, o.createdAt AS createdAt FROM Order o "
+            + "WHERE o.id > :afterId AND o.status IN :closed "
+            + "AND o.createdAt < :cutoff AND o.updatedAt < :cutoff ORDER BY o.id")
+    List<ArchivableOrderView> findArchivableAfter(@Param("closed") Collection<Order.OrderStatus> closed,
+            @Param("cutoff") LocalDateTime cutoff,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Lock the given orders that are still closed and untouched since the cutoff.
+     * Orders with a refund still waiting on the gateway stay live until it settles.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT o.id FROM Order o WHERE o.id IN :ids AND o.status IN :closed AND o.updatedAt < :cutoff "
+            + "AND NOT EXISTS (SELECT 1 FROM Refund r WHERE r.payment.order.id = o.id AND r.status IN ("
+            + "site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.REQUESTED, "
+            + "site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.SUBMITTED))")
+    List<Long> lockArchivable(@Param("ids") Collection<Long> ids,
+            @Param("closed") Collection<Order.OrderStatus> closed,
+            @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Delete the refunds of the given orders' payments.
+     */
+    @Modifying
+    @Query("DELETE FROM Refund r WHERE r.payment.id IN (SELECT p.id FROM Payment p WHERE p.order.id IN :ids)")
+    int deleteRefundsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delete the payments of the given orders.
+     */
+    @Modifying
+    @Query("DELETE FROM Payment p WHERE p.order.id IN :ids")
+    int deletePaymentsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delete the items of the given orders.
+     */
+    @Modifying
+    @Query("DELETE FROM OrderItem i WHERE i.order.id IN :ids")
+    int deleteItemsByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delete the vendor orders of the given orders.
+     */
+    @Modifying
+    @Query("DELETE FROM VendorOrder vo WHERE vo.order.id IN :ids")
+    int deleteVendorOrdersByOrderIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Delete the given orders.
+     */
+    @Modifying
+    @Query("DELETE FROM Order o WHERE o.id IN :ids")
+    int deleteByIdIn(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Projection of an order's owner and status.
+     */
+    interface OrderStatusView {
+        Long getId();
+
+        Long getUserId();
+
+        Order.OrderStatus getStatus();
+    }
+
+    /**
+     * Projection of an order for the archiver.
+     */
+    interface ArchivableOrderView {
+        Long getId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    /**
+     * Projection of an order about to be paid, with its existing payment or null.
+     */
+    interface PaymentTargetView {
+        String getOrderNumber();
+
+        BigDecimal getTotalAmount();
+
+        Payment getPayment();
+    }
 }
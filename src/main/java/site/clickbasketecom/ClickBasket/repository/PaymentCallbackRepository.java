@@ -0,0 +1,48 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.PaymentCallback;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for PaymentCallback entity.
+ */
+@Repository
+public interface PaymentCallbackRepository extends JpaRepository<PaymentCallback, Long> {
+
+    /**
+     * Callbacks still waiting to be applied that were received before the given time,
+     * in id keyset order starting after the given id. Backed by idx_payment_callback_status.
+     */
+    @Query("SELECT c.id AS id, c.paymentId AS paymentId FROM PaymentCallback c "
+            + "WHERE c.status = site.clickbasketecom.ClickBasket.entity.PaymentCallback$CallbackStatus.RECEIVED "
+            + "AND c.id > :afterId AND c.createdAt < :receivedBefore ORDER BY c.id")
+    List<PendingCallbackView> findPendingAfter(@Param("afterId") Long afterId,
+            @Param("receivedBefore") LocalDateTime receivedBefore,
+            Pageable pageable);
+
+    /**
+     * Lock a callback while it is applied.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT c FROM PaymentCallback c WHERE c.id = :id")
+    Optional<PaymentCallback> lockById(@Param("id") Long id);
+
+    /**
+     * Projection of a callback awaiting dispatch.
+     */
+    interface PendingCallbackView {
+        Long getId();
+
+        Long getPaymentId();
+    }
+}
@@ -1,11 +1,20 @@
 package site.clickbasketecom.ClickBasket.repository;
 
+import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import site.clickbasketecom.ClickBasket.entity.Payment;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -33,4 +42,136 @@ public interface PaymentRepository extends JpaRepository<Payment, Long> {
      * Find payments by status.
      */
     Page<Payment> findByStatus(Payment.PaymentStatus status, Pageable pageable);
+
+    /**
+     * Pending payments started and last changed before the cutoff, in (createdAt, id) keyset
+     * order starting after the given position. Backed by idx_payment_status_created.
+     */
+    @Query("SELECT p.id AS id, p.order.id AS orderId, p.createdAt AS createdAt FROM Payment p "
+            + "WHERE p.status = site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.PENDING "
+            + "AND p.createdAt < :cutoff AND p.updatedAt < :cutoff "
+            + "AND (p.createdAt > :afterCreatedAt OR (p.createdAt = :afterCreatedAt AND p.id > :afterId)) "
+            + "ORDER BY p.createdAt, p.id")
+    List<ExpiredPaymentView> findExpiredAfter(@Param("cutoff") LocalDateTime cutoff,
+            @Param("afterCreatedAt") LocalDateTime afterCreatedAt,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Lock the given payments that are still pending and untouched since the cutoff.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id AS id, p.order.id AS orderId, p.createdAt AS createdAt FROM Payment p "
+            + "WHERE p.id IN :ids "
+            + "AND p.status = site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.PENDING "
+            + "AND p.updatedAt < :cutoff")
+    List<ExpiredPaymentView> lockExpired(@Param("ids") Collection<Long> ids, @Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Cancel the given payments that are still pending.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.CANCELLED, "
+            + "p.failureReason = :reason, p.updatedAt = :now "
+            + "WHERE p.id IN :ids AND p.status = site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.PENDING")
+    int cancelPending(@Param("ids") Collection<Long> ids,
+            @Param("reason") String reason,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Cancel the pending payments of the given orders.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Payment p SET p.status = site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.CANCELLED, "
+            + "p.failureReason = :reason, p.updatedAt = :now "
+            + "WHERE p.order.id IN :orderIds AND p.status = site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.PENDING")
+    int cancelPendingByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+            @Param("reason") String reason,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Lock a payment while refunds against it are requested or a gateway callback is applied.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM Payment p WHERE p.id = :id")
+    Optional<Payment> lockById(@Param("id") Long id);
+
+    /**
+     * Lock the payments of the given orders, returning their ids.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p.id FROM Payment p WHERE p.order.id IN :orderIds")
+    List<Long> lockIdsByOrderIdIn(@Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Recompute the refund totals of the given payments from their completed refunds:
+     * refunded amount, latest reason and time, and REFUNDED or PARTIALLY_REFUNDED status.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Payment p SET "
+            + "p.refundAmount = (SELECT COALESCE(SUM(r.amount), 0) FROM Refund r WHERE r.payment.id = p.id "
+            + "AND r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.COMPLETED), "
+            + "p.status = CASE WHEN (SELECT COALESCE(SUM(r.amount), 0) FROM Refund r WHERE r.payment.id = p.id "
+            + "AND r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.COMPLETED) >= p.amount "
+            + "THEN site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.REFUNDED "
+            + "ELSE site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.PARTIALLY_REFUNDED END, "
+            + "p.refundReason = (SELECT r.reason FROM Refund r WHERE r.id = (SELECT MAX(l.id) FROM Refund l "
+            + "WHERE l.payment.id = p.id AND l.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.COMPLETED)), "
+            + "p.refundedAt = :now, p.updatedAt = :now "
+            + "WHERE p.id IN :ids")
+    int applyCompletedRefunds(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Order ids of the given payments that are fully refunded.
+     */
+    @Query("SELECT p.order.id FROM Payment p WHERE p.id IN :ids "
+            + "AND p.status = site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.REFUNDED")
+    List<Long> findRefundedOrderIds(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Payments paid within [paidFrom, paidTo), in transaction id keyset order starting after the
+     * given id. Ordered by the column's collation, which schema.sql declares "C" so ids sort by
+     * code point like String.compareTo; the UNIQUE index on transaction_id backs the scan.
+     */
+    @Query("SELECT p.id AS id, p.transactionId AS transactionId, p.amount AS amount, "
+            + "p.status AS status, p.paidAt AS paidAt FROM Payment p "
+            + "WHERE p.transactionId > :afterTransactionId AND p.paidAt >= :paidFrom AND p.paidAt < :paidTo "
+            + "ORDER BY p.transactionId")
+    List<SettlementView> findSettlementPageAfter(@Param("afterTransactionId") String afterTransactionId,
+            @Param("paidFrom") LocalDateTime paidFrom,
+            @Param("paidTo") LocalDateTime paidTo,
+            Pageable pageable);
+
+    /**
+     * The payment with a transaction id, for settlement rows outside a run's scan.
+     */
+    @Query("SELECT p.id AS id, p.transactionId AS transactionId, p.amount AS amount, "
+            + "p.status AS status, p.paidAt AS paidAt FROM Payment p WHERE p.transactionId = :transactionId")
+    Optional<SettlementView> findSettlementView(@Param("transactionId") String transactionId);
+
+    /**
+     * Projection of an expired payment for the timeout sweeper.
+     */
+    interface ExpiredPaymentView {
+        Long getId();
+
+        Long getOrderId();
+
+        LocalDateTime getCreatedAt();
+    }
+
+    /**
+     * Projection of a payment for settlement reconciliation.
+     */
+    interface SettlementView {
+        Long getId();
+
+        String getTransactionId();
+
+        BigDecimal getAmount();
+
+        Payment.PaymentStatus getStatus();
+
+        LocalDateTime getPaidAt();
+    }
 }
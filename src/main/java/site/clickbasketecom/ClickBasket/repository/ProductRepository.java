@@ -3,9 +3,16 @@ package site.clickbasketecom.ClickBasket.repository;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
 import site.clickbasketecom.ClickBasket.entity.Product;
 
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -15,6 +22,25 @@ import java.util.Optional;
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Long> {
 
+    /**
+     * Find product by ID together with its vendor.
+     */
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.vendor WHERE p.id = :id")
+    Optional<Product> findByIdWithVendor(@Param("id") Long id);
+
+    /**
+     * Find products by IDs together with their vendors, in a single query.
+     */
+    @Query("SELECT p FROM Product p LEFT JOIN FETCH p.vendor WHERE p.id IN :ids")
+    List<Product> findAllByIdWithVendor(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Find price, stock and status of products without loading the entities.
+     */
+    @Query("SELECT p.id AS id, p.price AS price, p.stockQuantity AS stockQuantity, p.status AS status "
+            + "FROM Product p WHERE p.id IN :ids")
+    List<ProductStampView> findStampsByIdIn(@Param("ids") Collection<Long> ids);
+
     /**
      * Find all products by vendor ID.
      */
@@ -84,4 +110,44 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
      * Search products by name.
      */
     Page<Product> findByStatusAndNameContainingIgnoreCase(Product.ProductStatus status, String name, Pageable pageable);
+
+    /**
+     * Put back the stock of the given orders' items that are in one of the given statuses.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Product p SET "
+            + "p.stockQuantity = p.stockQuantity + (SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi "
+            + "WHERE oi.product.id = p.id AND oi.order.id IN :orderIds AND oi.fulfillmentStatus IN :from), "
+            + "p.soldCount = p.soldCount - (SELECT COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi "
+            + "WHERE oi.product.id = p.id AND oi.order.id IN :orderIds AND oi.fulfillmentStatus IN :from), "
+            + "p.updatedAt = :now "
+            + "WHERE p.id IN :productIds")
+    int restoreStock(@Param("productIds") Collection<Long> productIds,
+            @Param("orderIds") Collection<Long> orderIds,
+            @Param("from") Collection<OrderItem.FulfillmentStatus> from,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Take stock for an order line if the product is active and has enough left; 0 if not.
+     * Relative to the row's current value, so concurrent checkouts and stock restores both count.
+     */
+    @Modifying
+    @Query("UPDATE Product p SET p.stockQuantity = p.stockQuantity - :quantity, "
+            + "p.soldCount = p.soldCount + :quantity, p.updatedAt = :now "
+            + "WHERE p.id = :id AND p.stockQuantity >= :quantity "
+            + "AND p.status = site.clickbasketecom.ClickBasket.entity.Product$ProductStatus.ACTIVE")
+    int takeStock(@Param("id") Long id, @Param("quantity") int quantity, @Param("now") LocalDateTime now);
+
+    /**
+     * Projection of a product's price, stock and status.
+     */
+    interface ProductStampView {
+        Long getId();
+
+        BigDecimal getPrice();
+
+        Integer getStockQuantity();
+
+        Product.ProductStatus getStatus();
+    }
 }
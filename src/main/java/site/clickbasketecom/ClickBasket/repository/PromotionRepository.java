@@ -0,0 +1,50 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.Promotion;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for Promotion entity.
+ */
+@Repository
+public interface PromotionRepository extends JpaRepository<Promotion, Long> {
+
+    /**
+     * Find promotion by coupon code.
+     */
+    Optional<Promotion> findByCode(String code);
+
+    /**
+     * Check if a coupon code is taken.
+     */
+    Boolean existsByCode(String code);
+
+    /**
+     * Find active promotions that have not ended yet.
+     */
+    @Query("SELECT p FROM Promotion p WHERE p.isActive = true AND (p.endsAt IS NULL OR p.endsAt > :now)")
+    List<Promotion> findLive(@Param("now") LocalDateTime now);
+
+    /**
+     * Find all promotions.
+     */
+    Page<Promotion> findAllByOrderByCreatedAtDesc(Pageable pageable);
+
+    /**
+     * Count one use of a promotion unless its usage limit is reached. Returns 0 if exhausted.
+     */
+    @Modifying
+    @Query("UPDATE Promotion p SET p.usageCount = p.usageCount + 1 "
+            + "WHERE p.id = :id AND (p.usageLimit IS NULL OR p.usageCount < p.usageLimit)")
+    int incrementUsage(@Param("id") Long id);
+}
@@ -0,0 +1,97 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.RefreshToken;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Repository for RefreshToken entity.
+ */
+@Repository
+public interface RefreshTokenRepository extends JpaRepository<RefreshToken, Long> {
+
+    /**
+     * Find refresh token by token ID together with its user.
+     */
+    @Query("SELECT t FROM RefreshToken t JOIN FETCH t.user WHERE t.tokenId = :tokenId")
+    Optional<RefreshToken> findByTokenIdWithUser(@Param("tokenId") String tokenId);
+
+    /**
+     * Find revoked tokens that have not expired yet (used to warm the revocation index).
+     */
+    @Query("SELECT t.tokenId AS tokenId, t.sessionId AS sessionId, t.replacedBy AS replacedBy, "
+            + "t.expiresAt AS expiresAt FROM RefreshToken t WHERE t.revoked = true AND t.expiresAt > :now")
+    List<RevokedTokenView> findRevokedNotExpired(@Param("now") LocalDateTime now);
+
+    /**
+     * Find the latest expiry of a session's tokens.
+     */
+    @Query("SELECT MAX(t.expiresAt) FROM RefreshToken t WHERE t.sessionId = :sessionId")
+    Optional<LocalDateTime> findSessionExpiry(@Param("sessionId") String sessionId);
+
+    /**
+     * Find the latest expiry of each active session of a user.
+     */
+    @Query("SELECT t.sessionId AS sessionId, MAX(t.expiresAt) AS expiresAt FROM RefreshToken t "
+            + "WHERE t.user.id = :userId AND t.revoked = false AND t.expiresAt > :now GROUP BY t.sessionId")
+    List<SessionExpiryView> findActiveSessionsByUserId(@Param("userId") Long userId, @Param("now") LocalDateTime now);
+
+    /**
+     * Revoke a token as rotated, if it is still active.
+     * Returns 0 when another rotation or a revocation got there first.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true, t.replacedBy = :replacedBy "
+            + "WHERE t.tokenId = :tokenId AND t.revoked = false")
+    int markRotated(@Param("tokenId") String tokenId, @Param("replacedBy") String replacedBy);
+
+    /**
+     * Revoke all tokens of a session.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.sessionId = :sessionId AND t.revoked = false")
+    int revokeSession(@Param("sessionId") String sessionId);
+
+    /**
+     * Revoke all tokens of a user.
+     */
+    @Modifying
+    @Query("UPDATE RefreshToken t SET t.revoked = true WHERE t.user.id = :userId AND t.revoked = false")
+    int revokeAllByUserId(@Param("userId") Long userId);
+
+    /**
+     * Delete tokens that expired before the cutoff.
+     */
+    @Modifying
+    @Query("DELETE FROM RefreshToken t WHERE t.expiresAt < :cutoff")
+    int deleteExpired(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * Projection of a revoked token.
+     */
+    interface RevokedTokenView {
+        String getTokenId();
+
+        String getSessionId();
+
+        String getReplacedBy();
+
+        LocalDateTime getExpiresAt();
+    }
+
+    /**
+     * Projection of a session with its latest expiry.
+     */
+    interface SessionExpiryView {
+        String getSessionId();
+
+        LocalDateTime getExpiresAt();
+    }
+}
@@ -0,0 +1,105 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.Refund;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for Refund entity.
+ */
+@Repository
+public interface RefundRepository extends JpaRepository<Refund, Long> {
+
+    /**
+     * Find the refunds of a payment, oldest first.
+     */
+    List<Refund> findByPaymentIdOrderById(Long paymentId);
+
+    /**
+     * Amount of a payment's refunds that are completed or still in flight.
+     */
+    @Query("SELECT COALESCE(SUM(r.amount), 0) FROM Refund r WHERE r.payment.id = :paymentId "
+            + "AND r.status <> site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.FAILED")
+    BigDecimal sumCommittedByPaymentId(@Param("paymentId") Long paymentId);
+
+    /**
+     * Refunds waiting for the gateway: REQUESTED ones, and SUBMITTED ones with no result since
+     * staleBefore. In id keyset order starting after the given id, backed by idx_refund_status.
+     */
+    @Query("SELECT r.id FROM Refund r "
+            + "WHERE r.id > :afterId AND (r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.REQUESTED "
+            + "OR (r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.SUBMITTED "
+            + "AND r.updatedAt < :staleBefore)) ORDER BY r.id")
+    List<Long> findSubmittableAfter(@Param("afterId") Long afterId,
+            @Param("staleBefore") LocalDateTime staleBefore,
+            Pageable pageable);
+
+    /**
+     * Lock the given refunds that are still waiting for the gateway, with their payments.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Refund r JOIN FETCH r.payment "
+            + "WHERE r.id IN :ids AND (r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.REQUESTED "
+            + "OR (r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.SUBMITTED "
+            + "AND r.updatedAt < :staleBefore))")
+    List<Refund> lockSubmittable(@Param("ids") Collection<Long> ids, @Param("staleBefore") LocalDateTime staleBefore);
+
+    /**
+     * Lock the given refunds that are awaiting a gateway result, with their payments.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM Refund r JOIN FETCH r.payment WHERE r.id IN :ids "
+            + "AND r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.SUBMITTED")
+    List<Refund> lockSubmitted(@Param("ids") Collection<Long> ids);
+
+    /**
+     * Mark the given refunds as handed to the gateway.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Refund r SET r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.SUBMITTED, "
+            + "r.attempts = r.attempts + 1, r.updatedAt = :now WHERE r.id IN :ids")
+    int markSubmitted(@Param("ids") Collection<Long> ids, @Param("now") LocalDateTime now);
+
+    /**
+     * Put submitted refunds back in the queue after a gateway error, failing those out of attempts.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE Refund r SET r.status = CASE WHEN r.attempts >= :maxAttempts "
+            + "THEN site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.FAILED "
+            + "ELSE site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.REQUESTED END, "
+            + "r.lastError = :error, r.updatedAt = :now "
+            + "WHERE r.id IN :ids AND r.status = site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.SUBMITTED")
+    int releaseSubmitted(@Param("ids") Collection<Long> ids,
+            @Param("maxAttempts") int maxAttempts,
+            @Param("error") String error,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Request a full refund of the outstanding amount of the given orders' settled payments,
+     * skipping payments already fully covered by completed or in-flight refunds.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("INSERT INTO Refund (payment, amount, reason, status, attempts, createdAt, updatedAt) "
+            + "SELECT p, p.amount - (SELECT COALESCE(SUM(r.amount), 0) FROM Refund r WHERE r.payment.id = p.id "
+            + "AND r.status <> site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.FAILED), "
+            + ":reason, site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.REQUESTED, 0, :now, :now "
+            + "FROM Payment p WHERE p.order.id IN :orderIds "
+            + "AND p.status IN (site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.COMPLETED, "
+            + "site.clickbasketecom.ClickBasket.entity.Payment$PaymentStatus.PARTIALLY_REFUNDED) "
+            + "AND p.amount > (SELECT COALESCE(SUM(r.amount), 0) FROM Refund r WHERE r.payment.id = p.id "
+            + "AND r.status <> site.clickbasketecom.ClickBasket.entity.Refund$RefundStatus.FAILED)")
+    int requestOutstandingByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+            @Param("reason") String reason,
+            @Param("now") LocalDateTime now);
+}
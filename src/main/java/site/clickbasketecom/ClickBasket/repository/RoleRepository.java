@@ -1,6 +1,9 @@
 package site.clickbasketecom.ClickBasket.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import site.clickbasketecom.ClickBasket.entity.Role;
 
@@ -8,10 +11,15 @@ import java.util.Optional;
 
 /**
  * Repository for Role entity.
+ * Lookups by name are served from the query cache.
  */
 @Repository
 public interface RoleRepository extends JpaRepository<Role, Long> {
 
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "role-queries")
+    })
     Optional<Role> findByName(String name);
 
     Boolean existsByName(String name);
@@ -0,0 +1,29 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.SettlementMismatch;
+
+/**
+ * Repository for SettlementMismatch entity.
+ */
+@Repository
+public interface SettlementMismatchRepository extends JpaRepository<SettlementMismatch, Long> {
+
+    /**
+     * Find the mismatches of a run, filtering on run_id without joining settlement_runs.
+     */
+    @Query("SELECT m FROM SettlementMismatch m WHERE m.run.id = :runId")
+    Page<SettlementMismatch> findByRunId(@Param("runId") Long runId, Pageable pageable);
+
+    /**
+     * Find the mismatches of a run of one type.
+     */
+    @Query("SELECT m FROM SettlementMismatch m WHERE m.run.id = :runId AND m.type = :type")
+    Page<SettlementMismatch> findByRunIdAndType(@Param("runId") Long runId,
+            @Param("type") SettlementMismatch.MismatchType type, Pageable pageable);
+}
@@ -0,0 +1,12 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.SettlementRun;
+
+/**
+ * Repository for SettlementRun entity.
+ */
+@Repository
+public interface SettlementRunRepository extends JpaRepository<SettlementRun, Long> {
+}
@@ -0,0 +1,73 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+import site.clickbasketecom.ClickBasket.entity.VendorOrder;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repository for VendorOrder entity.
+ */
+@Repository
+public interface VendorOrderRepository extends JpaRepository<VendorOrder, Long> {
+
+    /**
+     * A vendor's fulfillment queue for one status, oldest first, starting after the given ID.
+     * Backed by idx_vendor_order_queue.
+     */
+    @Query("SELECT vo FROM VendorOrder vo JOIN FETCH vo.order "
+            + "WHERE vo.vendor.id = :vendorId AND vo.status = :status AND vo.id > :afterId ORDER BY vo.id")
+    List<VendorOrder> findQueue(@Param("vendorId") Long vendorId,
+            @Param("status") OrderItem.FulfillmentStatus status,
+            @Param("afterId") Long afterId,
+            Pageable pageable);
+
+    /**
+     * Lock the IDs among the given ones that belong to the vendor, are in one of the source statuses
+     * and belong to one of the given orders, which the caller has already locked.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT vo FROM VendorOrder vo WHERE vo.id IN :ids AND vo.vendor.id = :vendorId "
+            + "AND vo.status IN :from AND vo.order.id IN :orderIds ORDER BY vo.id")
+    List<VendorOrder> lockTransitionable(@Param("ids") Collection<Long> ids,
+            @Param("vendorId") Long vendorId,
+            @Param("from") Collection<OrderItem.FulfillmentStatus> from,
+            @Param("orderIds") Collection<Long> orderIds);
+
+    /**
+     * Move the given vendor orders to a status. Tracking details and ship time are kept unless new ones are given.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE VendorOrder vo SET vo.status = :status, vo.updatedAt = :now, "
+            + "vo.trackingNumber = COALESCE(:trackingNumber, vo.trackingNumber), "
+            + "vo.shippingCarrier = COALESCE(:shippingCarrier, vo.shippingCarrier), "
+            + "vo.shippedAt = COALESCE(:shippedAt, vo.shippedAt) "
+            + "WHERE vo.id IN :ids")
+    int updateStatus(@Param("ids") Collection<Long> ids,
+            @Param("status") OrderItem.FulfillmentStatus status,
+            @Param("trackingNumber") String trackingNumber,
+            @Param("shippingCarrier") String shippingCarrier,
+            @Param("shippedAt") LocalDateTime shippedAt,
+            @Param("now") LocalDateTime now);
+
+    /**
+     * Move the given orders' vendor orders that are in one of the source statuses to a status.
+     */
+    @Modifying(clearAutomatically = true, flushAutomatically = true)
+    @Query("UPDATE VendorOrder vo SET vo.status = :status, vo.updatedAt = :now "
+            + "WHERE vo.order.id IN :orderIds AND vo.status IN :from")
+    int updateStatusByOrderIdIn(@Param("orderIds") Collection<Long> orderIds,
+            @Param("status") OrderItem.FulfillmentStatus status,
+            @Param("from") Collection<OrderItem.FulfillmentStatus> from,
+            @Param("now") LocalDateTime now);
+}
@@ -1,8 +1,13 @@
 package site.clickbasketecom.ClickBasket.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 import site.clickbasketecom.ClickBasket.entity.Vendor;
 
@@ -10,12 +15,21 @@ import java.util.Optional;
 
 /**
  * Repository for Vendor entity.
+ * Lookups by user and store name are served from the query cache.
  */
 @Repository
 public interface VendorRepository extends JpaRepository<Vendor, Long> {
 
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "vendor-queries")
+    })
     Optional<Vendor> findByUserId(Long userId);
 
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "vendor-queries")
+    })
     Optional<Vendor> findByStoreName(String storeName);
 
     Boolean existsByUserId(Long userId);
@@ -23,4 +37,19 @@ public interface VendorRepository extends JpaRepository<Vendor, Long> {
     Boolean existsByStoreName(String storeName);
 
     Page<Vendor> findByStatus(Vendor.VendorStatus status, Pageable pageable);
+
+    /**
+     * Find a user's vendor ID and status without loading the vendor.
+     */
+    @Query("SELECT v.id AS id, v.status AS status FROM Vendor v WHERE v.user.id = :userId")
+    Optional<VendorStatusView> findStatusByUserId(@Param("userId") Long userId);
+
+    /**
+     * Projection of a vendor's ID and status.
+     */
+    interface VendorStatusView {
+        Long getId();
+
+        Vendor.VendorStatus getStatus();
+    }
 }
@@ -26,6 +26,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UserDetailsService userDetailsService;
+    private final TokenRevocationIndex revocationIndex;
 
     @Override
     protected void doFilterInternal(
@@ -50,6 +51,12 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             // Extract username/email from token
             userEmail = jwtUtil.extractUsername(jwt);
 
+            // Reject tokens whose login session has been revoked
+            if (revocationIndex.isRevoked(jwtUtil.extractSessionId(jwt))) {
+                filterChain.doFilter(request, response);
+                return;
+            }
+
             // If user email exists and no authentication in context
             if (userEmail != null && SecurityContextHolder.getContext().getAuthentication() == null) {
                 UserDetails userDetails = this.userDetailsService.loadUserByUsername(userEmail);
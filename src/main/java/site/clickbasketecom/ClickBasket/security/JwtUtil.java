@@ -28,6 +28,8 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration}")
     private long refreshExpiration;
 
+    private static final String SESSION_ID_CLAIM = "sid";
+
     /**
      * Extract username from JWT token.
      */
@@ -35,6 +37,20 @@ public class JwtUtil {
         return extractClaim(token, Claims::getSubject);
     }
 
+    /**
+     * Extract token ID (jti) from JWT token.
+     */
+    public String extractTokenId(String token) {
+        return extractClaim(token, Claims::getId);
+    }
+
+    /**
+     * Extract session ID from JWT token.
+     */
+    public String extractSessionId(String token) {
+        return extractClaim(token, claims -> claims.get(SESSION_ID_CLAIM, String.class));
+    }
+
     /**
      * Extract expiration date from JWT token.
      */
@@ -97,6 +113,32 @@ public class JwtUtil {
         return buildToken(new HashMap<>(), userDetails, refreshExpiration);
     }
 
+    /**
+     * Generate access token bound to a login session.
+     */
+    public String generateToken(UserDetails userDetails, String sessionId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(SESSION_ID_CLAIM, sessionId);
+        return buildToken(claims, userDetails, jwtExpiration);
+    }
+
+    /**
+     * Generate refresh token carrying a token ID and its login session.
+     */
+    public String generateRefreshToken(UserDetails userDetails, String sessionId, String tokenId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put(SESSION_ID_CLAIM, sessionId);
+        claims.put(Claims.ID, tokenId);
+        return buildToken(claims, userDetails, refreshExpiration);
+    }
+
+    /**
+     * Refresh token lifetime in milliseconds.
+     */
+    public long getRefreshExpiration() {
+        return refreshExpiration;
+    }
+
     /**
      * Build JWT token.
      */
@@ -0,0 +1,148 @@
+package site.clickbasketecom.ClickBasket.security;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * In-memory index of revoked token and session IDs.
+ * A Bloom filter answers the common "not revoked" case without touching the map;
+ * the map confirms hits and holds the expiry used for pruning.
+ */
+@Component
+public class TokenRevocationIndex {
+
+    private final ConcurrentHashMap<String, Long> revoked = new ConcurrentHashMap<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final int expectedInsertions;
+    private volatile BloomFilter filter;
+
+    public TokenRevocationIndex(
+            @Value("${app.auth.revocation-index.expected-insertions:100000}") int expectedInsertions) {
+        this.expectedInsertions = expectedInsertions;
+        this.filter = new BloomFilter(expectedInsertions);
+    }
+
+    /**
+     * Check if a token or session ID has been revoked.
+     */
+    public boolean isRevoked(String id) {
+        if (id == null || !filter.mightContain(id)) {
+            return false;
+        }
+        return revoked.containsKey(id);
+    }
+
+    /**
+     * Mark an ID as revoked until the given expiry (epoch millis).
+     */
+    public void revoke(String id, long expiresAtMillis) {
+        writeLock.lock();
+        try {
+            revoked.merge(id, expiresAtMillis, Math::max);
+            filter.put(id);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Drop entries that expired before the given time and rebuild the Bloom filter.
+     * Returns the number of entries removed.
+     */
+    public int prune(long nowMillis) {
+        writeLock.lock();
+        try {
+            int before = revoked.size();
+            revoked.values().removeIf(expiresAt -> expiresAt < nowMillis);
+            BloomFilter rebuilt = new BloomFilter(Math.max(expectedInsertions, revoked.size() * 2));
+            for (Map.Entry<String, Long> entry : revoked.entrySet()) {
+                rebuilt.put(entry.getKey());
+            }
+            filter = rebuilt;
+            return before - revoked.size();
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Number of revoked IDs currently held.
+     */
+    public int size() {
+        return revoked.size();
+    }
+
+    /**
+     * Lock-free Bloom filter using double hashing, sized for a 1% false-positive rate.
+     */
+    private static final class BloomFilter {
+
+        private static final double LN2 = Math.log(2);
+
+        private final AtomicLongArray bits;
+        private final long bitCount;
+        private final int hashCount;
+
+        BloomFilter(int expectedInsertions) {
+            int n = Math.max(expectedInsertions, 1024);
+            long m = (long) Math.ceil(-n * Math.log(0.01) / (LN2 * LN2));
+            this.bits = new AtomicLongArray((int) ((m + 63) >>> 6));
+            this.bitCount = (long) bits.length() << 6;
+            this.hashCount = Math.max(1, (int) Math.round((double) m / n * LN2));
+        }
+
+        void put(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+                int word = (int) (index >>> 6);
+                long mask = 1L << index;
+                long current;
+                do {
+                    current = bits.get(word);
+                    if ((current & mask) != 0) {
+                        break;
+                    }
+                } while (!bits.compareAndSet(word, current, current | mask));
+            }
+        }
+
+        boolean mightContain(String value) {
+            long hash = hash(value);
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 1; i <= hashCount; i++) {
+                long index = ((h1 + (long) i * h2) & Long.MAX_VALUE) % bitCount;
+                if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * 64-bit FNV-1a followed by a murmur finalizer.
+         */
+        private static long hash(String value) {
+            long h = 0xcbf29ce484222325L;
+            for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+                h ^= b;
+                h *= 0x100000001b3L;
+            }
+            h ^= h >>> 33;
+            h *= 0xff51afd7ed558ccdL;
+            h ^= h >>> 33;
+            h *= 0xc4ceb9fe1a85ec53L;
+            h ^= h >>> 33;
+            return h;
+        }
+    }
+}
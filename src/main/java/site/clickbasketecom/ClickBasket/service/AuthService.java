@@ -1,6 +1,7 @@
 package site.clickbasketecom.ClickBasket.service;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
@@ -16,8 +17,6 @@ import site.clickbasketecom.ClickBasket.exception.EmailAlreadyExistsException;
 import site.clickbasketecom.ClickBasket.exception.RoleNotFoundException;
 import site.clickbasketecom.ClickBasket.repository.RoleRepository;
 import site.clickbasketecom.ClickBasket.repository.UserRepository;
-import site.clickbasketecom.ClickBasket.security.CustomUserDetails;
-import site.clickbasketecom.ClickBasket.security.JwtUtil;
 
 import java.util.HashSet;
 import java.util.Set;
@@ -28,14 +27,16 @@ import java.util.stream.Collectors;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 @SuppressWarnings("null")
 public class AuthService {
 
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
-    private final JwtUtil jwtUtil;
+    private final RefreshTokenService refreshTokenService;
     private final AuthenticationManager authenticationManager;
+    private final CartService cartService;
 
     /**
      * Register a new user with CUSTOMER role.
@@ -69,11 +70,9 @@ public class AuthService {
         User savedUser = userRepository.save(user);
 
         // Generate tokens
-        CustomUserDetails userDetails = new CustomUserDetails(savedUser);
-        String accessToken = jwtUtil.generateToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        RefreshTokenService.IssuedTokens tokens = refreshTokenService.issueTokens(savedUser);
 
-        return buildAuthResponse(savedUser, accessToken, refreshToken);
+        return buildAuthResponse(savedUser, tokens.getAccessToken(), tokens.getRefreshToken());
     }
 
     /**
@@ -108,11 +107,9 @@ public class AuthService {
         User savedUser = userRepository.save(user);
 
         // Generate tokens
-        CustomUserDetails userDetails = new CustomUserDetails(savedUser);
-        String accessToken = jwtUtil.generateToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        RefreshTokenService.IssuedTokens tokens = refreshTokenService.issueTokens(savedUser);
 
-        return buildAuthResponse(savedUser, accessToken, refreshToken);
+        return buildAuthResponse(savedUser, tokens.getAccessToken(), tokens.getRefreshToken());
     }
 
     /**
@@ -136,32 +133,36 @@ public class AuthService {
             throw new BadCredentialsException("Account is disabled");
         }
 
+        // Carry over the guest cart; a merge problem must not block the login
+        if (request.getGuestCart() != null && !request.getGuestCart().isEmpty()) {
+            try {
+                cartService.mergeGuestCart(user.getId(), request.getGuestCart());
+            } catch (RuntimeException e) {
+                log.warn("Failed to merge guest cart for user {}", user.getId(), e);
+            }
+        }
+
         // Generate tokens
-        CustomUserDetails userDetails = new CustomUserDetails(user);
-        String accessToken = jwtUtil.generateToken(userDetails);
-        String refreshToken = jwtUtil.generateRefreshToken(userDetails);
+        RefreshTokenService.IssuedTokens tokens = refreshTokenService.issueTokens(user);
 
-        return buildAuthResponse(user, accessToken, refreshToken);
+        return buildAuthResponse(user, tokens.getAccessToken(), tokens.getRefreshToken());
     }
 
     /**
      * Refresh access token using refresh token.
+     * The refresh token is rotated; the old one can no longer be used.
      */
     public AuthResponse refreshToken(String refreshToken) {
-        String userEmail = jwtUtil.extractUsername(refreshToken);
-
-        User user = userRepository.findByEmail(userEmail)
-                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+        RefreshTokenService.IssuedTokens tokens = refreshTokenService.rotate(refreshToken);
 
-        CustomUserDetails userDetails = new CustomUserDetails(user);
-
-        if (!jwtUtil.validateToken(refreshToken, userDetails)) {
-            throw new BadCredentialsException("Invalid or expired refresh token");
-        }
-
-        String accessToken = jwtUtil.generateToken(userDetails);
+        return buildAuthResponse(tokens.getUser(), tokens.getAccessToken(), tokens.getRefreshToken());
+    }
 
-        return buildAuthResponse(user, accessToken, refreshToken);
+    /**
+     * Logout by revoking the session of the given refresh token.
+     */
+    public void logout(String refreshToken) {
+        refreshTokenService.revoke(refreshToken);
     }
 
     /**
@@ -0,0 +1,148 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import site.clickbasketecom.ClickBasket.entity.Cart;
+import site.clickbasketecom.ClickBasket.entity.CartItem;
+import site.clickbasketecom.ClickBasket.entity.Product;
+import site.clickbasketecom.ClickBasket.repository.CartRepository;
+import site.clickbasketecom.ClickBasket.repository.ProductRepository;
+import site.clickbasketecom.ClickBasket.repository.UserRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Loads carts into CartStore and writes its dirty carts back.
+ */
+@Component
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class CartPersistence {
+
+    private final CartRepository cartRepository;
+    private final ProductRepository productRepository;
+    private final UserRepository userRepository;
+
+    /**
+     * Load a user's cart with its lines. Users without a cart get a virtual empty one.
+     * Not read-only, so it always reads the primary: saveAll treats the loaded state as
+     * authoritative, and lines missing from a lagging replica would be deleted on write-back.
+     */
+    @Transactional
+    public CartStore.CartState load(Long userId) {
+        return cartRepository.findByUserIdWithItems(userId)
+                .map(this::toState)
+                .orElseGet(() -> new CartStore.CartState(userId, null));
+    }
+
+    /**
+     * Write a batch of carts in one transaction, creating carts that don't exist yet.
+     * Virtual carts that are still empty are skipped, so they never get a row.
+     * Returns the cart and item IDs of each saved cart, keyed by user ID.
+     */
+    @Transactional
+    public Map<Long, SavedCart> saveAll(List<CartStore.CartState> states) {
+        Map<Long, Cart> carts = cartRepository.findAllByUserIdInWithItems(
+                        states.stream().map(CartStore.CartState::getUserId).collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(cart -> cart.getUser().getId(), Function.identity()));
+
+        Map<Long, Cart> saved = new HashMap<>();
+        for (CartStore.CartState state : states) {
+            Cart cart = carts.get(state.getUserId());
+            if (cart == null) {
+                if (state.isEmpty()) {
+                    continue;
+                }
+                cart = Cart.builder()
+                        .user(userRepository.getReferenceById(state.getUserId()))
+                        .build();
+            }
+            apply(state, cart);
+            saved.put(state.getUserId(), cartRepository.save(cart));
+        }
+        cartRepository.flush();
+
+        Map<Long, SavedCart> result = new HashMap<>();
+        saved.forEach((userId, cart) -> result.put(userId, new SavedCart(cart.getId(),
+                cart.getItems().stream().collect(Collectors.toMap(
+                        item -> item.getProduct().getId(), CartItem::getId)))));
+        return result;
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Sync a cart entity with in-memory state: update matching items, add new ones, drop removed ones.
+     */
+    private void apply(CartStore.CartState state, Cart cart) {
+        Map<Long, CartItem> existing = cart.getItems().stream()
+                .collect(Collectors.toMap(item -> item.getProduct().getId(), Function.identity()));
+
+        cart.getItems().removeIf(item -> state.getLine(item.getProduct().getId()) == null);
+
+        for (CartStore.Line line : state.getLines()) {
+            CartItem item = existing.get(line.getProductId());
+            if (item == null) {
+                Product product = productRepository.getReferenceById(line.getProductId());
+                cart.getItems().add(CartItem.builder()
+                        .cart(cart)
+                        .product(product)
+                        .quantity(line.getQuantity())
+                        .unitPrice(line.getUnitPrice())
+                        .build());
+            } else {
+                item.setQuantity(line.getQuantity());
+                item.setUnitPrice(line.getUnitPrice());
+            }
+        }
+
+        cart.setCouponCode(state.getCouponCode());
+        cart.setDiscountAmount(state.getDiscountAmount());
+        // Item-only changes must still count as activity for the abandonment sweeper
+        cart.setUpdatedAt(LocalDateTime.now());
+    }
+
+    private CartStore.CartState toState(Cart cart) {
+        CartStore.CartState state = new CartStore.CartState(cart.getUser().getId(), cart.getId());
+        for (CartItem item : cart.getItems()) {
+            Product product = item.getProduct();
+            state.putLine(CartStore.Line.builder()
+                    .itemId(item.getId())
+                    .productId(product.getId())
+                    .productName(product.getName())
+                    .productSlug(product.getSlug())
+                    .productImage(product.getMainImageUrl())
+                    .vendorId(product.getVendor() != null ? product.getVendor().getId() : null)
+                    .categoryId(product.getCategory() != null ? product.getCategory().getId() : null)
+                    .storeName(product.getVendor() != null ? product.getVendor().getStoreName() : null)
+                    .quantity(item.getQuantity())
+                    .unitPrice(item.getUnitPrice())
+                    .availableStock(product.getStockQuantity())
+                    .build());
+        }
+        state.setCouponCode(cart.getCouponCode());
+        state.setDiscountAmount(cart.getDiscountAmount());
+        return state;
+    }
+
+    /**
+     * IDs assigned to a saved cart and its items (keyed by product ID).
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SavedCart {
+        private final Long cartId;
+        private final Map<Long, Long> itemIds;
+    }
+}
@@ -1,56 +1,61 @@
 package site.clickbasketecom.ClickBasket.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import site.clickbasketecom.ClickBasket.config.MetricsConfig;
 import site.clickbasketecom.ClickBasket.dto.cart.AddToCartRequest;
+import site.clickbasketecom.ClickBasket.dto.cart.ApplyCouponRequest;
+import site.clickbasketecom.ClickBasket.dto.cart.CartBatchRequest;
 import site.clickbasketecom.ClickBasket.dto.cart.CartItemResponse;
+import site.clickbasketecom.ClickBasket.dto.cart.CartOperationRequest;
 import site.clickbasketecom.ClickBasket.dto.cart.CartResponse;
 import site.clickbasketecom.ClickBasket.dto.cart.UpdateCartItemRequest;
-import site.clickbasketecom.ClickBasket.entity.Cart;
-import site.clickbasketecom.ClickBasket.entity.CartItem;
 import site.clickbasketecom.ClickBasket.entity.Product;
-import site.clickbasketecom.ClickBasket.entity.User;
 import site.clickbasketecom.ClickBasket.exception.ProductNotFoundException;
-import site.clickbasketecom.ClickBasket.exception.UserNotFoundException;
-import site.clickbasketecom.ClickBasket.repository.CartItemRepository;
-import site.clickbasketecom.ClickBasket.repository.CartRepository;
 import site.clickbasketecom.ClickBasket.repository.ProductRepository;
-import site.clickbasketecom.ClickBasket.repository.UserRepository;
+import site.clickbasketecom.ClickBasket.util.Money;
 
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Service for shopping cart operations.
+ * Carts live in CartStore and are persisted write-behind; only product lookups hit the database.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class CartService {
 
-    private final CartRepository cartRepository;
-    private final CartItemRepository cartItemRepository;
+    private final CartStore cartStore;
     private final ProductRepository productRepository;
-    private final UserRepository userRepository;
+    private final ProductStampIndex productStampIndex;
+    private final PromotionIndex promotionIndex;
 
     /**
-     * Get user's cart. Creates one if it doesn't exist.
+     * Get user's cart, flagging lines whose price or availability drifted.
+     * Never writes: users without a cart see a virtual empty one, and a working-set
+     * miss is loaded in a read-only transaction.
      */
-    @Transactional
     public CartResponse getCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
+        // One read of the store; stamps are warmed and the drift checked on the copy, outside the lock
+        CartStore.CartState cart = cartStore.snapshot(userId);
+        productStampIndex.getAll(productIds(cart));
         return mapToResponse(cart);
     }
 
     /**
      * Add item to cart.
      */
-    @Transactional
     public CartResponse addToCart(Long userId, AddToCartRequest request) {
-        Cart cart = getOrCreateCart(userId);
-
         // Find product
-        Product product = productRepository.findById(request.getProductId())
+        Product product = productRepository.findByIdWithVendor(request.getProductId())
                 .orElseThrow(() -> new ProductNotFoundException(request.getProductId()));
 
         // Check if product is active
@@ -64,86 +69,144 @@ public class CartService {
                     "Requested quantity exceeds available stock. Available: " + product.getStockQuantity());
         }
 
-        // Check if item already exists in cart
-        CartItem existingItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), product.getId())
-                .orElse(null);
+        return cartStore.update(userId, cart -> {
+            // Check if item already exists in cart
+            CartStore.Line existingLine = cart.getLine(product.getId());
 
-        if (existingItem != null) {
-            // Update quantity
-            int newQuantity = existingItem.getQuantity() + request.getQuantity();
-            if (newQuantity > product.getStockQuantity()) {
-                throw new IllegalArgumentException(
-                        "Total quantity exceeds available stock. Available: " + product.getStockQuantity());
+            int newQuantity = request.getQuantity();
+            if (existingLine != null) {
+                newQuantity += existingLine.getQuantity();
+                if (newQuantity > product.getStockQuantity()) {
+                    throw new IllegalArgumentException(
+                            "Total quantity exceeds available stock. Available: " + product.getStockQuantity());
+                }
             }
-            existingItem.setQuantity(newQuantity);
-            existingItem.setUnitPrice(product.getPrice()); // Update to current price
-            cartItemRepository.save(existingItem);
-        } else {
-            // Add new item
-            CartItem newItem = CartItem.builder()
-                    .cart(cart)
-                    .product(product)
-                    .quantity(request.getQuantity())
-                    .unitPrice(product.getPrice())
-                    .build();
-            cart.getItems().add(newItem);
-            cartRepository.save(cart);
-        }
 
-        return mapToResponse(cart);
+            // Update to current price and product details
+            cart.putLine(toLine(product, newQuantity, existingLine));
+            return mapToResponse(cart);
+        });
     }
 
     /**
      * Update cart item quantity.
      */
-    @Transactional
     public CartResponse updateCartItem(Long userId, Long productId, UpdateCartItemRequest request) {
-        Cart cart = getOrCreateCart(userId);
-
-        // Find cart item
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found in cart"));
+        if (!cartStore.read(userId, cart -> cart.getLine(productId) != null)) {
+            throw new IllegalArgumentException("Product not found in cart");
+        }
 
         // Check stock availability
-        Product product = cartItem.getProduct();
+        Product product = productRepository.findByIdWithVendor(productId)
+                .orElseThrow(() -> new ProductNotFoundException(productId));
         if (request.getQuantity() > product.getStockQuantity()) {
             throw new IllegalArgumentException(
                     "Requested quantity exceeds available stock. Available: " + product.getStockQuantity());
         }
 
-        cartItem.setQuantity(request.getQuantity());
-        cartItem.setUnitPrice(product.getPrice()); // Update to current price
-        cartItemRepository.save(cartItem);
+        return cartStore.update(userId, cart -> {
+            CartStore.Line existingLine = cart.getLine(productId);
+            if (existingLine == null) {
+                throw new IllegalArgumentException("Product not found in cart");
+            }
 
-        return mapToResponse(cart);
+            // Update to current price
+            cart.putLine(toLine(product, request.getQuantity(), existingLine));
+            return mapToResponse(cart);
+        });
     }
 
     /**
      * Remove item from cart.
      */
-    @Transactional
     public CartResponse removeFromCart(Long userId, Long productId) {
-        Cart cart = getOrCreateCart(userId);
+        return cartStore.update(userId, cart -> {
+            if (cart.removeLine(productId) == null) {
+                throw new IllegalArgumentException("Product not found in cart");
+            }
+            return mapToResponse(cart);
+        });
+    }
 
-        // Find and remove cart item
-        CartItem cartItem = cartItemRepository.findByCartIdAndProductId(cart.getId(), productId)
-                .orElseThrow(() -> new IllegalArgumentException("Product not found in cart"));
+    /**
+     * Clear all items from cart.
+     */
+    public CartResponse clearCart(Long userId) {
+        return cartStore.update(userId, cart -> {
+            cart.clear();
+            return mapToResponse(cart);
+        });
+    }
 
-        cart.getItems().remove(cartItem);
-        cartItemRepository.delete(cartItem);
+    /**
+     * Apply a coupon code to the cart, replacing any previous coupon.
+     */
+    public CartResponse applyCoupon(Long userId, ApplyCouponRequest request) {
+        PromotionIndex.Rule coupon = promotionIndex.findCoupon(request.getCode());
+        if (coupon == null) {
+            throw new IllegalArgumentException("Invalid or expired coupon code");
+        }
 
-        return mapToResponse(cart);
+        return cartStore.update(userId, cart -> {
+            cart.setCouponCode(coupon.getCode());
+            return mapToResponse(cart);
+        });
     }
 
     /**
-     * Clear all items from cart.
+     * Remove the coupon from the cart.
      */
-    @Transactional
-    public CartResponse clearCart(Long userId) {
-        Cart cart = getOrCreateCart(userId);
-        cart.clearCart();
-        cartRepository.save(cart);
-        return mapToResponse(cart);
+    public CartResponse removeCoupon(Long userId) {
+        return cartStore.update(userId, cart -> {
+            cart.setCouponCode(null);
+            return mapToResponse(cart);
+        });
+    }
+
+    /**
+     * Reprice lines to current product prices and stock, accepting any drift.
+     * Withdrawn products stay flagged until removed.
+     */
+    public CartResponse refreshCart(Long userId) {
+        Map<Long, ProductStampIndex.Stamp> stamps = productStampIndex.getAll(
+                cartStore.read(userId, this::productIds));
+
+        return cartStore.update(userId, cart -> {
+            for (CartStore.Line line : cart.getLines()) {
+                ProductStampIndex.Stamp stamp = stamps.get(line.getProductId());
+                if (stamp != null && stamp.getStatus() != null) {
+                    line.setUnitPriceMinor(stamp.getPriceMinor());
+                    line.setAvailableStock(stamp.getStockQuantity());
+                }
+            }
+            return mapToResponse(cart);
+        });
+    }
+
+    /**
+     * Apply a batch of add/update/remove operations, in order, with one product lookup.
+     * Either every operation is applied or the cart is left unchanged.
+     */
+    public CartResponse applyBatch(Long userId, CartBatchRequest request) {
+        return applyOperations(userId, request.getOperations(), false);
+    }
+
+    /**
+     * Merge a guest cart into the user's cart, e.g. at login.
+     * Quantities are added and capped at available stock; unavailable products are skipped.
+     */
+    public CartResponse mergeGuestCart(Long userId, List<AddToCartRequest> items) {
+        if (items == null || items.isEmpty()) {
+            return getCart(userId);
+        }
+        List<CartOperationRequest> operations = items.stream()
+                .map(item -> CartOperationRequest.builder()
+                        .type(CartOperationRequest.OperationType.ADD)
+                        .productId(item.getProductId())
+                        .quantity(item.getQuantity())
+                        .build())
+                .collect(Collectors.toList());
+        return applyOperations(userId, operations, true);
     }
 
     // ========================
@@ -151,59 +214,164 @@ public class CartService {
     // ========================
 
     /**
-     * Get or create a cart for the user.
+     * Validate all operations against the cart, then apply them under a single store update.
+     * Lenient mode (guest merge) clamps to stock and skips unavailable products instead of failing.
+     */
+    private CartResponse applyOperations(Long userId, List<CartOperationRequest> operations, boolean lenient) {
+        Set<Long> productIds = operations.stream()
+                .filter(operation -> operation.getType() != CartOperationRequest.OperationType.REMOVE)
+                .map(CartOperationRequest::getProductId)
+                .collect(Collectors.toSet());
+        Map<Long, Product> products = productIds.isEmpty()
+                ? Map.of()
+                : productRepository.findAllByIdWithVendor(productIds).stream()
+                        .collect(Collectors.toMap(Product::getId, Function.identity()));
+
+        return cartStore.update(userId, cart -> {
+            // Work out the final quantities first so a failing operation leaves the cart untouched
+            Map<Long, Integer> quantities = new LinkedHashMap<>();
+            cart.getLines().forEach(line -> quantities.put(line.getProductId(), line.getQuantity()));
+            Set<Long> touched = new LinkedHashSet<>();
+
+            for (CartOperationRequest operation : operations) {
+                Long productId = operation.getProductId();
+                if (operation.getType() == CartOperationRequest.OperationType.REMOVE) {
+                    if (quantities.remove(productId) == null) {
+                        throw new IllegalArgumentException("Product not found in cart: " + productId);
+                    }
+                    touched.add(productId);
+                    continue;
+                }
+
+                if (operation.getQuantity() == null) {
+                    throw new IllegalArgumentException("Quantity is required for " + operation.getType());
+                }
+                Product product = products.get(productId);
+                if (product == null || product.getStatus() != Product.ProductStatus.ACTIVE) {
+                    if (lenient) {
+                        continue;
+                    }
+                    if (product == null) {
+                        throw new ProductNotFoundException(productId);
+                    }
+                    throw new IllegalStateException("Product is not available for purchase: " + productId);
+                }
+
+                Integer current = quantities.get(productId);
+                int quantity = operation.getQuantity();
+                if (operation.getType() == CartOperationRequest.OperationType.ADD) {
+                    quantity += current != null ? current : 0;
+                } else if (current == null) {
+                    throw new IllegalArgumentException("Product not found in cart: " + productId);
+                }
+
+                if (quantity > product.getStockQuantity()) {
+                    if (!lenient) {
+                        throw new IllegalArgumentException("Requested quantity exceeds available stock for product "
+                                + productId + ". Available: " + product.getStockQuantity());
+                    }
+                    quantity = product.getStockQuantity();
+                    if (quantity < 1) {
+                        continue;
+                    }
+                }
+                quantities.put(productId, quantity);
+                touched.add(productId);
+            }
+
+            for (Long productId : touched) {
+                Integer quantity = quantities.get(productId);
+                if (quantity == null) {
+                    cart.removeLine(productId);
+                } else {
+                    cart.putLine(toLine(products.get(productId), quantity, cart.getLine(productId)));
+                }
+            }
+            return mapToResponse(cart);
+        });
+    }
+
+    private List<Long> productIds(CartStore.CartState cart) {
+        return cart.getLines().stream()
+                .map(CartStore.Line::getProductId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Build a cart line from the current product state.
      */
-    private Cart getOrCreateCart(Long userId) {
-        return cartRepository.findByUserId(userId)
-                .orElseGet(() -> {
-                    User user = userRepository.findById(userId)
-                            .orElseThrow(() -> new UserNotFoundException(userId));
-                    Cart newCart = Cart.builder()
-                            .user(user)
-                            .build();
-                    return cartRepository.save(newCart);
-                });
+    private CartStore.Line toLine(Product product, int quantity, CartStore.Line existingLine) {
+        return CartStore.Line.builder()
+                .itemId(existingLine != null ? existingLine.getItemId() : null)
+                .productId(product.getId())
+                .productName(product.getName())
+                .productSlug(product.getSlug())
+                .productImage(product.getMainImageUrl())
+                .vendorId(product.getVendor() != null ? product.getVendor().getId() : null)
+                .categoryId(product.getCategory() != null ? product.getCategory().getId() : null)
+                .storeName(product.getVendor() != null ? product.getVendor().getStoreName() : null)
+                .quantity(quantity)
+                .unitPrice(product.getPrice())
+                .availableStock(product.getStockQuantity())
+                .build();
     }
 
     /**
-     * Map Cart entity to CartResponse DTO.
+     * Map cart state to CartResponse DTO.
      */
-    private CartResponse mapToResponse(Cart cart) {
-        List<CartItemResponse> items = cart.getItems().stream()
+    private CartResponse mapToResponse(CartStore.CartState cart) {
+        List<CartItemResponse> items = cart.getLines().stream()
                 .map(this::mapItemToResponse)
                 .collect(Collectors.toList());
 
+        // Subtotal and discounts come from one pass over the lines, in minor units
+        PromotionIndex.Evaluation evaluation = promotionIndex.evaluate(cart.getLines(), cart.getCouponCode());
+        long subtotal = evaluation.getSubtotalMinor();
+        boolean hasChanges = items.stream()
+                .anyMatch(item -> item.getPriceChanged() || !item.getAvailable());
+
         return CartResponse.builder()
-                .id(cart.getId())
-                .userId(cart.getUser().getId())
+                .id(cart.getCartId())
+                .userId(cart.getUserId())
                 .items(items)
                 .totalItems(cart.getTotalItems())
                 .uniqueItems(items.size())
-                .subtotal(cart.getSubtotal())
+                .subtotal(Money.toDecimal(subtotal))
                 .couponCode(cart.getCouponCode())
-                .discountAmount(cart.getDiscountAmount())
-                .total(cart.getTotal())
+                .couponMessage(evaluation.getCouponMessage())
+                .promotionName(evaluation.getPromotion() != null ? evaluation.getPromotion().getName() : null)
+                .discountAmount(Money.toDecimal(evaluation.getDiscountMinor()))
+                .total(Money.toDecimal(subtotal - evaluation.getDiscountMinor()))
+                .hasChanges(hasChanges)
                 .build();
     }
 
     /**
-     * Map CartItem entity to CartItemResponse DTO.
+     * Map cart line to CartItemResponse DTO, comparing it with the cached product stamp.
+     * Lines without a cached stamp are reported as priced.
      */
-    private CartItemResponse mapItemToResponse(CartItem item) {
-        Product product = item.getProduct();
+    private CartItemResponse mapItemToResponse(CartStore.Line line) {
+        ProductStampIndex.Stamp stamp = productStampIndex.peek(line.getProductId());
+        boolean priceChanged = stamp != null && stamp.getStatus() != null
+                && stamp.getPriceMinor() != line.getUnitPriceMinor();
+        Integer stock = stamp != null ? Integer.valueOf(stamp.getStockQuantity()) : line.getAvailableStock();
+
         return CartItemResponse.builder()
-                .id(item.getId())
-                .productId(product.getId())
-                .productName(product.getName())
-                .productSlug(product.getSlug())
-                .productImage(product.getMainImageUrl())
-                .vendorId(product.getVendor() != null ? product.getVendor().getId() : null)
-                .storeName(product.getVendor() != null ? product.getVendor().getStoreName() : null)
-                .quantity(item.getQuantity())
-                .unitPrice(item.getUnitPrice())
-                .totalPrice(item.getTotalPrice())
-                .availableStock(product.getStockQuantity())
-                .inStock(product.isInStock())
+                .id(line.getItemId())
+                .productId(line.getProductId())
+                .productName(line.getProductName())
+                .productSlug(line.getProductSlug())
+                .productImage(line.getProductImage())
+                .vendorId(line.getVendorId())
+                .storeName(line.getStoreName())
+                .quantity(line.getQuantity())
+                .unitPrice(line.getUnitPrice())
+                .totalPrice(line.getTotalPrice())
+                .availableStock(stock)
+                .inStock(stock != null && stock > 0)
+                .priceChanged(priceChanged)
+                .currentPrice(priceChanged ? Money.toDecimal(stamp.getPriceMinor()) : null)
+                .available(stamp == null || stamp.isPurchasable(line.getQuantity()))
                 .build();
     }
 }
@@ -0,0 +1,542 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.util.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * Write-behind store for shopping carts.
+ * Carts are served and mutated in memory from a sharded, LRU-bounded working set;
+ * mutated carts are queued as dirty and persisted in coalesced batches.
+ * A dirty cart stays in the queue until a flush of its latest version commits, so
+ * LRU eviction never loses writes, and everything is flushed on shutdown. Carts that keep
+ * failing to flush stay queued and are reported, never dropped.
+ * The working set is per instance: a user's requests must reach the same instance.
+ */
+@Component
+@Slf4j
+public class CartStore {
+
+    private final CartPersistence cartPersistence;
+    private final Shard[] shards;
+    private final ConcurrentHashMap<Long, CartState> dirty = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Long, Integer> failedAttempts = new ConcurrentHashMap<>();
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final int batchSize;
+    private final int maxDirty;
+    private final int maxFlushAttempts;
+
+    public CartStore(
+            CartPersistence cartPersistence,
+            @Value("${app.cart.store.shards:16}") int shardCount,
+            @Value("${app.cart.store.max-carts:50000}") int maxCarts,
+            @Value("${app.cart.store.batch-size:200}") int batchSize,
+            @Value("${app.cart.store.max-dirty:5000}") int maxDirty,
+            @Value("${app.cart.store.max-flush-attempts:5}") int maxFlushAttempts) {
+        this.cartPersistence = cartPersistence;
+        this.shards = new Shard[shardCount];
+        int perShard = Math.max(1, maxCarts / shardCount);
+        for (int i = 0; i < shardCount; i++) {
+            shards[i] = new Shard(perShard);
+        }
+        this.batchSize = batchSize;
+        this.maxDirty = maxDirty;
+        this.maxFlushAttempts = maxFlushAttempts;
+    }
+
+    /**
+     * Read a user's cart.
+     */
+    public <T> T read(Long userId, Function<CartState, T> reader) {
+        CartState loaded = null;
+        while (true) {
+            Shard shard = shardFor(userId);
+            shard.lock.lock();
+            try {
+                CartState state = resolve(shard, userId, loaded);
+                if (state != null) {
+                    return reader.apply(state);
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+            loaded = cartPersistence.load(userId);
+        }
+    }
+
+    /**
+     * Mutate a user's cart and queue it for persistence.
+     * The mutator works on a copy that replaces the cart only if it returns normally,
+     * so a mutator that throws leaves the cart and the queue untouched.
+     */
+    public <T> T update(Long userId, Function<CartState, T> mutator) {
+        T result;
+        CartState loaded = null;
+        while (true) {
+            Shard shard = shardFor(userId);
+            shard.lock.lock();
+            try {
+                CartState state = resolve(shard, userId, loaded);
+                if (state != null) {
+                    CartState working = state.copy();
+                    result = mutator.apply(working);
+                    working.version = state.version + 1;
+                    shard.carts.put(userId, working);
+                    dirty.put(userId, working);
+                    break;
+                }
+            } finally {
+                shard.lock.unlock();
+            }
+            loaded = cartPersistence.load(userId);
+        }
+
+        if (dirty.size() > maxDirty) {
+            // Persistence is falling behind - apply backpressure on the caller
+            flush();
+        }
+        return result;
+    }
+
+    /**
+     * Copy of a user's cart, safe to use outside the store.
+     */
+    public CartState snapshot(Long userId) {
+        return read(userId, CartState::copy);
+    }
+
+    /**
+     * Persist queued carts in batches. Skipped if a flush is already running.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.cart.store.flush-interval-ms:2000}")
+    public void scheduledFlush() {
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Persist queued carts in batches. Returns the number of carts written.
+     * Waits for a running flush to finish first, so callers applying backpressure are
+     * only released once the queue has been drained.
+     */
+    public int flush() {
+        flushLock.lock();
+        try {
+            return drain();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Flush everything before the application stops.
+     */
+    @PreDestroy
+    public void flushAll() {
+        flushLock.lock();
+        try {
+            int written = drain();
+            if (!dirty.isEmpty()) {
+                log.error("{} carts could not be persisted on shutdown", dirty.size());
+            } else {
+                log.info("Flushed {} carts on shutdown", written);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    /**
+     * Drop a cart whose row was deleted behind the store's back, unless it has unsaved changes.
+     * The next read then starts from a virtual empty cart.
+     */
+    public void evictIfClean(Long userId, Long cartId) {
+        Shard shard = shardFor(userId);
+        shard.lock.lock();
+        try {
+            CartState state = shard.carts.get(userId);
+            if (state != null && !dirty.containsKey(userId) && cartId.equals(state.cartId)) {
+                shard.carts.remove(userId);
+            }
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Whether a user's cart has changes not yet written to the database.
+     */
+    public boolean hasPendingWrites(Long userId) {
+        return dirty.containsKey(userId);
+    }
+
+    /**
+     * Number of carts whose last max-flush-attempts flushes or more all failed.
+     */
+    public int failingCount() {
+        return (int) failedAttempts.values().stream().filter(attempts -> attempts >= maxFlushAttempts).count();
+    }
+
+    /**
+     * Number of carts waiting to be persisted.
+     */
+    public int dirtyCount() {
+        return dirty.size();
+    }
+
+    /**
+     * Number of carts held in the working set.
+     */
+    public int size() {
+        int size = 0;
+        for (Shard shard : shards) {
+            shard.lock.lock();
+            try {
+                size += shard.carts.size();
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return size;
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Find a cart in the working set or the dirty queue, else install a freshly loaded one.
+     * Must be called with the shard lock held.
+     */
+    private CartState resolve(Shard shard, Long userId, CartState loaded) {
+        CartState state = shard.carts.get(userId);
+        if (state == null) {
+            // Evicted but not yet persisted - the queued copy is the latest
+            state = dirty.get(userId);
+            if (state == null) {
+                state = loaded;
+            }
+            if (state != null) {
+                shard.carts.put(userId, state);
+            }
+        }
+        return state;
+    }
+
+    private int drain() {
+        int written = 0;
+        List<Long> failed = new ArrayList<>();
+        Iterator<Long> queued = new ArrayList<>(dirty.keySet()).iterator();
+
+        while (queued.hasNext()) {
+            List<CartState> batch = new ArrayList<>(batchSize);
+            while (queued.hasNext() && batch.size() < batchSize) {
+                Long userId = queued.next();
+                CartState copy = copyIfDirty(userId);
+                if (copy != null) {
+                    batch.add(copy);
+                }
+            }
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            try {
+                written += complete(cartPersistence.saveAll(batch), batch);
+            } catch (Exception e) {
+                log.warn("Cart batch flush failed, retrying {} carts individually", batch.size(), e);
+                for (CartState copy : batch) {
+                    try {
+                        written += complete(cartPersistence.saveAll(List.of(copy)), List.of(copy));
+                    } catch (Exception single) {
+                        failed.add(copy.getUserId());
+                    }
+                }
+            }
+        }
+
+        failed.forEach(this::recordFailure);
+        return written;
+    }
+
+    private CartState copyIfDirty(Long userId) {
+        Shard shard = shardFor(userId);
+        shard.lock.lock();
+        try {
+            CartState state = dirty.get(userId);
+            return state != null ? state.copy() : null;
+        } finally {
+            shard.lock.unlock();
+        }
+    }
+
+    /**
+     * Apply generated IDs and dequeue carts whose flushed version is still current.
+     */
+    private int complete(Map<Long, CartPersistence.SavedCart> saved, List<CartState> batch) {
+        for (CartState copy : batch) {
+            Long userId = copy.getUserId();
+            CartPersistence.SavedCart result = saved.get(userId);
+            Shard shard = shardFor(userId);
+            shard.lock.lock();
+            try {
+                CartState state = dirty.get(userId);
+                if (state == null) {
+                    continue;
+                }
+                if (result != null) {
+                    state.cartId = result.getCartId();
+                    result.getItemIds().forEach((productId, itemId) -> {
+                        Line line = state.lines.get(productId);
+                        if (line != null) {
+                            line.setItemId(itemId);
+                        }
+                    });
+                }
+                if (state.version == copy.version) {
+                    dirty.remove(userId, state);
+                }
+                failedAttempts.remove(userId);
+            } finally {
+                shard.lock.unlock();
+            }
+        }
+        return batch.size();
+    }
+
+    /**
+     * Count a failed flush of a cart. The cart stays queued and is retried on every flush;
+     * every max-flush-attempts failures it is reported, so a cart that cannot be written
+     * is noticed without its changes being thrown away.
+     */
+    private void recordFailure(Long userId) {
+        int attempts = failedAttempts.merge(userId, 1, Integer::sum);
+        if (attempts % maxFlushAttempts == 0) {
+            log.error("Cart of user {} failed to flush {} times in a row and is still queued", userId, attempts);
+        }
+    }
+
+    private Shard shardFor(Long userId) {
+        int hash = Long.hashCode(userId);
+        hash ^= hash >>> 16;
+        return shards[Math.floorMod(hash, shards.length)];
+    }
+
+    /**
+     * A slice of the working set with its own lock and LRU order.
+     */
+    private static final class Shard {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final LinkedHashMap<Long, CartState> carts;
+
+        Shard(int capacity) {
+            this.carts = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Long, CartState> eldest) {
+                    // Dirty carts remain reachable through the dirty queue until flushed
+                    return size() > capacity;
+                }
+            };
+        }
+    }
+
+    /**
+     * In-memory state of a user's cart.
+     * Mutated only inside CartStore callbacks, under the owning shard's lock.
+     */
+    @Getter
+    public static class CartState {
+
+        private final Long userId;
+        private Long cartId;
+        private final Map<Long, Line> lines = new LinkedHashMap<>();
+        @Setter
+        private String couponCode;
+        private long discountMinor;
+        private long version;
+
+        public CartState(Long userId, Long cartId) {
+            this.userId = userId;
+            this.cartId = cartId;
+        }
+
+        /**
+         * Whether the cart has a database row. Users without one get a virtual empty cart
+         * that is only inserted once it holds something.
+         */
+        public boolean isMaterialized() {
+            return cartId != null;
+        }
+
+        public boolean isEmpty() {
+            return lines.isEmpty() && couponCode == null;
+        }
+
+        public Line getLine(Long productId) {
+            return lines.get(productId);
+        }
+
+        public Collection<Line> getLines() {
+            return lines.values();
+        }
+
+        public void putLine(Line line) {
+            lines.put(line.getProductId(), line);
+        }
+
+        public Line removeLine(Long productId) {
+            return lines.remove(productId);
+        }
+
+        public BigDecimal getDiscountAmount() {
+            return Money.toDecimal(discountMinor);
+        }
+
+        public void setDiscountAmount(BigDecimal discountAmount) {
+            this.discountMinor = Money.toMinor(discountAmount);
+        }
+
+        public long getSubtotalMinor() {
+            long subtotal = 0L;
+            for (Line line : lines.values()) {
+                subtotal = Math.addExact(subtotal, line.getTotalPriceMinor());
+            }
+            return subtotal;
+        }
+
+        public BigDecimal getSubtotal() {
+            return Money.toDecimal(getSubtotalMinor());
+        }
+
+        public BigDecimal getTotal() {
+            return Money.toDecimal(getSubtotalMinor() - discountMinor);
+        }
+
+        public int getTotalItems() {
+            int total = 0;
+            for (Line line : lines.values()) {
+                total += line.getQuantity();
+            }
+            return total;
+        }
+
+        public void clear() {
+            lines.clear();
+            couponCode = null;
+            discountMinor = 0L;
+        }
+
+        /**
+         * Take out what was ordered from a snapshot of this cart.
+         * If the cart has not changed since the snapshot it is cleared; otherwise only the
+         * ordered quantities and the redeemed coupon are removed, and lines added or
+         * increased after the snapshot stay.
+         */
+        public void removeOrdered(CartState ordered) {
+            if (version == ordered.version) {
+                clear();
+                return;
+            }
+            for (Line orderedLine : ordered.getLines()) {
+                Line line = lines.get(orderedLine.getProductId());
+                if (line == null) {
+                    continue;
+                }
+                if (line.getQuantity() <= orderedLine.getQuantity()) {
+                    lines.remove(orderedLine.getProductId());
+                } else {
+                    line.setQuantity(line.getQuantity() - orderedLine.getQuantity());
+                }
+            }
+            if (couponCode != null && couponCode.equals(ordered.couponCode)) {
+                couponCode = null;
+                discountMinor = 0L;
+            }
+        }
+
+        CartState copy() {
+            CartState copy = new CartState(userId, cartId);
+            lines.values().forEach(line -> copy.putLine(line.toBuilder().build()));
+            copy.couponCode = couponCode;
+            copy.discountMinor = discountMinor;
+            copy.version = version;
+            return copy;
+        }
+    }
+
+    /**
+     * A cart line with the product details shown in the cart.
+     */
+    @Getter
+    @Setter
+    @Builder(toBuilder = true)
+    @AllArgsConstructor
+    public static class Line {
+        private Long itemId;
+        private Long productId;
+        private String productName;
+        private String productSlug;
+        private String productImage;
+        private Long vendorId;
+        private Long categoryId;
+        private String storeName;
+        private Integer quantity;
+        private long unitPriceMinor;
+        private Integer availableStock;
+
+        public BigDecimal getUnitPrice() {
+            return Money.toDecimal(unitPriceMinor);
+        }
+
+        public long getTotalPriceMinor() {
+            return Money.multiply(unitPriceMinor, quantity);
+        }
+
+        public BigDecimal getTotalPrice() {
+            return Money.toDecimal(getTotalPriceMinor());
+        }
+
+        public boolean isInStock() {
+            return availableStock != null && availableStock > 0;
+        }
+
+        public static class LineBuilder {
+
+            /**
+             * Set the unit price from a decimal amount, converting to minor units.
+             */
+            public LineBuilder unitPrice(BigDecimal unitPrice) {
+                this.unitPriceMinor = Money.toMinor(unitPrice);
+                return this;
+            }
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.Cart;
+import site.clickbasketecom.ClickBasket.event.CartAbandonedEvent;
+import site.clickbasketecom.ClickBasket.repository.CartRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Expires carts with no activity for app.cart.sweeper.idle-days.
+ * Walks idle carts in (updated_at, id) keyset batches, each deleted in its own short
+ * transaction so row locks are held for one bounded batch at a time.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CartSweeper {
+
+    /** Keyset position before any real cart. */
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${app.cart.sweeper.idle-days:30}")
+    private int idleDays;
+
+    @Value("${app.cart.sweeper.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.cart.sweeper.max-batches:200}")
+    private int maxBatches;
+
+    /**
+     * Expire idle carts on a schedule.
+     * Skipped if the previous run is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(cron = "${app.cart.sweeper.cron:0 30 3 * * *}")
+    public void scheduledSweep() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            sweep();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Expire carts idle since before the cutoff and report the rows reclaimed.
+     * At most max-batches batches run; the rest is picked up by the next run.
+     */
+    public SweepResult sweep() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(idleDays);
+        LocalDateTime afterUpdatedAt = KEYSET_START;
+        Long afterId = 0L;
+        int carts = 0;
+        int items = 0;
+        int batches = 0;
+
+        while (batches < maxBatches) {
+            List<CartRepository.IdleCartView> idle = cartRepository.findIdleAfter(
+                    cutoff, afterUpdatedAt, afterId, PageRequest.of(0, batchSize));
+            if (idle.isEmpty()) {
+                break;
+            }
+            CartRepository.IdleCartView last = idle.get(idle.size() - 1);
+            afterUpdatedAt = last.getUpdatedAt();
+            afterId = last.getId();
+
+            int[] deleted = deleteBatch(idle, cutoff);
+            carts += deleted[0];
+            items += deleted[1];
+            batches++;
+
+            if (idle.size() < batchSize) {
+                break;
+            }
+        }
+
+        meterRegistry.counter("cart.sweeper.reclaimed", "table", "carts").increment(carts);
+        meterRegistry.counter("cart.sweeper.reclaimed", "table", "cart_items").increment(items);
+        log.info("Cart sweep reclaimed {} carts and {} cart items in {} batches (idle since {})",
+                carts, items, batches, cutoff);
+        return new SweepResult(carts, items, batches);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Delete one batch in its own transaction, then evict and announce the expired carts.
+     * Returns {cartsDeleted, itemsDeleted}.
+     */
+    private int[] deleteBatch(List<CartRepository.IdleCartView> idle, LocalDateTime cutoff) {
+        Map<Long, CartRepository.IdleCartView> candidates = idle.stream()
+                // Carts with unsaved changes in the store are active, whatever the row says
+                .filter(view -> !cartStore.hasPendingWrites(view.getUserId()))
+                .collect(Collectors.toMap(CartRepository.IdleCartView::getId, Function.identity()));
+        if (candidates.isEmpty()) {
+            return new int[] { 0, 0 };
+        }
+
+        int[] deleted = new int[2];
+        Set<Long> expired = transactionTemplate.execute(status -> {
+            Set<Long> ids = cartRepository.lockIdle(candidates.keySet(), cutoff).stream()
+                    .map(Cart::getId)
+                    .collect(Collectors.toSet());
+            if (!ids.isEmpty()) {
+                deleted[1] = cartRepository.deleteItemsByCartIdIn(ids);
+                deleted[0] = cartRepository.deleteByIdIn(ids);
+            }
+            return ids;
+        });
+
+        for (Long cartId : expired) {
+            CartRepository.IdleCartView view = candidates.get(cartId);
+            cartStore.evictIfClean(view.getUserId(), cartId);
+            if (view.getItemCount() > 0) {
+                eventPublisher.publishEvent(new CartAbandonedEvent(
+                        cartId, view.getUserId(), view.getItemCount(), view.getValue(), view.getUpdatedAt()));
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Rows reclaimed by a sweep.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SweepResult {
+        private final int cartsDeleted;
+        private final int itemsDeleted;
+        private final int batches;
+    }
+}
@@ -0,0 +1,349 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.OutboundEmail;
+import site.clickbasketecom.ClickBasket.repository.EmailOutboxRepository;
+
+import java.io.UnsupportedEncodingException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Sends queued emails from the outbox.
+ * Walks due emails in id keyset batches of batch-size. Each batch is claimed (marked SENDING)
+ * in one short transaction, sent outside any transaction on the mail executor and its results
+ * recorded in another. Within a batch the emails of each recipient domain are split into at
+ * most per-domain-concurrency slices, and each slice goes out over one pooled connection.
+ * Failed emails are retried with exponential backoff; those the server refuses, or that run
+ * out of attempts, are dead-lettered. Emails claimed by a run that died are sent again after
+ * sending-timeout-minutes, so delivery is at least once.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class EmailDispatcher {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final SmtpTransportPool transportPool;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier(AsyncConfig.MAIL_EXECUTOR)
+    private final Executor mailExecutor;
+
+    /** Shared by overlapping runs, so the limit holds per domain, not per run. */
+    private final ConcurrentMap<String, Semaphore> domainPermits = new ConcurrentHashMap<>();
+
+    /** Held by a scheduled run, so the next one skips rather than overlaps. */
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${app.mail.from-address:noreply@clickbasket.com}")
+    private String fromAddress;
+
+    @Value("${app.mail.from-name:ClickBasket}")
+    private String fromName;
+
+    @Value("${app.mail.outbox.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.mail.outbox.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${app.mail.outbox.per-domain-concurrency:2}")
+    private int perDomainConcurrency;
+
+    @Value("${app.mail.outbox.max-attempts:6}")
+    private int maxAttempts;
+
+    @Value("${app.mail.outbox.backoff-ms:60000}")
+    private long backoffMs;
+
+    @Value("${app.mail.outbox.max-backoff-ms:3600000}")
+    private long maxBackoffMs;
+
+    @Value("${app.mail.outbox.sending-timeout-minutes:10}")
+    private int sendingTimeoutMinutes;
+
+    @Value("${app.mail.outbox.retention-days:7}")
+    private int retentionDays;
+
+    /**
+     * Send due emails on a schedule.
+     * Skipped if the previous run is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.mail.outbox.interval-ms:5000}")
+    public void scheduledRun() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            dispatch();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Delete sent emails older than retention-days.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(cron = "${app.mail.outbox.purge-cron:0 15 4 * * *}")
+    public void purgeSent() {
+        Integer deleted = transactionTemplate.execute(status ->
+                emailOutboxRepository.deleteSentBefore(LocalDateTime.now().minusDays(retentionDays)));
+        log.info("Purged {} sent emails from the outbox", deleted);
+    }
+
+    /**
+     * Send due emails batch by batch and report the outcomes.
+     * At most max-batches batches run; the rest is picked up by the next run.
+     */
+    public DispatchResult dispatch() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(sendingTimeoutMinutes);
+        long started = System.nanoTime();
+        Long afterId = 0L;
+        int sent = 0;
+        int retried = 0;
+        int dead = 0;
+        int batches = 0;
+
+        while (batches < maxBatches) {
+            List<Long> ids = emailOutboxRepository.findDueAfter(afterId, LocalDateTime.now(), staleBefore,
+                    PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+
+            int[] outcome = dispatchBatch(ids, staleBefore);
+            sent += outcome[0];
+            retried += outcome[1];
+            dead += outcome[2];
+            batches++;
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (batches > 0) {
+            double seconds = Math.max(System.nanoTime() - started, 1) / 1e9;
+            meterRegistry.counter("mail.outbox.dispatched", "outcome", "sent").increment(sent);
+            meterRegistry.counter("mail.outbox.dispatched", "outcome", "retried").increment(retried);
+            meterRegistry.counter("mail.outbox.dispatched", "outcome", "dead").increment(dead);
+            log.info("Mail run sent {}, retried {} and dead-lettered {} emails in {} batches ({} msg/s)",
+                    sent, retried, dead, batches, Math.round(sent / seconds));
+        }
+        return new DispatchResult(sent, retried, dead, batches);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Claim, send and record one batch. Returns {sent, retried, dead}.
+     */
+    private int[] dispatchBatch(List<Long> candidateIds, LocalDateTime staleBefore) {
+        List<OutboundEmail> claimed = transactionTemplate.execute(status -> {
+            // Emails claimed by another run since they were listed drop out
+            List<OutboundEmail> locked = emailOutboxRepository.lockDue(candidateIds, LocalDateTime.now(), staleBefore);
+            if (!locked.isEmpty()) {
+                emailOutboxRepository.markSending(locked.stream().map(OutboundEmail::getId).toList(),
+                        LocalDateTime.now());
+            }
+            return locked;
+        });
+        if (claimed.isEmpty()) {
+            return new int[] { 0, 0, 0 };
+        }
+
+        List<CompletableFuture<List<Outcome>>> slices = new ArrayList<>();
+        claimed.stream()
+                .collect(Collectors.groupingBy(OutboundEmail::getDomain))
+                .forEach((domain, emails) -> {
+                    int sliceSize = (emails.size() + perDomainConcurrency - 1) / perDomainConcurrency;
+                    for (int from = 0; from < emails.size(); from += sliceSize) {
+                        List<OutboundEmail> slice = emails.subList(from, Math.min(from + sliceSize, emails.size()));
+                        slices.add(CompletableFuture.supplyAsync(() -> sendSlice(domain, slice), mailExecutor));
+                    }
+                });
+        List<Outcome> outcomes = slices.stream()
+                .flatMap(slice -> slice.join().stream())
+                .toList();
+
+        return transactionTemplate.execute(status -> record(outcomes));
+    }
+
+    /**
+     * Send a slice of one domain's emails over a single pooled connection.
+     * Never throws: every email of the slice gets an outcome.
+     */
+    private List<Outcome> sendSlice(String domain, List<OutboundEmail> emails) {
+        List<Outcome> outcomes = new ArrayList<>(emails.size());
+        Semaphore permits = domainPermits.computeIfAbsent(domain, d -> new Semaphore(perDomainConcurrency));
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            emails.forEach(email -> outcomes.add(new Outcome(email.getId(), "Interrupted", false)));
+            return outcomes;
+        }
+
+        Transport transport = null;
+        try {
+            for (int i = 0; i < emails.size(); i++) {
+                OutboundEmail email = emails.get(i);
+                if (transport == null) {
+                    try {
+                        transport = transportPool.borrow();
+                    } catch (MessagingException | RuntimeException e) {
+                        // Server unreachable: the rest of the slice waits for its next attempt
+                        String error = describe(e);
+                        emails.subList(i, emails.size())
+                                .forEach(rest -> outcomes.add(new Outcome(rest.getId(), error, false)));
+                        break;
+                    }
+                }
+                try {
+                    MimeMessage message = toMessage(email);
+                    transport.sendMessage(message, message.getAllRecipients());
+                    outcomes.add(new Outcome(email.getId(), null, false));
+                } catch (SendFailedException e) {
+                    // Refused by the server; the connection stays usable. Invalid addresses are
+                    // permanent (5xx), valid-unsent ones temporary (4xx).
+                    boolean permanent = e.getInvalidAddresses() != null && e.getInvalidAddresses().length > 0;
+                    outcomes.add(new Outcome(email.getId(), describe(e), permanent));
+                } catch (MessagingException | UnsupportedEncodingException | RuntimeException e) {
+                    outcomes.add(new Outcome(email.getId(), describe(e), false));
+                    transportPool.discard(transport);
+                    transport = null;
+                }
+            }
+        } finally {
+            if (transport != null) {
+                transportPool.release(transport);
+            }
+            permits.release();
+        }
+        return outcomes;
+    }
+
+    /**
+     * Record send results: sent emails in one statement, failures rescheduled or dead-lettered.
+     * Returns {sent, retried, dead}.
+     */
+    private int[] record(List<Outcome> outcomes) {
+        LocalDateTime now = LocalDateTime.now();
+        List<Long> sentIds = outcomes.stream()
+                .filter(Outcome::isSent)
+                .map(Outcome::getEmailId)
+                .toList();
+        int sent = sentIds.isEmpty() ? 0 : emailOutboxRepository.markSent(sentIds, now);
+
+        Map<Long, Outcome> failures = outcomes.stream()
+                .filter(outcome -> !outcome.isSent())
+                .collect(Collectors.toMap(Outcome::getEmailId, Function.identity(), (a, b) -> a));
+        int retried = 0;
+        int dead = 0;
+        if (!failures.isEmpty()) {
+            for (OutboundEmail email : emailOutboxRepository.lockSending(failures.keySet())) {
+                Outcome outcome = failures.get(email.getId());
+                email.setLastError(outcome.getError());
+                if (outcome.isPermanent() || email.getAttempts() >= maxAttempts) {
+                    email.setStatus(OutboundEmail.EmailStatus.DEAD);
+                    dead++;
+                    log.warn("Dead-lettered email {} to {}: {}", email.getId(), email.getRecipient(), outcome.getError());
+                } else {
+                    email.setStatus(OutboundEmail.EmailStatus.PENDING);
+                    email.setNextAttemptAt(now.plus(backoff(email.getAttempts())));
+                    retried++;
+                }
+            }
+        }
+        return new int[] { sent, retried, dead };
+    }
+
+    /**
+     * Delay before the next attempt: backoff-ms doubled per attempt made, capped at max-backoff-ms.
+     */
+    private Duration backoff(int attempts) {
+        return Duration.ofMillis(Math.min(maxBackoffMs, backoffMs << Math.min(Math.max(attempts - 1, 0), 20)));
+    }
+
+    private MimeMessage toMessage(OutboundEmail email) throws MessagingException, UnsupportedEncodingException {
+        MimeMessage message = new MimeMessage(transportPool.getSession());
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+
+        helper.setFrom(fromAddress, fromName);
+        helper.setTo(email.getRecipient());
+        helper.setSubject(email.getSubject());
+        helper.setText(email.getBody(), true);
+        helper.setSentDate(new Date());
+
+        message.saveChanges();
+        return message;
+    }
+
+    private String describe(Exception e) {
+        String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+        return error.length() > 500 ? error.substring(0, 500) : error;
+    }
+
+    /**
+     * Result of sending one email; error is null when it was sent.
+     */
+    @Getter
+    @AllArgsConstructor
+    private static class Outcome {
+        private final Long emailId;
+        private final String error;
+        private final boolean permanent;
+
+        boolean isSent() {
+            return error == null;
+        }
+    }
+
+    /**
+     * Emails handled by a run.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class DispatchResult {
+        private final int sent;
+        private final int retried;
+        private final int dead;
+        private final int batches;
+    }
+}
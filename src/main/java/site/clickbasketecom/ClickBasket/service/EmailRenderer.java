@@ -0,0 +1,59 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.springframework.stereotype.Component;
+import org.thymeleaf.context.Context;
+import org.thymeleaf.spring6.SpringTemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Renders email templates from flat, immutable view models.
+ * Uses its own template engine rather than the MVC one: templates under templates/email are
+ * parsed once and kept in the template cache for the life of the application, SpEL expressions
+ * are compiled to bytecode once they have run, and output is streamed into a buffer sized for a
+ * typical message. Dates are formatted in English whatever the server's default locale is.
+ * Templates see the view model as the "order" variable unless told otherwise.
+ */
+@Component
+public class EmailRenderer {
+
+    private static final int BUFFER_SIZE = 16 * 1024;
+    private static final Locale LOCALE = Locale.ENGLISH;
+
+    private final SpringTemplateEngine templateEngine;
+
+    public EmailRenderer() {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/email/");
+        resolver.setSuffix(".html");
+        resolver.setTemplateMode(TemplateMode.HTML);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.setCacheable(true);
+        resolver.setCacheTTLMs(null);
+
+        templateEngine = new SpringTemplateEngine();
+        templateEngine.setTemplateResolver(resolver);
+        templateEngine.setEnableSpringELCompiler(true);
+    }
+
+    /**
+     * Render a template of templates/email with the given view model.
+     */
+    public String render(String template, Object view) {
+        return render(template, "order", view);
+    }
+
+    /**
+     * Render a template of templates/email with the view model bound to the given variable.
+     */
+    public String render(String template, String variable, Object view) {
+        StringWriter buffer = new StringWriter(BUFFER_SIZE);
+        templateEngine.process(template, new Context(LOCALE, Map.of(variable, view)), buffer);
+        return buffer.toString();
+    }
+}
@@ -1,46 +1,48 @@
 package site.clickbasketecom.ClickBasket.service;
 
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
-import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
-import org.thymeleaf.TemplateEngine;
-import org.thymeleaf.context.Context;
+import site.clickbasketecom.ClickBasket.dto.email.EmailLineView;
+import site.clickbasketecom.ClickBasket.dto.email.OrderEmailView;
+import site.clickbasketecom.ClickBasket.dto.email.VendorDigestEmailView;
+import site.clickbasketecom.ClickBasket.dto.email.VendorOrderEmailView;
 import site.clickbasketecom.ClickBasket.entity.Order;
 import site.clickbasketecom.ClickBasket.entity.OrderItem;
+import site.clickbasketecom.ClickBasket.entity.OutboundEmail;
 import site.clickbasketecom.ClickBasket.entity.Vendor;
+import site.clickbasketecom.ClickBasket.repository.EmailOutboxRepository;
+import site.clickbasketecom.ClickBasket.util.Money;
 
-import java.util.HashMap;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
- * Service for sending email notifications.
+ * Service for email notifications.
+ * Emails are rendered on the caller thread, from view models copied out of the attached order,
+ * and queued in the outbox within the caller's transaction; the EmailDispatcher sends them
+ * once committed. New-order notifications for vendors on digests are held in the outbox instead,
+ * for the VendorDigestSweeper to send as one email per window.
  */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
-    private final JavaMailSender mailSender;
-    private final TemplateEngine templateEngine;
+    private final EmailRenderer emailRenderer;
+    private final EmailOutboxRepository emailOutboxRepository;
 
-    @Value("${app.mail.from-address:noreply@clickbasket.com}")
-    private String fromAddress;
-
-    @Value("${app.mail.from-name:ClickBasket}")
-    private String fromName;
+    @Value("${app.mail.digest.default-window-minutes:60}")
+    private int defaultDigestWindowMinutes;
 
     /**
-     * Send order confirmation email to customer.
+     * Queue order confirmation email to customer.
      */
-    @Async
     public void sendOrderConfirmationEmail(Order order) {
         try {
             String customerEmail = order.getUser().getEmail();
@@ -48,65 +50,67 @@ public class EmailService {
                     ? order.getUser().getFirstName()
                     : order.getUser().getEmail();
 
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("customerName", customerName);
-            variables.put("orderNumber", order.getOrderNumber());
-            variables.put("orderDate", order.getCreatedAt());
-            variables.put("items", order.getItems());
-            variables.put("subtotal", order.getSubtotal());
-            variables.put("shippingCost", order.getShippingCost());
-            variables.put("taxAmount", order.getTaxAmount());
-            variables.put("discountAmount", order.getDiscountAmount());
-            variables.put("totalAmount", order.getTotalAmount());
-            variables.put("shippingAddress", formatShippingAddress(order));
+            OrderEmailView view = OrderEmailView.builder()
+                    .customerName(customerName)
+                    .orderNumber(order.getOrderNumber())
+                    .orderDate(order.getCreatedAt())
+                    .items(toLines(order.getItems()))
+                    .subtotal(EmailLineView.formatAmount(order.getSubtotal()))
+                    .shippingCost(formatCharge(order.getShippingCost()))
+                    .taxAmount(formatCharge(order.getTaxAmount()))
+                    .discountAmount(formatCharge(order.getDiscountAmount()))
+                    .totalAmount(EmailLineView.formatAmount(order.getTotalAmount()))
+                    .shippingAddress(formatShippingAddress(order))
+                    .build();
 
             String subject = "Order Confirmation - " + order.getOrderNumber();
-            String htmlContent = processTemplate("order-confirmation", variables);
+            String htmlContent = emailRenderer.render("order-confirmation", view);
 
-            sendHtmlEmail(customerEmail, subject, htmlContent);
-            log.info("Order confirmation email sent to: {}", customerEmail);
+            enqueue(customerEmail, subject, htmlContent);
+            log.info("Order confirmation email queued for: {}", customerEmail);
 
         } catch (Exception e) {
-            log.error("Failed to send order confirmation email for order: {}", order.getOrderNumber(), e);
+            log.error("Failed to queue order confirmation email for order: {}", order.getOrderNumber(), e);
         }
     }
 
     /**
-     * Send new order notification to vendor.
+     * Queue new order notification to vendor, or hold it for the vendor's digest.
      */
-    @Async
     public void sendVendorOrderNotificationEmail(Order order, Vendor vendor, List<OrderItem> vendorItems) {
         try {
-            String vendorEmail = vendor.getBusinessEmail() != null
-                    ? vendor.getBusinessEmail()
-                    : vendor.getUser().getEmail();
-
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("storeName", vendor.getStoreName());
-            variables.put("orderNumber", order.getOrderNumber());
-            variables.put("orderDate", order.getCreatedAt());
-            variables.put("items", vendorItems);
-            variables.put("customerName", order.getShippingName());
-            variables.put("shippingAddress", formatShippingAddress(order));
-            variables.put("itemTotal", vendorItems.stream()
-                    .map(OrderItem::getTotalPrice)
-                    .reduce(java.math.BigDecimal.ZERO, java.math.BigDecimal::add));
+            String vendorEmail = vendorEmail(vendor);
+
+            VendorOrderEmailView view = VendorOrderEmailView.builder()
+                    .storeName(vendor.getStoreName())
+                    .orderNumber(order.getOrderNumber())
+                    .orderDate(order.getCreatedAt())
+                    .items(toLines(vendorItems))
+                    .customerName(order.getShippingName())
+                    .shippingAddress(formatShippingAddress(order))
+                    .itemTotal(EmailLineView.formatAmount(Money.toDecimal(vendorItems.stream()
+                            .mapToLong(OrderItem::getTotalPriceMinor)
+                            .sum())))
+                    .build();
 
             String subject = "New Order Received - " + order.getOrderNumber();
-            String htmlContent = processTemplate("vendor-order-notification", variables);
-
-            sendHtmlEmail(vendorEmail, subject, htmlContent);
-            log.info("Vendor order notification sent to: {} for order: {}", vendorEmail, order.getOrderNumber());
+            if (vendor.getNotificationMode() == Vendor.NotificationMode.DIGEST) {
+                holdForDigest(vendor, vendorEmail, subject, emailRenderer.render("vendor-order-digest-entry", view));
+                log.info("Vendor order notification held for digest of: {} for order: {}", vendorEmail, order.getOrderNumber());
+            } else {
+                String htmlContent = emailRenderer.render("vendor-order-notification", view);
+                enqueue(vendorEmail, subject, htmlContent);
+                log.info("Vendor order notification queued for: {} for order: {}", vendorEmail, order.getOrderNumber());
+            }
 
         } catch (Exception e) {
-            log.error("Failed to send vendor notification for order: {}", order.getOrderNumber(), e);
+            log.error("Failed to queue vendor notification for order: {}", order.getOrderNumber(), e);
         }
     }
 
     /**
-     * Send order delivered notification to customer.
+     * Queue order delivered notification to customer.
      */
-    @Async
     public void sendOrderDeliveredEmail(Order order) {
         try {
             String customerEmail = order.getUser().getEmail();
@@ -114,37 +118,56 @@ public class EmailService {
                     ? order.getUser().getFirstName()
                     : order.getUser().getEmail();
 
-            Map<String, Object> variables = new HashMap<>();
-            variables.put("customerName", customerName);
-            variables.put("orderNumber", order.getOrderNumber());
-            variables.put("deliveryDate", java.time.LocalDateTime.now());
-            variables.put("items", order.getItems());
-            variables.put("totalAmount", order.getTotalAmount());
+            OrderEmailView view = OrderEmailView.builder()
+                    .customerName(customerName)
+                    .orderNumber(order.getOrderNumber())
+                    .deliveryDate(LocalDateTime.now())
+                    .items(toLines(order.getItems()))
+                    .totalAmount(EmailLineView.formatAmount(order.getTotalAmount()))
+                    .build();
 
             String subject = "Your Order Has Been Delivered - " + order.getOrderNumber();
-            String htmlContent = processTemplate("order-delivered", variables);
+            String htmlContent = emailRenderer.render("order-delivered", view);
 
-            sendHtmlEmail(customerEmail, subject, htmlContent);
-            log.info("Order delivered email sent to: {}", customerEmail);
+            enqueue(customerEmail, subject, htmlContent);
+            log.info("Order delivered email queued for: {}", customerEmail);
 
         } catch (Exception e) {
-            log.error("Failed to send order delivered email for order: {}", order.getOrderNumber(), e);
+            log.error("Failed to queue order delivered email for order: {}", order.getOrderNumber(), e);
         }
     }
 
     /**
-     * Notify all vendors about an order.
+     * Notify all vendors about an order, one email per vendor.
      */
-    @Async
     public void notifyVendorsAboutOrder(Order order) {
         // Group items by vendor
         Map<Vendor, List<OrderItem>> itemsByVendor = order.getItems().stream()
                 .collect(Collectors.groupingBy(OrderItem::getVendor));
 
-        // Send notification to each vendor
-        for (Map.Entry<Vendor, List<OrderItem>> entry : itemsByVendor.entrySet()) {
-            sendVendorOrderNotificationEmail(order, entry.getKey(), entry.getValue());
-        }
+        itemsByVendor.forEach((vendor, items) -> sendVendorOrderNotificationEmail(order, vendor, items));
+    }
+
+    /**
+     * Queue one digest email to a vendor from its held order sections, oldest first.
+     * Unlike the per-order notifications, failures propagate, so the caller's transaction rolls
+     * back and the sections stay held.
+     */
+    public void sendVendorDigestEmail(Vendor vendor, List<OutboundEmail> sections) {
+        String vendorEmail = vendorEmail(vendor);
+        VendorDigestEmailView view = VendorDigestEmailView.builder()
+                .storeName(vendor.getStoreName())
+                .orderCount(sections.size())
+                .firstOrderAt(sections.get(0).getCreatedAt())
+                .lastOrderAt(sections.get(sections.size() - 1).getCreatedAt())
+                .orders(sections.stream().map(OutboundEmail::getBody).toList())
+                .build();
+
+        String subject = "New Orders Digest (" + sections.size() + ") - " + vendor.getStoreName();
+        String htmlContent = emailRenderer.render("vendor-order-digest", "digest", view);
+
+        enqueue(vendorEmail, subject, htmlContent);
+        log.info("Vendor order digest of {} orders queued for: {}", sections.size(), vendorEmail);
     }
 
     // ========================
@@ -152,28 +175,62 @@ public class EmailService {
     // ========================
 
     /**
-     * Send HTML email.
+     * Queue an HTML email in the outbox, due immediately.
      */
-    private void sendHtmlEmail(String to, String subject, String htmlContent)
-            throws MessagingException, java.io.UnsupportedEncodingException {
-        MimeMessage message = mailSender.createMimeMessage();
-        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+    private void enqueue(String to, String subject, String htmlContent) {
+        emailOutboxRepository.save(OutboundEmail.builder()
+                .recipient(to)
+                .domain(domainOf(to))
+                .subject(subject)
+                .body(htmlContent)
+                .nextAttemptAt(LocalDateTime.now())
+                .build());
+    }
 
-        helper.setFrom(fromAddress, fromName);
-        helper.setTo(to);
-        helper.setSubject(subject);
-        helper.setText(htmlContent, true);
+    /**
+     * Hold a vendor order section in the outbox until the vendor's digest window closes.
+     * The window is counted from each order, but a digest takes every section held by then,
+     * so it goes out one window after the first order it contains.
+     */
+    private void holdForDigest(Vendor vendor, String to, String subject, String section) {
+        int windowMinutes = vendor.getDigestWindowMinutes() != null
+                ? vendor.getDigestWindowMinutes()
+                : defaultDigestWindowMinutes;
+        emailOutboxRepository.save(OutboundEmail.builder()
+                .recipient(to)
+                .domain(domainOf(to))
+                .subject(subject)
+                .body(section)
+                .status(OutboundEmail.EmailStatus.HELD)
+                .digestVendorId(vendor.getId())
+                .nextAttemptAt(LocalDateTime.now().plusMinutes(windowMinutes))
+                .build());
+    }
+
+    private String vendorEmail(Vendor vendor) {
+        return vendor.getBusinessEmail() != null
+                ? vendor.getBusinessEmail()
+                : vendor.getUser().getEmail();
+    }
 
-        mailSender.send(message);
+    private String domainOf(String email) {
+        return email.substring(email.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Copy order lines into immutable views.
+     */
+    private List<EmailLineView> toLines(List<OrderItem> items) {
+        return items.stream()
+                .map(EmailLineView::of)
+                .toList();
     }
 
     /**
-     * Process Thymeleaf template.
+     * Format an optional charge for display; null hides it when there is nothing to charge.
      */
-    private String processTemplate(String templateName, Map<String, Object> variables) {
-        Context context = new Context();
-        context.setVariables(variables);
-        return templateEngine.process("email/" + templateName, context);
+    private String formatCharge(BigDecimal amount) {
+        return amount == null || amount.signum() <= 0 ? null : EmailLineView.formatAmount(amount);
     }
 
     /**
@@ -0,0 +1,224 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.repository.ArchivedOrderItemRepository;
+import site.clickbasketecom.ClickBasket.repository.ArchivedOrderRepository;
+import site.clickbasketecom.ClickBasket.repository.OrderRepository;
+
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Moves closed orders older than app.order.archive.retention-days out of the live order tables.
+ * Walks candidates in id keyset batches; each batch is copied into archived_orders and
+ * archived_order_items and deleted from orders, order_items, vendor_orders, payments and refunds
+ * in its own short transaction, so the live tables and their indexes only hold recent and open orders.
+ * The refunded total and payment status survive on the archived order; orders with a refund still
+ * in flight are left for a later run.
+ * On PostgreSQL the monthly archive partitions a batch needs are created before it is copied;
+ * the archive tables have no default partition, so rows never land where a month cannot be added later.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class OrderArchiver {
+
+    /** Statuses an order is not expected to leave once the retention period has passed. */
+    public static final Set<Order.OrderStatus> CLOSED = EnumSet.of(
+            Order.OrderStatus.DELIVERED,
+            Order.OrderStatus.CANCELLED,
+            Order.OrderStatus.RETURNED,
+            Order.OrderStatus.REFUNDED);
+
+    private static final DateTimeFormatter PARTITION_SUFFIX = DateTimeFormatter.ofPattern("yyyy_MM");
+    private static final List<String> PARTITIONED_TABLES = List.of("archived_orders", "archived_order_items");
+
+    private final OrderRepository orderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderItemRepository archivedOrderItemRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final MeterRegistry meterRegistry;
+
+    /** Months whose archive partitions are known to exist. */
+    private final Set<YearMonth> partitions = ConcurrentHashMap.newKeySet();
+
+    /** Held by a scheduled run, so the next one skips rather than overlaps. */
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    /** Whether the archive tables are partitioned; resolved on first use. */
+    private volatile Boolean partitioned;
+
+    @Value("${app.order.archive.retention-days:180}")
+    private int retentionDays;
+
+    @Value("${app.order.archive.batch-size:500}")
+    private int batchSize;
+
+    @Value("${app.order.archive.max-batches:200}")
+    private int maxBatches;
+
+    /**
+     * Archive closed orders on a schedule.
+     * Skipped if the previous run is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(cron = "${app.order.archive.cron:0 0 4 * * *}")
+    public void scheduledArchive() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            archive();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Archive closed orders created and last changed before the cutoff and report the rows moved.
+     * At most max-batches batches run; the rest is picked up by the next run.
+     */
+    public ArchiveResult archive() {
+        LocalDateTime cutoff = LocalDateTime.now().minusDays(retentionDays);
+        Long afterId = 0L;
+        int orders = 0;
+        int items = 0;
+        int batches = 0;
+
+        while (batches < maxBatches) {
+            List<OrderRepository.ArchivableOrderView> candidates = orderRepository.findArchivableAfter(
+                    CLOSED, cutoff, afterId, PageRequest.of(0, batchSize));
+            if (candidates.isEmpty()) {
+                break;
+            }
+            afterId = candidates.get(candidates.size() - 1).getId();
+
+            int[] moved = archiveBatch(candidates, cutoff);
+            orders += moved[0];
+            items += moved[1];
+            batches++;
+
+            if (candidates.size() < batchSize) {
+                break;
+            }
+        }
+
+        meterRegistry.counter("order.archiver.archived", "table", "orders").increment(orders);
+        meterRegistry.counter("order.archiver.archived", "table", "order_items").increment(items);
+        log.info("Order archive moved {} orders and {} order items in {} batches (closed before {})",
+                orders, items, batches, cutoff);
+        return new ArchiveResult(orders, items, batches);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Copy one batch into the archive and delete it from the live tables in one transaction.
+     * Returns {ordersArchived, itemsArchived}.
+     */
+    private int[] archiveBatch(List<OrderRepository.ArchivableOrderView> candidates, LocalDateTime cutoff) {
+        ensurePartitions(candidates);
+        List<Long> candidateIds = candidates.stream().map(OrderRepository.ArchivableOrderView::getId).toList();
+
+        return transactionTemplate.execute(status -> {
+            // Orders changed since they were listed drop out
+            List<Long> ids = orderRepository.lockArchivable(candidateIds, CLOSED, cutoff);
+            if (ids.isEmpty()) {
+                return new int[] { 0, 0 };
+            }
+            int orders = archivedOrderRepository.copyFromOrders(ids, LocalDateTime.now());
+            int items = archivedOrderItemRepository.copyFromOrders(ids);
+
+            // Refunds reference payments, so they go first
+            orderRepository.deleteRefundsByOrderIdIn(ids);
+            orderRepository.deletePaymentsByOrderIdIn(ids);
+            orderRepository.deleteItemsByOrderIdIn(ids);
+            orderRepository.deleteVendorOrdersByOrderIdIn(ids);
+            orderRepository.deleteByIdIn(ids);
+            return new int[] { orders, items };
+        });
+    }
+
+    /**
+     * Create the monthly archive partitions covering a batch. There is no default partition to
+     * fall back on, so a failure here stops the run before the batch is touched.
+     */
+    private void ensurePartitions(List<OrderRepository.ArchivableOrderView> candidates) {
+        if (!isPartitioned()) {
+            return;
+        }
+        candidates.stream()
+                .map(view -> YearMonth.from(view.getCreatedAt()))
+                .distinct()
+                .filter(month -> !partitions.contains(month))
+                .forEach(month -> {
+                    try {
+                        for (String table : PARTITIONED_TABLES) {
+                            jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + "_"
+                                    + month.format(PARTITION_SUFFIX) + " PARTITION OF " + table
+                                    + " FOR VALUES FROM ('" + month.atDay(1) + "') TO ('"
+                                    + month.plusMonths(1).atDay(1) + "')");
+                        }
+                        partitions.add(month);
+                    } catch (DataAccessException e) {
+                        log.error("Could not create archive partitions for {}; stopping the run", month);
+                        throw e;
+                    }
+                });
+    }
+
+    /**
+     * The archive tables are partitioned when schema.sql was run on the PostgreSQL database before
+     * the first start; ddl-auto=update leaves existing tables alone. Elsewhere (H2, or tables created
+     * by Hibernate) they are plain tables and no DDL is issued.
+     */
+    private boolean isPartitioned() {
+        if (partitioned == null) {
+            boolean postgres = Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                    "PostgreSQL".equals(connection.getMetaData().getDatabaseProductName())));
+            partitioned = postgres && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM pg_partitioned_table pt "
+                            + "JOIN pg_class c ON c.oid = pt.partrelid WHERE c.relname = 'archived_orders')",
+                    Boolean.class));
+            if (!partitioned) {
+                log.info("archived_orders is not partitioned; archiving into a plain table");
+            }
+        }
+        return partitioned;
+    }
+
+    /**
+     * Rows moved by an archive run.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ArchiveResult {
+        private final int ordersArchived;
+        private final int itemsArchived;
+        private final int batches;
+    }
+}
@@ -0,0 +1,44 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.event.OrderStatusChangedEvent;
+import site.clickbasketecom.ClickBasket.repository.OrderRepository;
+
+import java.util.List;
+
+/**
+ * Queues customer notifications for committed order status changes.
+ * Orders of a batch are loaded in chunks with their user and items, not one by one,
+ * and their emails written to the outbox in a transaction of their own.
+ */
+@Component
+@RequiredArgsConstructor
+public class OrderNotificationListener {
+
+    private static final int LOAD_CHUNK = 500;
+
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+
+    @TransactionalEventListener
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getStatus() != Order.OrderStatus.DELIVERED) {
+            return;
+        }
+
+        List<Long> orderIds = event.getChanges().stream()
+                .map(OrderStatusChangedEvent.Change::getOrderId)
+                .toList();
+        for (int from = 0; from < orderIds.size(); from += LOAD_CHUNK) {
+            List<Long> chunk = orderIds.subList(from, Math.min(from + LOAD_CHUNK, orderIds.size()));
+            orderRepository.findAllByIdInWithUserAndItems(chunk)
+                    .forEach(emailService::sendOrderDeliveredEmail);
+        }
+    }
+}
@@ -1,37 +1,72 @@
 package site.clickbasketecom.ClickBasket.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import site.clickbasketecom.ClickBasket.config.MetricsConfig;
+import site.clickbasketecom.ClickBasket.dto.order.BulkOrderStatusRequest;
+import site.clickbasketecom.ClickBasket.dto.order.BulkOrderStatusResponse;
 import site.clickbasketecom.ClickBasket.dto.order.OrderItemResponse;
 import site.clickbasketecom.ClickBasket.dto.order.OrderResponse;
 import site.clickbasketecom.ClickBasket.dto.order.PlaceOrderRequest;
 import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.event.OrderStatusChangedEvent;
+import site.clickbasketecom.ClickBasket.exception.CartChangedException;
 import site.clickbasketecom.ClickBasket.exception.OrderNotFoundException;
 import site.clickbasketecom.ClickBasket.exception.UserNotFoundException;
 import site.clickbasketecom.ClickBasket.repository.*;
+import site.clickbasketecom.ClickBasket.util.Money;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Service for order management operations.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class OrderService {
 
+    /** Timestamp embedded in order numbers: ORD-yyyyMMddHHmmss-XXXXXXXX. */
+    private static final DateTimeFormatter ORDER_NUMBER_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMddHHmmss");
+
+    /** Order statuses before payment completes. */
+    private static final Set<Order.OrderStatus> UNPAID = EnumSet.of(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED);
+
     private final OrderRepository orderRepository;
     private final OrderItemRepository orderItemRepository;
-    private final CartRepository cartRepository;
+    private final CartStore cartStore;
+    private final ProductStampIndex productStampIndex;
+    private final PromotionIndex promotionIndex;
+    private final PromotionService promotionService;
     private final ProductRepository productRepository;
+    private final VendorOrderRepository vendorOrderRepository;
+    private final ArchivedOrderRepository archivedOrderRepository;
+    private final ArchivedOrderItemRepository archivedOrderItemRepository;
     private final UserRepository userRepository;
     private final EmailService emailService;
+    private final ApplicationEventPublisher eventPublisher;
 
     /**
      * Place an order from the user's cart.
@@ -43,24 +78,66 @@ public class OrderService {
                 .orElseThrow(() -> new UserNotFoundException(userId));
 
         // Get cart
-        Cart cart = cartRepository.findByUserId(userId)
-                .orElseThrow(() -> new IllegalStateException("Cart is empty"));
+        CartStore.CartState cart = cartStore.snapshot(userId);
 
         // Validate cart has items
-        if (cart.getItems().isEmpty()) {
+        if (cart.getLines().isEmpty()) {
             throw new IllegalStateException("Cart is empty");
         }
 
+        // Refuse drifted carts from the stamp index before loading any product
+        Map<Long, ProductStampIndex.Stamp> stamps = productStampIndex.getAll(cart.getLines().stream()
+                .map(CartStore.Line::getProductId)
+                .collect(Collectors.toList()));
+        for (CartStore.Line line : cart.getLines()) {
+            ProductStampIndex.Stamp stamp = stamps.get(line.getProductId());
+            if (!stamp.isPurchasable(line.getQuantity()) || stamp.getPriceMinor() != line.getUnitPriceMinor()) {
+                throw new CartChangedException();
+            }
+        }
+
+        // Load all cart products in one query
+        Map<Long, Product> products = productRepository.findAllById(cart.getLines().stream()
+                        .map(CartStore.Line::getProductId)
+                        .collect(Collectors.toList()))
+                .stream()
+                .collect(Collectors.toMap(Product::getId, Function.identity()));
+
         // Validate stock for all items
-        for (CartItem cartItem : cart.getItems()) {
-            Product product = cartItem.getProduct();
-            if (product.getStockQuantity() < cartItem.getQuantity()) {
+        for (CartStore.Line line : cart.getLines()) {
+            Product product = products.get(line.getProductId());
+            if (product == null) {
+                throw new IllegalStateException("Product is not available: " + line.getProductName());
+            }
+            if (product.getStockQuantity() < line.getQuantity()) {
                 throw new IllegalArgumentException("Insufficient stock for product: " + product.getName());
             }
             if (product.getStatus() != Product.ProductStatus.ACTIVE) {
                 throw new IllegalStateException("Product is not available: " + product.getName());
             }
+            // The index may lag another instance's price change; the row is authoritative
+            if (Money.toMinor(product.getPrice()) != line.getUnitPriceMinor()) {
+                productStampIndex.record(product);
+                throw new CartChangedException();
+            }
+        }
+
+        // Take stock with guarded relative updates, in product id order so concurrent checkouts
+        // lock rows in the same order; a line another order or a status change got to first fails
+        LocalDateTime now = LocalDateTime.now();
+        List<CartStore.Line> byProductId = cart.getLines().stream()
+                .sorted(Comparator.comparing(CartStore.Line::getProductId))
+                .toList();
+        for (CartStore.Line line : byProductId) {
+            if (productRepository.takeStock(line.getProductId(), line.getQuantity(), now) == 0) {
+                throw new IllegalArgumentException("Insufficient stock for product: "
+                        + products.get(line.getProductId()).getName());
+            }
         }
+        productStampIndex.invalidate(products.keySet());
+
+        // Price promotions against the same cart snapshot; limits are taken below
+        PromotionIndex.Evaluation evaluation = promotionIndex.evaluate(cart.getLines(), cart.getCouponCode());
 
         // Generate order number
         String orderNumber = generateOrderNumber();
@@ -71,8 +148,8 @@ public class OrderService {
                 .orderNumber(orderNumber)
                 .status(Order.OrderStatus.PENDING)
                 .subtotal(cart.getSubtotal())
-                .discountAmount(cart.getDiscountAmount())
-                .couponCode(cart.getCouponCode())
+                .discountAmount(Money.toDecimal(evaluation.getDiscountMinor()))
+                .couponCode(evaluation.getCoupon() != null ? evaluation.getCoupon().getCode() : null)
                 .shippingName(request.getShippingName())
                 .shippingPhone(request.getShippingPhone())
                 .shippingAddress(request.getShippingAddress())
@@ -94,39 +171,60 @@ public class OrderService {
                 .notes(request.getNotes())
                 .build();
 
-        // Create order items from cart items
-        for (CartItem cartItem : cart.getItems()) {
-            Product product = cartItem.getProduct();
+        // Create order items from cart items, split into one sub-order per vendor
+        Map<Long, VendorOrder> vendorOrders = new LinkedHashMap<>();
+        for (CartStore.Line line : cart.getLines()) {
+            Product product = products.get(line.getProductId());
+            VendorOrder vendorOrder = vendorOrders.computeIfAbsent(product.getVendor().getId(), vendorId -> {
+                VendorOrder created = VendorOrder.builder()
+                        .order(order)
+                        .vendor(product.getVendor())
+                        .subtotal(BigDecimal.ZERO)
+                        .itemCount(0)
+                        .build();
+                order.getVendorOrders().add(created);
+                return created;
+            });
 
             OrderItem orderItem = OrderItem.builder()
                     .order(order)
                     .product(product)
                     .vendor(product.getVendor())
+                    .vendorOrder(vendorOrder)
                     .productName(product.getName())
                     .productSku(product.getSku())
                     .productImageUrl(product.getMainImageUrl())
-                    .quantity(cartItem.getQuantity())
-                    .unitPrice(cartItem.getUnitPrice())
+                    .quantity(line.getQuantity())
+                    .unitPrice(line.getUnitPrice())
                     .fulfillmentStatus(OrderItem.FulfillmentStatus.PENDING)
                     .build();
 
             order.getItems().add(orderItem);
+            vendorOrder.setSubtotal(vendorOrder.getSubtotal().add(orderItem.getTotalPrice()));
+            vendorOrder.setItemCount(vendorOrder.getItemCount() + line.getQuantity());
 
-            // Reduce stock
-            product.setStockQuantity(product.getStockQuantity() - cartItem.getQuantity());
-            product.setSoldCount(product.getSoldCount() + cartItem.getQuantity());
-            productRepository.save(product);
         }
 
+        // Count promotion uses; fails the order if a limit was reached meanwhile
+        promotionService.redeem(evaluation);
+
         // Calculate totals
         order.calculateTotals();
 
         // Save order
         Order savedOrder = orderRepository.save(order);
 
-        // Clear cart
-        cart.clearCart();
-        cartRepository.save(cart);
+        // Take the ordered lines out of the cart once the order is committed; lines added
+        // by another request since the snapshot stay
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                cartStore.update(userId, cartState -> {
+                    cartState.removeOrdered(cart);
+                    return null;
+                });
+            }
+        });
 
         // Send email notifications
         emailService.sendOrderConfirmationEmail(savedOrder);
@@ -161,12 +259,21 @@ public class OrderService {
 
     /**
      * Get order by order number (user must own the order).
+     * Orders moved out of the live tables by the OrderArchiver are found in the archive.
      */
     @Transactional(readOnly = true)
     public OrderResponse getOrderByNumber(Long userId, String orderNumber) {
-        Order order = orderRepository.findByOrderNumber(orderNumber)
-                .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderNumber));
+        Optional<Order> live = orderRepository.findByOrderNumber(orderNumber);
+        if (live.isEmpty()) {
+            ArchivedOrder archived = findArchivedOrder(orderNumber)
+                    .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderNumber));
+            if (!archived.getUserId().equals(userId)) {
+                throw new IllegalArgumentException("You can only view your own orders");
+            }
+            return mapArchivedToResponse(archived);
+        }
 
+        Order order = live.get();
         if (!order.getUser().getId().equals(userId)) {
             throw new IllegalArgumentException("You can only view your own orders");
         }
@@ -191,19 +298,13 @@ public class OrderService {
             throw new IllegalStateException("Order cannot be cancelled in current status: " + order.getStatus());
         }
 
-        // Restore stock
-        for (OrderItem item : order.getItems()) {
-            Product product = item.getProduct();
-            product.setStockQuantity(product.getStockQuantity() + item.getQuantity());
-            product.setSoldCount(product.getSoldCount() - item.getQuantity());
-            productRepository.save(product);
-
-            item.setFulfillmentStatus(OrderItem.FulfillmentStatus.CANCELLED);
+        // Puts the stock back; the pending payment is cancelled by the RefundService listener
+        if (transition(List.of(orderId), Order.OrderStatus.CANCELLED, UNPAID) == 0) {
+            throw new IllegalStateException("Order was changed while cancelling; please retry");
         }
 
-        order.setStatus(Order.OrderStatus.CANCELLED);
-        Order savedOrder = orderRepository.save(order);
-
+        Order savedOrder = orderRepository.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException(orderId));
         return mapToResponse(savedOrder);
     }
 
@@ -216,17 +317,83 @@ public class OrderService {
      */
     @Transactional
     public OrderResponse updateOrderStatus(Long orderId, String status) {
+        Order.OrderStatus target = parseStatus(status);
         Order order = orderRepository.findById(orderId)
                 .orElseThrow(() -> new OrderNotFoundException(orderId));
 
-        order.setStatus(Order.OrderStatus.valueOf(status.toUpperCase()));
-        Order savedOrder = orderRepository.save(order);
+        if (!OrderStateMachine.canTransition(order.getStatus(), target)) {
+            throw new IllegalStateException("Order cannot move from " + order.getStatus() + " to " + target);
+        }
+        transition(List.of(orderId), target);
+
+        return mapToResponse(orderRepository.findById(orderId)
+                .orElseThrow(() -> new OrderNotFoundException(orderId)));
+    }
 
-        if (savedOrder.getStatus() == Order.OrderStatus.DELIVERED) {
-            emailService.sendOrderDeliveredEmail(savedOrder);
+    /**
+     * Move many orders to a status at once (admin only).
+     * Orders not in an allowed source status are skipped.
+     */
+    @Transactional
+    public BulkOrderStatusResponse bulkUpdateOrderStatus(BulkOrderStatusRequest request) {
+        Order.OrderStatus target = request.getStatus();
+        if (OrderStateMachine.sourcesOf(target).isEmpty()) {
+            throw new IllegalArgumentException("No order can move to status: " + target);
         }
 
-        return mapToResponse(savedOrder);
+        Set<Long> requested = new LinkedHashSet<>(request.getOrderIds());
+        int updated = transition(requested, target);
+
+        return BulkOrderStatusResponse.builder()
+                .status(target.name())
+                .requested(requested.size())
+                .updated(updated)
+                .build();
+    }
+
+    /**
+     * Cancel orders whose payment never completed, putting their stock back.
+     * Only PENDING and CONFIRMED orders are touched. Joins the caller's transaction.
+     */
+    @Transactional
+    public int cancelUnpaidOrders(Collection<Long> orderIds) {
+        return transition(orderIds, Order.OrderStatus.CANCELLED, UNPAID);
+    }
+
+    /**
+     * Move confirmed orders whose payment completed to PROCESSING. Joins the caller's transaction.
+     */
+    @Transactional
+    public int markPaid(Collection<Long> orderIds) {
+        return transition(orderIds, Order.OrderStatus.PROCESSING);
+    }
+
+    /**
+     * Put confirmed orders whose payment failed back to PENDING, so payment can be retried.
+     * Joins the caller's transaction.
+     */
+    @Transactional
+    public int markPaymentFailed(Collection<Long> orderIds) {
+        return transition(orderIds, Order.OrderStatus.PENDING);
+    }
+
+    /**
+     * Mark fully refunded orders REFUNDED. Returned orders first get the stock of their
+     * returned items back. Joins the caller's transaction.
+     */
+    @Transactional
+    public int markRefunded(Collection<Long> orderIds) {
+        Set<OrderItem.FulfillmentStatus> returnedItems = EnumSet.of(OrderItem.FulfillmentStatus.RETURNED);
+        List<Long> returned = orderRepository.lockForTransition(orderIds, EnumSet.of(Order.OrderStatus.RETURNED))
+                .stream().map(OrderRepository.OrderStatusView::getId).toList();
+        if (!returned.isEmpty()) {
+            List<Long> productIds = orderItemRepository.findProductIdsByOrderIdIn(returned, returnedItems);
+            if (!productIds.isEmpty()) {
+                productRepository.restoreStock(productIds, returned, returnedItems, LocalDateTime.now());
+                productStampIndex.invalidate(productIds);
+            }
+        }
+        return transition(orderIds, Order.OrderStatus.REFUNDED);
     }
 
     /**
@@ -243,7 +410,7 @@ public class OrderService {
      */
     @Transactional(readOnly = true)
     public Page<OrderResponse> getOrdersByStatus(String status, Pageable pageable) {
-        return orderRepository.findByStatus(Order.OrderStatus.valueOf(status.toUpperCase()), pageable)
+        return orderRepository.findByStatus(parseStatus(status), pageable)
                 .map(this::mapToResponse);
     }
 
@@ -251,15 +418,82 @@ public class OrderService {
     // Helper Methods
     // ========================
 
+    /**
+     * Move the given orders that are in an allowed source status to a status with set-based updates,
+     * taking their vendor orders and items along, and publish one event for all of them.
+     * Cancelling puts back the stock of items not yet shipped.
+     */
+    private int transition(Collection<Long> orderIds, Order.OrderStatus status) {
+        return transition(orderIds, status, OrderStateMachine.sourcesOf(status));
+    }
+
+    /**
+     * Transition limited to orders in the given source statuses, a subset of the allowed ones.
+     */
+    private int transition(Collection<Long> orderIds, Order.OrderStatus status, Set<Order.OrderStatus> from) {
+        List<OrderRepository.OrderStatusView> locked = orderRepository.lockForTransition(orderIds, from);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        List<Long> ids = locked.stream().map(OrderRepository.OrderStatusView::getId).toList();
+        LocalDateTime now = LocalDateTime.now();
+
+        OrderItem.FulfillmentStatus fulfillment = OrderStateMachine.fulfillmentFor(status);
+        if (fulfillment != null) {
+            Set<OrderItem.FulfillmentStatus> fulfillmentFrom = OrderStateMachine.sourcesOf(fulfillment);
+            if (fulfillment == OrderItem.FulfillmentStatus.CANCELLED) {
+                List<Long> productIds = orderItemRepository.findProductIdsByOrderIdIn(ids, fulfillmentFrom);
+                if (!productIds.isEmpty()) {
+                    productRepository.restoreStock(productIds, ids, fulfillmentFrom, now);
+                    productStampIndex.invalidate(productIds);
+                }
+            }
+            vendorOrderRepository.updateStatusByOrderIdIn(ids, fulfillment, fulfillmentFrom, now);
+            orderItemRepository.updateStatusByOrderIdIn(ids, fulfillment, fulfillmentFrom, now);
+        }
+        orderRepository.updateStatus(ids, status, from, now);
+
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(status, locked.stream()
+                .map(view -> new OrderStatusChangedEvent.Change(view.getId(), view.getUserId(), view.getStatus()))
+                .toList()));
+        return ids.size();
+    }
+
+    private Order.OrderStatus parseStatus(String status) {
+        try {
+            return Order.OrderStatus.valueOf(status.toUpperCase());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Unknown order status: " + status);
+        }
+    }
+
     /**
      * Generate a unique order number.
      */
     private String generateOrderNumber() {
-        String timestamp = LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"));
+        String timestamp = LocalDateTime.now().format(ORDER_NUMBER_TIMESTAMP);
         String random = UUID.randomUUID().toString().substring(0, 8).toUpperCase();
         return "ORD-" + timestamp + "-" + random;
     }
 
+    /**
+     * Find an archived order by number. The timestamp in the order number bounds created_at,
+     * so only the archive partitions around it are searched; other formats search them all.
+     */
+    private Optional<ArchivedOrder> findArchivedOrder(String orderNumber) {
+        String[] parts = orderNumber.split("-");
+        if (parts.length == 3) {
+            try {
+                LocalDateTime placed = LocalDateTime.parse(parts[1], ORDER_NUMBER_TIMESTAMP);
+                return archivedOrderRepository.findByOrderNumberAndCreatedAtBetween(
+                        orderNumber, placed.minusDays(1), placed.plusDays(1));
+            } catch (DateTimeParseException ignored) {
+                // Not a generated order number
+            }
+        }
+        return archivedOrderRepository.findByOrderNumber(orderNumber);
+    }
+
     /**
      * Map Order entity to OrderResponse DTO.
      */
@@ -327,4 +561,62 @@ public class OrderService {
                 .fulfillmentStatus(item.getFulfillmentStatus().name())
                 .build();
     }
+
+    /**
+     * Map ArchivedOrder entity to OrderResponse DTO.
+     */
+    private OrderResponse mapArchivedToResponse(ArchivedOrder order) {
+        List<OrderItemResponse> items = archivedOrderItemRepository
+                .findByOrderIdAndOrderCreatedAtOrderById(order.getId(), order.getCreatedAt()).stream()
+                .map(item -> OrderItemResponse.builder()
+                        .id(item.getId())
+                        .productId(item.getProductId())
+                        .productName(item.getProductName())
+                        .productSku(item.getProductSku())
+                        .productImageUrl(item.getProductImageUrl())
+                        .vendorId(item.getVendorId())
+                        .quantity(item.getQuantity())
+                        .unitPrice(item.getUnitPrice())
+                        .discountAmount(item.getDiscountAmount())
+                        .taxAmount(item.getTaxAmount())
+                        .totalPrice(item.getTotalPrice())
+                        .fulfillmentStatus(item.getFulfillmentStatus() != null ? item.getFulfillmentStatus().name() : null)
+                        .build())
+                .collect(Collectors.toList());
+
+        return OrderResponse.builder()
+                .id(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .userId(order.getUserId())
+                .status(order.getStatus().name())
+                .items(items)
+                .totalItems(items.stream().mapToInt(OrderItemResponse::getQuantity).sum())
+                .subtotal(order.getSubtotal())
+                .shippingCost(order.getShippingCost())
+                .taxAmount(order.getTaxAmount())
+                .discountAmount(order.getDiscountAmount())
+                .totalAmount(order.getTotalAmount())
+                .couponCode(order.getCouponCode())
+                .shippingName(order.getShippingName())
+                .shippingPhone(order.getShippingPhone())
+                .shippingAddress(order.getShippingAddress())
+                .shippingCity(order.getShippingCity())
+                .shippingState(order.getShippingState())
+                .shippingZip(order.getShippingZip())
+                .shippingCountry(order.getShippingCountry())
+                .billingName(order.getBillingName())
+                .billingPhone(order.getBillingPhone())
+                .billingAddress(order.getBillingAddress())
+                .billingCity(order.getBillingCity())
+                .billingState(order.getBillingState())
+                .billingZip(order.getBillingZip())
+                .billingCountry(order.getBillingCountry())
+                .notes(order.getNotes())
+                .trackingNumber(order.getTrackingNumber())
+                .shippingCarrier(order.getShippingCarrier())
+                .archived(true)
+                .createdAt(order.getCreatedAt())
+                .updatedAt(order.getUpdatedAt())
+                .build();
+    }
 }
@@ -0,0 +1,123 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Allowed order and fulfillment status transitions, held as lookup tables.
+ * A transition check is one EnumSet bit test. The reverse tables give the source statuses
+ * that guard set-based status updates.
+ */
+public final class OrderStateMachine {
+
+    private static final Map<Order.OrderStatus, Set<Order.OrderStatus>> ORDER_NEXT =
+            new EnumMap<>(Order.OrderStatus.class);
+    private static final Map<Order.OrderStatus, Set<Order.OrderStatus>> ORDER_FROM =
+            new EnumMap<>(Order.OrderStatus.class);
+    private static final Map<OrderItem.FulfillmentStatus, Set<OrderItem.FulfillmentStatus>> FULFILLMENT_NEXT =
+            new EnumMap<>(OrderItem.FulfillmentStatus.class);
+    private static final Map<OrderItem.FulfillmentStatus, Set<OrderItem.FulfillmentStatus>> FULFILLMENT_FROM =
+            new EnumMap<>(OrderItem.FulfillmentStatus.class);
+
+    /** Fulfillment status that items and vendor orders follow when their order moves to a status. */
+    private static final Map<Order.OrderStatus, OrderItem.FulfillmentStatus> ORDER_FULFILLMENT =
+            new EnumMap<>(Map.of(
+                    Order.OrderStatus.SHIPPED, OrderItem.FulfillmentStatus.SHIPPED,
+                    Order.OrderStatus.DELIVERED, OrderItem.FulfillmentStatus.DELIVERED,
+                    Order.OrderStatus.CANCELLED, OrderItem.FulfillmentStatus.CANCELLED,
+                    Order.OrderStatus.RETURNED, OrderItem.FulfillmentStatus.RETURNED));
+
+    static {
+        order(Order.OrderStatus.PENDING, Order.OrderStatus.CONFIRMED, Order.OrderStatus.CANCELLED);
+        // A failed payment puts a confirmed order back to pending
+        order(Order.OrderStatus.CONFIRMED, Order.OrderStatus.PENDING, Order.OrderStatus.PROCESSING,
+                Order.OrderStatus.CANCELLED);
+        order(Order.OrderStatus.PROCESSING, Order.OrderStatus.SHIPPED, Order.OrderStatus.CANCELLED);
+        order(Order.OrderStatus.SHIPPED, Order.OrderStatus.OUT_FOR_DELIVERY, Order.OrderStatus.DELIVERED,
+                Order.OrderStatus.RETURNED);
+        order(Order.OrderStatus.OUT_FOR_DELIVERY, Order.OrderStatus.DELIVERED, Order.OrderStatus.RETURNED);
+        order(Order.OrderStatus.DELIVERED, Order.OrderStatus.RETURNED, Order.OrderStatus.REFUNDED);
+        order(Order.OrderStatus.CANCELLED, Order.OrderStatus.REFUNDED);
+        order(Order.OrderStatus.RETURNED, Order.OrderStatus.REFUNDED);
+        order(Order.OrderStatus.REFUNDED);
+
+        fulfillment(OrderItem.FulfillmentStatus.PENDING, OrderItem.FulfillmentStatus.PROCESSING,
+                OrderItem.FulfillmentStatus.SHIPPED, OrderItem.FulfillmentStatus.CANCELLED);
+        fulfillment(OrderItem.FulfillmentStatus.PROCESSING, OrderItem.FulfillmentStatus.SHIPPED,
+                OrderItem.FulfillmentStatus.CANCELLED);
+        fulfillment(OrderItem.FulfillmentStatus.SHIPPED, OrderItem.FulfillmentStatus.DELIVERED,
+                OrderItem.FulfillmentStatus.RETURNED);
+        fulfillment(OrderItem.FulfillmentStatus.DELIVERED, OrderItem.FulfillmentStatus.RETURNED);
+        fulfillment(OrderItem.FulfillmentStatus.CANCELLED);
+        fulfillment(OrderItem.FulfillmentStatus.RETURNED);
+
+        ORDER_FROM.replaceAll((status, from) -> Collections.unmodifiableSet(from));
+        FULFILLMENT_FROM.replaceAll((status, from) -> Collections.unmodifiableSet(from));
+    }
+
+    private OrderStateMachine() {
+    }
+
+    public static boolean canTransition(Order.OrderStatus from, Order.OrderStatus to) {
+        return ORDER_NEXT.get(from).contains(to);
+    }
+
+    public static boolean canTransition(OrderItem.FulfillmentStatus from, OrderItem.FulfillmentStatus to) {
+        return FULFILLMENT_NEXT.get(from).contains(to);
+    }
+
+    /**
+     * Statuses an order may move to the given status from; empty if none.
+     */
+    public static Set<Order.OrderStatus> sourcesOf(Order.OrderStatus to) {
+        return ORDER_FROM.get(to);
+    }
+
+    /**
+     * Statuses an item or vendor order may move to the given status from; empty if none.
+     */
+    public static Set<OrderItem.FulfillmentStatus> sourcesOf(OrderItem.FulfillmentStatus to) {
+        return FULFILLMENT_FROM.get(to);
+    }
+
+    /**
+     * Fulfillment status the items of an order follow to, or null if they stay as they are.
+     */
+    public static OrderItem.FulfillmentStatus fulfillmentFor(Order.OrderStatus status) {
+        return ORDER_FULFILLMENT.get(status);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private static void order(Order.OrderStatus from, Order.OrderStatus... to) {
+        Set<Order.OrderStatus> next = EnumSet.noneOf(Order.OrderStatus.class);
+        Collections.addAll(next, to);
+        ORDER_NEXT.put(from, Collections.unmodifiableSet(next));
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            ORDER_FROM.putIfAbsent(status, EnumSet.noneOf(Order.OrderStatus.class));
+        }
+        for (Order.OrderStatus status : to) {
+            ORDER_FROM.get(status).add(from);
+        }
+    }
+
+    private static void fulfillment(OrderItem.FulfillmentStatus from, OrderItem.FulfillmentStatus... to) {
+        Set<OrderItem.FulfillmentStatus> next = EnumSet.noneOf(OrderItem.FulfillmentStatus.class);
+        Collections.addAll(next, to);
+        FULFILLMENT_NEXT.put(from, Collections.unmodifiableSet(next));
+        for (OrderItem.FulfillmentStatus status : OrderItem.FulfillmentStatus.values()) {
+            FULFILLMENT_FROM.putIfAbsent(status, EnumSet.noneOf(OrderItem.FulfillmentStatus.class));
+        }
+        for (OrderItem.FulfillmentStatus status : to) {
+            FULFILLMENT_FROM.get(status).add(from);
+        }
+    }
+}
@@ -0,0 +1,286 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.dto.payment.ConfirmPaymentRequest;
+import site.clickbasketecom.ClickBasket.dto.payment.PaymentCallbackResponse;
+import site.clickbasketecom.ClickBasket.entity.PaymentCallback;
+import site.clickbasketecom.ClickBasket.exception.PaymentNotFoundException;
+import site.clickbasketecom.ClickBasket.repository.PaymentCallbackRepository;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Asynchronous ingestion of payment gateway callbacks.
+ * accept() appends a callback to the payment_callbacks journal and acknowledges it once the
+ * insert commits; it is then applied by a partitioned worker pool. A payment (one per order)
+ * always maps to the same single-threaded lane, so callbacks for one order are applied one at
+ * a time in arrival order while different orders proceed in parallel.
+ * Callbacks a lane could not take (full queue, restart, transient failure) stay RECEIVED in the
+ * journal and are re-dispatched by a periodic sweep; applying checks the journal status under
+ * a row lock, so a callback takes effect at most once.
+ */
+@Service
+@Slf4j
+public class PaymentCallbackQueue {
+
+    private final PaymentCallbackRepository callbackRepository;
+    private final PaymentService paymentService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ThreadPoolExecutor[] lanes;
+    private final Set<Long> queued = ConcurrentHashMap.newKeySet();
+    private final int maxAttempts;
+    private final int recoveryBatchSize;
+    private final long recoveryGraceMs;
+    private final int awaitTerminationSeconds;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    public PaymentCallbackQueue(
+            PaymentCallbackRepository callbackRepository,
+            PaymentService paymentService,
+            TransactionTemplate transactionTemplate,
+            MeterRegistry meterRegistry,
+            @Value("${app.payment.callbacks.lanes:8}") int laneCount,
+            @Value("${app.payment.callbacks.queue-capacity:1000}") int queueCapacity,
+            @Value("${app.payment.callbacks.max-attempts:5}") int maxAttempts,
+            @Value("${app.payment.callbacks.recovery-batch-size:500}") int recoveryBatchSize,
+            @Value("${app.payment.callbacks.recovery-grace-ms:5000}") long recoveryGraceMs,
+            @Value("${app.async.await-termination-seconds:30}") int awaitTerminationSeconds) {
+        this.callbackRepository = callbackRepository;
+        this.paymentService = paymentService;
+        this.transactionTemplate = transactionTemplate;
+        this.meterRegistry = meterRegistry;
+        this.lanes = new ThreadPoolExecutor[laneCount];
+        for (int i = 0; i < laneCount; i++) {
+            String name = "payment-callback-" + i;
+            lanes[i] = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS,
+                    new ArrayBlockingQueue<>(queueCapacity), runnable -> new Thread(runnable, name));
+        }
+        this.maxAttempts = maxAttempts;
+        this.recoveryBatchSize = recoveryBatchSize;
+        this.recoveryGraceMs = recoveryGraceMs;
+        this.awaitTerminationSeconds = awaitTerminationSeconds;
+
+        Gauge.builder("payment.callbacks.queued", lanes,
+                        all -> Arrays.stream(all).mapToInt(lane -> lane.getQueue().size()).sum())
+                .description("Callbacks waiting in the worker lanes")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Journal a gateway callback. It is handed to its lane after the insert commits.
+     */
+    @Transactional
+    public PaymentCallbackResponse accept(ConfirmPaymentRequest request) {
+        PaymentCallback callback = callbackRepository.save(PaymentCallback.builder()
+                .paymentId(request.getPaymentId())
+                .transactionId(request.getTransactionId())
+                .success(request.getSuccess())
+                .failureReason(request.getFailureReason())
+                .gatewayResponse(request.getGatewayResponse())
+                .build());
+
+        Long callbackId = callback.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatch(callbackId, request.getPaymentId());
+            }
+        });
+
+        return PaymentCallbackResponse.builder()
+                .id(callbackId)
+                .paymentId(callback.getPaymentId())
+                .status(callback.getStatus().name())
+                .receivedAt(callback.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Re-dispatch journaled callbacks that were never applied.
+     * Skipped if the previous run is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.payment.callbacks.recovery-interval-ms:10000}")
+    public void scheduledRecovery() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            recover();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Hand RECEIVED callbacks older than the grace period back to their lanes, oldest first.
+     * Stops at the first full lane; the rest is picked up by the next sweep.
+     * Returns the number of callbacks dispatched.
+     */
+    public int recover() {
+        LocalDateTime receivedBefore = LocalDateTime.now().minusNanos(recoveryGraceMs * 1_000_000);
+        Long afterId = 0L;
+        int dispatched = 0;
+
+        while (true) {
+            List<PaymentCallbackRepository.PendingCallbackView> pending = callbackRepository.findPendingAfter(
+                    afterId, receivedBefore, PageRequest.of(0, recoveryBatchSize));
+            for (PaymentCallbackRepository.PendingCallbackView view : pending) {
+                if (queued.contains(view.getId())) {
+                    continue;
+                }
+                if (!dispatch(view.getId(), view.getPaymentId())) {
+                    return dispatched;
+                }
+                dispatched++;
+            }
+            if (pending.size() < recoveryBatchSize) {
+                break;
+            }
+            afterId = pending.get(pending.size() - 1).getId();
+        }
+
+        if (dispatched > 0) {
+            log.info("Re-dispatched {} journaled payment callbacks", dispatched);
+        }
+        return dispatched;
+    }
+
+    /**
+     * Apply one journaled callback and record the outcome.
+     * Business rejections (unknown payment, payment no longer pending) are final; other
+     * failures leave the callback RECEIVED for another attempt until max-attempts is reached.
+     */
+    public PaymentCallback.CallbackStatus process(Long callbackId) {
+        PaymentCallback.CallbackStatus outcome;
+        try {
+            outcome = transactionTemplate.execute(status -> {
+                PaymentCallback callback = callbackRepository.lockById(callbackId).orElse(null);
+                if (callback == null || callback.getStatus() != PaymentCallback.CallbackStatus.RECEIVED) {
+                    return callback != null ? callback.getStatus() : null;
+                }
+
+                // Marked first: the order transition flushes and clears the persistence context,
+                // and a failed confirmation rolls the mark back with it
+                callback.setStatus(PaymentCallback.CallbackStatus.APPLIED);
+                callback.setAttempts(callback.getAttempts() + 1);
+                callback.setProcessedAt(LocalDateTime.now());
+
+                paymentService.confirmPayment(ConfirmPaymentRequest.builder()
+                        .paymentId(callback.getPaymentId())
+                        .transactionId(callback.getTransactionId())
+                        .success(callback.getSuccess())
+                        .failureReason(callback.getFailureReason())
+                        .gatewayResponse(callback.getGatewayResponse())
+                        .build());
+                return PaymentCallback.CallbackStatus.APPLIED;
+            });
+        } catch (IllegalStateException | PaymentNotFoundException e) {
+            outcome = recordFailure(callbackId, e, true);
+        } catch (RuntimeException e) {
+            log.warn("Payment callback {} failed: {}", callbackId, e.getMessage());
+            outcome = recordFailure(callbackId, e, false);
+        }
+
+        if (outcome != null) {
+            meterRegistry.counter("payment.callbacks.processed", "outcome", outcome.name()).increment();
+        }
+        return outcome;
+    }
+
+    /**
+     * Stop the lanes, letting queued callbacks finish. Anything left stays in the journal.
+     */
+    @PreDestroy
+    public void shutdown() {
+        for (ThreadPoolExecutor lane : lanes) {
+            lane.shutdown();
+        }
+        try {
+            for (ThreadPoolExecutor lane : lanes) {
+                if (!lane.awaitTermination(awaitTerminationSeconds, TimeUnit.SECONDS)) {
+                    log.warn("Payment callback lane did not drain; {} callbacks stay journaled",
+                            lane.shutdownNow().size());
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Queue a callback on the lane of its payment. Returns false if the lane is full or stopped.
+     */
+    private boolean dispatch(Long callbackId, Long paymentId) {
+        if (!queued.add(callbackId)) {
+            return true;
+        }
+        ThreadPoolExecutor lane = lanes[Math.floorMod(Long.hashCode(paymentId), lanes.length)];
+        try {
+            lane.execute(() -> {
+                try {
+                    process(callbackId);
+                } finally {
+                    queued.remove(callbackId);
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            // Still RECEIVED in the journal; the recovery sweep retries it
+            queued.remove(callbackId);
+            meterRegistry.counter("payment.callbacks.deferred").increment();
+            return false;
+        }
+    }
+
+    /**
+     * Record a failed attempt in its own transaction.
+     */
+    private PaymentCallback.CallbackStatus recordFailure(Long callbackId, RuntimeException error, boolean rejected) {
+        return transactionTemplate.execute(status -> {
+            PaymentCallback callback = callbackRepository.lockById(callbackId).orElse(null);
+            if (callback == null || callback.getStatus() != PaymentCallback.CallbackStatus.RECEIVED) {
+                return callback != null ? callback.getStatus() : null;
+            }
+            callback.setAttempts(callback.getAttempts() + 1);
+            String message = String.valueOf(error.getMessage());
+            callback.setLastError(message.length() > 500 ? message.substring(0, 500) : message);
+            if (rejected) {
+                callback.setStatus(PaymentCallback.CallbackStatus.REJECTED);
+            } else if (callback.getAttempts() >= maxAttempts) {
+                callback.setStatus(PaymentCallback.CallbackStatus.FAILED);
+            }
+            if (callback.getStatus() != PaymentCallback.CallbackStatus.RECEIVED) {
+                callback.setProcessedAt(LocalDateTime.now());
+            }
+            return callback.getStatus();
+        });
+    }
+}
@@ -0,0 +1,427 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.multipart.MultipartFile;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.dto.payment.ReconciliationRunResponse;
+import site.clickbasketecom.ClickBasket.dto.payment.SettlementMismatchResponse;
+import site.clickbasketecom.ClickBasket.entity.Payment;
+import site.clickbasketecom.ClickBasket.entity.SettlementMismatch;
+import site.clickbasketecom.ClickBasket.entity.SettlementRun;
+import site.clickbasketecom.ClickBasket.exception.PaymentNotFoundException;
+import site.clickbasketecom.ClickBasket.exception.ReconciliationInProgressException;
+import site.clickbasketecom.ClickBasket.repository.PaymentRepository;
+import site.clickbasketecom.ClickBasket.repository.SettlementMismatchRepository;
+import site.clickbasketecom.ClickBasket.repository.SettlementRunRepository;
+import site.clickbasketecom.ClickBasket.util.Money;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * Reconciles gateway settlement files against payments.
+ * The file is read through SettlementFileReader in transaction id order and merged with a
+ * keyset scan of the payments paid within the run's period in the same order, so each side
+ * is read once, sequentially, with bounded memory. Only settlement rows whose payment lies
+ * outside the scan are looked up one by one. Differences are buffered and inserted in batches
+ * into settlement_mismatches; the run row carries the totals.
+ * Runs execute one at a time on their own executor; uploads while one is running are refused.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentReconciliationService {
+
+    /** Scan bounds of a run without a period. */
+    private static final LocalDateTime SCAN_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+    private static final LocalDateTime SCAN_END = LocalDateTime.of(9999, 12, 31, 0, 0);
+
+    /** Payments the gateway is expected to have settled. */
+    private static final Set<Payment.PaymentStatus> SETTLED = EnumSet.of(
+            Payment.PaymentStatus.COMPLETED,
+            Payment.PaymentStatus.REFUNDED,
+            Payment.PaymentStatus.PARTIALLY_REFUNDED);
+
+    /** Settlement file statuses and the payment status each one corresponds to. */
+    private static final Map<String, Payment.PaymentStatus> SETTLEMENT_STATUSES = Map.of(
+            "SETTLED", Payment.PaymentStatus.COMPLETED,
+            "COMPLETED", Payment.PaymentStatus.COMPLETED,
+            "REFUNDED", Payment.PaymentStatus.REFUNDED,
+            "PARTIALLY_REFUNDED", Payment.PaymentStatus.PARTIALLY_REFUNDED,
+            "FAILED", Payment.PaymentStatus.FAILED);
+
+    private final SettlementRunRepository runRepository;
+    private final SettlementMismatchRepository mismatchRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+
+    @Qualifier(AsyncConfig.RECONCILIATION_EXECUTOR)
+    private final Executor reconciliationExecutor;
+
+    @Value("${app.payment.reconciliation.sort-chunk-rows:200000}")
+    private int sortChunkRows;
+
+    @Value("${app.payment.reconciliation.page-size:1000}")
+    private int pageSize;
+
+    @Value("${app.payment.reconciliation.flush-size:500}")
+    private int flushSize;
+
+    /**
+     * Store an uploaded settlement file and reconcile it in the background.
+     * The returned run is RUNNING; poll it for the outcome.
+     * Throws ReconciliationInProgressException if another run has not finished yet.
+     */
+    public ReconciliationRunResponse start(MultipartFile file, LocalDateTime periodStart, LocalDateTime periodEnd) {
+        if (file.isEmpty()) {
+            throw new IllegalArgumentException("Settlement file is empty");
+        }
+        if (periodStart != null && periodEnd != null && !periodStart.isBefore(periodEnd)) {
+            throw new IllegalArgumentException("periodStart must be before periodEnd");
+        }
+
+        Path upload;
+        try {
+            upload = Files.createTempFile("settlement-", ".csv");
+            file.transferTo(upload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not store settlement file", e);
+        }
+
+        SettlementRun run = runRepository.save(SettlementRun.builder()
+                .fileName(file.getOriginalFilename() != null ? file.getOriginalFilename() : "settlement.csv")
+                .periodStart(periodStart)
+                .periodEnd(periodEnd)
+                .build());
+
+        Long runId = run.getId();
+        try {
+            reconciliationExecutor.execute(() -> {
+                try {
+                    reconcile(runId, upload);
+                } finally {
+                    deleteUpload(upload);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            runRepository.delete(run);
+            deleteUpload(upload);
+            throw new ReconciliationInProgressException();
+        }
+        return mapToResponse(run);
+    }
+
+    /**
+     * Reconcile a settlement file for an existing run and record the outcome on the run.
+     */
+    public ReconciliationRunResponse reconcile(Long runId, Path file) {
+        SettlementRun run = runRepository.findById(runId)
+                .orElseThrow(() -> new PaymentNotFoundException("Settlement run not found with ID: " + runId));
+        Timer.Sample sample = Timer.start(meterRegistry);
+        Report report = new Report(runId, run.getPeriodStart(), run.getPeriodEnd());
+
+        try (SettlementFileReader settlements = new SettlementFileReader(file, sortChunkRows, report::invalid)) {
+            merge(settlements, report);
+            report.flush();
+            run.setRowsRead(settlements.getRowsRead());
+            run.setStatus(SettlementRun.RunStatus.COMPLETED);
+        } catch (IOException | RuntimeException e) {
+            log.error("Settlement reconciliation run {} failed", runId, e);
+            String message = String.valueOf(e.getMessage());
+            run.setErrorMessage(message.length() > 500 ? message.substring(0, 500) : message);
+            run.setStatus(SettlementRun.RunStatus.FAILED);
+        }
+
+        run.setPaymentsScanned(report.paymentsScanned);
+        run.setMatched(report.matched);
+        run.setMismatchCount(report.mismatches);
+        run.setFinishedAt(LocalDateTime.now());
+        run = runRepository.save(run);
+
+        sample.stop(meterRegistry.timer("payment.reconciliation.run", "status", run.getStatus().name()));
+        log.info("Settlement reconciliation run {} {}: {} rows, {} payments, {} matched, {} mismatches",
+                runId, run.getStatus(), run.getRowsRead(), run.getPaymentsScanned(),
+                run.getMatched(), run.getMismatchCount());
+        return mapToResponse(run);
+    }
+
+    /**
+     * Get a reconciliation run.
+     */
+    @Transactional(readOnly = true)
+    public ReconciliationRunResponse getRun(Long runId) {
+        return runRepository.findById(runId)
+                .map(this::mapToResponse)
+                .orElseThrow(() -> new PaymentNotFoundException("Settlement run not found with ID: " + runId));
+    }
+
+    /**
+     * Get the mismatches of a run, optionally of one type.
+     */
+    @Transactional(readOnly = true)
+    public Page<SettlementMismatchResponse> getMismatches(Long runId, SettlementMismatch.MismatchType type,
+                                                          Pageable pageable) {
+        if (!runRepository.existsById(runId)) {
+            throw new PaymentNotFoundException("Settlement run not found with ID: " + runId);
+        }
+        Page<SettlementMismatch> mismatches = type != null
+                ? mismatchRepository.findByRunIdAndType(runId, type, pageable)
+                : mismatchRepository.findByRunId(runId, pageable);
+        return mismatches.map(this::mapToResponse);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private void deleteUpload(Path upload) {
+        try {
+            Files.deleteIfExists(upload);
+        } catch (IOException e) {
+            log.warn("Could not delete settlement upload {}", upload);
+        }
+    }
+
+    /**
+     * Walk both sorted sides once, advancing whichever has the smaller transaction id.
+     * A settlement row with no payment in the scan is looked up on its own, since its payment
+     * may have been paid outside the period or not at all (failed payments).
+     */
+    private void merge(SettlementFileReader settlements, Report report) {
+        PaymentCursor payments = new PaymentCursor(
+                report.periodStart != null ? report.periodStart : SCAN_START,
+                report.periodEnd != null ? report.periodEnd : SCAN_END);
+        SettlementFileReader.Row settled = nextSettlement(settlements, null, report);
+        PaymentRepository.SettlementView payment = payments.next();
+
+        while (settled != null || payment != null) {
+            int order = settled == null ? 1
+                    : payment == null ? -1
+                    : settled.getTransactionId().compareTo(payment.getTransactionId());
+
+            if (order < 0) {
+                PaymentRepository.SettlementView outside =
+                        paymentRepository.findSettlementView(settled.getTransactionId()).orElse(null);
+                if (outside != null) {
+                    report.paymentsScanned++;
+                    compare(settled, outside, report);
+                } else {
+                    report.add(mismatch(SettlementMismatch.MismatchType.MISSING_PAYMENT, settled, null,
+                            "No payment with this transaction id"));
+                }
+                settled = nextSettlement(settlements, settled, report);
+            } else if (order > 0) {
+                report.paymentsScanned++;
+                if (report.expectsSettlement(payment)) {
+                    report.add(mismatch(SettlementMismatch.MismatchType.MISSING_SETTLEMENT, null, payment,
+                            "Settled payment missing from the file"));
+                }
+                payment = payments.next();
+            } else {
+                report.paymentsScanned++;
+                compare(settled, payment, report);
+                settled = nextSettlement(settlements, settled, report);
+                payment = payments.next();
+            }
+        }
+    }
+
+    /**
+     * Record amount and status differences of a settlement row and its payment.
+     */
+    private void compare(SettlementFileReader.Row settled, PaymentRepository.SettlementView payment, Report report) {
+        boolean matched = true;
+        if (settled.getAmountMinor() != Money.toMinor(payment.getAmount())) {
+            report.add(mismatch(SettlementMismatch.MismatchType.AMOUNT_MISMATCH, settled, payment,
+                    "Settled amount differs from the payment amount"));
+            matched = false;
+        }
+        Payment.PaymentStatus expected = SETTLEMENT_STATUSES.get(settled.getStatus());
+        if (expected != payment.getStatus()) {
+            report.add(mismatch(SettlementMismatch.MismatchType.STATUS_MISMATCH, settled, payment,
+                    expected == null ? "Unknown settlement status" : "Settlement status differs from the payment"));
+            matched = false;
+        }
+        if (matched) {
+            report.matched++;
+        }
+    }
+
+    /**
+     * Next settlement row, reporting and skipping repeats of the previous transaction id.
+     */
+    private SettlementFileReader.Row nextSettlement(SettlementFileReader settlements,
+                                                    SettlementFileReader.Row previous, Report report) {
+        while (settlements.hasNext()) {
+            SettlementFileReader.Row row = settlements.next();
+            if (previous == null || !row.getTransactionId().equals(previous.getTransactionId())) {
+                return row;
+            }
+            report.add(mismatch(SettlementMismatch.MismatchType.DUPLICATE_SETTLEMENT, row, null,
+                    "Transaction id repeated in the file"));
+        }
+        return null;
+    }
+
+    private SettlementMismatch mismatch(SettlementMismatch.MismatchType type, SettlementFileReader.Row settled,
+                                        PaymentRepository.SettlementView payment, String details) {
+        return SettlementMismatch.builder()
+                .type(type)
+                .transactionId(settled != null ? settled.getTransactionId() : payment.getTransactionId())
+                .paymentId(payment != null ? payment.getId() : null)
+                .settledAmount(settled != null ? Money.toDecimal(settled.getAmountMinor()) : null)
+                .paymentAmount(payment != null ? payment.getAmount() : null)
+                .settledStatus(settled != null ? settled.getStatus() : null)
+                .paymentStatus(payment != null ? payment.getStatus().name() : null)
+                .details(details)
+                .build();
+    }
+
+    private ReconciliationRunResponse mapToResponse(SettlementRun run) {
+        return ReconciliationRunResponse.builder()
+                .id(run.getId())
+                .fileName(run.getFileName())
+                .status(run.getStatus().name())
+                .periodStart(run.getPeriodStart())
+                .periodEnd(run.getPeriodEnd())
+                .rowsRead(run.getRowsRead())
+                .paymentsScanned(run.getPaymentsScanned())
+                .matched(run.getMatched())
+                .mismatchCount(run.getMismatchCount())
+                .errorMessage(run.getErrorMessage())
+                .startedAt(run.getCreatedAt())
+                .finishedAt(run.getFinishedAt())
+                .build();
+    }
+
+    private SettlementMismatchResponse mapToResponse(SettlementMismatch mismatch) {
+        return SettlementMismatchResponse.builder()
+                .id(mismatch.getId())
+                .type(mismatch.getType().name())
+                .transactionId(mismatch.getTransactionId())
+                .paymentId(mismatch.getPaymentId())
+                .settledAmount(mismatch.getSettledAmount())
+                .paymentAmount(mismatch.getPaymentAmount())
+                .settledStatus(mismatch.getSettledStatus())
+                .paymentStatus(mismatch.getPaymentStatus())
+                .details(mismatch.getDetails())
+                .build();
+    }
+
+    /**
+     * Payments paid within [paidFrom, paidTo), fetched a page at a time in transaction id order.
+     * Each page is its own short query, so no transaction stays open for the whole scan.
+     */
+    private class PaymentCursor {
+        private final LocalDateTime paidFrom;
+        private final LocalDateTime paidTo;
+        private Iterator<PaymentRepository.SettlementView> page = List.<PaymentRepository.SettlementView>of().iterator();
+        private String after = "";
+        private boolean exhausted;
+
+        PaymentCursor(LocalDateTime paidFrom, LocalDateTime paidTo) {
+            this.paidFrom = paidFrom;
+            this.paidTo = paidTo;
+        }
+
+        PaymentRepository.SettlementView next() {
+            if (!page.hasNext() && !exhausted) {
+                PageRequest request = PageRequest.of(0, pageSize);
+                List<PaymentRepository.SettlementView> views =
+                        paymentRepository.findSettlementPageAfter(after, paidFrom, paidTo, request);
+                exhausted = views.size() < pageSize;
+                page = views.iterator();
+            }
+            if (!page.hasNext()) {
+                return null;
+            }
+            PaymentRepository.SettlementView view = page.next();
+            // The merge is only correct if the database orders ids the way String.compareTo does
+            if (view.getTransactionId().compareTo(after) <= 0) {
+                throw new IllegalStateException("Payments are not in transaction id order at " + view.getTransactionId());
+            }
+            after = view.getTransactionId();
+            return view;
+        }
+    }
+
+    /**
+     * Mismatches of a run, flushed in batches, and its running totals.
+     * Only flushed mismatches are counted, so a failed run reports what it stored.
+     */
+    private class Report {
+        private final Long runId;
+        private final LocalDateTime periodStart;
+        private final LocalDateTime periodEnd;
+        private final List<SettlementMismatch> buffer = new ArrayList<>();
+        private long paymentsScanned;
+        private long matched;
+        private long mismatches;
+
+        Report(Long runId, LocalDateTime periodStart, LocalDateTime periodEnd) {
+            this.runId = runId;
+            this.periodStart = periodStart;
+            this.periodEnd = periodEnd;
+        }
+
+        /**
+         * Whether a scanned payment should appear in the file. The scan only holds payments
+         * paid within the period, so every settled one should.
+         */
+        boolean expectsSettlement(PaymentRepository.SettlementView payment) {
+            return SETTLED.contains(payment.getStatus());
+        }
+
+        void invalid(SettlementFileReader.InvalidRow row) {
+            add(SettlementMismatch.builder()
+                    .type(SettlementMismatch.MismatchType.INVALID_ROW)
+                    .transactionId(row.getTransactionId())
+                    .details("Line " + row.getLineNumber() + ": " + row.getReason())
+                    .build());
+        }
+
+        void add(SettlementMismatch mismatch) {
+            buffer.add(mismatch);
+            meterRegistry.counter("payment.reconciliation.mismatches", "type", mismatch.getType().name()).increment();
+            if (buffer.size() >= flushSize) {
+                flush();
+            }
+        }
+
+        void flush() {
+            if (buffer.isEmpty()) {
+                return;
+            }
+            transactionTemplate.executeWithoutResult(status -> {
+                SettlementRun run = runRepository.getReferenceById(runId);
+                buffer.forEach(mismatch -> mismatch.setRun(run));
+                mismatchRepository.saveAll(buffer);
+            });
+            mismatches += buffer.size();
+            buffer.clear();
+        }
+    }
+}
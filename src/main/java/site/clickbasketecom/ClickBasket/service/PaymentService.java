@@ -1,8 +1,10 @@
 package site.clickbasketecom.ClickBasket.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import site.clickbasketecom.ClickBasket.config.MetricsConfig;
 import site.clickbasketecom.ClickBasket.dto.payment.ConfirmPaymentRequest;
 import site.clickbasketecom.ClickBasket.dto.payment.InitiatePaymentRequest;
 import site.clickbasketecom.ClickBasket.dto.payment.PaymentResponse;
@@ -14,90 +16,81 @@ import site.clickbasketecom.ClickBasket.repository.OrderRepository;
 import site.clickbasketecom.ClickBasket.repository.PaymentRepository;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Service for payment operations.
  * Simulates real-world payment flow without actual gateway integration.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 public class PaymentService {
 
     private final PaymentRepository paymentRepository;
     private final OrderRepository orderRepository;
+    private final OrderService orderService;
 
     /**
      * Initiate a payment for an order.
+     * Three statements: a guarded update that checks ownership and status, confirms the order and
+     * locks it; one query for the order's number, total and existing payment; one payment write.
      */
     @Transactional
     public PaymentResponse initiatePayment(Long userId, InitiatePaymentRequest request) {
-        // Find order
-        Order order = orderRepository.findById(request.getOrderId())
-                .orElseThrow(() -> new OrderNotFoundException(request.getOrderId()));
+        Long orderId = request.getOrderId();
 
-        // Verify user owns the order
-        if (!order.getUser().getId().equals(userId)) {
-            throw new IllegalArgumentException("You can only pay for your own orders");
-        }
-
-        // Check if order is in valid status for payment
-        if (order.getStatus() != Order.OrderStatus.PENDING) {
+        if (orderRepository.confirmForPayment(orderId, userId, LocalDateTime.now()) == 0) {
+            OrderRepository.OrderStatusView order = orderRepository.findStatusViewById(orderId)
+                    .orElseThrow(() -> new OrderNotFoundException(orderId));
+            if (!order.getUserId().equals(userId)) {
+                throw new IllegalArgumentException("You can only pay for your own orders");
+            }
             throw new IllegalStateException("Order is not in a valid status for payment: " + order.getStatus());
         }
 
-        // Check if payment already exists
-        if (paymentRepository.existsByOrderId(order.getId())) {
-            Payment existingPayment = paymentRepository.findByOrderId(order.getId())
-                    .orElseThrow();
+        // Runs under the order row lock, so no other initiate can add or reset this order's payment
+        OrderRepository.PaymentTargetView target = orderRepository.findPaymentTarget(orderId)
+                .orElseThrow(() -> new OrderNotFoundException(orderId));
+        Payment payment = target.getPayment();
 
+        if (payment != null) {
             // If previous payment failed, allow retry
-            if (existingPayment.getStatus() != Payment.PaymentStatus.FAILED &&
-                    existingPayment.getStatus() != Payment.PaymentStatus.CANCELLED) {
+            if (payment.getStatus() != Payment.PaymentStatus.FAILED &&
+                    payment.getStatus() != Payment.PaymentStatus.CANCELLED) {
                 throw new IllegalStateException(
-                        "Payment already exists for this order with status: " + existingPayment.getStatus());
+                        "Payment already exists for this order with status: " + payment.getStatus());
             }
-
-            // Update existing payment for retry
-            existingPayment.setPaymentMethod(request.getPaymentMethod());
-            existingPayment.setPaymentProvider(request.getPaymentProvider());
-            existingPayment.setStatus(Payment.PaymentStatus.PENDING);
-            existingPayment.setCardLastFour(request.getCardLastFour());
-            existingPayment.setCardBrand(request.getCardBrand());
-            existingPayment.setBillingEmail(request.getBillingEmail());
-            existingPayment.setFailureReason(null);
-
-            Payment savedPayment = paymentRepository.save(existingPayment);
-            return mapToResponse(savedPayment);
+            payment.setStatus(Payment.PaymentStatus.PENDING);
+            payment.setFailureReason(null);
+        } else {
+            payment = Payment.builder()
+                    .order(orderRepository.getReferenceById(orderId))
+                    .amount(target.getTotalAmount())
+                    .currency("INR")
+                    .status(Payment.PaymentStatus.PENDING)
+                    .build();
         }
-
-        // Create new payment
-        Payment payment = Payment.builder()
-                .order(order)
-                .paymentMethod(request.getPaymentMethod())
-                .paymentProvider(request.getPaymentProvider())
-                .amount(order.getTotalAmount())
-                .currency("INR")
-                .status(Payment.PaymentStatus.PENDING)
-                .cardLastFour(request.getCardLastFour())
-                .cardBrand(request.getCardBrand())
-                .billingEmail(request.getBillingEmail())
-                .build();
+        payment.setPaymentMethod(request.getPaymentMethod());
+        payment.setPaymentProvider(request.getPaymentProvider());
+        payment.setCardLastFour(request.getCardLastFour());
+        payment.setCardBrand(request.getCardBrand());
+        payment.setBillingEmail(request.getBillingEmail());
 
         Payment savedPayment = paymentRepository.save(payment);
-
-        // Update order status to processing
-        order.setStatus(Order.OrderStatus.CONFIRMED);
-        orderRepository.save(order);
-
-        return mapToResponse(savedPayment);
+        return mapToResponse(savedPayment, orderId, target.getOrderNumber());
     }
 
     /**
      * Confirm payment success or failure (simulating gateway callback).
+     * Gateway callbacks reach this through the PaymentCallbackQueue, one at a time per payment.
+     * The payment row is locked before its status is checked, so a callback racing the
+     * PaymentTimeoutSweeper waits for the sweep and then sees the payment CANCELLED.
+     * The order moves through the order state machine, so only a CONFIRMED order is moved on.
      */
     @Transactional
     public PaymentResponse confirmPayment(ConfirmPaymentRequest request) {
-        Payment payment = paymentRepository.findById(request.getPaymentId())
+        Payment payment = paymentRepository.lockById(request.getPaymentId())
                 .orElseThrow(() -> new PaymentNotFoundException(request.getPaymentId()));
 
         // Payment must be pending
@@ -106,6 +99,8 @@ public class PaymentService {
         }
 
         Order order = payment.getOrder();
+        Long orderId = order.getId();
+        String orderNumber = order.getOrderNumber();
 
         if (request.getSuccess()) {
             // Payment successful
@@ -113,24 +108,24 @@ public class PaymentService {
             payment.setTransactionId(request.getTransactionId());
             payment.setPaidAt(LocalDateTime.now());
             payment.setGatewayResponse(request.getGatewayResponse());
-
-            // Update order status
-            order.setStatus(Order.OrderStatus.PROCESSING);
         } else {
             // Payment failed
             payment.setStatus(Payment.PaymentStatus.FAILED);
             payment.setTransactionId(request.getTransactionId());
             payment.setFailureReason(request.getFailureReason());
             payment.setGatewayResponse(request.getGatewayResponse());
-
-            // Revert order status
-            order.setStatus(Order.OrderStatus.PENDING);
         }
-
-        orderRepository.save(order);
         Payment savedPayment = paymentRepository.save(payment);
 
-        return mapToResponse(savedPayment);
+        // Move the order on (or back to pending); the payment is flushed first
+        int moved = request.getSuccess()
+                ? orderService.markPaid(List.of(orderId))
+                : orderService.markPaymentFailed(List.of(orderId));
+        if (moved == 0) {
+            throw new IllegalStateException("Order is not awaiting payment: " + orderNumber);
+        }
+
+        return mapToResponse(savedPayment, orderId, orderNumber);
     }
 
     /**
@@ -167,15 +162,8 @@ public class PaymentService {
      */
     @Transactional
     public PaymentResponse simulateSuccessfulPayment(Long paymentId) {
-        Payment payment = paymentRepository.findById(paymentId)
-                .orElseThrow(() -> new PaymentNotFoundException(paymentId));
-
-        if (payment.getStatus() != Payment.PaymentStatus.PENDING) {
-            throw new IllegalStateException("Payment is not in pending status");
-        }
-
-        // Generate simulated transaction ID
-        String transactionId = "SIM-" + System.currentTimeMillis() + "-" + payment.getId();
+        // Generate simulated transaction ID; confirmPayment locks the payment and checks it is pending
+        String transactionId = "SIM-" + System.currentTimeMillis() + "-" + paymentId;
 
         ConfirmPaymentRequest confirmRequest = ConfirmPaymentRequest.builder()
                 .paymentId(paymentId)
@@ -192,15 +180,8 @@ public class PaymentService {
      */
     @Transactional
     public PaymentResponse simulateFailedPayment(Long paymentId, String failureReason) {
-        Payment payment = paymentRepository.findById(paymentId)
-                .orElseThrow(() -> new PaymentNotFoundException(paymentId));
-
-        if (payment.getStatus() != Payment.PaymentStatus.PENDING) {
-            throw new IllegalStateException("Payment is not in pending status");
-        }
-
-        // Generate simulated transaction ID
-        String transactionId = "SIM-FAIL-" + System.currentTimeMillis() + "-" + payment.getId();
+        // Generate simulated transaction ID; confirmPayment locks the payment and checks it is pending
+        String transactionId = "SIM-FAIL-" + System.currentTimeMillis() + "-" + paymentId;
 
         ConfirmPaymentRequest confirmRequest = ConfirmPaymentRequest.builder()
                 .paymentId(paymentId)
@@ -221,10 +202,17 @@ public class PaymentService {
      * Map Payment entity to PaymentResponse DTO.
      */
     private PaymentResponse mapToResponse(Payment payment) {
+        return mapToResponse(payment, payment.getOrder().getId(), payment.getOrder().getOrderNumber());
+    }
+
+    /**
+     * Map a Payment to PaymentResponse with order details already at hand, without loading the order.
+     */
+    private PaymentResponse mapToResponse(Payment payment, Long orderId, String orderNumber) {
         return PaymentResponse.builder()
                 .id(payment.getId())
-                .orderId(payment.getOrder().getId())
-                .orderNumber(payment.getOrder().getOrderNumber())
+                .orderId(orderId)
+                .orderNumber(orderNumber)
                 .transactionId(payment.getTransactionId())
                 .paymentMethod(payment.getPaymentMethod())
                 .paymentProvider(payment.getPaymentProvider())
@@ -0,0 +1,148 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.repository.PaymentRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cancels payments left PENDING for longer than app.payment.timeout.minutes.
+ * Walks expired payments in (created_at, id) keyset batches over idx_payment_status_created;
+ * each batch cancels its payments and their unpaid orders with set-based updates in one short
+ * transaction, which puts the orders' stock back.
+ * A gateway callback arriving after the timeout is rejected because the payment is no longer pending.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class PaymentTimeoutSweeper {
+
+    /** Keyset position before any real payment. */
+    private static final LocalDateTime KEYSET_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private static final String TIMEOUT_REASON = "Payment timed out";
+
+    private final PaymentRepository paymentRepository;
+    private final OrderService orderService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${app.payment.timeout.minutes:30}")
+    private int timeoutMinutes;
+
+    @Value("${app.payment.timeout.batch-size:200}")
+    private int batchSize;
+
+    @Value("${app.payment.timeout.max-batches:50}")
+    private int maxBatches;
+
+    /**
+     * Expire pending payments on a schedule.
+     * Skipped if the previous run is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.payment.timeout.sweep-interval-ms:60000}")
+    public void scheduledSweep() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            sweep();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Cancel payments pending since before the cutoff and report what was released.
+     * At most max-batches batches run; the rest is picked up by the next run.
+     */
+    public SweepResult sweep() {
+        Timer.Sample sample = Timer.start(meterRegistry);
+        LocalDateTime cutoff = LocalDateTime.now().minusMinutes(timeoutMinutes);
+        LocalDateTime afterCreatedAt = KEYSET_START;
+        Long afterId = 0L;
+        int payments = 0;
+        int orders = 0;
+        int batches = 0;
+
+        while (batches < maxBatches) {
+            List<PaymentRepository.ExpiredPaymentView> expired = paymentRepository.findExpiredAfter(
+                    cutoff, afterCreatedAt, afterId, PageRequest.of(0, batchSize));
+            if (expired.isEmpty()) {
+                break;
+            }
+            PaymentRepository.ExpiredPaymentView last = expired.get(expired.size() - 1);
+            afterCreatedAt = last.getCreatedAt();
+            afterId = last.getId();
+
+            int[] cancelled = cancelBatch(expired, cutoff);
+            payments += cancelled[0];
+            orders += cancelled[1];
+            batches++;
+
+            if (expired.size() < batchSize) {
+                break;
+            }
+        }
+
+        sample.stop(meterRegistry.timer("payment.timeout.sweep"));
+        meterRegistry.counter("payment.timeout.expired", "table", "payments").increment(payments);
+        meterRegistry.counter("payment.timeout.expired", "table", "orders").increment(orders);
+        log.info("Payment timeout sweep cancelled {} payments and {} orders in {} batches (pending since {})",
+                payments, orders, batches, cutoff);
+        return new SweepResult(payments, orders, batches);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Cancel one batch of payments and their orders in one transaction.
+     * Returns {paymentsCancelled, ordersCancelled}.
+     */
+    private int[] cancelBatch(List<PaymentRepository.ExpiredPaymentView> expired, LocalDateTime cutoff) {
+        List<Long> candidateIds = expired.stream().map(PaymentRepository.ExpiredPaymentView::getId).toList();
+
+        return transactionTemplate.execute(status -> {
+            // Payments confirmed or retried since they were listed drop out
+            List<PaymentRepository.ExpiredPaymentView> locked = paymentRepository.lockExpired(candidateIds, cutoff);
+            if (locked.isEmpty()) {
+                return new int[] { 0, 0 };
+            }
+            int payments = paymentRepository.cancelPending(
+                    locked.stream().map(PaymentRepository.ExpiredPaymentView::getId).toList(),
+                    TIMEOUT_REASON, LocalDateTime.now());
+            int orders = orderService.cancelUnpaidOrders(
+                    locked.stream().map(PaymentRepository.ExpiredPaymentView::getOrderId).toList());
+            return new int[] { payments, orders };
+        });
+    }
+
+    /**
+     * Rows released by a sweep.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SweepResult {
+        private final int paymentsCancelled;
+        private final int ordersCancelled;
+        private final int batches;
+    }
+}
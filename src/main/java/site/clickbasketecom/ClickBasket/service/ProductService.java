@@ -1,16 +1,17 @@
 package site.clickbasketecom.ClickBasket.service;
 
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import site.clickbasketecom.ClickBasket.config.MetricsConfig;
 import site.clickbasketecom.ClickBasket.dto.product.CreateProductRequest;
 import site.clickbasketecom.ClickBasket.dto.product.ProductResponse;
 import site.clickbasketecom.ClickBasket.dto.product.UpdateProductRequest;
 import site.clickbasketecom.ClickBasket.entity.Category;
 import site.clickbasketecom.ClickBasket.entity.Product;
-import site.clickbasketecom.ClickBasket.entity.Vendor;
 import site.clickbasketecom.ClickBasket.exception.CategoryNotFoundException;
 import site.clickbasketecom.ClickBasket.exception.ProductNotFoundException;
 import site.clickbasketecom.ClickBasket.repository.CategoryRepository;
@@ -21,6 +22,7 @@ import site.clickbasketecom.ClickBasket.repository.VendorRepository;
  * Service for product management operations.
  */
 @Service
+@Timed(MetricsConfig.SERVICE_TIMER)
 @RequiredArgsConstructor
 @SuppressWarnings("null")
 public class ProductService {
@@ -29,6 +31,7 @@ public class ProductService {
     private final VendorRepository vendorRepository;
     private final CategoryRepository categoryRepository;
     private final VendorService vendorService;
+    private final ProductStampIndex productStampIndex;
 
     // ========================
     // Vendor Product Operations
@@ -40,7 +43,7 @@ public class ProductService {
     @Transactional
     public ProductResponse createProduct(Long userId, CreateProductRequest request) {
         // Ensure vendor is approved
-        Vendor vendor = vendorService.ensureVendorApprovedByUserId(userId);
+        Long vendorId = vendorService.ensureVendorApprovedByUserId(userId);
 
         // Validate category
         Category category = categoryRepository.findById(request.getCategoryId())
@@ -60,7 +63,7 @@ public class ProductService {
         }
 
         Product product = Product.builder()
-                .vendor(vendor)
+                .vendor(vendorRepository.getReferenceById(vendorId))
                 .category(category)
                 .name(request.getName())
                 .slug(slug)
@@ -97,13 +100,13 @@ public class ProductService {
     @Transactional
     public ProductResponse updateProduct(Long userId, Long productId, UpdateProductRequest request) {
         // Ensure vendor is approved
-        Vendor vendor = vendorService.ensureVendorApprovedByUserId(userId);
+        Long vendorId = vendorService.ensureVendorApprovedByUserId(userId);
 
         // Find product and verify ownership
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ProductNotFoundException(productId));
 
-        if (!product.getVendor().getId().equals(vendor.getId())) {
+        if (!product.getVendor().getId().equals(vendorId)) {
             throw new IllegalArgumentException("You can only update your own products");
         }
 
@@ -206,6 +209,7 @@ public class ProductService {
         }
 
         Product updatedProduct = productRepository.save(product);
+        productStampIndex.update(updatedProduct);
         return mapToResponse(updatedProduct);
     }
 
@@ -215,17 +219,18 @@ public class ProductService {
     @Transactional
     public void deleteProduct(Long userId, Long productId) {
         // Ensure vendor is approved
-        Vendor vendor = vendorService.ensureVendorApprovedByUserId(userId);
+        Long vendorId = vendorService.ensureVendorApprovedByUserId(userId);
 
         // Find product and verify ownership
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ProductNotFoundException(productId));
 
-        if (!product.getVendor().getId().equals(vendor.getId())) {
+        if (!product.getVendor().getId().equals(vendorId)) {
             throw new IllegalArgumentException("You can only delete your own products");
         }
 
         productRepository.delete(product);
+        productStampIndex.remove(productId);
     }
 
     /**
@@ -233,8 +238,8 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public Page<ProductResponse> getVendorProducts(Long userId, Pageable pageable) {
-        Vendor vendor = vendorService.ensureVendorApprovedByUserId(userId);
-        return productRepository.findByVendorId(vendor.getId(), pageable)
+        Long vendorId = vendorService.ensureVendorApprovedByUserId(userId);
+        return productRepository.findByVendorId(vendorId, pageable)
                 .map(this::mapToResponse);
     }
 
@@ -243,11 +248,11 @@ public class ProductService {
      */
     @Transactional(readOnly = true)
     public ProductResponse getVendorProduct(Long userId, Long productId) {
-        Vendor vendor = vendorService.ensureVendorApprovedByUserId(userId);
+        Long vendorId = vendorService.ensureVendorApprovedByUserId(userId);
         Product product = productRepository.findById(productId)
                 .orElseThrow(() -> new ProductNotFoundException(productId));
 
-        if (!product.getVendor().getId().equals(vendor.getId())) {
+        if (!product.getVendor().getId().equals(vendorId)) {
             throw new IllegalArgumentException("You can only view your own products");
         }
 
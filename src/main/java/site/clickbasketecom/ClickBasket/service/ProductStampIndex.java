@@ -0,0 +1,191 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AccessLevel;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import site.clickbasketecom.ClickBasket.entity.Product;
+import site.clickbasketecom.ClickBasket.repository.ProductRepository;
+import site.clickbasketecom.ClickBasket.util.Money;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory index of productId -> (price, stock, status) stamps for cart drift checks.
+ * Misses are loaded in one projection query, without Product entities, and entries are
+ * replaced by product and order writes after commit. A TTL bounds how long another
+ * instance's change can go unnoticed, and max-entries bounds memory.
+ */
+@Component
+public class ProductStampIndex {
+
+    private final Cache<Long, Stamp> byProductId;
+    private final ProductRepository productRepository;
+
+    public ProductStampIndex(
+            ProductRepository productRepository,
+            @Value("${app.product.stamp-index.ttl-ms:30000}") long ttlMillis,
+            @Value("${app.product.stamp-index.max-entries:100000}") long maxEntries) {
+        this.productRepository = productRepository;
+        this.byProductId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+    }
+
+    /**
+     * Stamps for the given products, loading missing or expired ones in a single query.
+     * Products that no longer exist get a stamp marking them unavailable.
+     */
+    public Map<Long, Stamp> getAll(Collection<Long> productIds) {
+        long now = System.nanoTime();
+        Map<Long, Stamp> result = new HashMap<>();
+        List<Long> missing = new ArrayList<>();
+        for (Long productId : productIds) {
+            Stamp stamp = byProductId.getIfPresent(productId);
+            if (stamp != null && !stamp.isInvalidated()) {
+                result.put(productId, stamp);
+            } else {
+                missing.add(productId);
+            }
+        }
+        if (missing.isEmpty()) {
+            return result;
+        }
+
+        Map<Long, Stamp> loaded = new HashMap<>();
+        for (ProductRepository.ProductStampView view : productRepository.findStampsByIdIn(missing)) {
+            loaded.put(view.getId(), new Stamp(Money.toMinor(view.getPrice()), view.getStockQuantity(),
+                    view.getStatus(), now));
+        }
+        for (Long productId : missing) {
+            Stamp stamp = loaded.getOrDefault(productId, new Stamp(0L, 0, null, now));
+            Stamp kept = byProductId.asMap().merge(productId, stamp, ProductStampIndex::newer);
+            // A load older than an invalidation is not cached, but still answers this call
+            result.put(productId, kept.isInvalidated() ? stamp : kept);
+        }
+        return result;
+    }
+
+    /**
+     * Cached stamp of a product, or null. Never touches the database.
+     */
+    public Stamp peek(Long productId) {
+        Stamp stamp = byProductId.getIfPresent(productId);
+        return stamp != null && !stamp.isInvalidated() ? stamp : null;
+    }
+
+    /**
+     * Record a product's current price, stock and status once the surrounding transaction commits.
+     */
+    public void update(Product product) {
+        Stamp stamp = new Stamp(Money.toMinor(product.getPrice()), product.getStockQuantity(),
+                product.getStatus(), 0L);
+        afterCommit(product.getId(), stamp);
+    }
+
+    /**
+     * Record a product row that was just read, without waiting for a commit.
+     */
+    public void record(Product product) {
+        byProductId.asMap().merge(product.getId(), new Stamp(Money.toMinor(product.getPrice()),
+                product.getStockQuantity(), product.getStatus(), System.nanoTime()), ProductStampIndex::newer);
+    }
+
+    /**
+     * Mark a product unavailable once the surrounding transaction commits.
+     */
+    public void remove(Long productId) {
+        afterCommit(productId, new Stamp(0L, 0, null, 0L));
+    }
+
+    /**
+     * Invalidate the stamps of products changed by a bulk update once the transaction commits,
+     * so they are reloaded on next use. The invalidation is itself stamped with the commit time,
+     * so a load that read the row before the commit loses the merge instead of filling the slot.
+     */
+    public void invalidate(Collection<Long> productIds) {
+        Runnable apply = () -> {
+            Stamp invalidated = Stamp.invalidated(System.nanoTime());
+            for (Long productId : productIds) {
+                byProductId.asMap().merge(productId, invalidated, ProductStampIndex::newer);
+            }
+        };
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private void afterCommit(Long productId, Stamp stamp) {
+        Runnable apply = () -> byProductId.asMap().merge(productId,
+                new Stamp(stamp.getPriceMinor(), stamp.getStockQuantity(), stamp.getStatus(), System.nanoTime()),
+                ProductStampIndex::newer);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Keep the newest stamp, so a load that raced with a write cannot overwrite it.
+     */
+    private static Stamp newer(Stamp current, Stamp candidate) {
+        return candidate.getLoadedAt() - current.getLoadedAt() >= 0 ? candidate : current;
+    }
+
+    /**
+     * Price (minor units), stock and status of a product at a point in time.
+     * A null status means the product no longer exists. An invalidated stamp only records
+     * when the product was last changed in bulk; it is never handed out.
+     */
+    @Getter
+    @AllArgsConstructor(access = AccessLevel.PRIVATE)
+    public static class Stamp {
+        private final long priceMinor;
+        private final int stockQuantity;
+        private final Product.ProductStatus status;
+        private final long loadedAt;
+        private final boolean invalidated;
+
+        public Stamp(long priceMinor, int stockQuantity, Product.ProductStatus status, long loadedAt) {
+            this(priceMinor, stockQuantity, status, loadedAt, false);
+        }
+
+        static Stamp invalidated(long at) {
+            return new Stamp(0L, 0, null, at, true);
+        }
+
+        public boolean isPurchasable(int quantity) {
+            return status == Product.ProductStatus.ACTIVE && stockQuantity >= quantity;
+        }
+    }
+}
@@ -0,0 +1,489 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.Promotion;
+import site.clickbasketecom.ClickBasket.repository.PromotionRepository;
+import site.clickbasketecom.ClickBasket.util.Money;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live promotions compiled into an immutable in-memory rule index.
+ * Coupons are keyed by code and automatic promotions by category, vendor or cart.
+ * Under each key, percent and fixed rules are sorted into min-spend tiers resolved by binary search,
+ * and buy X get Y rules are grouped by buy/get shape. Evaluating a cart is one pass over its lines,
+ * and the cost stays flat as the number of live promotions grows. When the best rule of a tier or
+ * shape has used up its limit or expired, the next best live rule is used instead.
+ * <p>
+ * A cart gets at most one coupon plus the single best automatic promotion.
+ * The index is rebuilt on a schedule and after promotion changes.
+ */
+@Component
+@Slf4j
+public class PromotionIndex {
+
+    private static final long BASIS_POINTS = 10_000L;
+
+    private final PromotionRepository promotionRepository;
+    private final ReentrantLock refreshLock = new ReentrantLock();
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), Map.of(), Bucket.EMPTY);
+
+    public PromotionIndex(PromotionRepository promotionRepository) {
+        this.promotionRepository = promotionRepository;
+    }
+
+    /**
+     * Build the index on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void warm() {
+        load(promotionRepository.findLive(LocalDateTime.now()));
+    }
+
+    /**
+     * Rebuild the index on a schedule. Skipped if a rebuild is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.promotion.refresh-interval-ms:60000}",
+            initialDelayString = "${app.promotion.refresh-interval-ms:60000}")
+    public void scheduledRefresh() {
+        if (!refreshLock.tryLock()) {
+            return;
+        }
+        try {
+            load(promotionRepository.findLive(LocalDateTime.now()));
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Rebuild the index from the database after a promotion change.
+     * Waits for a running rebuild, so an older read is never swapped in over this one.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    public void refresh() {
+        refreshLock.lock();
+        try {
+            load(promotionRepository.findLive(LocalDateTime.now()));
+        } finally {
+            refreshLock.unlock();
+        }
+    }
+
+    /**
+     * Compile the given promotions and swap them in. Promotions that have not started are skipped.
+     */
+    public void load(List<Promotion> promotions) {
+        long now = System.currentTimeMillis();
+        Map<String, Rule> byCode = new HashMap<>();
+        Map<Long, List<Rule>> byCategory = new HashMap<>();
+        Map<Long, List<Rule>> byVendor = new HashMap<>();
+        List<Rule> cartWide = new ArrayList<>();
+
+        for (Promotion promotion : promotions) {
+            Rule rule = compile(promotion);
+            if (!Boolean.TRUE.equals(promotion.getIsActive()) || !rule.isLive(now)) {
+                continue;
+            }
+            if (rule.getCode() != null) {
+                byCode.put(rule.getCode(), rule);
+            } else if (rule.getScope() == Promotion.PromotionScope.CATEGORY) {
+                byCategory.computeIfAbsent(rule.getScopeId(), id -> new ArrayList<>()).add(rule);
+            } else if (rule.getScope() == Promotion.PromotionScope.VENDOR) {
+                byVendor.computeIfAbsent(rule.getScopeId(), id -> new ArrayList<>()).add(rule);
+            } else {
+                cartWide.add(rule);
+            }
+        }
+
+        snapshot = new Snapshot(byCode, buckets(byCategory), buckets(byVendor), Bucket.of(cartWide));
+        log.info("Promotion index built: {} coupons, {} category, {} vendor and {} cart-wide promotions",
+                byCode.size(), byCategory.size(), byVendor.size(), cartWide.size());
+    }
+
+    /**
+     * Find a live coupon by code, or null.
+     */
+    public Rule findCoupon(String code) {
+        Rule rule = snapshot.byCode.get(normalize(code));
+        return rule != null && rule.isLive(System.currentTimeMillis()) ? rule : null;
+    }
+
+    /**
+     * Work out the discount for a cart in a single pass over its lines.
+     */
+    public Evaluation evaluate(Collection<CartStore.Line> lines, String couponCode) {
+        Snapshot current = snapshot;
+        long now = System.currentTimeMillis();
+
+        Rule coupon = null;
+        String couponMessage = null;
+        if (couponCode != null) {
+            coupon = current.byCode.get(normalize(couponCode));
+            if (coupon == null || !coupon.isLive(now)) {
+                coupon = null;
+                couponMessage = "Coupon is no longer valid";
+            }
+        }
+
+        // Per key bucket: the eligible line total, then the value of free units per buy X get Y shape
+        Map<Bucket, long[]> bucketTotals = new IdentityHashMap<>();
+        long subtotal = 0L;
+        long couponEligible = 0L;
+        long couponFree = 0L;
+        for (CartStore.Line line : lines) {
+            long lineTotal = line.getTotalPriceMinor();
+            subtotal = Math.addExact(subtotal, lineTotal);
+            if (coupon != null && coupon.matches(line)) {
+                couponEligible += lineTotal;
+                couponFree += coupon.freeValue(line);
+            }
+            accumulate(bucketTotals, current.byCategory.get(line.getCategoryId()), line, lineTotal);
+            accumulate(bucketTotals, current.byVendor.get(line.getVendorId()), line, lineTotal);
+            accumulate(bucketTotals, current.cartWide, line, lineTotal);
+        }
+
+        long couponDiscount = 0L;
+        if (coupon != null) {
+            couponDiscount = coupon.discount(couponEligible, couponFree);
+            if (couponDiscount == 0L) {
+                couponMessage = coupon.getMinSpendMinor() > couponEligible
+                        ? "Spend at least " + Money.toDecimal(coupon.getMinSpendMinor()) + " to use this coupon"
+                        : "Coupon does not apply to the items in your cart";
+            }
+        }
+
+        Rule automatic = null;
+        long automaticDiscount = 0L;
+        for (Map.Entry<Bucket, long[]> entry : bucketTotals.entrySet()) {
+            Bucket bucket = entry.getKey();
+            long[] totals = entry.getValue();
+            long eligibleTotal = totals[0];
+            for (Rule rule : bucket.tieredCandidates(eligibleTotal, now)) {
+                long discount = rule != null ? rule.discount(eligibleTotal, 0L) : 0L;
+                if (discount > automaticDiscount) {
+                    automatic = rule;
+                    automaticDiscount = discount;
+                }
+            }
+            for (int shape = 0; shape < bucket.shapes.length; shape++) {
+                Rule rule = bucket.shapeCandidate(shape, now);
+                long discount = rule != null ? rule.discount(eligibleTotal, totals[shape + 1]) : 0L;
+                if (discount > automaticDiscount) {
+                    automatic = rule;
+                    automaticDiscount = discount;
+                }
+            }
+        }
+
+        // Never discount below zero; the coupon keeps its share first
+        couponDiscount = Math.min(couponDiscount, subtotal);
+        automaticDiscount = Math.min(automaticDiscount, subtotal - couponDiscount);
+        return new Evaluation(subtotal, couponDiscount > 0 ? coupon : null, couponDiscount,
+                automaticDiscount > 0 ? automatic : null, automaticDiscount, couponMessage);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private static void accumulate(Map<Bucket, long[]> bucketTotals, Bucket bucket, CartStore.Line line,
+            long lineTotal) {
+        if (bucket == null) {
+            return;
+        }
+        long[] totals = bucketTotals.computeIfAbsent(bucket, key -> new long[key.shapes.length + 1]);
+        totals[0] += lineTotal;
+        // Every rule of a shape gives away the same units
+        for (int shape = 0; shape < bucket.shapes.length; shape++) {
+            totals[shape + 1] += bucket.shapes[shape][0].freeValue(line);
+        }
+    }
+
+    private static Map<Long, Bucket> buckets(Map<Long, List<Rule>> rules) {
+        Map<Long, Bucket> buckets = new HashMap<>(rules.size() * 2);
+        rules.forEach((id, list) -> buckets.put(id, Bucket.of(list)));
+        return buckets;
+    }
+
+    private static Rule compile(Promotion promotion) {
+        // Fixed amounts become cents; percentages become basis points (12.50% -> 1250)
+        long amount = Money.toMinor(promotion.getDiscountValue());
+        return new Rule(
+                promotion.getId(),
+                promotion.getName(),
+                promotion.getCode() != null ? normalize(promotion.getCode()) : null,
+                promotion.getType(),
+                promotion.getScope(),
+                promotion.getScopeId(),
+                amount,
+                Money.toMinor(promotion.getMinSpend()),
+                promotion.getBuyQuantity() != null ? promotion.getBuyQuantity() : 0,
+                promotion.getGetQuantity() != null ? promotion.getGetQuantity() : 0,
+                promotion.getUsageLimit() != null ? promotion.getUsageLimit() : -1,
+                new AtomicInteger(promotion.getUsageCount() != null ? promotion.getUsageCount() : 0),
+                toEpochMillis(promotion.getStartsAt(), Long.MIN_VALUE),
+                toEpochMillis(promotion.getEndsAt(), Long.MAX_VALUE));
+    }
+
+    private static long toEpochMillis(LocalDateTime time, long fallback) {
+        return time != null ? time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : fallback;
+    }
+
+    static String normalize(String code) {
+        return code.trim().toUpperCase(Locale.ROOT);
+    }
+
+    private record Snapshot(Map<String, Rule> byCode, Map<Long, Bucket> byCategory,
+            Map<Long, Bucket> byVendor, Bucket cartWide) {
+    }
+
+    /**
+     * Automatic promotions sharing a key. Percent and fixed rules are sorted by min spend with the
+     * best of each among every prefix, so the best rule for an eligible total is found by binary search.
+     * Buy X get Y rules with the same shape give the same discount, so each shape keeps its rules
+     * ranked by min spend and the first live one is used.
+     */
+    private static final class Bucket {
+
+        static final Bucket EMPTY = new Bucket(new long[0], new Rule[0], new Rule[0], new Rule[0], new Rule[0][]);
+
+        private final long[] minSpend;
+        private final Rule[] tiered;
+        private final Rule[] bestPercent;
+        private final Rule[] bestFixed;
+        private final Rule[][] shapes;
+
+        private Bucket(long[] minSpend, Rule[] tiered, Rule[] bestPercent, Rule[] bestFixed, Rule[][] shapes) {
+            this.minSpend = minSpend;
+            this.tiered = tiered;
+            this.bestPercent = bestPercent;
+            this.bestFixed = bestFixed;
+            this.shapes = shapes;
+        }
+
+        static Bucket of(List<Rule> rules) {
+            List<Rule> tiered = new ArrayList<>();
+            Map<Long, List<Rule>> shapes = new HashMap<>();
+            for (Rule rule : rules) {
+                if (rule.getType() == Promotion.PromotionType.BUY_X_GET_Y) {
+                    long shape = (long) rule.getBuyQuantity() << 32 | rule.getGetQuantity();
+                    shapes.computeIfAbsent(shape, key -> new ArrayList<>()).add(rule);
+                } else {
+                    tiered.add(rule);
+                }
+            }
+
+            tiered.sort(Comparator.comparingLong(Rule::getMinSpendMinor));
+            long[] minSpend = new long[tiered.size()];
+            Rule[] bestPercent = new Rule[tiered.size()];
+            Rule[] bestFixed = new Rule[tiered.size()];
+            Rule percent = null;
+            Rule fixed = null;
+            for (int i = 0; i < tiered.size(); i++) {
+                Rule rule = tiered.get(i);
+                minSpend[i] = rule.getMinSpendMinor();
+                if (rule.getType() == Promotion.PromotionType.PERCENT) {
+                    percent = better(rule, percent);
+                } else {
+                    fixed = better(rule, fixed);
+                }
+                bestPercent[i] = percent;
+                bestFixed[i] = fixed;
+            }
+
+            Rule[][] ranked = shapes.values().stream()
+                    .map(shape -> shape.stream()
+                            .sorted(Comparator.comparingLong(Rule::getMinSpendMinor))
+                            .toArray(Rule[]::new))
+                    .toArray(Rule[][]::new);
+            return new Bucket(minSpend, tiered.toArray(new Rule[0]), bestPercent, bestFixed, ranked);
+        }
+
+        /**
+         * The best live percent and fixed rule whose min spend is met; either may be null.
+         */
+        Rule[] tieredCandidates(long eligibleTotal, long now) {
+            // Index of the last rule whose min spend is met
+            int index = Arrays.binarySearch(minSpend, eligibleTotal);
+            if (index < 0) {
+                index = -index - 2;
+            } else {
+                while (index + 1 < minSpend.length && minSpend[index + 1] == eligibleTotal) {
+                    index++;
+                }
+            }
+            if (index < 0) {
+                return new Rule[2];
+            }
+            return new Rule[] {
+                    live(bestPercent[index], index, Promotion.PromotionType.PERCENT, now),
+                    live(bestFixed[index], index, Promotion.PromotionType.FIXED, now)
+            };
+        }
+
+        /**
+         * The live rule of a buy X get Y shape with the lowest min spend, or null.
+         */
+        Rule shapeCandidate(int shape, long now) {
+            for (Rule rule : shapes[shape]) {
+                if (rule.isLive(now)) {
+                    return rule;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * The prefix best if it is still live; otherwise the best live rule of its type in the prefix.
+         */
+        private Rule live(Rule best, int index, Promotion.PromotionType type, long now) {
+            if (best == null || best.isLive(now)) {
+                return best;
+            }
+            Rule fallback = null;
+            for (int i = 0; i <= index; i++) {
+                Rule rule = tiered[i];
+                if (rule.getType() == type && rule.isLive(now)) {
+                    fallback = better(rule, fallback);
+                }
+            }
+            return fallback;
+        }
+
+        private static Rule better(Rule rule, Rule best) {
+            return best == null || rule.getAmount() > best.getAmount() ? rule : best;
+        }
+    }
+
+    /**
+     * A compiled promotion. Amounts are in minor units; percentages in basis points.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static final class Rule {
+        private final Long id;
+        private final String name;
+        private final String code;
+        private final Promotion.PromotionType type;
+        private final Promotion.PromotionScope scope;
+        private final Long scopeId;
+        private final long amount;
+        private final long minSpendMinor;
+        private final int buyQuantity;
+        private final int getQuantity;
+        private final int usageLimit;
+        private final AtomicInteger used;
+        private final long startsAt;
+        private final long endsAt;
+
+        public boolean isLive(long now) {
+            return now >= startsAt && now < endsAt && (usageLimit < 0 || used.get() < usageLimit);
+        }
+
+        public boolean matches(CartStore.Line line) {
+            return switch (scope) {
+                case CART -> true;
+                case CATEGORY -> scopeId.equals(line.getCategoryId());
+                case VENDOR -> scopeId.equals(line.getVendorId());
+            };
+        }
+
+        /**
+         * Value of the units a buy X get Y rule gives away on a line; zero for other types.
+         */
+        public long freeValue(CartStore.Line line) {
+            if (type != Promotion.PromotionType.BUY_X_GET_Y) {
+                return 0L;
+            }
+            int freeUnits = line.getQuantity() / (buyQuantity + getQuantity) * getQuantity;
+            return Money.multiply(line.getUnitPriceMinor(), freeUnits);
+        }
+
+        /**
+         * Discount for the eligible total, or zero if min spend is not met.
+         */
+        public long discount(long eligibleMinor, long freeMinor) {
+            if (eligibleMinor == 0L || eligibleMinor < minSpendMinor) {
+                return 0L;
+            }
+            return switch (type) {
+                case PERCENT -> eligibleMinor * amount / BASIS_POINTS;
+                case FIXED -> Math.min(amount, eligibleMinor);
+                case BUY_X_GET_Y -> freeMinor;
+            };
+        }
+
+        /**
+         * Take one use if the limit allows it.
+         */
+        public boolean tryAcquire() {
+            if (usageLimit < 0) {
+                used.incrementAndGet();
+                return true;
+            }
+            int current;
+            do {
+                current = used.get();
+                if (current >= usageLimit) {
+                    return false;
+                }
+            } while (!used.compareAndSet(current, current + 1));
+            return true;
+        }
+
+        public void release() {
+            used.decrementAndGet();
+        }
+    }
+
+    /**
+     * Result of evaluating a cart: the applied coupon and automatic promotion with their discounts.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Evaluation {
+        private final long subtotalMinor;
+        private final Rule coupon;
+        private final long couponDiscountMinor;
+        private final Rule promotion;
+        private final long promotionDiscountMinor;
+        private final String couponMessage;
+
+        public long getDiscountMinor() {
+            return couponDiscountMinor + promotionDiscountMinor;
+        }
+
+        public List<Rule> getAppliedRules() {
+            List<Rule> rules = new ArrayList<>(2);
+            if (coupon != null) {
+                rules.add(coupon);
+            }
+            if (promotion != null) {
+                rules.add(promotion);
+            }
+            return rules;
+        }
+    }
+}
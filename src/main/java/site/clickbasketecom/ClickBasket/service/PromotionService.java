@@ -0,0 +1,202 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import site.clickbasketecom.ClickBasket.dto.promotion.CreatePromotionRequest;
+import site.clickbasketecom.ClickBasket.dto.promotion.PromotionResponse;
+import site.clickbasketecom.ClickBasket.entity.Promotion;
+import site.clickbasketecom.ClickBasket.exception.PromotionNotFoundException;
+import site.clickbasketecom.ClickBasket.repository.PromotionRepository;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Service for promotion management and redemption.
+ */
+@Service
+@RequiredArgsConstructor
+@SuppressWarnings("null")
+public class PromotionService {
+
+    private final PromotionRepository promotionRepository;
+    private final PromotionIndex promotionIndex;
+
+    /**
+     * Create a promotion (admin only).
+     */
+    @Transactional
+    public PromotionResponse createPromotion(CreatePromotionRequest request) {
+        Promotion.PromotionScope scope = request.getScope() != null ? request.getScope() : Promotion.PromotionScope.CART;
+        String code = request.getCode() != null && !request.getCode().isBlank()
+                ? PromotionIndex.normalize(request.getCode())
+                : null;
+        validate(request, scope, code);
+
+        Promotion promotion = Promotion.builder()
+                .name(request.getName())
+                .code(code)
+                .type(request.getType())
+                .scope(scope)
+                .scopeId(scope == Promotion.PromotionScope.CART ? null : request.getScopeId())
+                .discountValue(request.getDiscountValue())
+                .minSpend(request.getMinSpend())
+                .buyQuantity(request.getBuyQuantity())
+                .getQuantity(request.getGetQuantity())
+                .usageLimit(request.getUsageLimit())
+                .startsAt(request.getStartsAt())
+                .endsAt(request.getEndsAt())
+                .isActive(true)
+                .build();
+
+        Promotion savedPromotion = promotionRepository.save(promotion);
+        rebuildIndexAfterCommit();
+        return mapToResponse(savedPromotion);
+    }
+
+    /**
+     * Get all promotions, newest first (admin only).
+     */
+    @Transactional(readOnly = true)
+    public Page<PromotionResponse> getPromotions(Pageable pageable) {
+        return promotionRepository.findAllByOrderByCreatedAtDesc(pageable)
+                .map(this::mapToResponse);
+    }
+
+    /**
+     * Deactivate a promotion (admin only).
+     */
+    @Transactional
+    public PromotionResponse deactivatePromotion(Long promotionId) {
+        Promotion promotion = promotionRepository.findById(promotionId)
+                .orElseThrow(() -> new PromotionNotFoundException(promotionId));
+
+        promotion.setIsActive(false);
+        Promotion savedPromotion = promotionRepository.save(promotion);
+        rebuildIndexAfterCommit();
+        return mapToResponse(savedPromotion);
+    }
+
+    /**
+     * Count one use of each promotion applied to an order.
+     * The in-memory counter rejects exhausted promotions without a query; the conditional
+     * update keeps the limit exact across instances. Uses are given back if the order rolls back.
+     */
+    @Transactional
+    public void redeem(PromotionIndex.Evaluation evaluation) {
+        List<PromotionIndex.Rule> acquired = new ArrayList<>();
+        releaseOnRollback(acquired);
+
+        for (PromotionIndex.Rule rule : evaluation.getAppliedRules()) {
+            if (!rule.tryAcquire()) {
+                throw new IllegalStateException("Promotion is no longer available: " + rule.getName());
+            }
+            acquired.add(rule);
+            if (promotionRepository.incrementUsage(rule.getId()) == 0) {
+                // Another instance used it up; make this index notice
+                rebuildIndexAfterCompletion();
+                throw new IllegalStateException("Promotion is no longer available: " + rule.getName());
+            }
+            if (rule.getUsageLimit() >= 0 && rule.getUsed().get() >= rule.getUsageLimit()) {
+                rebuildIndexAfterCompletion();
+            }
+        }
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private void validate(CreatePromotionRequest request, Promotion.PromotionScope scope, String code) {
+        if (scope != Promotion.PromotionScope.CART && request.getScopeId() == null) {
+            throw new IllegalArgumentException("Scope ID is required for " + scope + " promotions");
+        }
+        switch (request.getType()) {
+            case PERCENT -> {
+                if (request.getDiscountValue() == null
+                        || request.getDiscountValue().compareTo(new BigDecimal("100")) > 0) {
+                    throw new IllegalArgumentException("Percent promotions need a discount value between 0.01 and 100");
+                }
+            }
+            case FIXED -> {
+                if (request.getDiscountValue() == null) {
+                    throw new IllegalArgumentException("Fixed promotions need a discount value");
+                }
+            }
+            case BUY_X_GET_Y -> {
+                if (request.getBuyQuantity() == null || request.getGetQuantity() == null) {
+                    throw new IllegalArgumentException("Buy X get Y promotions need buy and get quantities");
+                }
+            }
+        }
+        if (request.getStartsAt() != null && request.getEndsAt() != null
+                && !request.getEndsAt().isAfter(request.getStartsAt())) {
+            throw new IllegalArgumentException("End date must be after start date");
+        }
+        if (code != null && promotionRepository.existsByCode(code)) {
+            throw new IllegalArgumentException("Coupon code already exists: " + code);
+        }
+    }
+
+    private void releaseOnRollback(List<PromotionIndex.Rule> acquired) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    acquired.forEach(PromotionIndex.Rule::release);
+                }
+            }
+        });
+    }
+
+    private void rebuildIndexAfterCommit() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                promotionIndex.refresh();
+            }
+        });
+    }
+
+    private void rebuildIndexAfterCompletion() {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                promotionIndex.refresh();
+            }
+        });
+    }
+
+    /**
+     * Map Promotion entity to PromotionResponse DTO.
+     */
+    private PromotionResponse mapToResponse(Promotion promotion) {
+        return PromotionResponse.builder()
+                .id(promotion.getId())
+                .name(promotion.getName())
+                .code(promotion.getCode())
+                .type(promotion.getType().name())
+                .scope(promotion.getScope().name())
+                .scopeId(promotion.getScopeId())
+                .discountValue(promotion.getDiscountValue())
+                .minSpend(promotion.getMinSpend())
+                .buyQuantity(promotion.getBuyQuantity())
+                .getQuantity(promotion.getGetQuantity())
+                .usageLimit(promotion.getUsageLimit())
+                .usageCount(promotion.getUsageCount())
+                .startsAt(promotion.getStartsAt())
+                .endsAt(promotion.getEndsAt())
+                .isActive(promotion.getIsActive())
+                .createdAt(promotion.getCreatedAt())
+                .build();
+    }
+}
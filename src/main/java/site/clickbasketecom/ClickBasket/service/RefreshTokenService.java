@@ -0,0 +1,259 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.RefreshToken;
+import site.clickbasketecom.ClickBasket.entity.User;
+import site.clickbasketecom.ClickBasket.repository.RefreshTokenRepository;
+import site.clickbasketecom.ClickBasket.security.CustomUserDetails;
+import site.clickbasketecom.ClickBasket.security.JwtUtil;
+import site.clickbasketecom.ClickBasket.security.TokenRevocationIndex;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.UUID;
+
+/**
+ * Service for refresh token rotation and revocation.
+ * Every refresh rotates the token; presenting an already rotated token
+ * revokes the whole login session (token reuse detection). A token is rotated by a
+ * conditional update, so of two concurrent refreshes with one token only one wins and the
+ * other counts as reuse. The revocation index is updated once the revocation commits, and the
+ * session's rows are revoked again then, covering tokens a concurrent rotation committed meanwhile.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefreshTokenService {
+
+    private final RefreshTokenRepository refreshTokenRepository;
+    private final TokenRevocationIndex revocationIndex;
+    private final JwtUtil jwtUtil;
+    private final PlatformTransactionManager transactionManager;
+
+    /**
+     * Start a new login session and issue its first token pair.
+     */
+    @Transactional
+    public IssuedTokens issueTokens(User user) {
+        return issueTokens(user, UUID.randomUUID().toString(), UUID.randomUUID().toString());
+    }
+
+    /**
+     * Rotate a refresh token: revoke it and issue a new token pair in the same session.
+     * Revocations on reuse are committed even though the refresh fails.
+     */
+    @Transactional(noRollbackFor = BadCredentialsException.class)
+    public IssuedTokens rotate(String refreshToken) {
+        String tokenId;
+        String sessionId;
+        try {
+            tokenId = jwtUtil.extractTokenId(refreshToken);
+            sessionId = jwtUtil.extractSessionId(refreshToken);
+        } catch (Exception e) {
+            throw new BadCredentialsException("Invalid or expired refresh token");
+        }
+
+        if (tokenId == null || sessionId == null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        if (revocationIndex.isRevoked(sessionId)) {
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+
+        if (revocationIndex.isRevoked(tokenId)) {
+            // A rotated token was presented again - assume it leaked
+            log.warn("Refresh token reuse detected for session {}", sessionId);
+            revokeSession(sessionId);
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+
+        RefreshToken current = refreshTokenRepository.findByTokenIdWithUser(tokenId)
+                .orElseThrow(() -> new BadCredentialsException("Invalid refresh token"));
+
+        if (current.getRevoked()) {
+            revokeSession(sessionId);
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+
+        User user = current.getUser();
+        if (!user.getIsActive()) {
+            throw new BadCredentialsException("Account is disabled");
+        }
+
+        String nextTokenId = UUID.randomUUID().toString();
+        if (refreshTokenRepository.markRotated(tokenId, nextTokenId) == 0) {
+            // Rotated concurrently by another request with the same token
+            log.warn("Concurrent refresh token reuse detected for session {}", sessionId);
+            revokeSession(sessionId);
+            throw new BadCredentialsException("Refresh token has been revoked");
+        }
+        revokeAfterCommit(tokenId, toEpochMillis(current.getExpiresAt()));
+
+        return issueTokens(user, sessionId, nextTokenId);
+    }
+
+    /**
+     * Revoke the login session a refresh token belongs to (logout).
+     */
+    @Transactional
+    public void revoke(String refreshToken) {
+        String sessionId;
+        try {
+            sessionId = jwtUtil.extractSessionId(refreshToken);
+        } catch (Exception e) {
+            throw new BadCredentialsException("Invalid or expired refresh token");
+        }
+
+        if (sessionId == null) {
+            throw new BadCredentialsException("Invalid refresh token");
+        }
+
+        revokeSession(sessionId);
+    }
+
+    /**
+     * Revoke every active session of a user.
+     */
+    @Transactional
+    public void revokeAllForUser(Long userId) {
+        refreshTokenRepository.findActiveSessionsByUserId(userId, LocalDateTime.now())
+                .forEach(session -> revokeAfterCommit(
+                        session.getSessionId(), toEpochMillis(session.getExpiresAt())));
+        refreshTokenRepository.revokeAllByUserId(userId);
+    }
+
+    /**
+     * Load revoked, unexpired tokens into the revocation index on startup.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void warmRevocationIndex() {
+        refreshTokenRepository.findRevokedNotExpired(LocalDateTime.now()).forEach(token -> {
+            long expiresAt = toEpochMillis(token.getExpiresAt());
+            revocationIndex.revoke(token.getTokenId(), expiresAt);
+            // A revoked token that was never rotated means its session was revoked
+            if (token.getReplacedBy() == null) {
+                revocationIndex.revoke(token.getSessionId(), expiresAt);
+            }
+        });
+        log.info("Token revocation index loaded with {} entries", revocationIndex.size());
+    }
+
+    /**
+     * Delete expired tokens and prune the revocation index.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.auth.refresh-token.prune-interval-ms:3600000}")
+    @Transactional
+    public void pruneExpired() {
+        int deleted = refreshTokenRepository.deleteExpired(LocalDateTime.now());
+        int pruned = revocationIndex.prune(System.currentTimeMillis());
+        log.info("Pruned {} expired refresh tokens and {} revocation index entries", deleted, pruned);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Issue an access/refresh token pair for a session and persist the refresh token.
+     */
+    private IssuedTokens issueTokens(User user, String sessionId, String tokenId) {
+        CustomUserDetails userDetails = new CustomUserDetails(user);
+
+        RefreshToken refreshToken = RefreshToken.builder()
+                .tokenId(tokenId)
+                .sessionId(sessionId)
+                .user(user)
+                .expiresAt(LocalDateTime.now().plus(Duration.ofMillis(jwtUtil.getRefreshExpiration())))
+                .revoked(false)
+                .build();
+        refreshTokenRepository.save(refreshToken);
+
+        return new IssuedTokens(
+                user,
+                tokenId,
+                jwtUtil.generateToken(userDetails, sessionId),
+                jwtUtil.generateRefreshToken(userDetails, sessionId, tokenId));
+    }
+
+    /**
+     * Revoke a session in the database and the revocation index.
+     * A rotation of the same session may insert its new token after the update ran, e.g. the
+     * winner of a concurrent rotation; the session's rows are revoked again in a new transaction
+     * once this one commits, so that token does not outlive a restart.
+     */
+    private void revokeSession(String sessionId) {
+        LocalDateTime expiresAt = refreshTokenRepository.findSessionExpiry(sessionId)
+                .orElse(LocalDateTime.now().plus(Duration.ofMillis(jwtUtil.getRefreshExpiration())));
+        refreshTokenRepository.revokeSession(sessionId);
+        revokeAfterCommit(sessionId, toEpochMillis(expiresAt));
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            afterCommit(() -> {
+                TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+                requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+                try {
+                    requiresNew.executeWithoutResult(status -> refreshTokenRepository.revokeSession(sessionId));
+                } catch (DataAccessException e) {
+                    log.warn("Failed to revoke late tokens of session {}: {}", sessionId, e.getMessage());
+                }
+            });
+        }
+    }
+
+    /**
+     * Add an ID to the revocation index once the transaction commits, so a rolled back
+     * revocation never shows up as revoked.
+     */
+    private void revokeAfterCommit(String id, long expiresAtMillis) {
+        afterCommit(() -> revocationIndex.revoke(id, expiresAtMillis));
+    }
+
+    private void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private long toEpochMillis(LocalDateTime dateTime) {
+        return dateTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * Token pair issued for a user.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class IssuedTokens {
+        private final User user;
+        private final String tokenId;
+        private final String accessToken;
+        private final String refreshToken;
+    }
+}
@@ -0,0 +1,45 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Payment gateway refund API.
+ * Refunds are submitted in batches; the refund id is the idempotency key, so a batch
+ * re-submitted after a crash or timeout does not refund twice.
+ * Throwing means the outcome of the whole batch is unknown and it will be retried.
+ */
+public interface RefundGateway {
+
+    /**
+     * Submit a batch of refunds and return one result per submitted refund.
+     */
+    List<Result> submit(List<Submission> refunds);
+
+    /**
+     * A refund to submit.
+     */
+    @Getter
+    @AllArgsConstructor
+    class Submission {
+        private final Long refundId;
+        private final String transactionId;
+        private final BigDecimal amount;
+        private final String currency;
+    }
+
+    /**
+     * Gateway outcome of one refund. A declined refund is final.
+     */
+    @Getter
+    @AllArgsConstructor
+    class Result {
+        private final Long refundId;
+        private final boolean success;
+        private final String gatewayRefundId;
+        private final String failureReason;
+    }
+}
@@ -0,0 +1,212 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.Refund;
+import site.clickbasketecom.ClickBasket.repository.PaymentRepository;
+import site.clickbasketecom.ClickBasket.repository.RefundRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Submits requested refunds to the RefundGateway and applies the results.
+ * Walks waiting refunds in id keyset batches of batch-size, one gateway call per batch.
+ * Each batch is claimed (marked SUBMITTED) in one short transaction, sent to the gateway
+ * outside any transaction, and its results applied in another: refund rows are updated in a
+ * JDBC batch, then payment totals, order statuses and stock of returned items with set-based
+ * statements. A batch whose gateway call fails goes back to REQUESTED until max-attempts;
+ * one whose results were never recorded is re-submitted after submit-timeout-minutes.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class RefundProcessor {
+
+    private final RefundRepository refundRepository;
+    private final PaymentRepository paymentRepository;
+    private final OrderService orderService;
+    private final RefundGateway refundGateway;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${app.payment.refunds.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.payment.refunds.max-batches:20}")
+    private int maxBatches;
+
+    @Value("${app.payment.refunds.max-attempts:5}")
+    private int maxAttempts;
+
+    @Value("${app.payment.refunds.submit-timeout-minutes:10}")
+    private int submitTimeoutMinutes;
+
+    /**
+     * Process waiting refunds on a schedule.
+     * Skipped if the previous run is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.payment.refunds.interval-ms:10000}")
+    public void scheduledRun() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            process();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Submit waiting refunds batch by batch and report the outcomes.
+     * At most max-batches batches run; the rest is picked up by the next run.
+     */
+    public ProcessResult process() {
+        LocalDateTime staleBefore = LocalDateTime.now().minusMinutes(submitTimeoutMinutes);
+        Long afterId = 0L;
+        int completed = 0;
+        int failed = 0;
+        int retried = 0;
+        int batches = 0;
+
+        while (batches < maxBatches) {
+            List<Long> ids = refundRepository.findSubmittableAfter(afterId, staleBefore, PageRequest.of(0, batchSize));
+            if (ids.isEmpty()) {
+                break;
+            }
+            afterId = ids.get(ids.size() - 1);
+
+            int[] outcome = processBatch(ids, staleBefore);
+            completed += outcome[0];
+            failed += outcome[1];
+            retried += outcome[2];
+            batches++;
+
+            if (ids.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (batches > 0) {
+            meterRegistry.counter("payment.refunds.processed", "outcome", "completed").increment(completed);
+            meterRegistry.counter("payment.refunds.processed", "outcome", "failed").increment(failed);
+            meterRegistry.counter("payment.refunds.processed", "outcome", "retried").increment(retried);
+            log.info("Refund run completed {}, failed {} and retried {} refunds in {} batches",
+                    completed, failed, retried, batches);
+        }
+        return new ProcessResult(completed, failed, retried, batches);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Claim, submit and apply one batch. Returns {completed, failed, retried}.
+     */
+    private int[] processBatch(List<Long> candidateIds, LocalDateTime staleBefore) {
+        List<RefundGateway.Submission> submissions = transactionTemplate.execute(status -> {
+            // Refunds claimed by another run since they were listed drop out
+            List<Refund> locked = refundRepository.lockSubmittable(candidateIds, staleBefore);
+            if (locked.isEmpty()) {
+                return List.<RefundGateway.Submission>of();
+            }
+            List<RefundGateway.Submission> claimed = locked.stream()
+                    .map(refund -> new RefundGateway.Submission(refund.getId(),
+                            refund.getPayment().getTransactionId(), refund.getAmount(),
+                            refund.getPayment().getCurrency()))
+                    .toList();
+            refundRepository.markSubmitted(
+                    claimed.stream().map(RefundGateway.Submission::getRefundId).toList(), LocalDateTime.now());
+            return claimed;
+        });
+        if (submissions.isEmpty()) {
+            return new int[] { 0, 0, 0 };
+        }
+        List<Long> submittedIds = submissions.stream().map(RefundGateway.Submission::getRefundId).toList();
+
+        List<RefundGateway.Result> results;
+        try {
+            results = refundGateway.submit(submissions);
+        } catch (RuntimeException e) {
+            log.warn("Refund gateway rejected a batch of {} refunds: {}", submissions.size(), e.getMessage());
+            String error = String.valueOf(e.getMessage());
+            transactionTemplate.executeWithoutResult(status -> refundRepository.releaseSubmitted(submittedIds,
+                    maxAttempts, error.length() > 500 ? error.substring(0, 500) : error, LocalDateTime.now()));
+            return new int[] { 0, 0, submittedIds.size() };
+        }
+
+        return transactionTemplate.execute(status -> apply(results));
+    }
+
+    /**
+     * Record gateway results and roll completed refunds up into payments and orders.
+     * Refunds without a result stay SUBMITTED and are re-submitted once stale.
+     */
+    private int[] apply(List<RefundGateway.Result> results) {
+        Map<Long, RefundGateway.Result> byRefund = results.stream()
+                .collect(Collectors.toMap(RefundGateway.Result::getRefundId, Function.identity(), (a, b) -> a));
+        LocalDateTime now = LocalDateTime.now();
+        int completed = 0;
+        int failed = 0;
+
+        List<Refund> refunds = refundRepository.lockSubmitted(byRefund.keySet());
+        for (Refund refund : refunds) {
+            RefundGateway.Result result = byRefund.get(refund.getId());
+            refund.setProcessedAt(now);
+            if (result.isSuccess()) {
+                refund.setStatus(Refund.RefundStatus.COMPLETED);
+                refund.setGatewayRefundId(result.getGatewayRefundId());
+                refund.setLastError(null);
+                completed++;
+            } else {
+                refund.setStatus(Refund.RefundStatus.FAILED);
+                refund.setLastError(result.getFailureReason());
+                failed++;
+            }
+        }
+
+        List<Long> paymentIds = refunds.stream()
+                .filter(refund -> refund.getStatus() == Refund.RefundStatus.COMPLETED)
+                .map(refund -> refund.getPayment().getId())
+                .distinct()
+                .toList();
+        if (!paymentIds.isEmpty()) {
+            paymentRepository.applyCompletedRefunds(paymentIds, now);
+            List<Long> refundedOrderIds = paymentRepository.findRefundedOrderIds(paymentIds);
+            if (!refundedOrderIds.isEmpty()) {
+                orderService.markRefunded(refundedOrderIds);
+            }
+        }
+        return new int[] { completed, failed, 0 };
+    }
+
+    /**
+     * Refunds handled by a run.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class ProcessResult {
+        private final int completed;
+        private final int failed;
+        private final int retried;
+        private final int batches;
+    }
+}
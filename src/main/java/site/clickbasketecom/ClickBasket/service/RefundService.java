@@ -0,0 +1,118 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import site.clickbasketecom.ClickBasket.dto.payment.RefundRequest;
+import site.clickbasketecom.ClickBasket.dto.payment.RefundResponse;
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.entity.Payment;
+import site.clickbasketecom.ClickBasket.entity.Refund;
+import site.clickbasketecom.ClickBasket.event.OrderStatusChangedEvent;
+import site.clickbasketecom.ClickBasket.exception.PaymentNotFoundException;
+import site.clickbasketecom.ClickBasket.repository.PaymentRepository;
+import site.clickbasketecom.ClickBasket.repository.RefundRepository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Service for requesting payment refunds.
+ * Refunds are only recorded here; the RefundProcessor submits them to the gateway and
+ * applies the results. Requests lock the payment, so concurrent refunds can never add up
+ * to more than was paid.
+ */
+@Service
+@RequiredArgsConstructor
+public class RefundService {
+
+    private static final String ORDER_CANCELLED = "Order cancelled";
+
+    private final RefundRepository refundRepository;
+    private final PaymentRepository paymentRepository;
+
+    /**
+     * Request a full or partial refund of a settled payment (admin only).
+     */
+    @Transactional
+    public RefundResponse requestRefund(Long paymentId, RefundRequest request) {
+        Payment payment = paymentRepository.lockById(paymentId)
+                .orElseThrow(() -> new PaymentNotFoundException(paymentId));
+
+        if (payment.getStatus() != Payment.PaymentStatus.COMPLETED
+                && payment.getStatus() != Payment.PaymentStatus.PARTIALLY_REFUNDED) {
+            throw new IllegalStateException("Payment cannot be refunded in status: " + payment.getStatus());
+        }
+
+        BigDecimal refundable = payment.getAmount().subtract(refundRepository.sumCommittedByPaymentId(paymentId));
+        if (refundable.signum() <= 0) {
+            throw new IllegalStateException("Payment is already refunded or has refunds pending for its full amount");
+        }
+        BigDecimal amount = request.getAmount() != null ? request.getAmount() : refundable;
+        if (amount.compareTo(refundable) > 0) {
+            throw new IllegalArgumentException("Refund amount exceeds the refundable amount: " + refundable);
+        }
+
+        Refund refund = refundRepository.save(Refund.builder()
+                .payment(payment)
+                .amount(amount)
+                .reason(request.getReason())
+                .build());
+        return mapToResponse(refund);
+    }
+
+    /**
+     * Get the refunds of a payment (admin only).
+     */
+    @Transactional(readOnly = true)
+    public List<RefundResponse> getRefunds(Long paymentId) {
+        if (!paymentRepository.existsById(paymentId)) {
+            throw new PaymentNotFoundException(paymentId);
+        }
+        return refundRepository.findByPaymentIdOrderById(paymentId).stream()
+                .map(this::mapToResponse)
+                .toList();
+    }
+
+    /**
+     * Settle the payments of cancelled orders in the cancelling transaction: pending payments are
+     * cancelled and settled ones get a refund of their outstanding amount, with set-based statements.
+     */
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onStatusChanged(OrderStatusChangedEvent event) {
+        if (event.getStatus() != Order.OrderStatus.CANCELLED) {
+            return;
+        }
+
+        List<Long> orderIds = event.getChanges().stream()
+                .map(OrderStatusChangedEvent.Change::getOrderId)
+                .toList();
+        if (paymentRepository.lockIdsByOrderIdIn(orderIds).isEmpty()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        paymentRepository.cancelPendingByOrderIdIn(orderIds, ORDER_CANCELLED, now);
+        refundRepository.requestOutstandingByOrderIdIn(orderIds, ORDER_CANCELLED, now);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private RefundResponse mapToResponse(Refund refund) {
+        return RefundResponse.builder()
+                .id(refund.getId())
+                .paymentId(refund.getPayment().getId())
+                .amount(refund.getAmount())
+                .reason(refund.getReason())
+                .status(refund.getStatus().name())
+                .gatewayRefundId(refund.getGatewayRefundId())
+                .lastError(refund.getLastError())
+                .requestedAt(refund.getCreatedAt())
+                .processedAt(refund.getProcessedAt())
+                .build();
+    }
+}
@@ -0,0 +1,293 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import site.clickbasketecom.ClickBasket.util.Money;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.function.Consumer;
+
+/**
+ * Reads a gateway settlement CSV as rows sorted by transaction id, with bounded memory.
+ * The header must name transaction_id, amount and status columns (any order, any case).
+ * Rows are read in chunks of at most chunkRows; each chunk is sorted and, when the file holds
+ * more than one chunk, spilled to a temporary run file. Runs are k-way merged while iterating,
+ * so memory holds one chunk while reading and one row per run while merging.
+ */
+public class SettlementFileReader implements Iterator<SettlementFileReader.Row>, Closeable {
+
+    private static final Comparator<Source> BY_TRANSACTION = Comparator.comparing(source -> source.head.transactionId);
+
+    private final List<Path> spilled = new ArrayList<>();
+    private final List<Closeable> open = new ArrayList<>();
+    private final PriorityQueue<Source> sources = new PriorityQueue<>(BY_TRANSACTION);
+
+    @Getter
+    private long rowsRead;
+
+    public SettlementFileReader(Path file, int chunkRows, Consumer<InvalidRow> invalidRows) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null) {
+                return;
+            }
+            int[] columns = columnsOf(header);
+
+            List<Row> chunk = new ArrayList<>();
+            long lineNumber = 1;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                rowsRead++;
+                Row row = parse(line, columns, lineNumber, invalidRows);
+                if (row != null) {
+                    chunk.add(row);
+                }
+                if (chunk.size() >= chunkRows) {
+                    spill(chunk);
+                    chunk = new ArrayList<>();
+                }
+            }
+            chunk.sort(Comparator.comparing(Row::getTransactionId));
+            push(new ListSource(chunk.iterator()));
+        } catch (IOException | RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    @Override
+    public boolean hasNext() {
+        return !sources.isEmpty();
+    }
+
+    @Override
+    public Row next() {
+        Source source = sources.poll();
+        if (source == null) {
+            throw new NoSuchElementException();
+        }
+        Row row = source.head;
+        push(source);
+        return row;
+    }
+
+    /**
+     * Close the run files and delete them.
+     */
+    @Override
+    public void close() {
+        for (Closeable closeable : open) {
+            try {
+                closeable.close();
+            } catch (IOException ignored) {
+                // Best effort; the file is deleted below
+            }
+        }
+        for (Path path : spilled) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException ignored) {
+                // Left in the temp directory
+            }
+        }
+        open.clear();
+        spilled.clear();
+        sources.clear();
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Sort a full chunk and write it to a run file that is merged later.
+     */
+    private void spill(List<Row> chunk) throws IOException {
+        chunk.sort(Comparator.comparing(Row::getTransactionId));
+        Path run = Files.createTempFile("settlement-run-", ".tsv");
+        spilled.add(run);
+        try (BufferedWriter writer = Files.newBufferedWriter(run, StandardCharsets.UTF_8)) {
+            for (Row row : chunk) {
+                writer.write(row.transactionId + "\t" + row.amountMinor + "\t" + row.status);
+                writer.newLine();
+            }
+        }
+        BufferedReader reader = Files.newBufferedReader(run, StandardCharsets.UTF_8);
+        open.add(reader);
+        push(new FileSource(reader));
+    }
+
+    /**
+     * Advance a source and queue it again unless it is exhausted.
+     */
+    private void push(Source source) {
+        if (source.advance()) {
+            sources.add(source);
+        }
+    }
+
+    /**
+     * Positions of the transaction_id, amount and status columns.
+     */
+    private static int[] columnsOf(String header) {
+        List<String> names = split(header.startsWith("﻿") ? header.substring(1) : header);
+        int[] columns = new int[3];
+        String[] required = { "transaction_id", "amount", "status" };
+        for (int i = 0; i < required.length; i++) {
+            columns[i] = names.stream().map(name -> name.trim().toLowerCase(Locale.ROOT)).toList().indexOf(required[i]);
+            if (columns[i] < 0) {
+                throw new IllegalArgumentException("Settlement file has no " + required[i] + " column");
+            }
+        }
+        return columns;
+    }
+
+    private static Row parse(String line, int[] columns, long lineNumber, Consumer<InvalidRow> invalidRows) {
+        List<String> fields = split(line);
+        String transactionId = field(fields, columns[0]);
+        String amount = field(fields, columns[1]);
+        String status = field(fields, columns[2]);
+
+        String reason = null;
+        Long amountMinor = null;
+        if (transactionId.isEmpty() || transactionId.indexOf('\t') >= 0) {
+            reason = "Missing or invalid transaction id";
+        } else if (status.isEmpty()) {
+            reason = "Missing status";
+        } else {
+            try {
+                amountMinor = Money.toMinor(new BigDecimal(amount));
+            } catch (NumberFormatException | ArithmeticException e) {
+                reason = "Invalid amount: " + amount;
+            }
+        }
+        if (reason != null) {
+            invalidRows.accept(new InvalidRow(lineNumber, transactionId.isEmpty() ? null : transactionId, reason));
+            return null;
+        }
+        return new Row(transactionId, amountMinor, status.toUpperCase(Locale.ROOT));
+    }
+
+    private static String field(List<String> fields, int index) {
+        return index < fields.size() ? fields.get(index).trim() : "";
+    }
+
+    /**
+     * Split one CSV line, honouring double-quoted fields and doubled quotes inside them.
+     */
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    /**
+     * One settled transaction.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Row {
+        private final String transactionId;
+        private final long amountMinor;
+        private final String status;
+    }
+
+    /**
+     * A row that could not be parsed.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class InvalidRow {
+        private final long lineNumber;
+        private final String transactionId;
+        private final String reason;
+    }
+
+    /**
+     * Sorted stream of rows with the current one in head.
+     */
+    private abstract static class Source {
+        Row head;
+
+        abstract boolean advance();
+    }
+
+    private static class ListSource extends Source {
+        private final Iterator<Row> rows;
+
+        ListSource(Iterator<Row> rows) {
+            this.rows = rows;
+        }
+
+        @Override
+        boolean advance() {
+            head = rows.hasNext() ? rows.next() : null;
+            return head != null;
+        }
+    }
+
+    private static class FileSource extends Source {
+        private final BufferedReader reader;
+
+        FileSource(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        boolean advance() {
+            try {
+                String line = reader.readLine();
+                if (line == null) {
+                    head = null;
+                    return false;
+                }
+                String[] parts = line.split("\t", 3);
+                head = new Row(parts[0], Long.parseLong(parts[1]), parts[2]);
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
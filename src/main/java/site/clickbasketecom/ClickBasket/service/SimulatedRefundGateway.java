@@ -0,0 +1,24 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Local stand-in for a gateway's refund API, like PaymentService.simulateSuccessfulPayment.
+ * Approves every refund of a payment with a transaction id and declines the rest.
+ */
+@Component
+@ConditionalOnProperty(name = "app.payment.refunds.gateway", havingValue = "simulated", matchIfMissing = true)
+public class SimulatedRefundGateway implements RefundGateway {
+
+    @Override
+    public List<Result> submit(List<Submission> refunds) {
+        return refunds.stream()
+                .map(refund -> refund.getTransactionId() != null
+                        ? new Result(refund.getRefundId(), true, "SIM-REFUND-" + refund.getRefundId(), null)
+                        : new Result(refund.getRefundId(), false, null, "Payment has no gateway transaction"))
+                .toList();
+    }
+}
@@ -0,0 +1,138 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Session;
+import jakarta.mail.Transport;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Pool of connected SMTP transports, so consecutive batches reuse a session instead of
+ * paying the connect, EHLO, STARTTLS and AUTH round-trips per message.
+ * Connections are built from the Spring mail settings. Idle ones are kept for keep-alive-ms
+ * and checked with a NOOP before reuse; at most max-idle-connections are kept.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class SmtpTransportPool {
+
+    private final JavaMailSenderImpl mailSender;
+
+    /** Most recently released first; guarded by idleLock. */
+    private final Deque<IdleTransport> idle = new ArrayDeque<>();
+    private final ReentrantLock idleLock = new ReentrantLock();
+    private final AtomicLong opened = new AtomicLong();
+
+    @Value("${app.mail.outbox.max-idle-connections:4}")
+    private int maxIdleConnections;
+
+    @Value("${app.mail.outbox.keep-alive-ms:30000}")
+    private long keepAliveMs;
+
+    /**
+     * Mail session the pooled transports belong to, for building messages.
+     */
+    public Session getSession() {
+        return mailSender.getSession();
+    }
+
+    /**
+     * Take a live idle connection, or open a new one.
+     */
+    public Transport borrow() throws MessagingException {
+        IdleTransport candidate;
+        while ((candidate = pollIdle()) != null) {
+            if (System.currentTimeMillis() - candidate.since < keepAliveMs && candidate.transport.isConnected()) {
+                return candidate.transport;
+            }
+            close(candidate.transport);
+        }
+        return connect();
+    }
+
+    /**
+     * Return a healthy connection for reuse.
+     */
+    public void release(Transport transport) {
+        idleLock.lock();
+        try {
+            if (idle.size() < maxIdleConnections) {
+                idle.push(new IdleTransport(transport, System.currentTimeMillis()));
+                return;
+            }
+        } finally {
+            idleLock.unlock();
+        }
+        close(transport);
+    }
+
+    /**
+     * Close a connection that failed mid-use.
+     */
+    public void discard(Transport transport) {
+        close(transport);
+    }
+
+    /**
+     * Connections opened since startup.
+     */
+    public long getOpenedCount() {
+        return opened.get();
+    }
+
+    @PreDestroy
+    public void closeAll() {
+        IdleTransport candidate;
+        while ((candidate = pollIdle()) != null) {
+            close(candidate.transport);
+        }
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    private IdleTransport pollIdle() {
+        idleLock.lock();
+        try {
+            return idle.poll();
+        } finally {
+            idleLock.unlock();
+        }
+    }
+
+    /**
+     * Connect the way JavaMailSenderImpl does, but keep the transport open.
+     */
+    private Transport connect() throws MessagingException {
+        String username = mailSender.getUsername();
+        String password = mailSender.getPassword();
+        Transport transport = getSession().getTransport(mailSender.getProtocol());
+        transport.connect(mailSender.getHost(), mailSender.getPort(),
+                "".equals(username) ? null : username,
+                "".equals(password) ? null : password);
+        opened.incrementAndGet();
+        return transport;
+    }
+
+    private void close(Transport transport) {
+        try {
+            transport.close();
+        } catch (MessagingException e) {
+            log.debug("Failed to close SMTP connection: {}", e.getMessage());
+        }
+    }
+
+    private record IdleTransport(Transport transport, long since) {
+    }
+}
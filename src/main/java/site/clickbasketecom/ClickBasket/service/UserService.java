@@ -32,6 +32,7 @@ public class UserService {
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
     private final PasswordEncoder passwordEncoder;
+    private final RefreshTokenService refreshTokenService;
 
     /**
      * Get user by ID.
@@ -159,6 +160,10 @@ public class UserService {
 
         user.setIsActive(false);
         User updatedUser = userRepository.save(user);
+
+        // Sign the user out everywhere
+        refreshTokenService.revokeAllForUser(userId);
+
         return mapToResponse(updatedUser);
     }
 
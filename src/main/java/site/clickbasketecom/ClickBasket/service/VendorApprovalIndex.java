@@ -0,0 +1,103 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import site.clickbasketecom.ClickBasket.entity.Vendor;
+import site.clickbasketecom.ClickBasket.repository.VendorRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * In-memory index of userId -> (vendorId, status) for vendor approval checks.
+ * Entries are loaded on first use and replaced by VendorService status changes after commit.
+ * A TTL bounds how long another instance's status change can go unnoticed, and max-entries
+ * bounds memory.
+ */
+@Component
+public class VendorApprovalIndex {
+
+    private final Cache<Long, Entry> byUserId;
+    private final VendorRepository vendorRepository;
+
+    public VendorApprovalIndex(
+            VendorRepository vendorRepository,
+            @Value("${app.vendor.approval-index.ttl-ms:60000}") long ttlMillis,
+            @Value("${app.vendor.approval-index.max-entries:50000}") long maxEntries) {
+        this.vendorRepository = vendorRepository;
+        this.byUserId = Caffeine.newBuilder()
+                .maximumSize(maxEntries)
+                .expireAfterWrite(Duration.ofMillis(ttlMillis))
+                .build();
+    }
+
+    /**
+     * Find the vendor ID and status for a user, loading it on a miss.
+     */
+    public Optional<Entry> get(Long userId) {
+        Entry entry = byUserId.getIfPresent(userId);
+        if (entry != null) {
+            return Optional.of(entry);
+        }
+
+        long now = System.nanoTime();
+        Optional<Entry> loaded = vendorRepository.findStatusByUserId(userId)
+                .map(view -> new Entry(view.getId(), view.getStatus(), now));
+        return loaded.map(value -> byUserId.asMap().merge(userId, value, VendorApprovalIndex::newer));
+    }
+
+    /**
+     * Record a vendor's status once the surrounding transaction commits.
+     */
+    public void update(Long userId, Long vendorId, Vendor.VendorStatus status) {
+        Runnable apply = () -> byUserId.asMap().merge(userId, new Entry(vendorId, status, System.nanoTime()),
+                VendorApprovalIndex::newer);
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    /**
+     * Number of users currently held.
+     */
+    public long size() {
+        byUserId.cleanUp();
+        return byUserId.estimatedSize();
+    }
+
+    /**
+     * Keep the newest entry, so a load that raced with a status change cannot overwrite it.
+     */
+    private static Entry newer(Entry current, Entry candidate) {
+        return candidate.getStamp() - current.getStamp() >= 0 ? candidate : current;
+    }
+
+    /**
+     * Vendor ID and status of a user.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class Entry {
+        private final Long vendorId;
+        private final Vendor.VendorStatus status;
+        private final long stamp;
+
+        public boolean isApproved() {
+            return status == Vendor.VendorStatus.APPROVED;
+        }
+    }
+}
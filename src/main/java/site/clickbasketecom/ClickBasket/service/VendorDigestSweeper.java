@@ -0,0 +1,144 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.OutboundEmail;
+import site.clickbasketecom.ClickBasket.entity.Vendor;
+import site.clickbasketecom.ClickBasket.repository.EmailOutboxRepository;
+import site.clickbasketecom.ClickBasket.repository.VendorRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sends vendor order digests whose window has closed.
+ * Vendors on digests have their new-order notifications held in the outbox, one section per
+ * order, so nothing collected is lost on restart. Walks vendors with a due digest in id keyset
+ * batches; for each, one short transaction locks its held sections, queues a single summary
+ * email for the EmailDispatcher and deletes the sections. A digest takes at most max-orders
+ * sections, the oldest first; the rest go in the next one.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class VendorDigestSweeper {
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final VendorRepository vendorRepository;
+    private final EmailService emailService;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final ReentrantLock runLock = new ReentrantLock();
+
+    @Value("${app.mail.digest.batch-size:100}")
+    private int batchSize;
+
+    @Value("${app.mail.digest.max-orders:200}")
+    private int maxOrders;
+
+    /**
+     * Send due digests on a schedule.
+     * Skipped if the previous run is still going.
+     */
+    @Async(AsyncConfig.MAINTENANCE_EXECUTOR)
+    @Scheduled(fixedDelayString = "${app.mail.digest.interval-ms:60000}")
+    public void scheduledSweep() {
+        if (!runLock.tryLock()) {
+            return;
+        }
+        try {
+            sweep();
+        } finally {
+            runLock.unlock();
+        }
+    }
+
+    /**
+     * Queue a digest for every vendor whose window has closed and report what was sent.
+     */
+    public SweepResult sweep() {
+        Long afterVendorId = 0L;
+        int digests = 0;
+        int orders = 0;
+
+        while (true) {
+            List<Long> vendorIds = emailOutboxRepository.findDueDigestVendorsAfter(afterVendorId,
+                    LocalDateTime.now(), PageRequest.of(0, batchSize));
+            if (vendorIds.isEmpty()) {
+                break;
+            }
+            afterVendorId = vendorIds.get(vendorIds.size() - 1);
+
+            for (Long vendorId : vendorIds) {
+                try {
+                    int folded = flush(vendorId);
+                    if (folded > 0) {
+                        digests++;
+                        orders += folded;
+                    }
+                } catch (RuntimeException e) {
+                    // Sections stay held and are retried on the next run
+                    log.error("Failed to queue order digest for vendor {}", vendorId, e);
+                }
+            }
+
+            if (vendorIds.size() < batchSize) {
+                break;
+            }
+        }
+
+        if (digests > 0) {
+            meterRegistry.counter("mail.digest.queued", "unit", "digests").increment(digests);
+            meterRegistry.counter("mail.digest.queued", "unit", "orders").increment(orders);
+            log.info("Digest sweep queued {} vendor digests covering {} orders", digests, orders);
+        }
+        return new SweepResult(digests, orders);
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Fold a vendor's held sections into one queued email. Returns the number of sections folded.
+     */
+    private int flush(Long vendorId) {
+        return transactionTemplate.execute(status -> {
+            // Sections folded by an overlapping run since the vendor was listed drop out
+            List<OutboundEmail> sections = emailOutboxRepository.lockHeld(vendorId, PageRequest.of(0, maxOrders));
+            if (sections.isEmpty()) {
+                return 0;
+            }
+
+            Vendor vendor = vendorRepository.findById(vendorId).orElse(null);
+            if (vendor == null) {
+                log.warn("Dropping {} held order notifications of missing vendor {}", sections.size(), vendorId);
+            } else {
+                emailService.sendVendorDigestEmail(vendor, sections);
+            }
+            emailOutboxRepository.deleteAllInBatch(sections);
+            return sections.size();
+        });
+    }
+
+    /**
+     * Digests queued by a sweep.
+     */
+    @Getter
+    @AllArgsConstructor
+    public static class SweepResult {
+        private final int digests;
+        private final int orders;
+    }
+}
@@ -0,0 +1,221 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import site.clickbasketecom.ClickBasket.dto.order.BulkFulfillmentRequest;
+import site.clickbasketecom.ClickBasket.dto.order.BulkFulfillmentResponse;
+import site.clickbasketecom.ClickBasket.dto.order.OrderItemResponse;
+import site.clickbasketecom.ClickBasket.dto.order.VendorOrderQueueResponse;
+import site.clickbasketecom.ClickBasket.dto.order.VendorOrderResponse;
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+import site.clickbasketecom.ClickBasket.entity.VendorOrder;
+import site.clickbasketecom.ClickBasket.event.OrderStatusChangedEvent;
+import site.clickbasketecom.ClickBasket.repository.OrderItemRepository;
+import site.clickbasketecom.ClickBasket.repository.OrderRepository;
+import site.clickbasketecom.ClickBasket.repository.VendorOrderRepository;
+
+import java.time.LocalDateTime;
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Service for vendor fulfillment: per-vendor order queues and bulk status changes.
+ */
+@Service
+@RequiredArgsConstructor
+public class VendorOrderService {
+
+    /** Statuses vendors may move their orders to; cancellations and returns go through the order. */
+    private static final Set<OrderItem.FulfillmentStatus> VENDOR_TARGETS = EnumSet.of(
+            OrderItem.FulfillmentStatus.PROCESSING, OrderItem.FulfillmentStatus.SHIPPED,
+            OrderItem.FulfillmentStatus.DELIVERED);
+
+    /** Order statuses in which vendors fulfill: paid and not cancelled or refunded. */
+    private static final Set<Order.OrderStatus> FULFILLABLE = EnumSet.of(
+            Order.OrderStatus.PROCESSING, Order.OrderStatus.SHIPPED, Order.OrderStatus.OUT_FOR_DELIVERY);
+
+    /** Vendor order statuses that count as done when rolling an order up to SHIPPED or DELIVERED. */
+    private static final Map<OrderItem.FulfillmentStatus, Set<OrderItem.FulfillmentStatus>> ROLL_UP_FINISHED = Map.of(
+            OrderItem.FulfillmentStatus.SHIPPED, EnumSet.of(OrderItem.FulfillmentStatus.SHIPPED,
+                    OrderItem.FulfillmentStatus.DELIVERED, OrderItem.FulfillmentStatus.CANCELLED),
+            OrderItem.FulfillmentStatus.DELIVERED, EnumSet.of(OrderItem.FulfillmentStatus.DELIVERED,
+                    OrderItem.FulfillmentStatus.CANCELLED));
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final VendorOrderRepository vendorOrderRepository;
+    private final OrderItemRepository orderItemRepository;
+    private final OrderRepository orderRepository;
+    private final VendorService vendorService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * Get one page of the vendor's queue for a status, oldest first.
+     * Pages are keyed on the last vendor order ID, so deep pages cost the same as the first.
+     */
+    @Transactional(readOnly = true)
+    public VendorOrderQueueResponse getQueue(Long userId, OrderItem.FulfillmentStatus status, Long afterId,
+            int size) {
+        Long vendorId = vendorService.ensureVendorApprovedByUserId(userId);
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+
+        // Fetch one extra row to know whether another page follows
+        List<VendorOrder> vendorOrders = vendorOrderRepository.findQueue(
+                vendorId, status, afterId != null ? afterId : 0L, PageRequest.of(0, pageSize + 1));
+        boolean hasMore = vendorOrders.size() > pageSize;
+        if (hasMore) {
+            vendorOrders = vendorOrders.subList(0, pageSize);
+        }
+
+        Map<Long, List<OrderItemResponse>> items = vendorOrders.isEmpty()
+                ? Map.of()
+                : orderItemRepository.findByVendorOrderIdIn(vendorOrders.stream().map(VendorOrder::getId).toList())
+                        .stream()
+                        .collect(Collectors.groupingBy(item -> item.getVendorOrder().getId(),
+                                Collectors.mapping(this::mapItemToResponse, Collectors.toList())));
+
+        return VendorOrderQueueResponse.builder()
+                .status(status.name())
+                .orders(vendorOrders.stream()
+                        .map(vendorOrder -> mapToResponse(vendorOrder,
+                                items.getOrDefault(vendorOrder.getId(), List.of())))
+                        .collect(Collectors.toList()))
+                .nextAfterId(vendorOrders.isEmpty() ? null : vendorOrders.get(vendorOrders.size() - 1).getId())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    /**
+     * Move many of the vendor's orders to a new status with set-based updates.
+     * The statement count does not depend on how many vendor orders or items are moved.
+     * Once every vendor order of an order has shipped or been delivered, the order follows.
+     */
+    @Transactional
+    public BulkFulfillmentResponse updateStatus(Long userId, BulkFulfillmentRequest request) {
+        Long vendorId = vendorService.ensureVendorApprovedByUserId(userId);
+        OrderItem.FulfillmentStatus status = request.getStatus();
+        if (!VENDOR_TARGETS.contains(status)) {
+            throw new IllegalArgumentException("Vendors cannot move orders to status: " + status);
+        }
+        Set<OrderItem.FulfillmentStatus> from = OrderStateMachine.sourcesOf(status);
+
+        // Lock the parent orders before their vendor orders, the same order OrderService.transition
+        // takes, so a bulk ship overlapping a cancel of the same order cannot deadlock
+        Set<Long> requested = new LinkedHashSet<>(request.getVendorOrderIds());
+        List<Long> orderIds = orderRepository.lockForVendorOrders(requested, vendorId, FULFILLABLE)
+                .stream()
+                .map(OrderRepository.OrderStatusView::getId)
+                .toList();
+        List<Long> ids = orderIds.isEmpty()
+                ? List.of()
+                : vendorOrderRepository.lockTransitionable(requested, vendorId, from, orderIds)
+                        .stream()
+                        .map(VendorOrder::getId)
+                        .toList();
+
+        int itemsUpdated = 0;
+        int ordersUpdated = 0;
+        if (!ids.isEmpty()) {
+            LocalDateTime now = LocalDateTime.now();
+            vendorOrderRepository.updateStatus(ids, status, request.getTrackingNumber(),
+                    request.getShippingCarrier(), status == OrderItem.FulfillmentStatus.SHIPPED ? now : null, now);
+            itemsUpdated = orderItemRepository.updateStatusByVendorOrderIdIn(ids, status, now);
+            ordersUpdated = rollUpOrders(ids, status, now);
+        }
+
+        return BulkFulfillmentResponse.builder()
+                .status(status.name())
+                .requested(requested.size())
+                .updated(ids.size())
+                .itemsUpdated(itemsUpdated)
+                .ordersUpdated(ordersUpdated)
+                .build();
+    }
+
+    // ========================
+    // Helper Methods
+    // ========================
+
+    /**
+     * Advance parent orders whose vendor orders have all reached the status, and announce them.
+     */
+    private int rollUpOrders(List<Long> ids, OrderItem.FulfillmentStatus status, LocalDateTime now) {
+        Order.OrderStatus orderStatus = switch (status) {
+            case SHIPPED -> Order.OrderStatus.SHIPPED;
+            case DELIVERED -> Order.OrderStatus.DELIVERED;
+            default -> null;
+        };
+        if (orderStatus == null) {
+            return 0;
+        }
+
+        Set<Order.OrderStatus> from = OrderStateMachine.sourcesOf(orderStatus);
+        List<OrderRepository.OrderStatusView> ready = orderRepository.findReadyToRollUp(ids, from,
+                ROLL_UP_FINISHED.get(status));
+        if (ready.isEmpty()) {
+            return 0;
+        }
+        orderRepository.updateStatus(ready.stream().map(OrderRepository.OrderStatusView::getId).toList(),
+                orderStatus, from, now);
+        eventPublisher.publishEvent(new OrderStatusChangedEvent(orderStatus, ready.stream()
+                .map(view -> new OrderStatusChangedEvent.Change(view.getId(), view.getUserId(), view.getStatus()))
+                .toList()));
+        return ready.size();
+    }
+
+    /**
+     * Map VendorOrder entity to VendorOrderResponse DTO.
+     */
+    private VendorOrderResponse mapToResponse(VendorOrder vendorOrder, List<OrderItemResponse> items) {
+        Order order = vendorOrder.getOrder();
+        return VendorOrderResponse.builder()
+                .id(vendorOrder.getId())
+                .orderId(order.getId())
+                .orderNumber(order.getOrderNumber())
+                .status(vendorOrder.getStatus().name())
+                .itemCount(vendorOrder.getItemCount())
+                .subtotal(vendorOrder.getSubtotal())
+                .items(items)
+                .shippingName(order.getShippingName())
+                .shippingPhone(order.getShippingPhone())
+                .shippingAddress(order.getShippingAddress())
+                .shippingCity(order.getShippingCity())
+                .shippingState(order.getShippingState())
+                .shippingZip(order.getShippingZip())
+                .shippingCountry(order.getShippingCountry())
+                .trackingNumber(vendorOrder.getTrackingNumber())
+                .shippingCarrier(vendorOrder.getShippingCarrier())
+                .shippedAt(vendorOrder.getShippedAt())
+                .createdAt(vendorOrder.getCreatedAt())
+                .build();
+    }
+
+    /**
+     * Map OrderItem entity to OrderItemResponse DTO.
+     */
+    private OrderItemResponse mapItemToResponse(OrderItem item) {
+        return OrderItemResponse.builder()
+                .id(item.getId())
+                .productId(item.getProduct().getId())
+                .productName(item.getProductName())
+                .productSku(item.getProductSku())
+                .productImageUrl(item.getProductImageUrl())
+                .vendorId(item.getVendor().getId())
+                .storeName(item.getVendor().getStoreName())
+                .quantity(item.getQuantity())
+                .unitPrice(item.getUnitPrice())
+                .discountAmount(item.getDiscountAmount())
+                .taxAmount(item.getTaxAmount())
+                .totalPrice(item.getTotalPrice())
+                .fulfillmentStatus(item.getFulfillmentStatus().name())
+                .build();
+    }
+}
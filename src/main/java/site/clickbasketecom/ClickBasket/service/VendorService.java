@@ -31,6 +31,7 @@ public class VendorService {
     private final VendorRepository vendorRepository;
     private final UserRepository userRepository;
     private final RoleRepository roleRepository;
+    private final VendorApprovalIndex vendorApprovalIndex;
 
     /**
      * Register a new vendor for an existing user.
@@ -73,6 +74,7 @@ public class VendorService {
                 .build();
 
         Vendor savedVendor = vendorRepository.save(vendor);
+        vendorApprovalIndex.update(userId, savedVendor.getId(), savedVendor.getStatus());
         return mapToResponse(savedVendor);
     }
 
@@ -152,6 +154,12 @@ public class VendorService {
         if (request.getTaxId() != null) {
             vendor.setTaxId(request.getTaxId());
         }
+        if (request.getNotificationMode() != null) {
+            vendor.setNotificationMode(request.getNotificationMode());
+        }
+        if (request.getDigestWindowMinutes() != null) {
+            vendor.setDigestWindowMinutes(request.getDigestWindowMinutes());
+        }
 
         Vendor updatedVendor = vendorRepository.save(vendor);
         return mapToResponse(updatedVendor);
@@ -177,6 +185,7 @@ public class VendorService {
 
         vendor.setStatus(Vendor.VendorStatus.APPROVED);
         Vendor updatedVendor = vendorRepository.save(vendor);
+        vendorApprovalIndex.update(vendor.getUser().getId(), vendorId, updatedVendor.getStatus());
         return mapToResponse(updatedVendor);
     }
 
@@ -190,6 +199,7 @@ public class VendorService {
 
         vendor.setStatus(Vendor.VendorStatus.REJECTED);
         Vendor updatedVendor = vendorRepository.save(vendor);
+        vendorApprovalIndex.update(vendor.getUser().getId(), vendorId, updatedVendor.getStatus());
         return mapToResponse(updatedVendor);
     }
 
@@ -203,6 +213,7 @@ public class VendorService {
 
         vendor.setStatus(Vendor.VendorStatus.SUSPENDED);
         Vendor updatedVendor = vendorRepository.save(vendor);
+        vendorApprovalIndex.update(vendor.getUser().getId(), vendorId, updatedVendor.getStatus());
         return mapToResponse(updatedVendor);
     }
 
@@ -221,18 +232,18 @@ public class VendorService {
     }
 
     /**
-     * Verify if vendor is approved by user ID.
+     * Verify if vendor is approved by user ID and return the vendor ID.
+     * Served from the approval index; the vendor entity is not loaded.
      * Throws VendorNotApprovedException if not approved.
      */
-    @Transactional(readOnly = true)
-    public Vendor ensureVendorApprovedByUserId(Long userId) {
-        Vendor vendor = vendorRepository.findByUserId(userId)
+    public Long ensureVendorApprovedByUserId(Long userId) {
+        VendorApprovalIndex.Entry entry = vendorApprovalIndex.get(userId)
                 .orElseThrow(() -> new VendorNotFoundException("Vendor not found for user ID: " + userId));
 
-        if (vendor.getStatus() != Vendor.VendorStatus.APPROVED) {
+        if (!entry.isApproved()) {
             throw new VendorNotApprovedException();
         }
-        return vendor;
+        return entry.getVendorId();
     }
 
     /**
@@ -269,6 +280,8 @@ public class VendorService {
                 .rating(vendor.getRating())
                 .totalReviews(vendor.getTotalReviews())
                 .totalProducts(vendor.getProducts() != null ? vendor.getProducts().size() : 0)
+                .notificationMode(vendor.getNotificationMode().name())
+                .digestWindowMinutes(vendor.getDigestWindowMinutes())
                 .createdAt(vendor.getCreatedAt())
                 .updatedAt(vendor.getUpdatedAt())
                 .build();
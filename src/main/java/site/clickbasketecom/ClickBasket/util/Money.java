@@ -0,0 +1,70 @@
+package site.clickbasketecom.ClickBasket.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on {@code long} minor units (cents).
+ * Pricing hot paths sum and multiply in minor units; BigDecimal is only
+ * used at the edges (JPA columns and API DTOs, both scale 2).
+ */
+public final class Money {
+
+    /** Decimal places of every money column and DTO field. */
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * Convert a decimal amount to minor units, rounding half-up. Null is zero.
+     */
+    public static long toMinor(BigDecimal amount) {
+        if (amount == null) {
+            return 0L;
+        }
+        return amount.setScale(SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    /**
+     * Convert minor units to a decimal amount with scale 2.
+     */
+    public static BigDecimal toDecimal(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    /**
+     * Price of {@code quantity} units, failing on overflow rather than wrapping.
+     */
+    public static long multiply(long unitMinor, int quantity) {
+        return Math.multiplyExact(unitMinor, (long) quantity);
+    }
+
+    /**
+     * An amount in minor units derived from decimal columns, kept until the owner resets it.
+     * Entities hold one in an initialized final field, which JPA (as @Transient) and Lombok
+     * builders leave alone.
+     */
+    public static final class CachedAmount {
+        private long minor;
+        private boolean set;
+
+        public boolean isSet() {
+            return set;
+        }
+
+        public long get() {
+            return minor;
+        }
+
+        public long set(long minor) {
+            this.minor = minor;
+            this.set = true;
+            return minor;
+        }
+
+        public void reset() {
+            set = false;
+        }
+    }
+}
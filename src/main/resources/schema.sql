@@ -3,8 +3,20 @@
 -- PostgreSQL
 
 -- Drop tables if they exist (in correct order due to foreign keys)
+DROP TABLE IF EXISTS archived_order_items CASCADE;
+DROP TABLE IF EXISTS archived_orders CASCADE;
+DROP TABLE IF EXISTS promotions CASCADE;
+DROP TABLE IF EXISTS refresh_tokens CASCADE;
+DROP TABLE IF EXISTS email_outbox CASCADE;
+DROP SEQUENCE IF EXISTS email_outbox_seq;
+DROP TABLE IF EXISTS settlement_mismatches CASCADE;
+DROP TABLE IF EXISTS settlement_runs CASCADE;
+DROP SEQUENCE IF EXISTS settlement_mismatches_seq;
+DROP TABLE IF EXISTS payment_callbacks CASCADE;
+DROP TABLE IF EXISTS refunds CASCADE;
 DROP TABLE IF EXISTS payments CASCADE;
 DROP TABLE IF EXISTS order_items CASCADE;
+DROP TABLE IF EXISTS vendor_orders CASCADE;
 DROP TABLE IF EXISTS orders CASCADE;
 DROP TABLE IF EXISTS cart_items CASCADE;
 DROP TABLE IF EXISTS carts CASCADE;
@@ -86,9 +98,12 @@ CREATE TABLE vendors (
     verified BOOLEAN NOT NULL DEFAULT FALSE,
     rating DECIMAL(3,2) DEFAULT 0.00,
     total_reviews INTEGER DEFAULT 0,
+    notification_mode VARCHAR(20) NOT NULL DEFAULT 'PER_ORDER',
+    digest_window_minutes INTEGER,
     created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP,
-    CONSTRAINT chk_vendor_status CHECK (status IN ('PENDING', 'APPROVED', 'SUSPENDED', 'REJECTED'))
+    CONSTRAINT chk_vendor_status CHECK (status IN ('PENDING', 'APPROVED', 'SUSPENDED', 'REJECTED')),
+    CONSTRAINT chk_vendor_notification_mode CHECK (notification_mode IN ('PER_ORDER', 'DIGEST'))
 );
 
 CREATE INDEX idx_vendor_store_name ON vendors(store_name);
@@ -192,6 +207,7 @@ CREATE TABLE carts (
 );
 
 CREATE INDEX idx_cart_user ON carts(user_id);
+CREATE INDEX idx_cart_updated_at ON carts(updated_at, id);
 
 -- =============================================
 -- CART_ITEMS TABLE
@@ -254,6 +270,28 @@ CREATE INDEX idx_order_number ON orders(order_number);
 CREATE INDEX idx_order_status ON orders(status);
 CREATE INDEX idx_order_created ON orders(created_at);
 
+-- =============================================
+-- VENDOR_ORDERS TABLE (per-vendor part of an order)
+-- =============================================
+CREATE TABLE vendor_orders (
+    id BIGSERIAL PRIMARY KEY,
+    order_id BIGINT NOT NULL REFERENCES orders(id) ON DELETE CASCADE,
+    vendor_id BIGINT NOT NULL REFERENCES vendors(id) ON DELETE RESTRICT,
+    status VARCHAR(30) NOT NULL DEFAULT 'PENDING',
+    subtotal DECIMAL(12,2) NOT NULL,
+    item_count INTEGER NOT NULL,
+    tracking_number VARCHAR(100),
+    shipping_carrier VARCHAR(100),
+    shipped_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_vendor_order_order_vendor UNIQUE (order_id, vendor_id),
+    CONSTRAINT chk_vendor_order_status CHECK (status IN ('PENDING', 'PROCESSING', 'SHIPPED', 'DELIVERED', 'CANCELLED', 'RETURNED'))
+);
+
+CREATE INDEX idx_vendor_order_order ON vendor_orders(order_id);
+CREATE INDEX idx_vendor_order_queue ON vendor_orders(vendor_id, status, id);
+
 -- =============================================
 -- ORDER_ITEMS TABLE
 -- =============================================
@@ -262,6 +300,7 @@ CREATE TABLE order_items (
     order_id BIGINT NOT NULL REFERENCES orders(id) ON DELETE CASCADE,
     product_id BIGINT NOT NULL REFERENCES products(id) ON DELETE RESTRICT,
     vendor_id BIGINT NOT NULL REFERENCES vendors(id) ON DELETE RESTRICT,
+    vendor_order_id BIGINT REFERENCES vendor_orders(id) ON DELETE SET NULL,
     product_name VARCHAR(200) NOT NULL,
     product_sku VARCHAR(50),
     product_image_url VARCHAR(500),
@@ -279,6 +318,7 @@ CREATE TABLE order_items (
 CREATE INDEX idx_order_item_order ON order_items(order_id);
 CREATE INDEX idx_order_item_product ON order_items(product_id);
 CREATE INDEX idx_order_item_vendor ON order_items(vendor_id);
+CREATE INDEX idx_order_item_vendor_order ON order_items(vendor_order_id);
 
 -- =============================================
 -- PAYMENTS TABLE
@@ -286,7 +326,8 @@ CREATE INDEX idx_order_item_vendor ON order_items(vendor_id);
 CREATE TABLE payments (
     id BIGSERIAL PRIMARY KEY,
     order_id BIGINT NOT NULL UNIQUE REFERENCES orders(id) ON DELETE CASCADE,
-    transaction_id VARCHAR(100) UNIQUE,
+    -- "C" collation orders ids by code point, as the settlement reconciliation merge expects
+    transaction_id VARCHAR(100) COLLATE "C" UNIQUE,
     payment_method VARCHAR(50) NOT NULL,
     payment_provider VARCHAR(50),
     amount DECIMAL(12,2) NOT NULL,
@@ -307,8 +348,239 @@ CREATE TABLE payments (
 );
 
 CREATE INDEX idx_payment_order ON payments(order_id);
-CREATE INDEX idx_payment_transaction ON payments(transaction_id);
-CREATE INDEX idx_payment_status ON payments(status);
+CREATE INDEX idx_payment_status_created ON payments(status, created_at);
+
+-- =============================================
+-- PAYMENT_CALLBACKS TABLE (journal of gateway callbacks, applied asynchronously)
+-- =============================================
+CREATE TABLE payment_callbacks (
+    id BIGSERIAL PRIMARY KEY,
+    payment_id BIGINT NOT NULL,
+    transaction_id VARCHAR(100),
+    success BOOLEAN NOT NULL,
+    failure_reason VARCHAR(500),
+    gateway_response TEXT,
+    status VARCHAR(20) NOT NULL DEFAULT 'RECEIVED',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    processed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT chk_payment_callback_status CHECK (status IN ('RECEIVED', 'APPLIED', 'REJECTED', 'FAILED'))
+);
+
+CREATE INDEX idx_payment_callback_status ON payment_callbacks(status, id);
+CREATE INDEX idx_payment_callback_payment ON payment_callbacks(payment_id);
+
+-- =============================================
+-- REFUNDS TABLE (full and partial refunds, submitted to the gateway in batches)
+-- =============================================
+CREATE TABLE refunds (
+    id BIGSERIAL PRIMARY KEY,
+    payment_id BIGINT NOT NULL REFERENCES payments(id) ON DELETE CASCADE,
+    amount DECIMAL(12,2) NOT NULL,
+    reason VARCHAR(500),
+    status VARCHAR(20) NOT NULL DEFAULT 'REQUESTED',
+    gateway_refund_id VARCHAR(100),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    last_error VARCHAR(500),
+    processed_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT chk_refund_amount CHECK (amount > 0),
+    CONSTRAINT chk_refund_status CHECK (status IN ('REQUESTED', 'SUBMITTED', 'COMPLETED', 'FAILED'))
+);
+
+CREATE INDEX idx_refund_status ON refunds(status, id);
+CREATE INDEX idx_refund_payment ON refunds(payment_id);
+
+-- =============================================
+-- SETTLEMENT_RUNS TABLE (reconciliations of gateway settlement files)
+-- =============================================
+CREATE TABLE settlement_runs (
+    id BIGSERIAL PRIMARY KEY,
+    file_name VARCHAR(255) NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'RUNNING',
+    period_start TIMESTAMP,
+    period_end TIMESTAMP,
+    rows_read BIGINT NOT NULL DEFAULT 0,
+    payments_scanned BIGINT NOT NULL DEFAULT 0,
+    matched BIGINT NOT NULL DEFAULT 0,
+    mismatch_count BIGINT NOT NULL DEFAULT 0,
+    error_message VARCHAR(500),
+    finished_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT chk_settlement_run_status CHECK (status IN ('RUNNING', 'COMPLETED', 'FAILED'))
+);
+
+-- =============================================
+-- SETTLEMENT_MISMATCHES TABLE (report rows of a reconciliation run)
+-- =============================================
+CREATE SEQUENCE settlement_mismatches_seq INCREMENT BY 50;
+
+CREATE TABLE settlement_mismatches (
+    id BIGINT PRIMARY KEY DEFAULT nextval('settlement_mismatches_seq'),
+    run_id BIGINT NOT NULL REFERENCES settlement_runs(id) ON DELETE CASCADE,
+    type VARCHAR(30) NOT NULL,
+    transaction_id VARCHAR(100),
+    payment_id BIGINT,
+    settled_amount DECIMAL(12,2),
+    payment_amount DECIMAL(12,2),
+    settled_status VARCHAR(30),
+    payment_status VARCHAR(30),
+    details VARCHAR(500),
+    CONSTRAINT chk_settlement_mismatch_type CHECK (type IN ('MISSING_PAYMENT', 'MISSING_SETTLEMENT', 'AMOUNT_MISMATCH', 'STATUS_MISMATCH', 'DUPLICATE_SETTLEMENT', 'INVALID_ROW'))
+);
+
+CREATE INDEX idx_settlement_mismatch_run ON settlement_mismatches(run_id, type);
+
+-- =============================================
+-- EMAIL_OUTBOX TABLE (rendered emails waiting to be sent by the dispatcher)
+-- =============================================
+CREATE SEQUENCE email_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE email_outbox (
+    id BIGINT PRIMARY KEY DEFAULT nextval('email_outbox_seq'),
+    recipient VARCHAR(320) NOT NULL,
+    domain VARCHAR(255) NOT NULL,
+    subject VARCHAR(500) NOT NULL,
+    body TEXT NOT NULL,
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    attempts INTEGER NOT NULL DEFAULT 0,
+    digest_vendor_id BIGINT,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error VARCHAR(500),
+    sent_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT chk_email_outbox_status CHECK (status IN ('PENDING', 'SENDING', 'SENT', 'DEAD', 'HELD'))
+);
+
+CREATE INDEX idx_email_outbox_status ON email_outbox(status, id);
+CREATE INDEX idx_email_outbox_digest ON email_outbox(digest_vendor_id, status);
+
+-- =============================================
+-- REFRESH_TOKENS TABLE
+-- =============================================
+CREATE TABLE refresh_tokens (
+    id BIGSERIAL PRIMARY KEY,
+    token_id VARCHAR(36) NOT NULL UNIQUE,
+    session_id VARCHAR(36) NOT NULL,
+    user_id BIGINT NOT NULL REFERENCES users(id) ON DELETE CASCADE,
+    expires_at TIMESTAMP NOT NULL,
+    revoked BOOLEAN NOT NULL DEFAULT FALSE,
+    replaced_by VARCHAR(36),
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP
+);
+
+CREATE INDEX idx_refresh_token_session ON refresh_tokens(session_id);
+CREATE INDEX idx_refresh_token_user ON refresh_tokens(user_id);
+CREATE INDEX idx_refresh_token_expires ON refresh_tokens(expires_at);
+
+-- =============================================
+-- PROMOTIONS TABLE
+-- =============================================
+CREATE TABLE promotions (
+    id BIGSERIAL PRIMARY KEY,
+    name VARCHAR(150) NOT NULL,
+    code VARCHAR(50) UNIQUE,
+    type VARCHAR(20) NOT NULL,
+    scope VARCHAR(20) NOT NULL DEFAULT 'CART',
+    scope_id BIGINT,
+    discount_value DECIMAL(12,2),
+    min_spend DECIMAL(12,2),
+    buy_quantity INTEGER,
+    get_quantity INTEGER,
+    usage_limit INTEGER,
+    usage_count INTEGER NOT NULL DEFAULT 0,
+    starts_at TIMESTAMP,
+    ends_at TIMESTAMP,
+    is_active BOOLEAN NOT NULL DEFAULT TRUE,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP,
+    CONSTRAINT chk_promotion_usage CHECK (usage_limit IS NULL OR usage_count <= usage_limit)
+);
+
+CREATE INDEX idx_promotion_active ON promotions(is_active, ends_at);
+
+-- =============================================
+-- ARCHIVED_ORDERS TABLE (closed orders moved out of orders by the archiver)
+-- Range-partitioned by month on created_at. The archiver creates each monthly partition
+-- (archived_orders_YYYY_MM) before copying into it. There is no default partition: PostgreSQL
+-- cannot add a month whose rows already sit in the default, so a month without a partition
+-- fails the batch instead of being hidden there.
+-- Old months can be detached or dropped without touching the live tables.
+-- Hibernate (ddl-auto=update) only creates plain archive tables; run this script on a new
+-- database before the first start to get the partitioned ones.
+-- =============================================
+CREATE TABLE archived_orders (
+    id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    order_number VARCHAR(50) NOT NULL,
+    status VARCHAR(30) NOT NULL,
+    subtotal DECIMAL(12,2) NOT NULL,
+    shipping_cost DECIMAL(12,2),
+    tax_amount DECIMAL(12,2),
+    discount_amount DECIMAL(12,2),
+    total_amount DECIMAL(12,2) NOT NULL,
+    coupon_code VARCHAR(50),
+    shipping_name VARCHAR(200) NOT NULL,
+    shipping_phone VARCHAR(20) NOT NULL,
+    shipping_address VARCHAR(500) NOT NULL,
+    shipping_city VARCHAR(100) NOT NULL,
+    shipping_state VARCHAR(100) NOT NULL,
+    shipping_zip VARCHAR(20) NOT NULL,
+    shipping_country VARCHAR(100) NOT NULL,
+    billing_name VARCHAR(200),
+    billing_phone VARCHAR(20),
+    billing_address VARCHAR(500),
+    billing_city VARCHAR(100),
+    billing_state VARCHAR(100),
+    billing_zip VARCHAR(20),
+    billing_country VARCHAR(100),
+    notes TEXT,
+    tracking_number VARCHAR(100),
+    shipping_carrier VARCHAR(100),
+    -- Payment snapshot
+    payment_method VARCHAR(50),
+    payment_status VARCHAR(30),
+    transaction_id VARCHAR(100),
+    paid_at TIMESTAMP,
+    refund_amount DECIMAL(12,2),
+    created_at TIMESTAMP NOT NULL,
+    updated_at TIMESTAMP,
+    archived_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, created_at)
+) PARTITION BY RANGE (created_at);
+
+CREATE INDEX idx_archived_order_number ON archived_orders(order_number);
+CREATE INDEX idx_archived_order_user ON archived_orders(user_id, created_at);
+
+-- =============================================
+-- ARCHIVED_ORDER_ITEMS TABLE
+-- Partitioned on the parent order's created_at so an order and its items share a month.
+-- =============================================
+CREATE TABLE archived_order_items (
+    id BIGINT NOT NULL,
+    order_id BIGINT NOT NULL,
+    order_created_at TIMESTAMP NOT NULL,
+    product_id BIGINT NOT NULL,
+    vendor_id BIGINT NOT NULL,
+    product_name VARCHAR(200) NOT NULL,
+    product_sku VARCHAR(50),
+    product_image_url VARCHAR(500),
+    quantity INTEGER NOT NULL,
+    unit_price DECIMAL(12,2) NOT NULL,
+    discount_amount DECIMAL(12,2),
+    tax_amount DECIMAL(12,2),
+    fulfillment_status VARCHAR(30),
+    created_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (id, order_created_at)
+) PARTITION BY RANGE (order_created_at);
+
+CREATE INDEX idx_archived_order_item_order ON archived_order_items(order_id, order_created_at);
 
 -- =============================================
 -- FUNCTIONS & TRIGGERS (Optional)
@@ -333,4 +605,11 @@ CREATE TRIGGER update_carts_updated_at BEFORE UPDATE ON carts FOR EACH ROW EXECU
 CREATE TRIGGER update_cart_items_updated_at BEFORE UPDATE ON cart_items FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER update_orders_updated_at BEFORE UPDATE ON orders FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER update_order_items_updated_at BEFORE UPDATE ON order_items FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_vendor_orders_updated_at BEFORE UPDATE ON vendor_orders FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
 CREATE TRIGGER update_payments_updated_at BEFORE UPDATE ON payments FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_payment_callbacks_updated_at BEFORE UPDATE ON payment_callbacks FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_refunds_updated_at BEFORE UPDATE ON refunds FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_settlement_runs_updated_at BEFORE UPDATE ON settlement_runs FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_email_outbox_updated_at BEFORE UPDATE ON email_outbox FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_refresh_tokens_updated_at BEFORE UPDATE ON refresh_tokens FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
+CREATE TRIGGER update_promotions_updated_at BEFORE UPDATE ON promotions FOR EACH ROW EXECUTE FUNCTION update_updated_at_column();
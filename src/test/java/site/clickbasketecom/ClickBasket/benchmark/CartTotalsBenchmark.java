@@ -0,0 +1,79 @@
+package site.clickbasketecom.ClickBasket.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import site.clickbasketecom.ClickBasket.service.CartStore;
+import site.clickbasketecom.ClickBasket.util.Money;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cart totalling as done when building a CartResponse.
+ * "bigDecimal" is the previous approach: a BigDecimal per line product and sum,
+ * with the subtotal computed twice (once for subtotal, once inside total).
+ * "minorUnits" sums long cents once and converts only the three response fields.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=CartTotalsBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CartTotalsBenchmark {
+
+    @Param({ "1", "10", "100" })
+    private int lines;
+
+    private CartStore.CartState cart;
+    private List<BigDecimal> unitPrices;
+    private List<Integer> quantities;
+    private BigDecimal discount;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        cart = new CartStore.CartState(1L, 1L);
+        unitPrices = new ArrayList<>(lines);
+        quantities = new ArrayList<>(lines);
+        for (long productId = 1; productId <= lines; productId++) {
+            BigDecimal unitPrice = BigDecimal.valueOf(100 + random.nextInt(100_000), 2);
+            int quantity = 1 + random.nextInt(5);
+            unitPrices.add(unitPrice);
+            quantities.add(quantity);
+            cart.putLine(CartStore.Line.builder()
+                    .productId(productId)
+                    .quantity(quantity)
+                    .unitPrice(unitPrice)
+                    .build());
+        }
+        discount = new BigDecimal("5.00");
+        cart.setDiscountAmount(discount);
+    }
+
+    @Benchmark
+    public void bigDecimal(Blackhole blackhole) {
+        blackhole.consume(decimalSubtotal());
+        blackhole.consume(decimalSubtotal().subtract(discount));
+    }
+
+    @Benchmark
+    public void minorUnits(Blackhole blackhole) {
+        long subtotal = cart.getSubtotalMinor();
+        blackhole.consume(Money.toDecimal(subtotal));
+        blackhole.consume(Money.toDecimal(subtotal - cart.getDiscountMinor()));
+    }
+
+    private BigDecimal decimalSubtotal() {
+        BigDecimal subtotal = BigDecimal.ZERO;
+        for (int i = 0; i < unitPrices.size(); i++) {
+            subtotal = subtotal.add(unitPrices.get(i).multiply(new BigDecimal(quantities.get(i))));
+        }
+        return subtotal;
+    }
+}
@@ -0,0 +1,92 @@
+package site.clickbasketecom.ClickBasket.benchmark;
+
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.util.ReflectionTestUtils;
+import site.clickbasketecom.ClickBasket.service.LocalSmtpServer;
+import site.clickbasketecom.ClickBasket.service.SmtpTransportPool;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Messages per second sent to a local SMTP server that takes connectDelayMs to greet a new
+ * connection, standing in for the TCP, TLS and AUTH round-trips of a remote relay.
+ * "sessionPerMessage" is the previous approach: JavaMailSender.send, which opens and closes an
+ * SMTP session for every message. "pooled" sends a batch over one connection borrowed from
+ * SmtpTransportPool, as EmailDispatcher does for each domain slice.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=EmailDispatchBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class EmailDispatchBenchmark {
+
+    private static final int BATCH = 50;
+
+    @Param({ "20" })
+    private long connectDelayMs;
+
+    @Param({ "1" })
+    private long deliveryDelayMs;
+
+    private LocalSmtpServer smtpServer;
+    private JavaMailSenderImpl mailSender;
+    private SmtpTransportPool transportPool;
+    private MimeMessage message;
+
+    @Setup
+    public void setUp() throws IOException, MessagingException {
+        smtpServer = new LocalSmtpServer("rejected.test", connectDelayMs, deliveryDelayMs);
+        mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.getPort());
+        mailSender.setProtocol("smtp");
+        transportPool = new SmtpTransportPool(mailSender);
+        ReflectionTestUtils.setField(transportPool, "maxIdleConnections", 1);
+        ReflectionTestUtils.setField(transportPool, "keepAliveMs", 30_000L);
+
+        message = mailSender.createMimeMessage();
+        MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+        helper.setFrom("noreply@clickbasket.com");
+        helper.setTo("user@a.test");
+        helper.setSubject("Order Confirmation");
+        helper.setText("<p>Thanks for your order</p>", true);
+        message.saveChanges();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        transportPool.closeAll();
+        smtpServer.close();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void sessionPerMessage() {
+        for (int i = 0; i < BATCH; i++) {
+            mailSender.send(message);
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void pooled() throws MessagingException {
+        Transport transport = transportPool.borrow();
+        try {
+            for (int i = 0; i < BATCH; i++) {
+                transport.sendMessage(message, message.getAllRecipients());
+            }
+        } finally {
+            transportPool.release(transport);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package site.clickbasketecom.ClickBasket.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import site.clickbasketecom.ClickBasket.entity.Promotion;
+import site.clickbasketecom.ClickBasket.service.CartStore;
+import site.clickbasketecom.ClickBasket.service.PromotionIndex;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Evaluating a 10-line cart with a coupon against a growing number of live promotions.
+ * Promotions are spread over 200 categories, 50 vendors and cart-wide min-spend tiers.
+ * Time grows only until every key the cart touches holds rules, then stays flat.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=PromotionEvaluationBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromotionEvaluationBenchmark {
+
+    private static final int CATEGORIES = 200;
+    private static final int VENDORS = 50;
+
+    @Param({ "100", "1000", "5000", "20000" })
+    private int promotions;
+
+    private PromotionIndex index;
+    private List<CartStore.Line> lines;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        List<Promotion> live = new ArrayList<>(promotions);
+        for (long id = 1; id <= promotions; id++) {
+            live.add(promotion(id, random));
+        }
+        index = new PromotionIndex(null);
+        index.load(live);
+
+        lines = new ArrayList<>(10);
+        for (long productId = 1; productId <= 10; productId++) {
+            lines.add(CartStore.Line.builder()
+                    .productId(productId)
+                    .categoryId((long) random.nextInt(CATEGORIES))
+                    .vendorId((long) random.nextInt(VENDORS))
+                    .quantity(1 + random.nextInt(4))
+                    .unitPrice(BigDecimal.valueOf(100 + random.nextInt(50_000), 2))
+                    .build());
+        }
+    }
+
+    @Benchmark
+    public PromotionIndex.Evaluation evaluate() {
+        return index.evaluate(lines, "CODE1");
+    }
+
+    private static Promotion promotion(long id, Random random) {
+        Promotion.PromotionType type = Promotion.PromotionType.values()[random.nextInt(3)];
+        Promotion.PromotionScope scope = Promotion.PromotionScope.values()[random.nextInt(3)];
+        Long scopeId = switch (scope) {
+            case CART -> null;
+            case CATEGORY -> (long) random.nextInt(CATEGORIES);
+            case VENDOR -> (long) random.nextInt(VENDORS);
+        };
+        Promotion promotion = Promotion.builder()
+                .name("Promotion " + id)
+                .code(id % 10 == 1 ? "CODE" + id : null)
+                .type(type)
+                .scope(scope)
+                .scopeId(scopeId)
+                .discountValue(BigDecimal.valueOf(1 + random.nextInt(30)))
+                .minSpend(BigDecimal.valueOf(random.nextInt(200)))
+                .buyQuantity(1 + random.nextInt(3))
+                .getQuantity(1)
+                .usageCount(0)
+                .isActive(true)
+                .build();
+        promotion.setId(id);
+        return promotion;
+    }
+}
@@ -0,0 +1,91 @@
+package site.clickbasketecom.ClickBasket.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
+/**
+ * Compares platform-thread and virtual-thread request execution.
+ * Each simulated request holds a pooled DB connection for a short query and then
+ * waits on a slow remote call (SMTP, gateway), the shape of our order/payment paths.
+ * Virtual mode needs a Java 21+ runtime and fails its setup on older JVMs.
+ *
+ * Run: mvn -Pbenchmark test-compile exec:exec -Dbenchmark=ThreadModeBenchmark
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 10)
+@Fork(1)
+public class ThreadModeBenchmark {
+
+    // Requests in flight per burst
+    private static final int REQUESTS_PER_BURST = 1000;
+
+    @Param({ "platform", "virtual" })
+    private String mode;
+
+    // Tomcat default max threads
+    @Param({ "200" })
+    private int platformPoolSize;
+
+    // HikariCP maximum pool size
+    @Param({ "30" })
+    private int connectionPoolSize;
+
+    @Param({ "2" })
+    private long dbLatencyMillis;
+
+    @Param({ "20" })
+    private long remoteLatencyMillis;
+
+    private ExecutorService executor;
+    private Semaphore connectionPool;
+
+    @Setup
+    public void setUp() throws Exception {
+        connectionPool = new Semaphore(connectionPoolSize, true);
+        if ("virtual".equals(mode)) {
+            try {
+                executor = (ExecutorService) Executors.class
+                        .getMethod("newVirtualThreadPerTaskExecutor")
+                        .invoke(null);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalStateException("Virtual threads require Java 21+");
+            }
+        } else {
+            executor = Executors.newFixedThreadPool(platformPoolSize);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(REQUESTS_PER_BURST)
+    public void requestBurst() throws Exception {
+        List<Future<?>> futures = new ArrayList<>(REQUESTS_PER_BURST);
+        for (int i = 0; i < REQUESTS_PER_BURST; i++) {
+            futures.add(executor.submit(this::handleRequest));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+    }
+
+    private Void handleRequest() throws InterruptedException {
+        connectionPool.acquire();
+        try {
+            Thread.sleep(dbLatencyMillis);
+        } finally {
+            connectionPool.release();
+        }
+        Thread.sleep(remoteLatencyMillis);
+        return null;
+    }
+}
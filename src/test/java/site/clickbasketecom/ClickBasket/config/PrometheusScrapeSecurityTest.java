@@ -0,0 +1,64 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.endpoint.EndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.endpoint.web.WebEndpointAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.metrics.export.prometheus.PrometheusMetricsExportAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.server.ManagementContextAutoConfiguration;
+import org.springframework.boot.actuate.autoconfigure.web.servlet.ServletManagementContextAutoConfiguration;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.web.servlet.MockMvc;
+import site.clickbasketecom.ClickBasket.security.CustomUserDetailsService;
+import site.clickbasketecom.ClickBasket.security.JwtAuthenticationFilter;
+import site.clickbasketecom.ClickBasket.security.JwtUtil;
+import site.clickbasketecom.ClickBasket.security.TokenRevocationIndex;
+
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.httpBasic;
+import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.user;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * The Prometheus endpoint takes the scrape credential over HTTP Basic, not a user login;
+ * the other actuator endpoints stay admin-only.
+ */
+@WebMvcTest(useDefaultFilters = false, properties = {
+        "management.prometheus.metrics.export.enabled=true",
+        "app.metrics.scrape.username=scraper",
+        "app.metrics.scrape.password=scrape-secret"
+})
+@Import({SecurityConfig.class, JwtAuthenticationFilter.class, JwtUtil.class, TokenRevocationIndex.class})
+@ImportAutoConfiguration({EndpointAutoConfiguration.class, WebEndpointAutoConfiguration.class,
+        ManagementContextAutoConfiguration.class, ServletManagementContextAutoConfiguration.class,
+        MetricsAutoConfiguration.class, PrometheusMetricsExportAutoConfiguration.class})
+class PrometheusScrapeSecurityTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @MockBean
+    private CustomUserDetailsService userDetailsService;
+
+    @Test
+    void scrapeNeedsTheScrapeCredential() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "wrong")))
+                .andExpect(status().isUnauthorized());
+        mockMvc.perform(get("/actuator/prometheus").with(httpBasic("scraper", "scrape-secret")))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    void userLoginsCannotScrapeAndScraperCannotReachOtherEndpoints() throws Exception {
+        mockMvc.perform(get("/actuator/prometheus").with(user("admin@test.com").roles("ADMIN")))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get("/actuator/metrics").with(httpBasic("scraper", "scrape-secret")))
+                .andExpect(status().isForbidden());
+    }
+}
@@ -0,0 +1,67 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Statements through the proxy are counted per request and endpoint; a SELECT repeated within
+ * a request flags it as a likely N+1.
+ */
+class QueryStatisticsTest {
+
+    private QueryStatistics queryStatistics;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        queryStatistics = new QueryStatistics();
+        ReflectionTestUtils.setField(queryStatistics, "slowThresholdMs", 200L);
+        ReflectionTestUtils.setField(queryStatistics, "nPlusOneThreshold", 5);
+
+        JdbcDataSource h2 = new JdbcDataSource();
+        h2.setURL("jdbc:h2:mem:query-statistics;DB_CLOSE_DELAY=-1");
+        DataSource dataSource = ProxyDataSourceBuilder.create(h2).listener(queryStatistics).build();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS item (id BIGINT PRIMARY KEY, name VARCHAR(50))");
+        jdbcTemplate.update("MERGE INTO item KEY (id) VALUES (1, 'one'), (2, 'two')");
+        queryStatistics.reset();
+    }
+
+    @Test
+    void flagsRequestsRepeatingOneSelect() {
+        queryStatistics.begin();
+        jdbcTemplate.queryForList("SELECT id FROM item");
+        for (long id = 1; id <= 5; id++) {
+            jdbcTemplate.queryForObject("SELECT name FROM item WHERE id = ?", String.class, id % 2 + 1);
+        }
+        queryStatistics.end("GET /items");
+
+        queryStatistics.begin();
+        jdbcTemplate.queryForObject("SELECT name FROM item WHERE id = ?", String.class, 1L);
+        queryStatistics.end("GET /items");
+
+        jdbcTemplate.queryForList("SELECT id FROM item");
+
+        QueryStatistics.QueryReport report = queryStatistics.report();
+        assertEquals(8, report.getStatements());
+        assertEquals(0, report.getSlowStatements());
+
+        List<QueryStatistics.EndpointStats> endpoints = report.getEndpoints();
+        assertEquals(1, endpoints.size());
+        QueryStatistics.EndpointStats items = endpoints.get(0);
+        assertEquals("GET /items", items.getEndpoint());
+        assertEquals(2, items.getRequests());
+        assertEquals(7, items.getStatements());
+        assertEquals(6, items.getMaxStatementsPerRequest());
+        assertEquals(1, items.getSuspectedNPlusOneRequests());
+    }
+}
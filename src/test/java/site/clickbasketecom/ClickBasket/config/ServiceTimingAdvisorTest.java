@@ -0,0 +1,49 @@
+package site.clickbasketecom.ClickBasket.config;
+
+import io.micrometer.core.annotation.Timed;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.framework.ProxyFactory;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Public methods of @Timed classes are timed per method and outcome; other methods are not.
+ */
+class ServiceTimingAdvisorTest {
+
+    @Test
+    void timesPublicMethodsTaggedWithOutcome() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProxyFactory factory = new ProxyFactory(new Inventory());
+        factory.setProxyTargetClass(true);
+        factory.addAdvisor(new ServiceTimingAdvisor(() -> registry));
+        Inventory inventory = (Inventory) factory.getProxy();
+
+        inventory.reserve(1);
+        inventory.reserve(2);
+        assertThrows(IllegalArgumentException.class, () -> inventory.reserve(-1));
+        inventory.toString();
+
+        assertEquals(2, registry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("class", Inventory.class.getName(), "method", "reserve", "exception", "none")
+                .timer().count());
+        assertEquals(1, registry.get(MetricsConfig.SERVICE_TIMER)
+                .tags("method", "reserve", "exception", "IllegalArgumentException")
+                .timer().count());
+        assertNull(registry.find(MetricsConfig.SERVICE_TIMER).tag("method", "toString").timer());
+    }
+
+    @Timed(MetricsConfig.SERVICE_TIMER)
+    public static class Inventory {
+
+        public int reserve(int quantity) {
+            if (quantity < 0) {
+                throw new IllegalArgumentException("Negative quantity");
+            }
+            return quantity;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package site.clickbasketecom.ClickBasket.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import site.clickbasketecom.ClickBasket.entity.Role;
+import site.clickbasketecom.ClickBasket.entity.Vendor;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Repeated reference-data lookups are answered from the second-level and query caches,
+ * and a write through the application makes the next lookup read the new row.
+ */
+@ServiceJpaTest
+class ReferenceDataCacheTest {
+
+    @Autowired
+    private RoleRepository roleRepository;
+
+    @Autowired
+    private VendorRepository vendorRepository;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Statistics statistics;
+    private Vendor vendor;
+    private String roleName;
+
+    @BeforeEach
+    void setUp() {
+        roleName = "ROLE_" + UUID.randomUUID();
+        sessionFactory.inTransaction(session -> {
+            vendor = TestData.vendor(session);
+            session.persist(Role.builder().name(roleName).description("Cached role").build());
+        });
+        statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void repeatedLookupsRunNoStatements() {
+        roleRepository.findByName(roleName).orElseThrow();
+        vendorRepository.findByUserId(vendor.getUser().getId()).orElseThrow();
+        long statements = statistics.getPrepareStatementCount();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(roleName, roleRepository.findByName(roleName).orElseThrow().getName());
+            assertEquals(vendor.getId(), vendorRepository.findByUserId(vendor.getUser().getId()).orElseThrow().getId());
+        }
+
+        assertEquals(statements, statistics.getPrepareStatementCount());
+        assertEquals(6, statistics.getQueryCacheHitCount());
+    }
+
+    @Test
+    void writesInvalidateCachedLookups() {
+        Long userId = vendor.getUser().getId();
+        vendorRepository.findByUserId(userId).orElseThrow();
+
+        Vendor renamed = vendorRepository.findById(vendor.getId()).orElseThrow();
+        renamed.setStoreName("Renamed " + UUID.randomUUID());
+        vendorRepository.save(renamed);
+
+        long misses = statistics.getQueryCacheMissCount();
+        assertEquals(renamed.getStoreName(), vendorRepository.findByUserId(userId).orElseThrow().getStoreName());
+        assertEquals(misses + 1, statistics.getQueryCacheMissCount());
+        assertEquals(renamed.getId(), vendorRepository.findByStoreName(renamed.getStoreName()).orElseThrow().getId());
+    }
+}
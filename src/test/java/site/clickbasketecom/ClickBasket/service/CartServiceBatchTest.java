@@ -0,0 +1,126 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import site.clickbasketecom.ClickBasket.dto.cart.AddToCartRequest;
+import site.clickbasketecom.ClickBasket.dto.cart.CartBatchRequest;
+import site.clickbasketecom.ClickBasket.dto.cart.CartItemResponse;
+import site.clickbasketecom.ClickBasket.dto.cart.CartOperationRequest;
+import site.clickbasketecom.ClickBasket.dto.cart.CartResponse;
+import site.clickbasketecom.ClickBasket.entity.Product;
+import site.clickbasketecom.ClickBasket.entity.Vendor;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Batch cart operations apply in order with one product lookup, or not at all;
+ * a guest cart merge adds quantities, caps them at stock and skips unavailable products.
+ */
+@ServiceJpaTest
+@Import({CartService.class, CartStore.class, CartPersistence.class, ProductStampIndex.class, PromotionIndex.class})
+class CartServiceBatchTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Long userId;
+    private Long widget;
+    private Long gadget;
+    private Long withdrawn;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            userId = TestData.user(session).getId();
+            Vendor vendor = TestData.vendor(session);
+            widget = TestData.product(session, vendor, "10.00", 10).getId();
+            gadget = TestData.product(session, vendor, "4.00", 5).getId();
+            Product product = TestData.product(session, vendor, "1.00", 50);
+            product.setStatus(Product.ProductStatus.INACTIVE);
+            withdrawn = product.getId();
+        });
+    }
+
+    @Test
+    void batchAppliesOperationsInOrderWithOneProductLookup() {
+        cartService.getCart(userId);
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        CartResponse cart = cartService.applyBatch(userId, batch(
+                operation(CartOperationRequest.OperationType.ADD, widget, 2),
+                operation(CartOperationRequest.OperationType.ADD, gadget, 1),
+                operation(CartOperationRequest.OperationType.ADD, widget, 3),
+                operation(CartOperationRequest.OperationType.UPDATE, gadget, 4)));
+
+        assertEquals(1, statistics.getPrepareStatementCount());
+        assertEquals(Map.of(widget, 5, gadget, 4), quantities(cart));
+        assertEquals(9, cart.getTotalItems());
+
+        cart = cartService.applyBatch(userId, batch(
+                operation(CartOperationRequest.OperationType.REMOVE, gadget, null)));
+        assertEquals(Map.of(widget, 5), quantities(cart));
+    }
+
+    @Test
+    void failingOperationLeavesCartUnchanged() {
+        cartService.applyBatch(userId, batch(operation(CartOperationRequest.OperationType.ADD, widget, 2)));
+
+        assertThrows(IllegalArgumentException.class, () -> cartService.applyBatch(userId, batch(
+                operation(CartOperationRequest.OperationType.ADD, gadget, 1),
+                operation(CartOperationRequest.OperationType.UPDATE, widget, 11))));
+        assertThrows(IllegalStateException.class, () -> cartService.applyBatch(userId, batch(
+                operation(CartOperationRequest.OperationType.REMOVE, widget, null),
+                operation(CartOperationRequest.OperationType.ADD, withdrawn, 1))));
+        assertThrows(IllegalArgumentException.class, () -> cartService.applyBatch(userId, batch(
+                operation(CartOperationRequest.OperationType.REMOVE, gadget, null))));
+
+        assertEquals(Map.of(widget, 2), quantities(cartService.getCart(userId)));
+    }
+
+    @Test
+    void guestCartMergeCapsAtStockAndSkipsUnavailableProducts() {
+        cartService.applyBatch(userId, batch(operation(CartOperationRequest.OperationType.ADD, widget, 8)));
+
+        CartResponse cart = cartService.mergeGuestCart(userId, List.of(
+                guestItem(widget, 5),
+                guestItem(gadget, 2),
+                guestItem(withdrawn, 1),
+                guestItem(-1L, 1)));
+
+        assertEquals(Map.of(widget, 10, gadget, 2), quantities(cart));
+    }
+
+    private static CartBatchRequest batch(CartOperationRequest... operations) {
+        return CartBatchRequest.builder().operations(List.of(operations)).build();
+    }
+
+    private static CartOperationRequest operation(CartOperationRequest.OperationType type, Long productId,
+                                                  Integer quantity) {
+        return CartOperationRequest.builder().type(type).productId(productId).quantity(quantity).build();
+    }
+
+    private static AddToCartRequest guestItem(Long productId, int quantity) {
+        return AddToCartRequest.builder().productId(productId).quantity(quantity).build();
+    }
+
+    private static Map<Long, Integer> quantities(CartResponse cart) {
+        return cart.getItems().stream()
+                .collect(Collectors.toMap(CartItemResponse::getProductId, CartItemResponse::getQuantity));
+    }
+}
@@ -0,0 +1,73 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import site.clickbasketecom.ClickBasket.dto.cart.CartResponse;
+import site.clickbasketecom.ClickBasket.repository.CartRepository;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Viewing a cart must not write: users who only browse never get a cart row.
+ */
+@ServiceJpaTest
+@Import({CartService.class, CartStore.class, CartPersistence.class, ProductStampIndex.class, PromotionIndex.class})
+class CartServiceReadOnlyTest {
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Statistics statistics;
+    private Long userId;
+
+    @BeforeEach
+    void setUp() {
+        userId = sessionFactory.fromTransaction(session -> TestData.user(session).getId());
+
+        statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+    }
+
+    @Test
+    void viewOnlySessionInsertsNothing() {
+        for (int i = 0; i < 3; i++) {
+            CartResponse cart = cartService.getCart(userId);
+            assertNull(cart.getId());
+            assertEquals(0, cart.getTotalItems());
+        }
+        cartService.clearCart(userId);
+        cartStore.flush();
+
+        assertEquals(0, statistics.getEntityInsertCount());
+        assertEquals(0, statistics.getEntityUpdateCount());
+        assertEquals(0, cartRepository.count());
+    }
+
+    @Test
+    void repeatedViewsAreServedFromMemory() {
+        cartService.getCart(userId);
+        long loads = statistics.getPrepareStatementCount();
+
+        cartService.getCart(userId);
+        cartService.getCart(userId);
+
+        assertEquals(loads, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,295 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Durability tests for the write-behind cart store.
+ * A "crash" is simulated by abandoning a store without flushing it and
+ * starting a new one against the same backing database.
+ */
+class CartStoreTest {
+
+    private FakeCartDatabase database;
+
+    @BeforeEach
+    void setUp() {
+        database = new FakeCartDatabase();
+    }
+
+    @Test
+    void flushedCartsSurviveCrash() {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 2);
+        addLine(store, 1L, 11L, 1);
+        addLine(store, 2L, 10L, 5);
+
+        assertEquals(2, store.flush());
+
+        // Crash: the old store is dropped without a shutdown flush
+        CartStore recovered = newStore(4, 100);
+        assertEquals(3, recovered.read(1L, CartStore.CartState::getTotalItems));
+        assertEquals(5, recovered.read(2L, CartStore.CartState::getTotalItems));
+        assertNotNull(recovered.read(1L, CartStore.CartState::getCartId));
+    }
+
+    @Test
+    void failedFlushKeepsCartsQueuedUntilTheNextFlush() {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 2);
+
+        database.failNextSaves = 2;
+        store.flush();
+        assertEquals(1, store.dirtyCount());
+        assertTrue(database.carts.isEmpty());
+
+        store.flush();
+        assertEquals(0, store.dirtyCount());
+        assertEquals(2, database.carts.get(1L).getTotalItems());
+    }
+
+    @Test
+    void mutationDuringFlushIsNotLost() {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 1);
+
+        // Another request changes the cart while its previous version is being written
+        database.beforeSave = () -> addLine(store, 1L, 11L, 4);
+        store.flush();
+        database.beforeSave = null;
+
+        assertEquals(1, store.dirtyCount());
+        assertEquals(1, database.carts.get(1L).getTotalItems());
+
+        store.flush();
+        assertEquals(0, store.dirtyCount());
+        assertEquals(5, database.carts.get(1L).getTotalItems());
+    }
+
+    @Test
+    void evictedDirtyCartIsNotLost() {
+        // One shard holding a single cart: every new user evicts the previous one
+        CartStore store = newStore(1, 1);
+        addLine(store, 1L, 10L, 3);
+        addLine(store, 2L, 10L, 1);
+
+        assertEquals(1, store.size());
+        assertEquals(3, store.read(1L, CartStore.CartState::getTotalItems));
+
+        store.flush();
+        assertEquals(3, database.carts.get(1L).getTotalItems());
+        assertEquals(1, database.carts.get(2L).getTotalItems());
+    }
+
+    @Test
+    void shutdownFlushesEveryQueuedCart() {
+        CartStore store = newStore(4, 100);
+        for (long userId = 1; userId <= 25; userId++) {
+            addLine(store, userId, 10L, 1);
+        }
+
+        store.flushAll();
+
+        assertEquals(0, store.dirtyCount());
+        assertEquals(25, database.carts.size());
+        assertEquals(25, database.saveCalls, "batch size is 1");
+    }
+
+    @Test
+    void cartIsKeptAfterRepeatedFailures() {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 1);
+
+        // Each failed flush tries the batch and then the cart on its own
+        database.failNextSaves = 6;
+        for (int i = 0; i < 3; i++) {
+            store.flush();
+        }
+
+        assertEquals(1, store.dirtyCount());
+        assertEquals(1, store.failingCount());
+        assertEquals(1, store.read(1L, CartStore.CartState::getTotalItems));
+
+        // The database recovers: the cart is written and no longer reported
+        store.flush();
+        assertEquals(0, store.dirtyCount());
+        assertEquals(0, store.failingCount());
+        assertEquals(1, database.carts.get(1L).getTotalItems());
+    }
+
+    @Test
+    void failedMutationLeavesCartUnchanged() {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 2);
+        store.flush();
+
+        assertThrows(IllegalStateException.class, () -> store.update(1L, cart -> {
+            cart.removeLine(10L);
+            throw new IllegalStateException("Out of stock");
+        }));
+
+        assertEquals(2, store.read(1L, CartStore.CartState::getTotalItems));
+        assertEquals(0, store.dirtyCount());
+    }
+
+    @Test
+    void flushWaitsForRunningFlush() throws Exception {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 1);
+
+        CountDownLatch saving = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        database.beforeSave = () -> {
+            database.beforeSave = null;
+            saving.countDown();
+            await(release);
+        };
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            executor.submit(store::flush);
+            assertTrue(saving.await(5, TimeUnit.SECONDS));
+
+            // A cart queued while the first flush is stuck in the database
+            addLine(store, 2L, 10L, 3);
+            Future<Integer> waiting = executor.submit(store::flush);
+            assertThrows(TimeoutException.class, () -> waiting.get(200, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            assertEquals(1, waiting.get(5, TimeUnit.SECONDS));
+            assertEquals(0, store.dirtyCount());
+            assertEquals(3, database.carts.get(2L).getTotalItems());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void removeOrderedKeepsLinesAddedAfterSnapshot() {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 2);
+        addLine(store, 1L, 11L, 1);
+        CartStore.CartState ordered = store.snapshot(1L);
+
+        // Added by another request while the order was being placed
+        addLine(store, 1L, 10L, 3);
+        addLine(store, 1L, 12L, 4);
+
+        store.update(1L, cart -> {
+            cart.removeOrdered(ordered);
+            return null;
+        });
+
+        assertEquals(3, (int) store.read(1L, cart -> cart.getLine(10L).getQuantity()));
+        assertNull(store.read(1L, cart -> cart.getLine(11L)));
+        assertEquals(4, (int) store.read(1L, cart -> cart.getLine(12L).getQuantity()));
+    }
+
+    @Test
+    void removeOrderedClearsUnchangedCart() {
+        CartStore store = newStore(4, 100);
+        addLine(store, 1L, 10L, 2);
+        CartStore.CartState ordered = store.snapshot(1L);
+
+        store.update(1L, cart -> {
+            cart.removeOrdered(ordered);
+            return null;
+        });
+
+        assertEquals(0, store.read(1L, CartStore.CartState::getTotalItems));
+    }
+
+    private CartStore newStore(int shards, int maxCarts) {
+        return new CartStore(database, shards, maxCarts, 1, 1000, 3);
+    }
+
+    private void addLine(CartStore store, Long userId, Long productId, int quantity) {
+        store.update(userId, cart -> {
+            CartStore.Line existing = cart.getLine(productId);
+            cart.putLine(CartStore.Line.builder()
+                    .productId(productId)
+                    .productName("Product " + productId)
+                    .quantity(existing != null ? existing.getQuantity() + quantity : quantity)
+                    .unitPrice(new BigDecimal("9.99"))
+                    .availableStock(100)
+                    .build());
+            return null;
+        });
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Stands in for the carts tables: keeps committed copies and can fail or interleave saves.
+     */
+    private static class FakeCartDatabase extends CartPersistence {
+
+        private final Map<Long, CartStore.CartState> carts = new HashMap<>();
+        private final AtomicLong ids = new AtomicLong();
+        private int failNextSaves;
+        private int saveCalls;
+        private volatile Runnable beforeSave;
+
+        FakeCartDatabase() {
+            super(null, null, null);
+        }
+
+        @Override
+        public CartStore.CartState load(Long userId) {
+            CartStore.CartState state = carts.get(userId);
+            return state != null ? state.copy() : new CartStore.CartState(userId, null);
+        }
+
+        @Override
+        public Map<Long, CartPersistence.SavedCart> saveAll(List<CartStore.CartState> states) {
+            saveCalls++;
+            if (beforeSave != null) {
+                beforeSave.run();
+            }
+            if (failNextSaves > 0) {
+                failNextSaves--;
+                throw new IllegalStateException("Database unavailable");
+            }
+
+            Map<Long, CartPersistence.SavedCart> result = new HashMap<>();
+            for (CartStore.CartState state : states) {
+                CartStore.CartState existing = carts.get(state.getUserId());
+                long cartId = existing != null ? existing.getCartId() : ids.incrementAndGet();
+                CartStore.CartState committed = new CartStore.CartState(state.getUserId(), cartId);
+                Map<Long, Long> itemIds = new HashMap<>();
+                for (CartStore.Line line : state.getLines()) {
+                    long itemId = ids.incrementAndGet();
+                    committed.putLine(line.toBuilder().itemId(itemId).build());
+                    itemIds.put(line.getProductId(), itemId);
+                }
+                carts.put(state.getUserId(), committed);
+                result.put(state.getUserId(), new CartPersistence.SavedCart(cartId, itemIds));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import site.clickbasketecom.ClickBasket.entity.Cart;
+import site.clickbasketecom.ClickBasket.entity.CartItem;
+import site.clickbasketecom.ClickBasket.entity.Product;
+import site.clickbasketecom.ClickBasket.event.CartAbandonedEvent;
+import site.clickbasketecom.ClickBasket.repository.CartRepository;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Idle carts are expired in keyset batches; active carts and carts with unsaved changes are kept.
+ */
+@ServiceJpaTest(properties = {
+        "app.cart.sweeper.idle-days=30",
+        "app.cart.sweeper.batch-size=2"
+})
+@Import({CartSweeper.class, CartStore.class, CartPersistence.class, SimpleMeterRegistry.class})
+@RecordApplicationEvents
+class CartSweeperTest {
+
+    @Autowired
+    private CartSweeper cartSweeper;
+
+    @Autowired
+    private CartStore cartStore;
+
+    @Autowired
+    private CartRepository cartRepository;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("DELETE FROM CartItem").executeUpdate();
+            session.createMutationQuery("DELETE FROM Cart").executeUpdate();
+
+            product = TestData.product(session, TestData.vendor(session), "4.50", 100);
+        });
+    }
+
+    @Test
+    void idleCartsAreExpiredInBatchesAndAnnounced() {
+        for (int i = 0; i < 4; i++) {
+            createCart(40, 2);
+        }
+        createCart(40, 0);
+        Long active = createCart(1, 1);
+
+        CartSweeper.SweepResult result = cartSweeper.sweep();
+
+        assertEquals(5, result.getCartsDeleted());
+        assertEquals(4, result.getItemsDeleted());
+        assertEquals(3, result.getBatches());
+        assertEquals(List.of(active), cartRepository.findAll().stream().map(Cart::getId).toList());
+
+        List<CartAbandonedEvent> abandoned = events.stream(CartAbandonedEvent.class).toList();
+        assertEquals(4, abandoned.size(), "empty carts are not announced");
+        assertTrue(abandoned.stream().allMatch(event -> new BigDecimal("9.00").compareTo(event.getValue()) == 0));
+    }
+
+    @Test
+    void cartWithPendingWritesIsKept() {
+        Long cartId = createCart(40, 1);
+        Long userId = sessionFactory.fromTransaction(session -> session.get(Cart.class, cartId).getUser().getId());
+        cartStore.update(userId, cart -> {
+            cart.setCouponCode("WELCOME");
+            return null;
+        });
+
+        CartSweeper.SweepResult result = cartSweeper.sweep();
+
+        assertEquals(0, result.getCartsDeleted());
+        assertTrue(cartRepository.existsById(cartId));
+    }
+
+    private Long createCart(int idleDays, int quantity) {
+        return sessionFactory.fromTransaction(session -> {
+            Cart cart = Cart.builder().user(TestData.user(session)).build();
+            if (quantity > 0) {
+                cart.getItems().add(CartItem.builder()
+                        .cart(cart)
+                        .product(session.getReference(Product.class, product.getId()))
+                        .quantity(quantity)
+                        .unitPrice(product.getPrice())
+                        .build());
+            }
+            session.persist(cart);
+            session.flush();
+            session.createNativeMutationQuery("UPDATE carts SET updated_at = :updatedAt WHERE id = :id")
+                    .setParameter("updatedAt", LocalDateTime.now().minusDays(idleDays))
+                    .setParameter("id", cart.getId())
+                    .executeUpdate();
+            return cart.getId();
+        });
+    }
+}
@@ -0,0 +1,148 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.mail.MailSenderAutoConfiguration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.OutboundEmail;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The outbox is drained over a few reused SMTP connections, within the per-domain limit,
+ * where one SMTP session per message opens a connection for every email.
+ * The throughput difference is measured by EmailDispatchBenchmark.
+ */
+@ServiceJpaTest(properties = {
+        "spring.mail.host=127.0.0.1",
+        "spring.mail.username=",
+        "spring.mail.password=",
+        "spring.mail.properties.mail.smtp.auth=false",
+        "spring.mail.properties.mail.smtp.starttls.enable=false",
+        "spring.mail.properties.mail.smtp.starttls.required=false",
+        "app.async.mail.core-size=8",
+        "app.async.mail.max-size=8",
+        "app.mail.outbox.batch-size=100",
+        "app.mail.outbox.per-domain-concurrency=2",
+        "app.mail.outbox.max-idle-connections=8"
+})
+@Import({EmailDispatcher.class, SmtpTransportPool.class, AsyncConfig.class, SimpleMeterRegistry.class})
+@ImportAutoConfiguration(MailSenderAutoConfiguration.class)
+class EmailDispatcherTest {
+
+    private static final List<String> DOMAINS = List.of("a.test", "b.test", "c.test");
+    private static final int PER_DOMAIN = 100;
+
+    private static LocalSmtpServer smtpServer;
+
+    @Autowired
+    private EmailDispatcher emailDispatcher;
+
+    @Autowired
+    private JavaMailSenderImpl mailSender;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @DynamicPropertySource
+    static void smtpServer(DynamicPropertyRegistry registry) throws IOException {
+        smtpServer = new LocalSmtpServer("rejected.test", 20, 5);
+        registry.add("spring.mail.port", smtpServer::getPort);
+    }
+
+    @AfterAll
+    static void stopSmtpServer() throws IOException {
+        smtpServer.close();
+    }
+
+    @Test
+    void drainsOutboxOverPooledConnectionsWithRetryAndDeadLetter() throws Exception {
+        smtpServer.deferOnce("later@a.test");
+        sessionFactory.inTransaction(session -> {
+            for (String domain : DOMAINS) {
+                for (int i = 0; i < PER_DOMAIN; i++) {
+                    session.persist(email("user" + i + "@" + domain));
+                }
+            }
+            session.persist(email("later@a.test"));
+            session.persist(email("nobody@rejected.test"));
+        });
+
+        int connectionsBefore = smtpServer.getConnections();
+        EmailDispatcher.DispatchResult result = emailDispatcher.dispatch();
+
+        assertEquals(DOMAINS.size() * PER_DOMAIN, result.getSent());
+        assertEquals(1, result.getRetried());
+        assertEquals(1, result.getDead());
+        assertEquals(DOMAINS.size() * PER_DOMAIN, smtpServer.getDelivered());
+        // Every batch reuses the connections of the first: at most one per domain slice
+        int connections = smtpServer.getConnections() - connectionsBefore;
+        assertTrue(connections <= DOMAINS.size() * 2, "Opened " + connections + " connections");
+        for (String domain : DOMAINS) {
+            assertTrue(smtpServer.getPeakConcurrency(domain) <= 2, domain + " exceeded the per-domain limit");
+        }
+
+        sessionFactory.inTransaction(session -> {
+            List<OutboundEmail> failed = session.createSelectionQuery(
+                            "FROM OutboundEmail e WHERE e.status <> :sent ORDER BY e.recipient", OutboundEmail.class)
+                    .setParameter("sent", OutboundEmail.EmailStatus.SENT)
+                    .getResultList();
+            assertEquals(2, failed.size());
+            OutboundEmail deferred = failed.get(0);
+            assertEquals("later@a.test", deferred.getRecipient());
+            assertEquals(OutboundEmail.EmailStatus.PENDING, deferred.getStatus());
+            assertTrue(deferred.getNextAttemptAt().isAfter(LocalDateTime.now()));
+            OutboundEmail rejected = failed.get(1);
+            assertEquals(OutboundEmail.EmailStatus.DEAD, rejected.getStatus());
+            assertEquals(1, rejected.getAttempts());
+            assertNotNull(rejected.getLastError());
+
+            // Make the deferred email due again
+            deferred.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        });
+
+        EmailDispatcher.DispatchResult retry = emailDispatcher.dispatch();
+        assertEquals(1, retry.getSent());
+        assertEquals(0, emailDispatcher.dispatch().getBatches());
+
+        // Same messages, one SMTP session each as JavaMailSender.send does
+        connectionsBefore = smtpServer.getConnections();
+        for (int i = 0; i < PER_DOMAIN; i++) {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, true, "UTF-8");
+            helper.setFrom("noreply@clickbasket.com");
+            helper.setTo("user" + i + "@a.test");
+            helper.setSubject("Order Confirmation");
+            helper.setText("<p>Thanks for your order</p>", true);
+            mailSender.send(message);
+        }
+        assertEquals(PER_DOMAIN, smtpServer.getConnections() - connectionsBefore);
+    }
+
+    private OutboundEmail email(String recipient) {
+        return OutboundEmail.builder()
+                .recipient(recipient)
+                .domain(recipient.substring(recipient.indexOf('@') + 1))
+                .subject("Order Confirmation")
+                .body("<p>Thanks for your order</p>")
+                .nextAttemptAt(LocalDateTime.now().minusSeconds(1))
+                .build();
+    }
+}
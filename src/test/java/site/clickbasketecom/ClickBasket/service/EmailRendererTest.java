@@ -0,0 +1,82 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.junit.jupiter.api.Test;
+import site.clickbasketecom.ClickBasket.dto.email.EmailLineView;
+import site.clickbasketecom.ClickBasket.dto.email.OrderEmailView;
+import site.clickbasketecom.ClickBasket.dto.email.VendorOrderEmailView;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Email templates render from view models, with English dates whatever the default locale is.
+ */
+class EmailRendererTest {
+
+    private final EmailRenderer emailRenderer = new EmailRenderer();
+
+    private final List<EmailLineView> lines = List.of(
+            EmailLineView.builder().productName("Widget").productSku("W-1").quantity(2)
+                    .unitPrice("₹10.00").totalPrice("₹20.00").build(),
+            EmailLineView.builder().productName("Gadget").productSku("G-1").quantity(1)
+                    .unitPrice("₹5.50").totalPrice("₹5.50").build());
+
+    @Test
+    void rendersEachTemplateFromItsView() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.GERMANY);
+        try {
+            rendersEachTemplate();
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    private void rendersEachTemplate() {
+        OrderEmailView order = OrderEmailView.builder()
+                .customerName("Asha")
+                .orderNumber("ORD-1")
+                .orderDate(LocalDateTime.of(2026, 1, 2, 15, 30))
+                .deliveryDate(LocalDateTime.of(2026, 1, 5, 10, 0))
+                .items(lines)
+                .subtotal("₹25.50")
+                .taxAmount("₹1.25")
+                .totalAmount("₹26.75")
+                .shippingAddress("1 Main St, City")
+                .build();
+
+        String confirmation = emailRenderer.render("order-confirmation", order);
+        assertTrue(confirmation.contains("Asha"));
+        assertTrue(confirmation.contains("02 Jan 2026"));
+        assertTrue(confirmation.contains("Gadget"));
+        assertTrue(confirmation.contains("₹20.00"));
+        assertTrue(confirmation.contains("₹1.25"));
+        assertTrue(confirmation.contains("₹26.75"));
+        assertFalse(confirmation.contains("Shipping</span>"), "Free shipping row should be hidden");
+        assertEquals(confirmation, emailRenderer.render("order-confirmation", order));
+
+        String delivered = emailRenderer.render("order-delivered", order);
+        assertTrue(delivered.contains("05 Jan 2026"));
+        assertTrue(delivered.contains("Widget"));
+        assertTrue(delivered.contains("₹26.75"));
+
+        String vendor = emailRenderer.render("vendor-order-notification", VendorOrderEmailView.builder()
+                .storeName("Widget Store")
+                .orderNumber("ORD-1")
+                .orderDate(LocalDateTime.of(2026, 1, 2, 15, 30))
+                .items(lines.subList(0, 1))
+                .itemTotal("₹20.00")
+                .customerName("Asha")
+                .shippingAddress("1 Main St, City")
+                .build());
+        assertTrue(vendor.contains("Widget Store"));
+        assertTrue(vendor.contains("W-1"));
+        assertFalse(vendor.contains("Gadget"));
+        assertTrue(vendor.contains("Your Earnings: <span>₹20.00</span>"));
+    }
+}
@@ -0,0 +1,155 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Minimal in-process SMTP server standing in for a relay in tests.
+ * Greets new connections after connectDelayMs, standing in for the TCP, TLS and AUTH round-trips
+ * of a remote relay, and accepts every message after deliveryDelayMs, except for recipients at
+ * the rejected domain (550)
+ * and, once each, deferred recipients (451). Counts connections, delivered messages and the
+ * peak number of concurrent deliveries per recipient domain.
+ */
+public class LocalSmtpServer implements AutoCloseable {
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newCachedThreadPool();
+    private final String rejectedDomain;
+    private final long connectDelayMs;
+    private final long deliveryDelayMs;
+
+    private final AtomicInteger connections = new AtomicInteger();
+    private final AtomicInteger delivered = new AtomicInteger();
+    private final Map<String, AtomicInteger> active = new ConcurrentHashMap<>();
+    private final Map<String, Integer> peak = new ConcurrentHashMap<>();
+    private final Set<String> deferred = ConcurrentHashMap.newKeySet();
+
+    public LocalSmtpServer(String rejectedDomain, long connectDelayMs, long deliveryDelayMs) throws IOException {
+        this.rejectedDomain = rejectedDomain;
+        this.connectDelayMs = connectDelayMs;
+        this.deliveryDelayMs = deliveryDelayMs;
+        this.serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        Thread acceptor = new Thread(this::accept, "smtp-stand-in");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Answer 451 the next time this recipient is offered.
+     */
+    public void deferOnce(String recipient) {
+        deferred.add(recipient.toLowerCase(Locale.ROOT));
+    }
+
+    public int getConnections() {
+        return connections.get();
+    }
+
+    public int getDelivered() {
+        return delivered.get();
+    }
+
+    public int getPeakConcurrency(String domain) {
+        return peak.getOrDefault(domain, 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.incrementAndGet();
+                sessions.execute(() -> session(socket));
+            } catch (IOException e) {
+                return;
+            }
+        }
+    }
+
+    private void session(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.US_ASCII));
+             Writer out = new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.US_ASCII)) {
+            Thread.sleep(connectDelayMs);
+            reply(out, "220 localhost ESMTP stand-in");
+            String domain = null;
+            String line;
+            while ((line = in.readLine()) != null) {
+                String command = line.length() < 4 ? line : line.substring(0, 4).toUpperCase(Locale.ROOT);
+                switch (command) {
+                    case "EHLO", "HELO", "MAIL", "NOOP" -> reply(out, "250 OK");
+                    case "RCPT" -> {
+                        String address = line.substring(line.indexOf('<') + 1, line.lastIndexOf('>')).toLowerCase(Locale.ROOT);
+                        String recipientDomain = address.substring(address.indexOf('@') + 1);
+                        if (recipientDomain.equals(rejectedDomain)) {
+                            reply(out, "550 5.1.1 No such user");
+                        } else if (deferred.remove(address)) {
+                            reply(out, "451 4.3.0 Try again later");
+                        } else {
+                            domain = recipientDomain;
+                            int now = active.computeIfAbsent(domain, d -> new AtomicInteger()).incrementAndGet();
+                            peak.merge(domain, now, Math::max);
+                            reply(out, "250 OK");
+                        }
+                    }
+                    case "DATA" -> {
+                        reply(out, "354 End data with <CR><LF>.<CR><LF>");
+                        while ((line = in.readLine()) != null && !line.equals(".")) {
+                            // Discard the message body
+                        }
+                        Thread.sleep(deliveryDelayMs);
+                        if (domain != null) {
+                            delivered.incrementAndGet();
+                            active.get(domain).decrementAndGet();
+                            domain = null;
+                        }
+                        reply(out, "250 OK");
+                    }
+                    case "RSET" -> {
+                        if (domain != null) {
+                            active.get(domain).decrementAndGet();
+                            domain = null;
+                        }
+                        reply(out, "250 OK");
+                    }
+                    case "QUIT" -> {
+                        reply(out, "221 Bye");
+                        return;
+                    }
+                    default -> reply(out, "500 Unknown command");
+                }
+            }
+        } catch (IOException | InterruptedException e) {
+            // Connection dropped or server stopped
+        }
+    }
+
+    private void reply(Writer out, String line) throws IOException {
+        out.write(line + "\r\n");
+        out.flush();
+    }
+}
@@ -0,0 +1,169 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.repository.ArchivedOrderItemRepository;
+import site.clickbasketecom.ClickBasket.repository.ArchivedOrderRepository;
+import site.clickbasketecom.ClickBasket.repository.OrderRepository;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Closed orders past retention move to the archive tables in batches; open and recent orders, and
+ * orders with a refund still in flight, stay live.
+ */
+@ServiceJpaTest(properties = {
+        "app.order.archive.retention-days=30",
+        "app.order.archive.batch-size=2"
+})
+@Import({OrderArchiver.class, SimpleMeterRegistry.class})
+class OrderArchiverTest {
+
+    @Autowired
+    private OrderArchiver orderArchiver;
+
+    @Autowired
+    private OrderRepository orderRepository;
+
+    @Autowired
+    private ArchivedOrderRepository archivedOrderRepository;
+
+    @Autowired
+    private ArchivedOrderItemRepository archivedOrderItemRepository;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private User customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            customer = TestData.user(session);
+            product = TestData.product(session, TestData.vendor(session), "10.00", 100);
+        });
+    }
+
+    @Test
+    void closedOrdersPastRetentionAreArchivedInBatches() {
+        Order paid = createOrder(Order.OrderStatus.DELIVERED, 90, true);
+        Order cancelled = createOrder(Order.OrderStatus.CANCELLED, 60, false);
+        Order refunded = createOrder(Order.OrderStatus.REFUNDED, 45, true);
+        addRefund(refunded, Refund.RefundStatus.COMPLETED);
+        Order refunding = createOrder(Order.OrderStatus.DELIVERED, 45, true);
+        addRefund(refunding, Refund.RefundStatus.SUBMITTED);
+        Order open = createOrder(Order.OrderStatus.PROCESSING, 90, false);
+        Order recent = createOrder(Order.OrderStatus.DELIVERED, 1, false);
+
+        OrderArchiver.ArchiveResult result = orderArchiver.archive();
+
+        assertEquals(3, result.getOrdersArchived());
+        assertEquals(3, result.getItemsArchived());
+        assertEquals(2, result.getBatches());
+        assertFalse(orderRepository.existsById(paid.getId()));
+        assertFalse(orderRepository.existsById(cancelled.getId()));
+        assertFalse(orderRepository.existsById(refunded.getId()));
+        assertTrue(orderRepository.existsById(refunding.getId()));
+        assertTrue(orderRepository.existsById(open.getId()));
+        assertTrue(orderRepository.existsById(recent.getId()));
+
+        ArchivedOrder archived = archivedOrderRepository.findByOrderNumberAndCreatedAtBetween(paid.getOrderNumber(),
+                paid.getCreatedAt().minusDays(1), paid.getCreatedAt().plusDays(1)).orElseThrow();
+        assertEquals(paid.getId(), archived.getId());
+        assertEquals(customer.getId(), archived.getUserId());
+        assertEquals(Order.OrderStatus.DELIVERED, archived.getStatus());
+        assertEquals("TXN-" + paid.getOrderNumber(), archived.getTransactionId());
+
+        List<ArchivedOrderItem> items = archivedOrderItemRepository
+                .findByOrderIdAndOrderCreatedAtOrderById(archived.getId(), archived.getCreatedAt());
+        assertEquals(1, items.size());
+        assertEquals(0, new BigDecimal("20.00").compareTo(items.get(0).getTotalPrice()));
+
+        ArchivedOrder archivedRefund = archivedOrderRepository.findByOrderNumberAndCreatedAtBetween(
+                refunded.getOrderNumber(), refunded.getCreatedAt().minusDays(1), refunded.getCreatedAt().plusDays(1))
+                .orElseThrow();
+        assertEquals(0, new BigDecimal("20.00").compareTo(archivedRefund.getRefundAmount()));
+        assertEquals(1L, (long) sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery("SELECT COUNT(r) FROM Refund r", Long.class).getSingleResult()));
+
+        assertEquals(0, orderArchiver.archive().getOrdersArchived());
+    }
+
+    private void addRefund(Order order, Refund.RefundStatus status) {
+        sessionFactory.inTransaction(session -> {
+            Payment payment = session.get(Order.class, order.getId()).getPayment();
+            if (status == Refund.RefundStatus.COMPLETED) {
+                payment.setRefundAmount(payment.getAmount());
+                payment.setStatus(Payment.PaymentStatus.REFUNDED);
+            }
+            session.persist(Refund.builder()
+                    .payment(payment)
+                    .amount(payment.getAmount())
+                    .status(status)
+                    .build());
+            // Keep the order's last change before the cutoff
+            session.flush();
+            session.createNativeMutationQuery("UPDATE orders SET updated_at = created_at WHERE id = :id")
+                    .setParameter("id", order.getId())
+                    .executeUpdate();
+        });
+    }
+
+    private Order createOrder(Order.OrderStatus status, int ageDays, boolean withPayment) {
+        return sessionFactory.fromTransaction(session -> {
+            Product managed = session.get(Product.class, product.getId());
+            Order order = TestData.order(session.getReference(User.class, customer.getId()), "20.00")
+                    .status(status)
+                    .build();
+            VendorOrder vendorOrder = VendorOrder.builder()
+                    .order(order)
+                    .vendor(managed.getVendor())
+                    .subtotal(new BigDecimal("20.00"))
+                    .itemCount(2)
+                    .build();
+            order.getVendorOrders().add(vendorOrder);
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(managed)
+                    .vendor(managed.getVendor())
+                    .vendorOrder(vendorOrder)
+                    .productName(managed.getName())
+                    .quantity(2)
+                    .unitPrice(managed.getPrice())
+                    .build());
+            if (withPayment) {
+                order.setPayment(Payment.builder()
+                        .order(order)
+                        .transactionId("TXN-" + order.getOrderNumber())
+                        .paymentMethod("CARD")
+                        .amount(new BigDecimal("20.00"))
+                        .status(Payment.PaymentStatus.COMPLETED)
+                        .build());
+            }
+            session.persist(order);
+            session.flush();
+
+            LocalDateTime placed = LocalDateTime.now().minusDays(ageDays);
+            session.createNativeMutationQuery("UPDATE orders SET created_at = :at, updated_at = :at WHERE id = :id")
+                    .setParameter("at", placed)
+                    .setParameter("id", order.getId())
+                    .executeUpdate();
+            order.setCreatedAt(placed);
+            return order;
+        });
+    }
+}
@@ -0,0 +1,179 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.dto.cart.AddToCartRequest;
+import site.clickbasketecom.ClickBasket.dto.order.BulkOrderStatusRequest;
+import site.clickbasketecom.ClickBasket.dto.order.BulkOrderStatusResponse;
+import site.clickbasketecom.ClickBasket.dto.order.PlaceOrderRequest;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.event.OrderStatusChangedEvent;
+import site.clickbasketecom.ClickBasket.repository.ProductRepository;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Checkout takes stock relative to the row and never below zero. Bulk transitions move orders,
+ * their vendor orders and items with set-based updates, put back stock on cancel, skip orders
+ * that may not move and publish one event.
+ */
+@ServiceJpaTest
+@Import({OrderService.class, CartService.class, CartStore.class, CartPersistence.class, ProductStampIndex.class, PromotionIndex.class,
+        PromotionService.class, EmailService.class, EmailRenderer.class, AsyncConfig.class, SimpleMeterRegistry.class})
+@RecordApplicationEvents
+class OrderServiceTest {
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private CartService cartService;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ApplicationEvents events;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private User customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            customer = TestData.user(session);
+            product = TestData.product(session, TestData.vendor(session), "10.00", 100);
+        });
+    }
+
+    @Test
+    void placeOrderTakesStockOnlyWhileEnoughIsLeft() {
+        cartService.addToCart(customer.getId(), AddToCartRequest.builder()
+                .productId(product.getId())
+                .quantity(3)
+                .build());
+
+        orderService.placeOrder(customer.getId(), PlaceOrderRequest.builder()
+                .shippingName("Ship To")
+                .shippingPhone("5550100")
+                .shippingAddress("1 Main St")
+                .shippingCity("City")
+                .shippingState("State")
+                .shippingZip("12345")
+                .shippingCountry("Country")
+                .build());
+
+        sessionFactory.inTransaction(session -> {
+            Product ordered = session.get(Product.class, product.getId());
+            assertEquals(97, ordered.getStockQuantity());
+            assertEquals(3, ordered.getSoldCount());
+        });
+        transactionTemplate.executeWithoutResult(status -> {
+            assertEquals(0, productRepository.takeStock(product.getId(), 98, LocalDateTime.now()));
+            assertEquals(1, productRepository.takeStock(product.getId(), 97, LocalDateTime.now()));
+        });
+    }
+
+    @Test
+    void bulkCancelRestoresStockAndMovesVendorOrdersAndItems() {
+        Long first = createOrder(Order.OrderStatus.PROCESSING, 2);
+        Long second = createOrder(Order.OrderStatus.PROCESSING, 3);
+        Long shipped = createOrder(Order.OrderStatus.SHIPPED, 4);
+
+        BulkOrderStatusResponse response = orderService.bulkUpdateOrderStatus(BulkOrderStatusRequest.builder()
+                .orderIds(List.of(first, second, shipped, first))
+                .status(Order.OrderStatus.CANCELLED)
+                .build());
+
+        assertEquals(3, response.getRequested());
+        assertEquals(2, response.getUpdated());
+        sessionFactory.inTransaction(session -> {
+            assertEquals(105, session.get(Product.class, product.getId()).getStockQuantity());
+            for (Long orderId : List.of(first, second)) {
+                Order order = session.get(Order.class, orderId);
+                assertEquals(Order.OrderStatus.CANCELLED, order.getStatus());
+                assertEquals(OrderItem.FulfillmentStatus.CANCELLED, order.getItems().get(0).getFulfillmentStatus());
+                assertEquals(OrderItem.FulfillmentStatus.CANCELLED, order.getVendorOrders().get(0).getStatus());
+            }
+            Order untouched = session.get(Order.class, shipped);
+            assertEquals(Order.OrderStatus.SHIPPED, untouched.getStatus());
+            assertEquals(OrderItem.FulfillmentStatus.SHIPPED, untouched.getItems().get(0).getFulfillmentStatus());
+        });
+
+        List<OrderStatusChangedEvent> published = events.stream(OrderStatusChangedEvent.class).toList();
+        assertEquals(1, published.size());
+        assertEquals(Order.OrderStatus.CANCELLED, published.get(0).getStatus());
+        assertEquals(Set.of(first, second), published.get(0).getChanges().stream()
+                .map(OrderStatusChangedEvent.Change::getOrderId)
+                .collect(Collectors.toSet()));
+        assertEquals(Order.OrderStatus.PROCESSING, published.get(0).getChanges().get(0).getPreviousStatus());
+    }
+
+    @Test
+    void paidOrdersMoveOnlyFromConfirmed() {
+        Long confirmed = createOrder(Order.OrderStatus.CONFIRMED, 1);
+        Long pending = createOrder(Order.OrderStatus.PENDING, 1);
+
+        assertEquals(1, orderService.markPaid(List.of(confirmed, pending)));
+
+        sessionFactory.inTransaction(session -> {
+            assertEquals(Order.OrderStatus.PROCESSING, session.get(Order.class, confirmed).getStatus());
+            assertEquals(Order.OrderStatus.PENDING, session.get(Order.class, pending).getStatus());
+        });
+        assertEquals(1, events.stream(OrderStatusChangedEvent.class).count());
+    }
+
+    private Long createOrder(Order.OrderStatus status, int quantity) {
+        OrderItem.FulfillmentStatus fulfillment = status == Order.OrderStatus.SHIPPED
+                ? OrderItem.FulfillmentStatus.SHIPPED
+                : OrderItem.FulfillmentStatus.PENDING;
+        return sessionFactory.fromTransaction(session -> {
+            Product managed = session.get(Product.class, product.getId());
+            Order order = TestData.order(session.getReference(User.class, customer.getId()), "20.00")
+                    .status(status)
+                    .build();
+            VendorOrder vendorOrder = VendorOrder.builder()
+                    .order(order)
+                    .vendor(managed.getVendor())
+                    .status(fulfillment)
+                    .subtotal(new BigDecimal("20.00"))
+                    .itemCount(quantity)
+                    .build();
+            order.getVendorOrders().add(vendorOrder);
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .vendorOrder(vendorOrder)
+                    .product(managed)
+                    .vendor(managed.getVendor())
+                    .productName(managed.getName())
+                    .quantity(quantity)
+                    .unitPrice(managed.getPrice())
+                    .fulfillmentStatus(fulfillment)
+                    .build());
+            session.persist(order);
+            return order.getId();
+        });
+    }
+}
@@ -0,0 +1,40 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.junit.jupiter.api.Test;
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The reverse tables used to guard bulk updates agree with the forward transition tables.
+ */
+class OrderStateMachineTest {
+
+    @Test
+    void sourceTablesMirrorTransitions() {
+        for (Order.OrderStatus from : Order.OrderStatus.values()) {
+            for (Order.OrderStatus to : Order.OrderStatus.values()) {
+                assertEquals(OrderStateMachine.canTransition(from, to),
+                        OrderStateMachine.sourcesOf(to).contains(from), from + " -> " + to);
+            }
+        }
+        for (OrderItem.FulfillmentStatus from : OrderItem.FulfillmentStatus.values()) {
+            for (OrderItem.FulfillmentStatus to : OrderItem.FulfillmentStatus.values()) {
+                assertEquals(OrderStateMachine.canTransition(from, to),
+                        OrderStateMachine.sourcesOf(to).contains(from), from + " -> " + to);
+            }
+        }
+    }
+
+    @Test
+    void shippedItemsCannotBeCancelled() {
+        assertTrue(OrderStateMachine.canTransition(Order.OrderStatus.PROCESSING, Order.OrderStatus.CANCELLED));
+        assertFalse(OrderStateMachine.canTransition(Order.OrderStatus.SHIPPED, Order.OrderStatus.CANCELLED));
+        assertFalse(OrderStateMachine.sourcesOf(OrderItem.FulfillmentStatus.CANCELLED)
+                .contains(OrderItem.FulfillmentStatus.SHIPPED));
+        assertTrue(OrderStateMachine.sourcesOf(Order.OrderStatus.PENDING).contains(Order.OrderStatus.CONFIRMED));
+    }
+}
@@ -0,0 +1,103 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.dto.payment.ConfirmPaymentRequest;
+import site.clickbasketecom.ClickBasket.dto.payment.PaymentCallbackResponse;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.repository.PaymentCallbackRepository;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Callbacks are journaled and acknowledged, then applied once each by the worker lanes.
+ */
+@ServiceJpaTest(properties = {
+        "app.payment.callbacks.lanes=2"
+})
+@Import({PaymentCallbackQueue.class, PaymentService.class, OrderService.class, CartStore.class, CartPersistence.class,
+        ProductStampIndex.class, PromotionIndex.class, PromotionService.class, EmailService.class, EmailRenderer.class,
+        AsyncConfig.class, SimpleMeterRegistry.class})
+class PaymentCallbackQueueTest {
+
+    @Autowired
+    private PaymentCallbackQueue paymentCallbackQueue;
+
+    @Autowired
+    private PaymentCallbackRepository callbackRepository;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Long paymentId;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            Order order = TestData.order(TestData.user(session), "10.00")
+                    .status(Order.OrderStatus.CONFIRMED)
+                    .build();
+            session.persist(order);
+            Payment payment = Payment.builder()
+                    .order(order)
+                    .paymentMethod("CARD")
+                    .amount(order.getTotalAmount())
+                    .build();
+            session.persist(payment);
+            orderId = order.getId();
+            paymentId = payment.getId();
+        });
+    }
+
+    @Test
+    void callbacksAreAcknowledgedThenAppliedOnce() throws InterruptedException {
+        PaymentCallbackResponse first = paymentCallbackQueue.accept(callback(paymentId));
+        PaymentCallbackResponse duplicate = paymentCallbackQueue.accept(callback(paymentId));
+        PaymentCallbackResponse unknown = paymentCallbackQueue.accept(callback(-1L));
+        assertEquals("RECEIVED", first.getStatus());
+
+        awaitApplied(List.of(first.getId(), duplicate.getId(), unknown.getId()));
+
+        assertEquals(PaymentCallback.CallbackStatus.APPLIED, statusOf(first.getId()));
+        assertEquals(PaymentCallback.CallbackStatus.REJECTED, statusOf(duplicate.getId()));
+        assertEquals(PaymentCallback.CallbackStatus.REJECTED, statusOf(unknown.getId()));
+        sessionFactory.inTransaction(session -> {
+            assertEquals(Payment.PaymentStatus.COMPLETED, session.get(Payment.class, paymentId).getStatus());
+            assertEquals(Order.OrderStatus.PROCESSING, session.get(Order.class, orderId).getStatus());
+        });
+
+        assertEquals(PaymentCallback.CallbackStatus.APPLIED, paymentCallbackQueue.process(first.getId()));
+        assertEquals(0, paymentCallbackQueue.recover());
+    }
+
+    private void awaitApplied(List<Long> callbackIds) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (callbackIds.stream().anyMatch(id -> statusOf(id) == PaymentCallback.CallbackStatus.RECEIVED)
+                && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+    }
+
+    private PaymentCallback.CallbackStatus statusOf(Long callbackId) {
+        return callbackRepository.findById(callbackId).orElseThrow().getStatus();
+    }
+
+    private ConfirmPaymentRequest callback(Long targetPaymentId) {
+        return ConfirmPaymentRequest.builder()
+                .paymentId(targetPaymentId)
+                .transactionId("TXN-" + UUID.randomUUID())
+                .success(true)
+                .build();
+    }
+}
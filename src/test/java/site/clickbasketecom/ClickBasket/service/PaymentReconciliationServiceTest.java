@@ -0,0 +1,203 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.mock.web.MockMultipartFile;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.dto.payment.ReconciliationRunResponse;
+import site.clickbasketecom.ClickBasket.dto.payment.SettlementMismatchResponse;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.exception.ReconciliationInProgressException;
+import site.clickbasketecom.ClickBasket.repository.SettlementRunRepository;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * A settlement file is merged with payments and every kind of difference lands in the report.
+ * Tiny chunk and page sizes force the file through spilled sort runs and the payments through several pages.
+ * A run with a period only scans payments paid within it, and only one run executes at a time.
+ */
+@ServiceJpaTest(properties = {
+        "app.payment.reconciliation.sort-chunk-rows=2",
+        "app.payment.reconciliation.page-size=2",
+        "app.payment.reconciliation.flush-size=2"
+})
+@Import({PaymentReconciliationService.class, AsyncConfig.class, SimpleMeterRegistry.class})
+class PaymentReconciliationServiceTest {
+
+    @Autowired
+    private PaymentReconciliationService reconciliationService;
+
+    @Autowired
+    private SettlementRunRepository runRepository;
+
+    @Autowired
+    @Qualifier(AsyncConfig.RECONCILIATION_EXECUTOR)
+    private Executor reconciliationExecutor;
+
+    @TempDir
+    private Path tempDir;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @BeforeEach
+    void setUp() {
+        createPayment("TXN-A", "10.00", Payment.PaymentStatus.COMPLETED);
+        createPayment("TXN-B", "20.00", Payment.PaymentStatus.COMPLETED);
+        createPayment("TXN-C", "30.00", Payment.PaymentStatus.REFUNDED);
+        createPayment("TXN-D", "40.00", Payment.PaymentStatus.COMPLETED);
+        createPayment("TXN-E", "50.00", Payment.PaymentStatus.FAILED);
+    }
+
+    @AfterEach
+    void tearDown() {
+        // Transaction ids are unique and the runs share one database
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("DELETE FROM SettlementMismatch").executeUpdate();
+            session.createMutationQuery("DELETE FROM SettlementRun").executeUpdate();
+            session.createMutationQuery("DELETE FROM Payment").executeUpdate();
+        });
+    }
+
+    @Test
+    void fileIsMergedWithPaymentsAndDifferencesReported() throws IOException {
+        Path file = tempDir.resolve("settlement.csv");
+        Files.writeString(file, String.join("\n",
+                "Status,Transaction_ID,Amount",
+                "SETTLED,TXN-Z,5.00",
+                "SETTLED,TXN-B,25.00",
+                "SETTLED,\"TXN-A\",10.00",
+                "SETTLED,TXN-C,30.00",
+                "SETTLED,TXN-A,10.00",
+                "SETTLED,TXN-Q,ten",
+                ""));
+        Long runId = runRepository.save(SettlementRun.builder().fileName("settlement.csv").build()).getId();
+
+        ReconciliationRunResponse run = reconciliationService.reconcile(runId, file);
+
+        assertEquals("COMPLETED", run.getStatus());
+        assertEquals(6, run.getRowsRead());
+        assertEquals(5, run.getPaymentsScanned());
+        assertEquals(1, run.getMatched());
+        assertEquals(6, run.getMismatchCount());
+
+        List<SettlementMismatchResponse> mismatches =
+                reconciliationService.getMismatches(runId, null, Pageable.unpaged()).getContent();
+        Map<String, String> byTransaction = mismatches.stream()
+                .filter(mismatch -> mismatch.getTransactionId() != null)
+                .collect(Collectors.toMap(SettlementMismatchResponse::getTransactionId,
+                        SettlementMismatchResponse::getType));
+        assertEquals(Map.of(
+                "TXN-A", "DUPLICATE_SETTLEMENT",
+                "TXN-B", "AMOUNT_MISMATCH",
+                "TXN-C", "STATUS_MISMATCH",
+                "TXN-D", "MISSING_SETTLEMENT",
+                "TXN-Q", "INVALID_ROW",
+                "TXN-Z", "MISSING_PAYMENT"), byTransaction);
+        assertEquals(1, reconciliationService.getMismatches(
+                runId, SettlementMismatch.MismatchType.AMOUNT_MISMATCH, Pageable.unpaged()).getTotalElements());
+    }
+
+    @Test
+    void periodBoundsTheScanAndOutsideRowsAreLookedUp() throws IOException {
+        createPayment("TXN-OLD", "60.00", Payment.PaymentStatus.COMPLETED, LocalDateTime.now().minusDays(10));
+        createPayment("TXN-LATE", "70.00", Payment.PaymentStatus.COMPLETED, LocalDateTime.now().minusDays(10));
+        createPayment("TXN-F", "80.00", Payment.PaymentStatus.FAILED, null);
+        Path file = tempDir.resolve("period.csv");
+        Files.writeString(file, String.join("\n",
+                "transaction_id,amount,status",
+                "TXN-LATE,70.00,SETTLED",
+                "TXN-F,80.00,FAILED",
+                "TXN-C,30.00,REFUNDED",
+                "TXN-A,10.00,SETTLED",
+                ""));
+        Long runId = runRepository.save(SettlementRun.builder()
+                .fileName("period.csv")
+                .periodStart(LocalDateTime.now().minusDays(1))
+                .periodEnd(LocalDateTime.now().plusDays(1))
+                .build()).getId();
+
+        ReconciliationRunResponse run = reconciliationService.reconcile(runId, file);
+
+        // A-E are scanned; TXN-F and TXN-LATE are looked up; TXN-OLD is never read
+        assertEquals("COMPLETED", run.getStatus());
+        assertEquals(7, run.getPaymentsScanned());
+        assertEquals(4, run.getMatched());
+        Map<String, String> byTransaction = reconciliationService.getMismatches(runId, null, Pageable.unpaged())
+                .stream()
+                .collect(Collectors.toMap(SettlementMismatchResponse::getTransactionId,
+                        SettlementMismatchResponse::getType));
+        assertEquals(Map.of(
+                "TXN-B", "MISSING_SETTLEMENT",
+                "TXN-D", "MISSING_SETTLEMENT"), byTransaction);
+    }
+
+    @Test
+    void uploadIsRefusedWhileAnotherRunIsInProgress() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        reconciliationExecutor.execute(() -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        try {
+            long runs = runRepository.count();
+            MockMultipartFile upload = new MockMultipartFile("file", "settlement.csv", "text/csv",
+                    "transaction_id,amount,status\nTXN-A,10.00,SETTLED\n".getBytes(StandardCharsets.UTF_8));
+
+            assertThrows(ReconciliationInProgressException.class,
+                    () -> reconciliationService.start(upload, null, null));
+            assertEquals(runs, runRepository.count());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private void createPayment(String transactionId, String amount, Payment.PaymentStatus status) {
+        createPayment(transactionId, amount, status, LocalDateTime.now());
+    }
+
+    private void createPayment(String transactionId, String amount, Payment.PaymentStatus status,
+                               LocalDateTime paidAt) {
+        sessionFactory.inTransaction(session -> {
+            Order order = TestData.order(TestData.user(session), amount)
+                    .status(Order.OrderStatus.PROCESSING)
+                    .build();
+            session.persist(order);
+            session.persist(Payment.builder()
+                    .order(order)
+                    .transactionId(transactionId)
+                    .paymentMethod("CARD")
+                    .amount(order.getTotalAmount())
+                    .status(status)
+                    .paidAt(paidAt)
+                    .build());
+        });
+    }
+}
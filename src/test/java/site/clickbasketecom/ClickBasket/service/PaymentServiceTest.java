@@ -0,0 +1,103 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.dto.payment.InitiatePaymentRequest;
+import site.clickbasketecom.ClickBasket.dto.payment.PaymentResponse;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.math.BigDecimal;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Initiating a payment, new or retried, costs at most three statements.
+ */
+@ServiceJpaTest(properties = {
+        "spring.jpa.properties.hibernate.generate_statistics=true"
+})
+@Import({PaymentService.class, OrderService.class, CartStore.class, CartPersistence.class, ProductStampIndex.class,
+        PromotionIndex.class, PromotionService.class, EmailService.class, EmailRenderer.class, AsyncConfig.class,
+        SimpleMeterRegistry.class})
+class PaymentServiceTest {
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Statistics statistics;
+    private User customer;
+    private Long orderId;
+
+    @BeforeEach
+    void setUp() {
+        statistics = sessionFactory.getStatistics();
+        sessionFactory.inTransaction(session -> {
+            customer = TestData.user(session);
+            Order order = TestData.order(customer, "25.00")
+                    .status(Order.OrderStatus.PENDING)
+                    .build();
+            session.persist(order);
+            orderId = order.getId();
+        });
+    }
+
+    @Test
+    void initiateAndRetryTakeAtMostThreeStatements() {
+        PaymentResponse first = measure(() -> paymentService.initiatePayment(customer.getId(), request()));
+        assertEquals("PENDING", first.getStatus());
+        assertEquals(0, new BigDecimal("25.00").compareTo(first.getAmount()));
+        assertEquals(Order.OrderStatus.CONFIRMED, orderStatus());
+
+        assertThrows(IllegalStateException.class, () -> paymentService.initiatePayment(customer.getId(), request()));
+
+        paymentService.simulateFailedPayment(first.getId(), null);
+        assertEquals(Order.OrderStatus.PENDING, orderStatus());
+
+        PaymentResponse retry = measure(() -> paymentService.initiatePayment(customer.getId(), request()));
+        assertEquals(first.getId(), retry.getId());
+        assertEquals("PENDING", retry.getStatus());
+        assertEquals(Order.OrderStatus.CONFIRMED, orderStatus());
+    }
+
+    @Test
+    void otherUsersOrdersAreRejected() {
+        Long strangerId = sessionFactory.fromTransaction(session -> TestData.user(session).getId());
+
+        assertThrows(IllegalArgumentException.class, () -> paymentService.initiatePayment(strangerId, request()));
+        assertEquals(Order.OrderStatus.PENDING, orderStatus());
+    }
+
+    private PaymentResponse measure(Supplier<PaymentResponse> initiate) {
+        statistics.clear();
+        PaymentResponse response = initiate.get();
+        long statements = statistics.getPrepareStatementCount();
+        assertTrue(statements <= 3, "initiatePayment ran " + statements + " statements");
+        return response;
+    }
+
+    private Order.OrderStatus orderStatus() {
+        return sessionFactory.fromTransaction(session -> session.get(Order.class, orderId).getStatus());
+    }
+
+    private InitiatePaymentRequest request() {
+        return InitiatePaymentRequest.builder()
+                .orderId(orderId)
+                .paymentMethod("CARD")
+                .cardLastFour("4242")
+                .build();
+    }
+}
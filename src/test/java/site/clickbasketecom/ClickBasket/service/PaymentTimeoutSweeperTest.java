@@ -0,0 +1,182 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Payments pending past the timeout are cancelled in batches and their orders' stock is put back.
+ * A gateway callback for a swept payment is rejected, even when it races the sweep.
+ */
+@ServiceJpaTest(properties = {
+        "app.payment.timeout.minutes=30",
+        "app.payment.timeout.batch-size=2"
+})
+@Import({PaymentTimeoutSweeper.class, PaymentService.class, OrderService.class, CartStore.class, CartPersistence.class,
+        ProductStampIndex.class, PromotionIndex.class, PromotionService.class, EmailService.class, EmailRenderer.class,
+        AsyncConfig.class, SimpleMeterRegistry.class})
+class PaymentTimeoutSweeperTest {
+
+    @Autowired
+    private PaymentTimeoutSweeper paymentTimeoutSweeper;
+
+    @Autowired
+    private PaymentService paymentService;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    private User customer;
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            customer = TestData.user(session);
+            product = TestData.product(session, TestData.vendor(session), "10.00", 90);
+            product.setSoldCount(10);
+        });
+    }
+
+    @Test
+    void expiredPaymentsAreCancelledAndStockReleased() {
+        Long[] expired = {
+                createPaidOrder(Order.OrderStatus.CONFIRMED, 45),
+                createPaidOrder(Order.OrderStatus.CONFIRMED, 60),
+                createPaidOrder(Order.OrderStatus.PENDING, 90)
+        };
+        Long fresh = createPaidOrder(Order.OrderStatus.CONFIRMED, 5);
+
+        PaymentTimeoutSweeper.SweepResult result = paymentTimeoutSweeper.sweep();
+
+        assertEquals(3, result.getPaymentsCancelled());
+        assertEquals(3, result.getOrdersCancelled());
+        assertEquals(2, result.getBatches());
+        sessionFactory.inTransaction(session -> {
+            for (Long orderId : expired) {
+                Order order = session.get(Order.class, orderId);
+                assertEquals(Order.OrderStatus.CANCELLED, order.getStatus());
+                assertEquals(Payment.PaymentStatus.CANCELLED, order.getPayment().getStatus());
+            }
+            assertEquals(Order.OrderStatus.CONFIRMED, session.get(Order.class, fresh).getStatus());
+            assertEquals(96, session.get(Product.class, product.getId()).getStockQuantity());
+        });
+
+        assertEquals(0, paymentTimeoutSweeper.sweep().getPaymentsCancelled());
+    }
+
+    @Test
+    void callbackRacingTheSweepWaitsAndIsRejected() throws Exception {
+        Long orderId = createPaidOrder(Order.OrderStatus.CONFIRMED, 45);
+        Long paymentId = paymentId(orderId);
+
+        CountDownLatch swept = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            // The sweep has cancelled the payment but not yet committed
+            Future<?> sweep = executor.submit(() -> transactionTemplate.executeWithoutResult(status -> {
+                paymentTimeoutSweeper.sweep();
+                swept.countDown();
+                await(release);
+            }));
+            assertTrue(swept.await(10, TimeUnit.SECONDS));
+
+            Future<?> callback = executor.submit(() -> paymentService.simulateSuccessfulPayment(paymentId));
+            assertThrows(TimeoutException.class, () -> callback.get(300, TimeUnit.MILLISECONDS));
+
+            release.countDown();
+            sweep.get(10, TimeUnit.SECONDS);
+            ExecutionException rejected = assertThrows(ExecutionException.class,
+                    () -> callback.get(10, TimeUnit.SECONDS));
+            assertInstanceOf(IllegalStateException.class, rejected.getCause());
+        } finally {
+            release.countDown();
+            executor.shutdownNow();
+        }
+
+        sessionFactory.inTransaction(session -> {
+            Order order = session.get(Order.class, orderId);
+            assertEquals(Order.OrderStatus.CANCELLED, order.getStatus());
+            assertEquals(Payment.PaymentStatus.CANCELLED, order.getPayment().getStatus());
+        });
+    }
+
+    @Test
+    void callbackAfterTheSweepIsRejected() {
+        Long orderId = createPaidOrder(Order.OrderStatus.CONFIRMED, 45);
+        paymentTimeoutSweeper.sweep();
+
+        assertThrows(IllegalStateException.class, () -> paymentService.simulateSuccessfulPayment(paymentId(orderId)));
+        sessionFactory.inTransaction(session -> assertEquals(Payment.PaymentStatus.CANCELLED,
+                session.get(Order.class, orderId).getPayment().getStatus()));
+    }
+
+    private Long paymentId(Long orderId) {
+        return sessionFactory.fromTransaction(session -> session.get(Order.class, orderId).getPayment().getId());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private Long createPaidOrder(Order.OrderStatus status, int ageMinutes) {
+        return sessionFactory.fromTransaction(session -> {
+            Product managed = session.get(Product.class, product.getId());
+            Order order = TestData.order(session.getReference(User.class, customer.getId()), "20.00")
+                    .status(status)
+                    .build();
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(managed)
+                    .vendor(managed.getVendor())
+                    .productName(managed.getName())
+                    .quantity(2)
+                    .unitPrice(managed.getPrice())
+                    .build());
+            Payment payment = Payment.builder()
+                    .order(order)
+                    .paymentMethod("CARD")
+                    .amount(order.getTotalAmount())
+                    .build();
+            order.setPayment(payment);
+            session.persist(order);
+            session.flush();
+
+            session.createNativeMutationQuery("UPDATE payments SET created_at = :at, updated_at = :at WHERE id = :id")
+                    .setParameter("at", LocalDateTime.now().minusMinutes(ageMinutes))
+                    .setParameter("id", payment.getId())
+                    .executeUpdate();
+            return order.getId();
+        });
+    }
+}
@@ -0,0 +1,127 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.entity.Product;
+import site.clickbasketecom.ClickBasket.repository.ProductRepository;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Stamps are loaded on a miss and replaced or invalidated only once the writing transaction commits;
+ * a load older than an invalidation is not cached.
+ */
+@ServiceJpaTest
+@Import(ProductStampIndex.class)
+class ProductStampIndexTest {
+
+    @Autowired
+    private ProductStampIndex productStampIndex;
+
+    @Autowired
+    private ProductRepository productRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Long productId;
+
+    @BeforeEach
+    void setUp() {
+        productId = sessionFactory.fromTransaction(session ->
+                TestData.product(session, TestData.vendor(session), "10.00", 100).getId());
+    }
+
+    @Test
+    void invalidatedStampIsReloadedOnlyAfterCommit() {
+        assertEquals(100, stamp().getStockQuantity());
+        setStock(90);
+        assertEquals(100, stamp().getStockQuantity(), "cached until invalidated");
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productStampIndex.invalidate(List.of(productId));
+            status.setRollbackOnly();
+        });
+        assertEquals(100, productStampIndex.peek(productId).getStockQuantity());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            productStampIndex.invalidate(List.of(productId));
+            assertEquals(100, productStampIndex.peek(productId).getStockQuantity());
+        });
+        assertNull(productStampIndex.peek(productId));
+        assertEquals(90, stamp().getStockQuantity());
+    }
+
+    @Test
+    void loadThatReadTheRowBeforeAnInvalidationIsNotCached() {
+        AtomicReference<ProductStampIndex> index = new AtomicReference<>();
+        AtomicBoolean raced = new AtomicBoolean();
+        ProductRepository racing = (ProductRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] { ProductRepository.class }, (proxy, method, args) -> {
+                    Object result = method.invoke(productRepository, args);
+                    // A bulk stock restore commits between the stamp query and the merge
+                    if (method.getName().equals("findStampsByIdIn") && raced.compareAndSet(false, true)) {
+                        setStock(90);
+                        index.get().invalidate(List.of(productId));
+                    }
+                    return result;
+                });
+        index.set(new ProductStampIndex(racing, 30_000L, 1_000L));
+
+        assertEquals(100, index.get().getAll(List.of(productId)).get(productId).getStockQuantity());
+        assertNull(index.get().peek(productId), "the stale load lost to the invalidation");
+        assertEquals(90, index.get().getAll(List.of(productId)).get(productId).getStockQuantity());
+        assertEquals(90, index.get().peek(productId).getStockQuantity());
+    }
+
+    @Test
+    void updateAndRemoveApplyAfterCommit() {
+        assertEquals(1000L, stamp().getPriceMinor());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            Product product = productRepository.findById(productId).orElseThrow();
+            product.setPrice(new BigDecimal("12.50"));
+            productStampIndex.update(product);
+            assertEquals(1000L, productStampIndex.peek(productId).getPriceMinor());
+        });
+        assertEquals(1250L, productStampIndex.peek(productId).getPriceMinor());
+
+        transactionTemplate.executeWithoutResult(status -> productStampIndex.remove(productId));
+        ProductStampIndex.Stamp removed = productStampIndex.peek(productId);
+        assertNull(removed.getStatus());
+        assertFalse(removed.isPurchasable(1));
+    }
+
+    @Test
+    void unknownProductsAreUnavailable() {
+        ProductStampIndex.Stamp stamp = productStampIndex.getAll(List.of(-1L)).get(-1L);
+
+        assertNull(stamp.getStatus());
+        assertFalse(stamp.isPurchasable(1));
+    }
+
+    private ProductStampIndex.Stamp stamp() {
+        return productStampIndex.getAll(List.of(productId)).get(productId);
+    }
+
+    private void setStock(int stock) {
+        sessionFactory.inTransaction(session -> session.get(Product.class, productId).setStockQuantity(stock));
+    }
+}
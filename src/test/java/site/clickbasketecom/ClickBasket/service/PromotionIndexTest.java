@@ -0,0 +1,132 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.junit.jupiter.api.Test;
+import site.clickbasketecom.ClickBasket.entity.Promotion;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Min-spend tiers, coupon stacking and usage limits of the in-memory promotion index,
+ * including falling back when the best rule is used up.
+ */
+class PromotionIndexTest {
+
+    private static final long CATEGORY_ID = 7L;
+
+    private final PromotionIndex index = new PromotionIndex(null);
+
+    @Test
+    void bestRuleWhoseMinSpendIsMetApplies() {
+        index.load(List.of(
+                automatic("5% off", Promotion.PromotionType.PERCENT, "5", "0", null),
+                automatic("10% over 100", Promotion.PromotionType.PERCENT, "10", "100", null),
+                automatic("20 off over 150", Promotion.PromotionType.FIXED, "20", "150", null)));
+
+        assertEquals(250L, index.evaluate(lines("50.00"), null).getPromotionDiscountMinor());
+        assertEquals(1200L, index.evaluate(lines("120.00"), null).getPromotionDiscountMinor());
+        assertEquals(2000L, index.evaluate(lines("160.00"), null).getPromotionDiscountMinor());
+        assertEquals("10% over 100", index.evaluate(lines("300.00"), null).getPromotion().getName());
+    }
+
+    @Test
+    void couponStacksWithTheBestAutomaticPromotion() {
+        Promotion coupon = automatic("Save 5", Promotion.PromotionType.FIXED, "5", "0", null);
+        coupon.setCode("save5");
+        Promotion category = automatic("Category 10%", Promotion.PromotionType.PERCENT, "10", "0", null);
+        category.setScope(Promotion.PromotionScope.CATEGORY);
+        category.setScopeId(CATEGORY_ID);
+        index.load(List.of(coupon, category,
+                automatic("Cart 2%", Promotion.PromotionType.PERCENT, "2", "0", null)));
+
+        PromotionIndex.Evaluation evaluation = index.evaluate(lines("100.00"), " SAVE5 ");
+
+        assertEquals(500L, evaluation.getCouponDiscountMinor());
+        assertEquals("Category 10%", evaluation.getPromotion().getName());
+        assertEquals(1500L, evaluation.getDiscountMinor());
+        assertEquals(2, evaluation.getAppliedRules().size());
+        assertEquals("Coupon is no longer valid", index.evaluate(lines("100.00"), "NOPE").getCouponMessage());
+    }
+
+    @Test
+    void exhaustedBestTieredRuleFallsBackToNextLiveRule() {
+        index.load(List.of(
+                automatic("20% once", Promotion.PromotionType.PERCENT, "20", "0", 1),
+                automatic("10% always", Promotion.PromotionType.PERCENT, "10", "0", null)));
+
+        PromotionIndex.Rule best = index.evaluate(lines("100.00"), null).getPromotion();
+        assertEquals("20% once", best.getName());
+        assertTrue(best.tryAcquire());
+
+        PromotionIndex.Evaluation fallback = index.evaluate(lines("100.00"), null);
+        assertEquals("10% always", fallback.getPromotion().getName());
+        assertEquals(1000L, fallback.getPromotionDiscountMinor());
+    }
+
+    @Test
+    void exhaustedBuyXGetYRuleFallsBackToSameShape() {
+        Promotion once = automatic("Buy 2 get 1 once", Promotion.PromotionType.BUY_X_GET_Y, "0", "0", 1);
+        Promotion always = automatic("Buy 2 get 1 over 20", Promotion.PromotionType.BUY_X_GET_Y, "0", "20", null);
+        for (Promotion promotion : List.of(once, always)) {
+            promotion.setBuyQuantity(2);
+            promotion.setGetQuantity(1);
+        }
+        index.load(List.of(once, always));
+
+        // Three units at 10.00: one is free
+        PromotionIndex.Rule best = index.evaluate(lines("10.00", 3), null).getPromotion();
+        assertEquals("Buy 2 get 1 once", best.getName());
+        assertTrue(best.tryAcquire());
+
+        PromotionIndex.Evaluation fallback = index.evaluate(lines("10.00", 3), null);
+        assertEquals("Buy 2 get 1 over 20", fallback.getPromotion().getName());
+        assertEquals(1000L, fallback.getPromotionDiscountMinor());
+    }
+
+    @Test
+    void usageLimitIsEnforcedAndReleasedUsesCanBeTakenAgain() {
+        index.load(List.of(automatic("Twice", Promotion.PromotionType.FIXED, "5", "0", 2)));
+        PromotionIndex.Rule rule = index.evaluate(lines("50.00"), null).getPromotion();
+
+        assertTrue(rule.tryAcquire());
+        assertTrue(rule.tryAcquire());
+        assertFalse(rule.tryAcquire());
+        assertNull(index.evaluate(lines("50.00"), null).getPromotion());
+
+        rule.release();
+        assertTrue(rule.isLive(System.currentTimeMillis()));
+        assertEquals(rule, index.evaluate(lines("50.00"), null).getPromotion());
+    }
+
+    private static Promotion automatic(String name, Promotion.PromotionType type, String value, String minSpend,
+                                       Integer usageLimit) {
+        return Promotion.builder()
+                .name(name)
+                .type(type)
+                .scope(Promotion.PromotionScope.CART)
+                .discountValue(new BigDecimal(value))
+                .minSpend(new BigDecimal(minSpend))
+                .usageLimit(usageLimit)
+                .isActive(true)
+                .build();
+    }
+
+    private static List<CartStore.Line> lines(String unitPrice) {
+        return lines(unitPrice, 1);
+    }
+
+    private static List<CartStore.Line> lines(String unitPrice, int quantity) {
+        return List.of(CartStore.Line.builder()
+                .productId(1L)
+                .categoryId(CATEGORY_ID)
+                .vendorId(3L)
+                .quantity(quantity)
+                .unitPrice(new BigDecimal(unitPrice))
+                .build());
+    }
+}
@@ -0,0 +1,89 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.entity.Promotion;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Redeeming a promotion counts its use in memory and in the database, and a rolled-back order gives it back.
+ */
+@ServiceJpaTest
+@Import({PromotionService.class, PromotionIndex.class})
+class PromotionServiceTest {
+
+    @Autowired
+    private PromotionService promotionService;
+
+    @Autowired
+    private PromotionIndex promotionIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Long promotionId;
+
+    @BeforeEach
+    void setUp() {
+        promotionId = sessionFactory.fromTransaction(session -> {
+            Promotion promotion = Promotion.builder()
+                    .name("Launch offer")
+                    .type(Promotion.PromotionType.PERCENT)
+                    .discountValue(new BigDecimal("10"))
+                    .minSpend(BigDecimal.ZERO)
+                    .usageLimit(1)
+                    .build();
+            session.persist(promotion);
+            return promotion.getId();
+        });
+        promotionIndex.refresh();
+    }
+
+    @Test
+    void rolledBackRedemptionIsReleasedAndCommittedOneExhaustsTheLimit() {
+        PromotionIndex.Evaluation evaluation = promotionIndex.evaluate(lines(), null);
+        PromotionIndex.Rule rule = evaluation.getPromotion();
+        assertEquals(promotionId, rule.getId());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            promotionService.redeem(evaluation);
+            status.setRollbackOnly();
+        });
+        assertEquals(0, rule.getUsed().get());
+        assertEquals(0, usageCount());
+
+        transactionTemplate.executeWithoutResult(status -> promotionService.redeem(evaluation));
+        assertEquals(1, usageCount());
+        assertNull(promotionIndex.evaluate(lines(), null).getPromotion());
+
+        assertThrows(IllegalStateException.class,
+                () -> transactionTemplate.executeWithoutResult(status -> promotionService.redeem(evaluation)));
+        assertEquals(1, usageCount());
+    }
+
+    private int usageCount() {
+        return sessionFactory.fromTransaction(session -> session.get(Promotion.class, promotionId).getUsageCount());
+    }
+
+    private static List<CartStore.Line> lines() {
+        return List.of(CartStore.Line.builder()
+                .productId(1L)
+                .quantity(2)
+                .unitPrice(new BigDecimal("25.00"))
+                .build());
+    }
+}
@@ -0,0 +1,162 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.entity.RefreshToken;
+import site.clickbasketecom.ClickBasket.entity.User;
+import site.clickbasketecom.ClickBasket.security.JwtUtil;
+import site.clickbasketecom.ClickBasket.security.TokenRevocationIndex;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Refresh tokens rotate once; presenting a rotated token, even concurrently with its rotation,
+ * revokes the whole session, including tokens committed meanwhile, and the revocation index only
+ * sees committed revocations.
+ */
+@ServiceJpaTest
+@Import({RefreshTokenService.class, TokenRevocationIndex.class, JwtUtil.class})
+class RefreshTokenServiceTest {
+
+    @Autowired
+    private RefreshTokenService refreshTokenService;
+
+    @Autowired
+    private TokenRevocationIndex revocationIndex;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private User user;
+
+    @BeforeEach
+    void setUp() {
+        user = sessionFactory.fromTransaction(TestData::user);
+    }
+
+    @Test
+    void rotationReplacesTokenAndReuseRevokesSession() {
+        RefreshTokenService.IssuedTokens first = refreshTokenService.issueTokens(user);
+        RefreshTokenService.IssuedTokens second = refreshTokenService.rotate(first.getRefreshToken());
+
+        assertNotEquals(first.getTokenId(), second.getTokenId());
+        assertEquals(jwtUtil.extractSessionId(first.getRefreshToken()),
+                jwtUtil.extractSessionId(second.getRefreshToken()));
+        RefreshToken rotated = token(first.getTokenId());
+        assertTrue(rotated.getRevoked());
+        assertEquals(second.getTokenId(), rotated.getReplacedBy());
+        assertTrue(revocationIndex.isRevoked(first.getTokenId()));
+
+        // The old token comes back: the current one stops working too
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(first.getRefreshToken()));
+        assertTrue(token(second.getTokenId()).getRevoked());
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(second.getRefreshToken()));
+    }
+
+    @Test
+    void concurrentRotationsOfOneTokenLetOneWinAndRevokeTheSession() throws Exception {
+        RefreshTokenService.IssuedTokens issued = refreshTokenService.issueTokens(user);
+        int threads = 4;
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<RefreshTokenService.IssuedTokens>> results = new ArrayList<>();
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    return refreshTokenService.rotate(issued.getRefreshToken());
+                }));
+            }
+            start.countDown();
+
+            List<RefreshTokenService.IssuedTokens> winners = new ArrayList<>();
+            for (Future<RefreshTokenService.IssuedTokens> result : results) {
+                try {
+                    winners.add(result.get());
+                } catch (Exception e) {
+                    // Losers are rejected
+                }
+            }
+            assertEquals(1, winners.size());
+            assertThrows(BadCredentialsException.class,
+                    () -> refreshTokenService.rotate(winners.get(0).getRefreshToken()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    void tokenCommittedInTheSessionDuringRevocationIsRevokedAfterCommit() throws Exception {
+        RefreshTokenService.IssuedTokens issued = refreshTokenService.issueTokens(user);
+        String sessionId = jwtUtil.extractSessionId(issued.getRefreshToken());
+        String lateTokenId = UUID.randomUUID().toString();
+
+        transactionTemplate.executeWithoutResult(status -> {
+            refreshTokenService.revoke(issued.getRefreshToken());
+            // A concurrent rotation of the session commits its new token before this revocation does
+            CompletableFuture.runAsync(() -> sessionFactory.inTransaction(session -> session.persist(
+                    RefreshToken.builder()
+                            .tokenId(lateTokenId)
+                            .sessionId(sessionId)
+                            .user(session.getReference(User.class, user.getId()))
+                            .expiresAt(LocalDateTime.now().plusDays(1))
+                            .revoked(false)
+                            .build()))).join();
+        });
+
+        assertTrue(token(issued.getTokenId()).getRevoked());
+        assertTrue(token(lateTokenId).getRevoked(), "survives a restart as revoked");
+    }
+
+    @Test
+    void revocationsReachTheIndexOnlyOnCommit() {
+        RefreshTokenService.IssuedTokens issued = refreshTokenService.issueTokens(user);
+        String sessionId = jwtUtil.extractSessionId(issued.getRefreshToken());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            refreshTokenService.revoke(issued.getRefreshToken());
+            assertFalse(revocationIndex.isRevoked(sessionId));
+            status.setRollbackOnly();
+        });
+        assertFalse(revocationIndex.isRevoked(sessionId));
+        assertFalse(token(issued.getTokenId()).getRevoked());
+
+        refreshTokenService.revokeAllForUser(user.getId());
+        assertTrue(revocationIndex.isRevoked(sessionId));
+        assertThrows(BadCredentialsException.class, () -> refreshTokenService.rotate(issued.getRefreshToken()));
+    }
+
+    private RefreshToken token(String tokenId) {
+        return sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery("FROM RefreshToken t WHERE t.tokenId = :tokenId", RefreshToken.class)
+                .setParameter("tokenId", tokenId)
+                .getSingleResult());
+    }
+}
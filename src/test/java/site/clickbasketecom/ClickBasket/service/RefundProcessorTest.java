@@ -0,0 +1,144 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import site.clickbasketecom.ClickBasket.config.AsyncConfig;
+import site.clickbasketecom.ClickBasket.dto.payment.RefundRequest;
+import site.clickbasketecom.ClickBasket.dto.payment.RefundResponse;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Refunds are submitted in batches and rolled up into payments, orders and stock.
+ */
+@ServiceJpaTest(properties = {
+        "app.payment.refunds.batch-size=2"
+})
+@Import({RefundProcessor.class, RefundService.class, SimulatedRefundGateway.class, OrderService.class,
+        CartStore.class, CartPersistence.class, ProductStampIndex.class, PromotionIndex.class,
+        PromotionService.class, EmailService.class, EmailRenderer.class, AsyncConfig.class, SimpleMeterRegistry.class})
+class RefundProcessorTest {
+
+    @Autowired
+    private RefundProcessor refundProcessor;
+
+    @Autowired
+    private RefundService refundService;
+
+    @Autowired
+    private OrderService orderService;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Product product;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            product = TestData.product(session, TestData.vendor(session), "10.00", 90);
+            product.setSoldCount(10);
+        });
+    }
+
+    @Test
+    void partialThenFullRefundOfReturnedOrderRestocksOnce() {
+        Long[] ids = createPaidOrder(Order.OrderStatus.RETURNED, OrderItem.FulfillmentStatus.RETURNED);
+        Long orderId = ids[0];
+        Long paymentId = ids[1];
+
+        refundService.requestRefund(paymentId, RefundRequest.builder().amount(new BigDecimal("5.00")).build());
+        assertEquals(1, refundProcessor.process().getCompleted());
+        sessionFactory.inTransaction(session -> {
+            Payment payment = session.get(Payment.class, paymentId);
+            assertEquals(Payment.PaymentStatus.PARTIALLY_REFUNDED, payment.getStatus());
+            assertEquals(0, new BigDecimal("5.00").compareTo(payment.getRefundAmount()));
+            assertEquals(Order.OrderStatus.RETURNED, session.get(Order.class, orderId).getStatus());
+            assertEquals(90, session.get(Product.class, product.getId()).getStockQuantity());
+        });
+
+        RefundResponse rest = refundService.requestRefund(paymentId, RefundRequest.builder().reason("Returned").build());
+        assertEquals(0, new BigDecimal("15.00").compareTo(rest.getAmount()));
+        assertThrows(IllegalStateException.class, () -> refundService.requestRefund(paymentId,
+                RefundRequest.builder().amount(new BigDecimal("1.00")).build()));
+
+        assertEquals(1, refundProcessor.process().getCompleted());
+        sessionFactory.inTransaction(session -> {
+            Payment payment = session.get(Payment.class, paymentId);
+            assertEquals(Payment.PaymentStatus.REFUNDED, payment.getStatus());
+            assertEquals(0, new BigDecimal("20.00").compareTo(payment.getRefundAmount()));
+            assertEquals("Returned", payment.getRefundReason());
+            assertEquals(Order.OrderStatus.REFUNDED, session.get(Order.class, orderId).getStatus());
+            assertEquals(92, session.get(Product.class, product.getId()).getStockQuantity());
+        });
+        assertEquals(0, refundProcessor.process().getBatches());
+    }
+
+    @Test
+    void cancellingPaidOrdersRequestsRefunds() {
+        List<Long[]> orders = List.of(
+                createPaidOrder(Order.OrderStatus.PROCESSING, OrderItem.FulfillmentStatus.PENDING),
+                createPaidOrder(Order.OrderStatus.PROCESSING, OrderItem.FulfillmentStatus.PENDING),
+                createPaidOrder(Order.OrderStatus.PROCESSING, OrderItem.FulfillmentStatus.PENDING));
+        for (Long[] ids : orders) {
+            orderService.updateOrderStatus(ids[0], "CANCELLED");
+        }
+        assertEquals(1, refundService.getRefunds(orders.get(0)[1]).size());
+
+        RefundProcessor.ProcessResult result = refundProcessor.process();
+
+        assertEquals(3, result.getCompleted());
+        assertEquals(2, result.getBatches());
+        sessionFactory.inTransaction(session -> {
+            for (Long[] ids : orders) {
+                assertEquals(Order.OrderStatus.REFUNDED, session.get(Order.class, ids[0]).getStatus());
+                assertEquals(Payment.PaymentStatus.REFUNDED, session.get(Payment.class, ids[1]).getStatus());
+            }
+            // Stock comes back once, when the order is cancelled
+            assertEquals(96, session.get(Product.class, product.getId()).getStockQuantity());
+        });
+    }
+
+    /**
+     * Returns {orderId, paymentId} of an order of two units paid in full.
+     */
+    private Long[] createPaidOrder(Order.OrderStatus status, OrderItem.FulfillmentStatus fulfillment) {
+        return sessionFactory.fromTransaction(session -> {
+            Product managed = session.get(Product.class, product.getId());
+            Order order = TestData.order(TestData.user(session), "20.00")
+                    .status(status)
+                    .build();
+            order.getItems().add(OrderItem.builder()
+                    .order(order)
+                    .product(managed)
+                    .vendor(managed.getVendor())
+                    .productName(managed.getName())
+                    .quantity(2)
+                    .unitPrice(managed.getPrice())
+                    .fulfillmentStatus(fulfillment)
+                    .build());
+            Payment payment = Payment.builder()
+                    .order(order)
+                    .transactionId("TXN-" + UUID.randomUUID())
+                    .paymentMethod("CARD")
+                    .amount(order.getTotalAmount())
+                    .status(Payment.PaymentStatus.COMPLETED)
+                    .build();
+            order.setPayment(payment);
+            session.persist(order);
+            return new Long[] { order.getId(), payment.getId() };
+        });
+    }
+}
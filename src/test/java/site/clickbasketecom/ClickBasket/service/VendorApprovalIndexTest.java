@@ -0,0 +1,73 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.entity.Vendor;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Approval checks are served from memory, within max-entries, and see status changes only
+ * once they commit.
+ */
+@ServiceJpaTest(properties = "app.vendor.approval-index.max-entries=2")
+@Import(VendorApprovalIndex.class)
+class VendorApprovalIndexTest {
+
+    @Autowired
+    private VendorApprovalIndex vendorApprovalIndex;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    @Test
+    void holdsAtMostMaxEntries() {
+        List<Vendor> vendors = sessionFactory.fromTransaction(session -> List.of(
+                TestData.vendor(session), TestData.vendor(session), TestData.vendor(session)));
+
+        for (Vendor vendor : vendors) {
+            VendorApprovalIndex.Entry entry = vendorApprovalIndex.get(vendor.getUser().getId()).orElseThrow();
+            assertEquals(vendor.getId(), entry.getVendorId());
+            assertTrue(entry.isApproved());
+        }
+
+        assertTrue(vendorApprovalIndex.size() <= 2, "size " + vendorApprovalIndex.size());
+        assertFalse(vendorApprovalIndex.get(-1L).isPresent());
+    }
+
+    @Test
+    void statusChangesApplyOnCommit() {
+        Vendor vendor = sessionFactory.fromTransaction(TestData::vendor);
+        Long userId = vendor.getUser().getId();
+        assertTrue(vendorApprovalIndex.get(userId).orElseThrow().isApproved());
+
+        transactionTemplate.executeWithoutResult(status -> {
+            vendorApprovalIndex.update(userId, vendor.getId(), Vendor.VendorStatus.SUSPENDED);
+            status.setRollbackOnly();
+        });
+        assertTrue(vendorApprovalIndex.get(userId).orElseThrow().isApproved());
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+        transactionTemplate.executeWithoutResult(status ->
+                vendorApprovalIndex.update(userId, vendor.getId(), Vendor.VendorStatus.SUSPENDED));
+
+        VendorApprovalIndex.Entry entry = vendorApprovalIndex.get(userId).orElseThrow();
+        assertEquals(Vendor.VendorStatus.SUSPENDED, entry.getStatus());
+        assertEquals(0, statistics.getPrepareStatementCount());
+    }
+}
@@ -0,0 +1,124 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.support.TransactionTemplate;
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.entity.OrderItem;
+import site.clickbasketecom.ClickBasket.entity.OutboundEmail;
+import site.clickbasketecom.ClickBasket.entity.Vendor;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * New-order notifications of vendors on digests are held until the window closes and then
+ * sent as one email; other vendors still get one email per order.
+ */
+@ServiceJpaTest
+@Import({VendorDigestSweeper.class, EmailService.class, EmailRenderer.class, SimpleMeterRegistry.class})
+class VendorDigestSweeperTest {
+
+    @Autowired
+    private VendorDigestSweeper vendorDigestSweeper;
+
+    @Autowired
+    private EmailService emailService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private Vendor digestVendor;
+    private Vendor perOrderVendor;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("DELETE FROM OutboundEmail").executeUpdate();
+
+            digestVendor = TestData.vendor(session);
+            digestVendor.setNotificationMode(Vendor.NotificationMode.DIGEST);
+            digestVendor.setDigestWindowMinutes(30);
+            perOrderVendor = TestData.vendor(session);
+            perOrderVendor.setBusinessEmail("orders@busy.test");
+        });
+    }
+
+    @Test
+    void heldNotificationsAreFoldedIntoOneDigestWhenTheWindowCloses() {
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < 3; i++) {
+                notify(digestVendor, "ORD-D" + i);
+            }
+            notify(perOrderVendor, "ORD-P0");
+        });
+
+        assertEquals(3, count(OutboundEmail.EmailStatus.HELD));
+        assertEquals(1, count(OutboundEmail.EmailStatus.PENDING));
+        assertEquals(0, vendorDigestSweeper.sweep().getDigests(), "window is still open");
+
+        sessionFactory.inTransaction(session -> session
+                .createMutationQuery("UPDATE OutboundEmail e SET e.nextAttemptAt = :due WHERE e.status = :held")
+                .setParameter("due", LocalDateTime.now().minusSeconds(1))
+                .setParameter("held", OutboundEmail.EmailStatus.HELD)
+                .executeUpdate());
+
+        VendorDigestSweeper.SweepResult result = vendorDigestSweeper.sweep();
+        assertEquals(1, result.getDigests());
+        assertEquals(3, result.getOrders());
+        assertEquals(0, count(OutboundEmail.EmailStatus.HELD));
+
+        OutboundEmail digest = sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery("FROM OutboundEmail e WHERE e.recipient = :recipient", OutboundEmail.class)
+                .setParameter("recipient", digestVendor.getUser().getEmail())
+                .getSingleResult());
+        assertEquals(OutboundEmail.EmailStatus.PENDING, digest.getStatus());
+        assertTrue(digest.getSubject().contains("(3)"));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(digest.getBody().contains("ORD-D" + i));
+        }
+        assertEquals(0, vendorDigestSweeper.sweep().getDigests());
+    }
+
+    private void notify(Vendor vendor, String orderNumber) {
+        Order order = Order.builder()
+                .orderNumber(orderNumber)
+                .shippingName("Jane Buyer")
+                .shippingPhone("5550100")
+                .shippingAddress("1 Main St")
+                .shippingCity("Pune")
+                .shippingState("MH")
+                .shippingCountry("IN")
+                .shippingZip("411001")
+                .build();
+        OrderItem item = OrderItem.builder()
+                .order(order)
+                .vendor(vendor)
+                .productName("Widget")
+                .productSku("W-1")
+                .quantity(2)
+                .unitPrice(new BigDecimal("4.50"))
+                .build();
+        emailService.sendVendorOrderNotificationEmail(order, vendor, List.of(item));
+    }
+
+    private long count(OutboundEmail.EmailStatus status) {
+        return sessionFactory.fromTransaction(session -> session
+                .createSelectionQuery("SELECT count(e) FROM OutboundEmail e WHERE e.status = :status", Long.class)
+                .setParameter("status", status)
+                .getSingleResult());
+    }
+}
@@ -0,0 +1,145 @@
+package site.clickbasketecom.ClickBasket.service;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Import;
+import site.clickbasketecom.ClickBasket.dto.order.BulkFulfillmentRequest;
+import site.clickbasketecom.ClickBasket.dto.order.BulkFulfillmentResponse;
+import site.clickbasketecom.ClickBasket.dto.order.VendorOrderQueueResponse;
+import site.clickbasketecom.ClickBasket.dto.order.VendorOrderResponse;
+import site.clickbasketecom.ClickBasket.entity.*;
+import site.clickbasketecom.ClickBasket.support.ServiceJpaTest;
+import site.clickbasketecom.ClickBasket.support.TestData;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Vendor queues page by keyset and bulk status changes run as a fixed number of statements.
+ */
+@ServiceJpaTest
+@Import({VendorOrderService.class, VendorService.class, VendorApprovalIndex.class})
+class VendorOrderServiceTest {
+
+    @Autowired
+    private VendorOrderService vendorOrderService;
+
+    @Autowired
+    private SessionFactory sessionFactory;
+
+    private User owner;
+    private Vendor vendor;
+    private Product product;
+    private Product otherProduct;
+
+    @BeforeEach
+    void setUp() {
+        sessionFactory.inTransaction(session -> {
+            vendor = TestData.vendor(session);
+            owner = vendor.getUser();
+            product = TestData.product(session, vendor, "10.00", 100);
+            otherProduct = TestData.product(session, TestData.vendor(session), "10.00", 100);
+        });
+    }
+
+    @Test
+    void queueIsPagedByKeyset() {
+        for (int i = 0; i < 5; i++) {
+            placeOrder(false);
+        }
+
+        VendorOrderQueueResponse first = vendorOrderService.getQueue(owner.getId(),
+                OrderItem.FulfillmentStatus.PENDING, null, 3);
+        VendorOrderQueueResponse second = vendorOrderService.getQueue(owner.getId(),
+                OrderItem.FulfillmentStatus.PENDING, first.getNextAfterId(), 3);
+
+        assertEquals(3, first.getOrders().size());
+        assertTrue(first.getHasMore());
+        assertEquals(2, second.getOrders().size());
+        assertFalse(second.getHasMore());
+        assertTrue(second.getOrders().get(0).getId() > first.getNextAfterId());
+        assertTrue(first.getOrders().stream().map(VendorOrderResponse::getItems).allMatch(items -> items.size() == 1));
+    }
+
+    @Test
+    void bulkShipUsesFixedStatementCountAndRollsUpOrders() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 40; i++) {
+            ids.add(placeOrder(false));
+        }
+        Long shared = placeOrder(true);
+        ids.add(shared);
+
+        Statistics statistics = sessionFactory.getStatistics();
+        statistics.setStatisticsEnabled(true);
+        statistics.clear();
+
+        BulkFulfillmentResponse response = vendorOrderService.updateStatus(owner.getId(),
+                BulkFulfillmentRequest.builder()
+                        .vendorOrderIds(ids)
+                        .status(OrderItem.FulfillmentStatus.SHIPPED)
+                        .trackingNumber("TRACK-1")
+                        .build());
+
+        assertEquals(41, response.getUpdated());
+        assertEquals(41, response.getItemsUpdated());
+        assertEquals(40, response.getOrdersUpdated(), "the order with another vendor's items waits for it");
+        assertTrue(statistics.getPrepareStatementCount() <= 7,
+                "statements: " + statistics.getPrepareStatementCount());
+
+        VendorOrderQueueResponse shipped = vendorOrderService.getQueue(owner.getId(),
+                OrderItem.FulfillmentStatus.SHIPPED, null, 100);
+        assertEquals(41, shipped.getOrders().size());
+        assertTrue(shipped.getOrders().stream().allMatch(order -> "TRACK-1".equals(order.getTrackingNumber())));
+
+        BulkFulfillmentResponse again = vendorOrderService.updateStatus(owner.getId(),
+                BulkFulfillmentRequest.builder()
+                        .vendorOrderIds(ids)
+                        .status(OrderItem.FulfillmentStatus.PROCESSING)
+                        .build());
+        assertEquals(0, again.getUpdated());
+    }
+
+    private Long placeOrder(boolean withOtherVendor) {
+        return sessionFactory.fromTransaction(session -> {
+            Order order = TestData.order(session.getReference(User.class, owner.getId()), "10.00")
+                    .status(Order.OrderStatus.PROCESSING)
+                    .build();
+            VendorOrder vendorOrder = addVendorOrder(session, order, product);
+            if (withOtherVendor) {
+                addVendorOrder(session, order, otherProduct);
+            }
+            session.persist(order);
+            return vendorOrder.getId();
+        });
+    }
+
+    private VendorOrder addVendorOrder(Session session, Order order, Product item) {
+        Product managed = session.get(Product.class, item.getId());
+        VendorOrder vendorOrder = VendorOrder.builder()
+                .order(order)
+                .vendor(managed.getVendor())
+                .subtotal(managed.getPrice())
+                .itemCount(1)
+                .build();
+        order.getVendorOrders().add(vendorOrder);
+        order.getItems().add(OrderItem.builder()
+                .order(order)
+                .product(managed)
+                .vendor(managed.getVendor())
+                .vendorOrder(vendorOrder)
+                .productName(managed.getName())
+                .quantity(1)
+                .unitPrice(managed.getPrice())
+                .build());
+        return vendorOrder;
+    }
+}
@@ -0,0 +1,86 @@
+package site.clickbasketecom.ClickBasket.support;
+
+import org.hibernate.Session;
+import site.clickbasketecom.ClickBasket.entity.Category;
+import site.clickbasketecom.ClickBasket.entity.Order;
+import site.clickbasketecom.ClickBasket.entity.Product;
+import site.clickbasketecom.ClickBasket.entity.User;
+import site.clickbasketecom.ClickBasket.entity.Vendor;
+
+import java.math.BigDecimal;
+import java.util.UUID;
+
+/**
+ * Seed data shared by the service tests.
+ * Every row gets unique natural keys (email, store name, slugs, order number), so tests sharing
+ * the H2 database of a cached context never collide.
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    /**
+     * Persist a customer account.
+     */
+    public static User user(Session session) {
+        User user = User.builder()
+                .firstName("Test")
+                .lastName("Customer")
+                .email(UUID.randomUUID() + "@test.com")
+                .password("secret")
+                .build();
+        session.persist(user);
+        return user;
+    }
+
+    /**
+     * Persist an approved vendor, owned by a new user.
+     */
+    public static Vendor vendor(Session session) {
+        Vendor vendor = Vendor.builder()
+                .user(user(session))
+                .storeName("Store " + UUID.randomUUID())
+                .status(Vendor.VendorStatus.APPROVED)
+                .build();
+        session.persist(vendor);
+        return vendor;
+    }
+
+    /**
+     * Persist an active product of the vendor, in a category of its own.
+     */
+    public static Product product(Session session, Vendor vendor, String price, int stock) {
+        Category category = Category.builder().name("Test").slug("test-" + UUID.randomUUID()).build();
+        session.persist(category);
+        Product product = Product.builder()
+                .vendor(vendor)
+                .category(category)
+                .name("Widget")
+                .slug("widget-" + UUID.randomUUID())
+                .price(new BigDecimal(price))
+                .stockQuantity(stock)
+                .status(Product.ProductStatus.ACTIVE)
+                .build();
+        session.persist(product);
+        return product;
+    }
+
+    /**
+     * An order of the user for the amount, with shipping details filled in; not persisted.
+     */
+    public static Order.OrderBuilder order(User user, String amount) {
+        return Order.builder()
+                .user(user)
+                .orderNumber("ORD-" + UUID.randomUUID())
+                .subtotal(new BigDecimal(amount))
+                .totalAmount(new BigDecimal(amount))
+                .shippingName("Ship To")
+                .shippingPhone("5550100")
+                .shippingAddress("1 Main St")
+                .shippingCity("City")
+                .shippingState("State")
+                .shippingZip("12345")
+                .shippingCountry("Country");
+    }
+}